@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp;
+
+import java.util.Random;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ * Maps of the benchmarks. The name of the map is either the name of the
+ * bundled map (cities_020 ... full_circle_305), or random_N - N random cities
+ * in the square of 500x500 km. The random maps are the same in every run.
+ *
+ * The distance cache has n^2 doubles, so the benchmarks using the cache run
+ * with maps up to City.MAX_CACHED_CITIES cities.
+ */
+public class BenchmarkMaps {
+
+   /**
+    * prefix of the names of the random maps
+    */
+   public static final String RANDOM_PREFIX="random_";
+
+   /**
+    * size of the square of the random maps in meters
+    */
+   protected static final int RANDOM_MAP_SIZE=500000;
+
+   /**
+    * @param map - name of the map
+    * @param distanceCache - true to initialize the distance cache of the cities
+    * @return cities of the map, indexed by city id
+    * @throws IllegalArgumentException if the cache is required for map bigger
+    * than City.MAX_CACHED_CITIES
+    */
+   public static City[] load(String map, boolean distanceCache) {
+      TSP tsp=new TSP(false);
+      City cities[]=null;
+      if(map.startsWith(RANDOM_PREFIX)) {
+         int count=Integer.parseInt(map.substring(RANDOM_PREFIX.length()));
+         Random rnd=new Random(count);
+         cities=new City[count];
+         for(int i=0; i<count; i++) {
+            cities[i]=new City(i,tsp.configuration,"c"+i,rnd.nextInt(RANDOM_MAP_SIZE),rnd.nextInt(RANDOM_MAP_SIZE));
+         }
+      } else {
+         tsp.mapFile=map;
+      }
+      if(distanceCache && cities!=null && cities.length>City.MAX_CACHED_CITIES) {
+         throw new IllegalArgumentException("The distance cache of map "+map+" is too big, at most "
+                  +City.MAX_CACHED_CITIES+" cities are supported.");
+      }
+      tsp.loadCities(cities,distanceCache);
+      return tsp.cities;
+   }
+
+   /**
+    * @param cities - cities of the map
+    * @param rnd - random generator
+    * @return random tour through the cities
+    */
+   public static City[] randomTour(City cities[], Random rnd) {
+      City tour[]=cities.clone();
+      for(int i=tour.length-1; i>0; i--) {
+         int j=rnd.nextInt(i+1);
+         City swap=tour[i];
+         tour[i]=tour[j];
+         tour[j]=swap;
+      }
+      return tour;
+   }
+}
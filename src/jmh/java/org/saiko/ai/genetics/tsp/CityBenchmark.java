@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ * City.distance benchmark - the distances of random pairs of cities with
+ * and without the distance cache. The cache is filled before the measurement.
+ * @see org.saiko.ai.genetics.tsp.City#distance(City, boolean)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations=3, time=1)
+@Measurement(iterations=5, time=1)
+public class CityBenchmark {
+
+   /**
+    * number of pairs of cities measured in one invocation
+    */
+   static final int PAIRS=1024;
+
+   /**
+    * Random pairs of cities of the map
+    */
+   public static class Pairs {
+      /** cities the distance is measured from */
+      City from[]=new City[PAIRS];
+
+      /** cities the distance is measured to */
+      City to[]=new City[PAIRS];
+
+      /**
+       * @param map - name of the map
+       * @param distanceCache - true to initialize the distance cache
+       */
+      void load(String map, boolean distanceCache) {
+         City cities[]=BenchmarkMaps.load(map,distanceCache);
+         Random rnd=new Random(1);
+         for(int i=0; i<PAIRS; i++) {
+            from[i]=cities[rnd.nextInt(cities.length)];
+            to[i]=cities[rnd.nextInt(cities.length)];
+            if(distanceCache) {
+               from[i].distance(to[i],true);
+            }
+         }
+      }
+   }
+
+   /**
+    * Pairs of cities with the distance cache
+    */
+   @State(Scope.Benchmark)
+   public static class CachedPairs extends Pairs {
+      /** name of the map */
+      @Param({"cities_020", "cities_050", "cities_100", "cities_150", "cities_192", "circle_120", "circle_150",
+               "line_100", "spiral_263", "square_15x15", "triangle_15x15", "full_circle_305",
+               "random_1000", "random_5000"})
+      String map;
+
+      /**
+       * Loads the map
+       */
+      @Setup
+      public void setUp() {
+         load(map,true);
+      }
+   }
+
+   /**
+    * Pairs of cities without the distance cache, including the maps too big
+    * for the cache
+    */
+   @State(Scope.Benchmark)
+   public static class UncachedPairs extends Pairs {
+      /** name of the map */
+      @Param({"cities_020", "cities_050", "cities_100", "cities_150", "cities_192", "circle_120", "circle_150",
+               "line_100", "spiral_263", "square_15x15", "triangle_15x15", "full_circle_305",
+               "random_1000", "random_5000", "random_10000", "random_100000"})
+      String map;
+
+      /**
+       * Loads the map
+       */
+      @Setup
+      public void setUp() {
+         load(map,false);
+      }
+   }
+
+   /**
+    * @param pairs
+    * @return sum of the distances, so the computation is not eliminated
+    */
+   @Benchmark
+   @OperationsPerInvocation(PAIRS)
+   public double distanceCached(CachedPairs pairs) {
+      double sum=0;
+      for(int i=0; i<PAIRS; i++) {
+         sum+=pairs.from[i].distance(pairs.to[i],true);
+      }
+      return sum;
+   }
+
+   /**
+    * @param pairs
+    * @return sum of the distances, so the computation is not eliminated
+    */
+   @Benchmark
+   @OperationsPerInvocation(PAIRS)
+   public double distanceUncached(UncachedPairs pairs) {
+      double sum=0;
+      for(int i=0; i<PAIRS; i++) {
+         sum+=pairs.from[i].distance(pairs.to[i],false);
+      }
+      return sum;
+   }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ * TSPChromosome.computeCost benchmark - the cost of a random tour, the
+ * distance cache is filled before the measurement.
+ * @see org.saiko.ai.genetics.tsp.TSPChromosome#computeCost()
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations=3, time=1)
+@Measurement(iterations=5, time=1)
+public class TSPChromosomeBenchmark {
+
+   /**
+    * name of the map
+    */
+   @Param({"cities_020", "cities_050", "cities_100", "cities_150", "cities_192", "circle_120", "circle_150",
+            "line_100", "spiral_263", "square_15x15", "triangle_15x15", "full_circle_305",
+            "random_1000", "random_5000"})
+   String map;
+
+   /**
+    * chromosome of random tour
+    */
+   TSPChromosome chromosome;
+
+   /**
+    * Loads the map
+    */
+   @Setup
+   public void setUp() {
+      City cities[]=BenchmarkMaps.load(map,true);
+      chromosome=new TSPChromosome(BenchmarkMaps.randomTour(cities,new Random(1)));
+   }
+
+   /**
+    * @return cost of the tour
+    */
+   @Benchmark
+   public double computeCost() {
+      chromosome.computeCost();
+      return chromosome.getTotalCost();
+   }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp.engines.crossover;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.saiko.ai.genetics.tsp.BenchmarkMaps;
+import org.saiko.ai.genetics.tsp.City;
+import org.saiko.ai.genetics.tsp.TSPChromosome;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ * GreedyCrossoverEngine.haveSex benchmark - the child of two random tours.
+ * The crossover is O(n^2), so the random maps end at 1000 cities.
+ * @see org.saiko.ai.genetics.tsp.engines.crossover.GreedyCrossoverEngine#haveSex(TSPChromosome, TSPChromosome)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations=3, time=1)
+@Measurement(iterations=5, time=1)
+public class GreedyCrossoverEngineBenchmark {
+
+   /**
+    * name of the map
+    */
+   @Param({"cities_020", "cities_050", "cities_100", "cities_150", "cities_192", "circle_120", "circle_150",
+            "line_100", "spiral_263", "square_15x15", "triangle_15x15", "full_circle_305",
+            "random_1000"})
+   String map;
+
+   /**
+    * parents of the child
+    */
+   TSPChromosome parent1, parent2;
+
+   /**
+    * Loads the map
+    */
+   @Setup
+   public void setUp() {
+      City cities[]=BenchmarkMaps.load(map,true);
+      Random rnd=new Random(1);
+      parent1=new TSPChromosome(BenchmarkMaps.randomTour(cities,rnd));
+      parent2=new TSPChromosome(BenchmarkMaps.randomTour(cities,rnd));
+   }
+
+   /**
+    * @return the child
+    */
+   @Benchmark
+   public City[] haveSex() {
+      return GreedyCrossoverEngine.haveSex(parent1,parent2);
+   }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp.engines.crossoverHibrid2opt;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.saiko.ai.genetics.tsp.BenchmarkMaps;
+import org.saiko.ai.genetics.tsp.City;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ * GreedyCrossoverHibrid2OptEngine.heuristics2opt benchmark - 2opt of a
+ * random tour until no move improves it. Each invocation starts from the copy
+ * of the same random tour. The random maps end at 1000 cities, the
+ * heuristics takes seconds there.
+ * @see org.saiko.ai.genetics.tsp.engines.crossoverHibrid2opt.GreedyCrossoverHibrid2OptEngine#heuristics2opt(City[])
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations=3, time=1)
+@Measurement(iterations=5, time=1)
+public class GreedyCrossoverHibrid2OptEngineBenchmark {
+
+   /**
+    * name of the map
+    */
+   @Param({"cities_020", "cities_050", "cities_100", "cities_150", "cities_192", "circle_120", "circle_150",
+            "line_100", "spiral_263", "square_15x15", "triangle_15x15", "full_circle_305",
+            "random_1000"})
+   String map;
+
+   /**
+    * the random tour
+    */
+   City randomTour[];
+
+   /**
+    * the tour improved by the invocation
+    */
+   City tour[];
+
+   /**
+    * Loads the map
+    */
+   @Setup
+   public void setUp() {
+      City cities[]=BenchmarkMaps.load(map,true);
+      randomTour=BenchmarkMaps.randomTour(cities,new Random(1));
+   }
+
+   /**
+    * Copies the random tour
+    */
+   @Setup(Level.Invocation)
+   public void copyTour() {
+      tour=randomTour.clone();
+   }
+
+   /**
+    * @return the improved tour
+    */
+   @Benchmark
+   public City[] heuristics2opt() {
+      GreedyCrossoverHibrid2OptEngine.heuristics2opt(tour);
+      return tour;
+   }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp.engines.simpleUnisexMutator;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.saiko.ai.genetics.tsp.BenchmarkMaps;
+import org.saiko.ai.genetics.tsp.City;
+import org.saiko.ai.genetics.tsp.TSP;
+import org.saiko.ai.genetics.tsp.TSPChromosome;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ * SimpleUnisexMutatorEngine benchmark - randomize() of the tour and
+ * orderPopulation() of the shuffled population.
+ * @see org.saiko.ai.genetics.tsp.engines.simpleUnisexMutator.SimpleUnisexMutatorEngine#randomize(Random, City[])
+ * @see org.saiko.ai.genetics.tsp.engines.simpleUnisexMutator.SimpleUnisexMutatorEngine#orderPopulation()
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations=3, time=1)
+@Measurement(iterations=5, time=1)
+public class SimpleUnisexMutatorEngineBenchmark {
+
+   /**
+    * Tour randomized in place, the maps do not need the distance cache
+    */
+   @State(Scope.Benchmark)
+   public static class Tour {
+      /** name of the map */
+      @Param({"cities_020", "cities_050", "cities_100", "cities_150", "cities_192", "circle_120", "circle_150",
+               "line_100", "spiral_263", "square_15x15", "triangle_15x15", "full_circle_305",
+               "random_1000", "random_10000", "random_100000"})
+      String map;
+
+      /** the tour */
+      City cities[];
+
+      /** random generator of the engine */
+      Random rnd=new Random(1);
+
+      /**
+       * Loads the map
+       */
+      @Setup
+      public void setUp() {
+         cities=BenchmarkMaps.load(map,false);
+      }
+   }
+
+   /**
+    * Engine with access to its population
+    */
+   public static class Engine extends SimpleUnisexMutatorEngine {
+      /**
+       * @return the population of the engine
+       */
+      List<TSPChromosome> population() {
+         return population;
+      }
+   }
+
+   /**
+    * Population of random tours, shuffled before each invocation
+    */
+   @State(Scope.Benchmark)
+   public static class Population {
+      /** name of the map */
+      @Param({"cities_192", "full_circle_305", "random_1000"})
+      String map;
+
+      /** number of chromosomes */
+      @Param({"100", "1000", "10000"})
+      int size;
+
+      /** the engine */
+      Engine engine;
+
+      /** random generator of the shuffle */
+      Random rnd=new Random(1);
+
+      /**
+       * Creates the population
+       */
+      @Setup
+      public void setUp() {
+         City cities[]=BenchmarkMaps.load(map,true);
+         TSP tsp=new TSP(false);
+         tsp.configuration.setInitialPopulationSize(size);
+         engine=new Engine();
+         engine.initialize(tsp.configuration,cities);
+      }
+
+      /**
+       * Shuffles the ordered population
+       */
+      @Setup(Level.Invocation)
+      public void shuffle() {
+         Collections.shuffle(engine.population(),rnd);
+      }
+   }
+
+   /**
+    * @param tour
+    * @return the randomized tour
+    */
+   @Benchmark
+   public City[] randomize(Tour tour) {
+      SimpleUnisexMutatorEngine.randomize(tour.rnd,tour.cities);
+      return tour.cities;
+   }
+
+   /**
+    * @param population
+    * @return the best chromosome
+    */
+   @Benchmark
+   public TSPChromosome orderPopulation(Population population) {
+      population.engine.orderPopulation();
+      return population.engine.getBestChromosome();
+   }
+}
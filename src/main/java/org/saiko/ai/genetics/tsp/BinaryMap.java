@@ -0,0 +1,417 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+import org.saiko.ai.genetics.tsp.TSPLIBCity.WeightType;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ *         Binary map - the cities, their names and optionally the lists of the
+ *         nearest cities and the distance matrix in one file, which is mapped
+ *         into the memory, so the repeated runs on the same big map do not
+ *         compute them again. All the values are big endian
+ *         (DataOutputStream):
+ *
+ *         <pre>
+ * int    magic "TSPM" (0x5453504D)
+ * int    version 1
+ * int    n - number of the cities
+ * int    TSPLIB edge weight type (TSPLIBCity.WeightType ordinal), -1 for S-JTSK map
+ * int    k - number of the nearest cities of each city, 0 if not stored
+ * int    1 if the distance matrix is stored, 0 otherwise
+ * int    x[n], y[n] - coordinates of the cities (display coordinates of TSPLIB map)
+ * double x[n], y[n] - coordinates of TSPLIB map, only for TSPLIB map
+ * int    name offsets[n + 1] - offsets of the names in the names table
+ * byte   names table - UTF-8 names of the cities
+ * int    nearest[n * k] - ids of the nearest cities of each city, the nearest first
+ * double distances[n * (n - 1) / 2] - upper triangle of the distance matrix by rows
+ * </pre>
+ *
+ *         The distance matrix is stored only for maps with at most
+ *         City.MAX_CACHED_CITIES cities, and always for TSPLIB EXPLICIT maps.
+ *
+ *         Only the names of S-JTSK maps and the lists of the nearest cities
+ *         are read from the mapped file while the computation runs.
+ *         createCities(TSPConfiguration) copies the stored upper triangle into
+ *         a full double[n][n] matrix on the heap (the distance cache of the
+ *         cities), and decodes the names of TSPLIB cities when they are
+ *         created, so these maps need the same heap as maps read from text.
+ *
+ * @see MapLoader
+ * @see NearestCities
+ */
+public class BinaryMap implements MappedCity.Names {
+
+    /**
+     * first int of the binary map - "TSPM"
+     */
+    public static final int MAGIC = 0x5453504D;
+
+    /**
+     * version of the format
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * edge weight type of S-JTSK map
+     */
+    protected static final int S_JTSK = -1;
+
+    /**
+     * size of the header [bytes]
+     */
+    protected static final int HEADER_SIZE = 24;
+
+    /**
+     * the map file, read only
+     */
+    protected final ByteBuffer buffer;
+
+    /**
+     * number of the cities
+     */
+    protected final int size;
+
+    /**
+     * TSPLIB edge weight type, S_JTSK for S-JTSK map
+     */
+    protected final int weightType;
+
+    /**
+     * number of the nearest cities of each city, 0 if not stored
+     */
+    protected final int nearestCount;
+
+    /**
+     * true if the distance matrix is stored
+     */
+    protected final boolean matrix;
+
+    /**
+     * offsets of the sections in the buffer
+     */
+    protected final int coordinatesOffset, nameOffsetsOffset, namesOffset,
+	    nearestOffset, matrixOffset;
+
+    /**
+     * Reads the header of the map, the sections are read by
+     * createCities(TSPConfiguration)
+     *
+     * @param buffer
+     *            - bytes of the map, from position 0 to the limit
+     * @throws IllegalArgumentException
+     *             if the map is not valid
+     */
+    public BinaryMap(ByteBuffer buffer) throws IllegalArgumentException {
+	this.buffer = buffer;
+	if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+	    throw new IllegalArgumentException("Not a binary map.");
+	}
+	if (buffer.getInt(4) != VERSION) {
+	    throw new IllegalArgumentException("Unsupported version "
+		    + buffer.getInt(4) + " of binary map.");
+	}
+	size = buffer.getInt(8);
+	weightType = buffer.getInt(12);
+	nearestCount = buffer.getInt(16);
+	matrix = buffer.getInt(20) != 0;
+	if (size < 0 || nearestCount < 0 || weightType < S_JTSK
+		|| weightType >= WeightType.values().length) {
+	    throw new IllegalArgumentException("Invalid header of binary map.");
+	}
+	if (weightType == WeightType.EXPLICIT.ordinal() && !matrix) {
+	    throw new IllegalArgumentException(
+		    "EXPLICIT binary map has no distance matrix.");
+	}
+
+	// x and y are followed by the sections of variable size
+	long offset = HEADER_SIZE + 8L * size;
+	coordinatesOffset = checkOffset(offset);
+	if (weightType != S_JTSK) {
+	    offset += 16L * size;
+	}
+	nameOffsetsOffset = checkOffset(offset);
+	offset += 4L * (size + 1);
+	namesOffset = checkOffset(offset);
+	int namesLength = buffer.getInt(nameOffsetsOffset + 4 * size);
+	if (namesLength < 0) {
+	    throw new IllegalArgumentException("Invalid names of binary map.");
+	}
+	offset += namesLength;
+	nearestOffset = checkOffset(offset);
+	offset += 4L * size * nearestCount;
+	matrixOffset = checkOffset(offset);
+	if (matrix) {
+	    offset += 8L * size * (size - 1) / 2;
+	}
+	checkOffset(offset);
+    }
+
+    /**
+     * @param offset
+     * @return the offset
+     * @throws IllegalArgumentException
+     *             if the offset is after the end of the map
+     */
+    protected int checkOffset(long offset) throws IllegalArgumentException {
+	if (offset > buffer.limit()) {
+	    throw new IllegalArgumentException("Binary map is incomplete.");
+	}
+	return (int) offset;
+    }
+
+    /**
+     * Maps the file into the memory
+     *
+     * @param file
+     *            - the map, smaller than 2GB
+     * @return the map
+     * @throws IOException
+     *             if the file can not be read
+     * @throws IllegalArgumentException
+     *             if the map is not valid
+     */
+    public static BinaryMap read(File file) throws IOException,
+	    IllegalArgumentException {
+	try (RandomAccessFile in = new RandomAccessFile(file, "r");
+		FileChannel channel = in.getChannel()) {
+	    // the mapping stays valid after the channel is closed
+	    return new BinaryMap(channel.map(FileChannel.MapMode.READ_ONLY, 0,
+		    channel.size()));
+	}
+    }
+
+    /**
+     * Reads the map, e.g. from the standard input
+     *
+     * @param in
+     *            - the map, not closed
+     * @return the map
+     * @throws IOException
+     *             if the stream can not be read
+     * @throws IllegalArgumentException
+     *             if the map is not valid
+     */
+    public static BinaryMap read(InputStream in) throws IOException,
+	    IllegalArgumentException {
+	ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+	byte data[] = new byte[1 << 16];
+	int read;
+	while ((read = in.read(data)) != -1) {
+	    bytes.write(data, 0, read);
+	}
+	return new BinaryMap(ByteBuffer.wrap(bytes.toByteArray()));
+    }
+
+    /**
+     * @return number of the cities
+     */
+    public int size() {
+	return size;
+    }
+
+    /**
+     * @return number of the nearest cities of each city, 0 if not stored
+     */
+    public int getNearestCount() {
+	return nearestCount;
+    }
+
+    /**
+     * @return true if the distance matrix is stored
+     */
+    public boolean hasMatrix() {
+	return matrix;
+    }
+
+    /**
+     * @param id
+     * @return name of the city, decoded from the map at each call
+     */
+    @Override
+    public String getName(int id) {
+	int start = namesOffset + buffer.getInt(nameOffsetsOffset + 4 * id);
+	int end = namesOffset + buffer.getInt(nameOffsetsOffset + 4 * id + 4);
+	byte bytes[] = new byte[end - start];
+	for (int i = 0; i < bytes.length; i++) {
+	    bytes[i] = buffer.get(start + i);
+	}
+	return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Creates the cities with the stored nearest cities and distances
+     *
+     * @param configuration
+     *            - configuration of the cities
+     * @return cities of the map indexed by their ids
+     */
+    public City[] createCities(TSPConfiguration configuration) {
+	int n = size;
+	int x[] = new int[n];
+	int y[] = new int[n];
+	IntBuffer ints = slice(HEADER_SIZE).asIntBuffer();
+	ints.get(x);
+	ints.get(y);
+
+	double distances[][] = null;
+	if (matrix) {
+	    distances = new double[n][n];
+	    DoubleBuffer doubles = slice(matrixOffset).asDoubleBuffer();
+	    for (int i = 0; i < n; i++) {
+		doubles.get(distances[i], i + 1, n - i - 1);
+		for (int j = i + 1; j < n; j++) {
+		    distances[j][i] = distances[i][j];
+		}
+	    }
+	}
+
+	City cities[] = new City[n];
+	if (weightType == S_JTSK) {
+	    for (int i = 0; i < n; i++) {
+		cities[i] = new MappedCity(this, i, configuration, x[i], y[i]);
+	    }
+	} else {
+	    WeightType type = WeightType.values()[weightType];
+	    double coordX[] = new double[n];
+	    double coordY[] = new double[n];
+	    DoubleBuffer doubles = slice(coordinatesOffset).asDoubleBuffer();
+	    doubles.get(coordX);
+	    doubles.get(coordY);
+	    for (int i = 0; i < n; i++) {
+		cities[i] = new TSPLIBCity(i, configuration, getName(i), x[i],
+			y[i], type, coordX[i], coordY[i],
+			type == WeightType.EXPLICIT ? distances : null);
+	    }
+	}
+
+	if (distances != null) {
+	    City.setDistanceCache(cities, distances);
+	}
+	if (nearestCount > 0) {
+	    int ids[] = new int[n * nearestCount];
+	    slice(nearestOffset).asIntBuffer().get(ids);
+	    NearestCities.attach(cities, new NearestCities(ids, nearestCount));
+	}
+	return cities;
+    }
+
+    /**
+     * @param offset
+     * @return view of the buffer from the offset, the views do not change the
+     *         position of the shared buffer
+     */
+    protected ByteBuffer slice(int offset) {
+	ByteBuffer view = buffer.duplicate();
+	view.position(offset);
+	return view.slice();
+    }
+
+    /**
+     * Writes the cities as binary map
+     *
+     * @param cities
+     *            - cities of the map indexed by their ids, their S-JTSK
+     *            coordinates are written
+     * @param out
+     *            - the output, not closed
+     * @param nearestCount
+     *            - number of the nearest cities of each city, 0 to store
+     *            none
+     * @param storeMatrix
+     *            - true to store the distance matrix
+     * @throws IOException
+     *             if the map can not be written
+     * @throws IllegalArgumentException
+     *             if the distance matrix is too big
+     */
+    public static void write(City cities[], OutputStream out,
+	    int nearestCount, boolean storeMatrix) throws IOException,
+	    IllegalArgumentException {
+	int n = cities.length;
+	TSPLIBCity tsplib = n > 0 && cities[0] instanceof TSPLIBCity ? (TSPLIBCity) cities[0]
+		: null;
+	int weightType = tsplib != null ? tsplib.getWeightType().ordinal()
+		: S_JTSK;
+	boolean matrix = storeMatrix;
+	if (weightType == WeightType.EXPLICIT.ordinal()) {
+	    // the distances are not known without the matrix
+	    matrix = true;
+	} else if (matrix && n > City.MAX_CACHED_CITIES) {
+	    throw new IllegalArgumentException(
+		    "The distance matrix is stored only for maps with at most "
+			    + City.MAX_CACHED_CITIES + " cities.");
+	}
+	NearestCities nearest = null;
+	if (nearestCount > 0 && n > 1) {
+	    nearest = NearestCities.of(cities, nearestCount);
+	    if (nearest == null) {
+		nearest = NearestCities.compute(cities, nearestCount);
+	    }
+	}
+
+	DataOutputStream data = new DataOutputStream(new BufferedOutputStream(
+		out, 1 << 16));
+	data.writeInt(MAGIC);
+	data.writeInt(VERSION);
+	data.writeInt(n);
+	data.writeInt(weightType);
+	data.writeInt(nearest != null ? nearest.getCount() : 0);
+	data.writeInt(matrix ? 1 : 0);
+	for (City city : cities) {
+	    data.writeInt(city.SJTSKX);
+	}
+	for (City city : cities) {
+	    data.writeInt(city.SJTSKY);
+	}
+	if (tsplib != null) {
+	    for (City city : cities) {
+		data.writeDouble(((TSPLIBCity) city).coordX);
+	    }
+	    for (City city : cities) {
+		data.writeDouble(((TSPLIBCity) city).coordY);
+	    }
+	}
+	byte names[][] = new byte[n][];
+	int offset = 0;
+	data.writeInt(offset);
+	for (int i = 0; i < n; i++) {
+	    String name = cities[i].getName();
+	    names[i] = (name != null ? name : "").getBytes(StandardCharsets.UTF_8);
+	    offset += names[i].length;
+	    data.writeInt(offset);
+	}
+	for (byte name[] : names) {
+	    data.write(name);
+	}
+	if (nearest != null) {
+	    for (int id : nearest.getIds()) {
+		data.writeInt(id);
+	    }
+	}
+	if (matrix) {
+	    for (int i = 0; i < n; i++) {
+		for (int j = i + 1; j < n; j++) {
+		    data.writeDouble(cities[i].distance(cities[j], false));
+		}
+	    }
+	}
+	data.flush();
+    }
+}
@@ -0,0 +1,388 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ *         Map in .csv format - the header line and the lines "name",x,y.
+ *
+ *         The map is parsed directly from the bytes of the memory mapped file
+ *         into primitive arrays of coordinates, without regular expressions,
+ *         strings or boxed integers per line. The names are kept as offsets
+ *         into the bytes and decoded only when needed. Big maps are parsed in
+ *         chunks in the compute pool, so maps of millions of cities are
+ *         loaded in a fraction of second.
+ *
+ * @see TSPExecutors#getComputePool()
+ */
+public class CSVMap implements MappedCity.Names {
+
+    /**
+     * maps smaller than this are parsed in one chunk [bytes]
+     */
+    protected static final int MIN_CHUNK_SIZE = 1 << 20;
+
+    /**
+     * the map file, read only
+     */
+    protected final ByteBuffer buffer;
+
+    /**
+     * number of the cities
+     */
+    protected final int size;
+
+    /**
+     * coordinates of the cities
+     */
+    protected final int x[], y[];
+
+    /**
+     * offsets of the names of the cities in the buffer, the end is exclusive
+     */
+    protected final int nameStart[], nameEnd[];
+
+    /**
+     * Parsed lines of one chunk of the map
+     */
+    protected static class Chunk {
+
+	/**
+	 * number of the lines
+	 */
+	int size;
+
+	/**
+	 * @see CSVMap#x
+	 */
+	int x[] = new int[1024], y[] = new int[1024];
+
+	/**
+	 * @see CSVMap#nameStart
+	 */
+	int nameStart[] = new int[1024], nameEnd[] = new int[1024];
+
+	/**
+	 * adds the city
+	 *
+	 * @param cityX
+	 * @param cityY
+	 * @param start
+	 * @param end
+	 */
+	void add(int cityX, int cityY, int start, int end) {
+	    if (size == x.length) {
+		int length = size * 2;
+		x = Arrays.copyOf(x, length);
+		y = Arrays.copyOf(y, length);
+		nameStart = Arrays.copyOf(nameStart, length);
+		nameEnd = Arrays.copyOf(nameEnd, length);
+	    }
+	    x[size] = cityX;
+	    y[size] = cityY;
+	    nameStart[size] = start;
+	    nameEnd[size] = end;
+	    size++;
+	}
+    }
+
+    /**
+     * Parses the map
+     *
+     * @param buffer
+     *            - bytes of the map in UTF-8, from position 0 to the limit
+     * @throws IllegalArgumentException
+     *             if some coordinate is not valid
+     */
+    public CSVMap(ByteBuffer buffer) throws IllegalArgumentException {
+	this.buffer = buffer;
+	int length = buffer.limit();
+
+	// the first line is the header
+	int start = nextLine(0, length);
+	int chunks = (int) Math.min(
+		(length - start) / MIN_CHUNK_SIZE,
+		4L * TSPExecutors.getComputePool().getParallelism());
+
+	Chunk parsed[];
+	if (chunks <= 1) {
+	    parsed = new Chunk[] { parse(start, length) };
+	} else {
+	    // the chunks begin at the line starts
+	    int bounds[] = new int[chunks + 1];
+	    bounds[0] = start;
+	    bounds[chunks] = length;
+	    for (int i = 1; i < chunks; i++) {
+		bounds[i] = Math.max(bounds[i - 1], nextLine(start
+			+ (int) ((long) (length - start) * i / chunks) - 1,
+			length));
+	    }
+	    List<Callable<Chunk>> tasks = new ArrayList<>(chunks);
+	    for (int i = 0; i < chunks; i++) {
+		final int from = bounds[i];
+		final int to = bounds[i + 1];
+		tasks.add(new Callable<Chunk>() {
+		    @Override
+		    public Chunk call() {
+			return parse(from, to);
+		    }
+		});
+	    }
+	    parsed = new Chunk[chunks];
+	    int i = 0;
+	    for (Future<Chunk> future : TSPExecutors.getComputePool()
+		    .invokeAll(tasks)) {
+		try {
+		    parsed[i++] = future.get();
+		} catch (InterruptedException e) {
+		    Thread.currentThread().interrupt();
+		    throw new IllegalStateException(e);
+		} catch (ExecutionException e) {
+		    if (e.getCause() instanceof IllegalArgumentException) {
+			throw (IllegalArgumentException) e.getCause();
+		    }
+		    throw new IllegalStateException(e.getCause());
+		}
+	    }
+	}
+
+	// join the chunks
+	int count = 0;
+	for (Chunk chunk : parsed) {
+	    count += chunk.size;
+	}
+	size = count;
+	x = new int[size];
+	y = new int[size];
+	nameStart = new int[size];
+	nameEnd = new int[size];
+	int offset = 0;
+	for (Chunk chunk : parsed) {
+	    System.arraycopy(chunk.x, 0, x, offset, chunk.size);
+	    System.arraycopy(chunk.y, 0, y, offset, chunk.size);
+	    System.arraycopy(chunk.nameStart, 0, nameStart, offset, chunk.size);
+	    System.arraycopy(chunk.nameEnd, 0, nameEnd, offset, chunk.size);
+	    offset += chunk.size;
+	}
+    }
+
+    /**
+     * Maps the file into the memory and parses it
+     *
+     * @param file
+     *            - the map in UTF-8, smaller than 2GB
+     * @return the map
+     * @throws IOException
+     *             if the file can not be read
+     * @throws IllegalArgumentException
+     *             if some coordinate is not valid
+     */
+    public static CSVMap read(File file) throws IOException,
+	    IllegalArgumentException {
+	try (RandomAccessFile in = new RandomAccessFile(file, "r");
+		FileChannel channel = in.getChannel()) {
+	    // the mapping stays valid after the channel is closed
+	    return new CSVMap(channel.map(FileChannel.MapMode.READ_ONLY, 0,
+		    channel.size()));
+	}
+    }
+
+    /**
+     * Reads and parses the map, e.g. a build in map of the resources
+     *
+     * @param in
+     *            - the map in UTF-8, not closed
+     * @return the map
+     * @throws IOException
+     *             if the stream can not be read
+     * @throws IllegalArgumentException
+     *             if some coordinate is not valid
+     */
+    public static CSVMap read(InputStream in) throws IOException,
+	    IllegalArgumentException {
+	ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+	byte data[] = new byte[1 << 16];
+	int read;
+	while ((read = in.read(data)) != -1) {
+	    bytes.write(data, 0, read);
+	}
+	return new CSVMap(ByteBuffer.wrap(bytes.toByteArray()));
+    }
+
+    /**
+     * @param position
+     * @param length
+     *            - end of the bytes
+     * @return start of the line after the position, length if there is no
+     *         next line
+     */
+    protected int nextLine(int position, int length) {
+	while (position < length && buffer.get(position) != '\n') {
+	    position++;
+	}
+	return Math.min(position + 1, length);
+    }
+
+    /**
+     * Parses the lines "name",x,y of the bytes, the other lines are ignored
+     *
+     * @param from
+     *            - start of the first line
+     * @param to
+     *            - end of the bytes, the last line ends at it or at the end
+     *            of the line
+     * @return the cities of the lines
+     * @throws IllegalArgumentException
+     *             if some coordinate is not valid
+     */
+    protected Chunk parse(int from, int to) throws IllegalArgumentException {
+	Chunk chunk = new Chunk();
+	int position = from;
+	while (position < to) {
+	    int end = position;
+	    while (end < to && buffer.get(end) != '\n') {
+		end++;
+	    }
+	    // the name ends at the first ", as in "(.*?)",
+	    if (buffer.get(position) == '"') {
+		int start = position + 1;
+		int quote = start;
+		while (quote + 1 < end
+			&& (buffer.get(quote) != '"' || buffer.get(quote + 1) != ',')) {
+		    quote++;
+		}
+		int comma = quote + 2;
+		while (comma < end && buffer.get(comma) != ',') {
+		    comma++;
+		}
+		if (quote + 1 < end && comma < end) {
+		    chunk.add(parseInt(quote + 2, comma),
+			    parseInt(comma + 1, end), start, quote);
+		}
+	    }
+	    position = end + 1;
+	}
+	return chunk;
+    }
+
+    /**
+     * @param from
+     * @param to
+     *            - end of the number, exclusive
+     * @return the integer of the bytes, the white space is ignored
+     * @throws IllegalArgumentException
+     *             if the bytes are not integer
+     */
+    protected int parseInt(int from, int to) throws IllegalArgumentException {
+	while (from < to && buffer.get(from) <= ' ') {
+	    from++;
+	}
+	while (to > from && buffer.get(to - 1) <= ' ') {
+	    to--;
+	}
+	boolean negative = from < to && buffer.get(from) == '-';
+	int position = negative || from < to && buffer.get(from) == '+' ? from + 1
+		: from;
+	if (position == to) {
+	    throw invalidNumber(from, to);
+	}
+	long value = 0;
+	for (; position < to; position++) {
+	    int digit = buffer.get(position) - '0';
+	    if (digit < 0 || digit > 9 || value > Integer.MAX_VALUE) {
+		throw invalidNumber(from, to);
+	    }
+	    value = value * 10 + digit;
+	}
+	value = negative ? -value : value;
+	if (value > Integer.MAX_VALUE || value < Integer.MIN_VALUE) {
+	    throw invalidNumber(from, to);
+	}
+	return (int) value;
+    }
+
+    /**
+     * @param from
+     * @param to
+     * @return exception of the invalid number
+     */
+    protected IllegalArgumentException invalidNumber(int from, int to) {
+	return new IllegalArgumentException("Invalid number " + decode(from, to)
+		+ " at byte " + from + ".");
+    }
+
+    /**
+     * @param from
+     * @param to
+     * @return the bytes decoded from UTF-8
+     */
+    protected String decode(int from, int to) {
+	byte bytes[] = new byte[to - from];
+	for (int i = 0; i < bytes.length; i++) {
+	    bytes[i] = buffer.get(from + i);
+	}
+	return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return number of the cities
+     */
+    public int size() {
+	return size;
+    }
+
+    /**
+     * @param index
+     * @return X coordinate of the city
+     */
+    public int getX(int index) {
+	return x[index];
+    }
+
+    /**
+     * @param index
+     * @return Y coordinate of the city
+     */
+    public int getY(int index) {
+	return y[index];
+    }
+
+    /**
+     * @param index
+     * @return name of the city, decoded from the map at each call
+     */
+    @Override
+    public String getName(int index) {
+	return decode(nameStart[index], nameEnd[index]).trim();
+    }
+
+    /**
+     * @param configuration
+     *            - configuration of the cities
+     * @return cities of the map, their names are decoded when needed
+     */
+    public City[] createCities(TSPConfiguration configuration) {
+	City cities[] = new City[size];
+	for (int i = 0; i < size; i++) {
+	    cities[i] = new MappedCity(this, i, configuration, x[i], y[i]);
+	}
+	return cities;
+    }
+}
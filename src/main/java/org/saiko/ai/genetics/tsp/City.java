@@ -3,6 +3,10 @@
  */
 package org.saiko.ai.genetics.tsp;
 
+import java.util.Arrays;
+
+import org.saiko.ai.genetics.tsp.jfr.FlightEvents;
+
 /**
  * @author dusan.saiko@gmail.com
  * 
@@ -58,6 +62,35 @@ public class City {
      */
     static double distanceCache[][] = null;
 
+    /**
+     * distance cache of the map this city belongs to, shared by all the
+     * cities of the map. When null, the static distanceCache is used. Each map
+     * has its own cache, so more computations can run in one process.
+     * 
+     * @see #initDistanceCache(City[])
+     */
+    double distances[][] = null;
+
+    /**
+     * nearest cities of the map, shared by all the cities of the map. Null
+     * when the map was not loaded with them.
+     * 
+     * @see NearestCities#of(City[], int)
+     */
+    NearestCities nearest = null;
+
+    /**
+     * maximal number of cities of the map with the distance cache - the
+     * cache has cities^2 values, 200MB for 5000 cities
+     */
+    public static final int MAX_CACHED_CITIES = 5000;
+
+    /**
+     * distance cache of the maps bigger than MAX_CACHED_CITIES, the
+     * distances are computed every time
+     */
+    static final double NO_CACHE[][] = new double[0][];
+
     /**
      * configuration parameters of application
      * 
@@ -97,6 +130,7 @@ public class City {
      *            - length of the cache = number of cities
      */
     static synchronized public void initDistanceCache(int length) {
+	Object event = FlightEvents.beginDistanceMatrix();
 	distanceCache = new double[length][length];
 	// reset the cache to -1
 	for (int i = 0; i < length; i++) {
@@ -104,6 +138,56 @@ public class City {
 		distanceCache[i][j] = -1;
 	    }
 	}
+	FlightEvents.endDistanceMatrix(event, length);
+    }
+
+    /**
+     * initializes the distance cache of one map - the cache is used only by
+     * the given cities. Maps with more than MAX_CACHED_CITIES cities have no
+     * cache. The complete cache loaded with the map is kept.
+     * 
+     * @param cities
+     *            - all the cities of the map, indexed by city id
+     * @see #setDistanceCache(City[], double[][])
+     */
+    static public void initDistanceCache(City cities[]) {
+	int length = cities.length;
+	if (length > 0 && cities[0].distances != null
+		&& cities[0].distances.length == length
+		&& cities[length - 1].distances == cities[0].distances) {
+	    return;
+	}
+	if (length > MAX_CACHED_CITIES) {
+	    for (City city : cities) {
+		city.distances = NO_CACHE;
+	    }
+	    return;
+	}
+	Object event = FlightEvents.beginDistanceMatrix();
+	double cache[][] = new double[length][length];
+	for (int i = 0; i < length; i++) {
+	    Arrays.fill(cache[i], -1);
+	}
+	for (City city : cities) {
+	    city.distances = cache;
+	}
+	FlightEvents.endDistanceMatrix(event, length);
+    }
+
+    /**
+     * Sets the distance cache of the map, e.g. the distances precomputed in
+     * the binary map
+     * 
+     * @param cities
+     *            - all the cities of the map, indexed by city id
+     * @param cache
+     *            - distances between all the cities, -1 for the distances
+     *            not known
+     */
+    static public void setDistanceCache(City cities[], double cache[][]) {
+	for (City city : cities) {
+	    city.distances = cache;
+	}
     }
 
     /**
@@ -119,7 +203,7 @@ public class City {
     public double distance(City otherCity, boolean useCache) {
 
 	if (useCache == false) {
-	    return distance(otherCity.getX(), otherCity.getY());
+	    return computeDistance(otherCity);
 	}
 
 	int id1 = this.id;
@@ -136,15 +220,31 @@ public class City {
 	// distance is cached in the 2 dimensional array
 	// we order the indexes of cities, so B->A is computed as A->B - it
 	// saves us half of combinations
-	double distance = distanceCache[id1][id2];
+	double cache[][] = distances != null ? distances : distanceCache;
+	if (cache == NO_CACHE) {
+	    return computeDistance(otherCity);
+	}
+	double distance = cache[id1][id2];
 	if (distance == -1) {
 	    // no distance found in cache, compute it
-	    distance = distance(otherCity.getX(), otherCity.getY());
-	    distanceCache[id1][id2] = distance;
+	    distance = computeDistance(otherCity);
+	    cache[id1][id2] = distance;
 	}
 	return distance;
     }
 
+    /**
+     * Computes distance to other city without the cache. The cities of other
+     * maps than S-JTSK may override it.
+     * 
+     * @param otherCity
+     * @return distance between the two cities
+     * @see TSPLIBCity
+     */
+    protected double computeDistance(City otherCity) {
+	return distance(otherCity.getX(), otherCity.getY());
+    }
+
     /**
      * Computes distance over two cities. If coorfinates are in S-JTSK, then
      * this distance is in meters. Uses the cache to hold the distances between
@@ -228,7 +328,7 @@ public class City {
      */
     @Override
     public String toString() {
-	return name + ": [" + x + ";" + y + "]";
+	return getName() + ": [" + x + ";" + y + "]";
     }
 
     /**
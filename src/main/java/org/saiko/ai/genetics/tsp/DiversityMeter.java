@@ -0,0 +1,357 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ *         Measures the diversity of the population generation by generation.
+ *         The meter remembers the chromosomes of the last measured population
+ *         and counts only the chromosomes added and removed since then - the
+ *         surviving part of the population costs one identity lookup per
+ *         chromosome, so the meter can run after each generation.
+ *
+ *         Unique tours - the hash of the tour is the sum of the hashes of its
+ *         edges, so the same round trip from other city or in the opposite
+ *         direction has the same hash. The hashes are counted in the map.
+ *
+ *         Edge entropy - the counts of the undirected edges of all the tours
+ *         are kept in the open addressing table, together with the sum of
+ *         c*log(c) of the counts, so the entropy is known without walking the
+ *         table. The entropy is normalized between the population of the
+ *         same tours (0) and the population without shared edges (1).
+ *
+ *         Edge distance - the ratio of the edges of one tour missing in the
+ *         other tour, the average of SAMPLE_PAIRS random pairs of tours.
+ *
+ *         The chromosomes must not be modified after they were measured.
+ *
+ * @see TSPDiversity
+ * @see TSPPopulationEngine
+ */
+public class DiversityMeter {
+
+    /**
+     * number of random pairs of tours for the edge distance
+     */
+    protected static final int SAMPLE_PAIRS = 32;
+
+    /**
+     * initial capacity of the edge table, power of two
+     */
+    protected static final int INITIAL_CAPACITY = 1024;
+
+    /**
+     * Chromosome of the last measured population
+     */
+    protected static class Member {
+	/** hash of the tour */
+	long hash;
+
+	/** the last measurement which found the chromosome in population */
+	int stamp;
+    }
+
+    /**
+     * number of cities of the measured tours
+     */
+    protected int cityCount;
+
+    /**
+     * chromosomes of the last measured population
+     */
+    protected final Map<TSPChromosome, Member> members = new IdentityHashMap<>();
+
+    /**
+     * number of chromosomes for each tour hash
+     */
+    protected final Map<Long, Integer> tours = new HashMap<>();
+
+    /**
+     * keys of the edge table - lower id * cityCount + higher id, 0 for empty
+     * slot
+     */
+    protected long edgeKeys[] = new long[INITIAL_CAPACITY];
+
+    /**
+     * counts of the edges in the population
+     */
+    protected int edgeCounts[] = new int[INITIAL_CAPACITY];
+
+    /**
+     * number of used slots of the edge table, including the edges with zero
+     * count
+     */
+    protected int usedSlots;
+
+    /**
+     * count of all the edges of all the tours
+     */
+    protected long edgeTotal;
+
+    /**
+     * sum of c*log(c) over the counts of the edges
+     */
+    protected double edgeLogSum;
+
+    /**
+     * number of the current measurement
+     */
+    protected int stamp;
+
+    /**
+     * successors and predecessors of the cities in the tour compared by the
+     * edge distance
+     */
+    protected int next[], previous[];
+
+    /**
+     * random generator of the pairs of tours
+     */
+    protected final Random rnd = new Random();
+
+    /**
+     * Measures the population. Only the chromosomes which were not in the
+     * previous population are counted.
+     *
+     * @param population
+     * @return diversity of the population
+     */
+    public TSPDiversity measure(List<TSPChromosome> population) {
+	if (population.isEmpty()) {
+	    return new TSPDiversity(0, 0, 0, 0);
+	}
+	int n = population.get(0).getCities().length;
+	if (n != cityCount) {
+	    reset(n);
+	}
+
+	stamp++;
+	for (TSPChromosome chromosome : population) {
+	    Member member = members.get(chromosome);
+	    if (member == null) {
+		member = new Member();
+		member.hash = countEdges(chromosome, 1);
+		members.put(chromosome, member);
+		Integer count = tours.get(member.hash);
+		tours.put(member.hash, count == null ? 1 : count + 1);
+	    }
+	    member.stamp = stamp;
+	}
+	for (Iterator<Map.Entry<TSPChromosome, Member>> i = members.entrySet()
+		.iterator(); i.hasNext();) {
+	    Map.Entry<TSPChromosome, Member> entry = i.next();
+	    Member member = entry.getValue();
+	    if (member.stamp != stamp) {
+		countEdges(entry.getKey(), -1);
+		int count = tours.get(member.hash);
+		if (count == 1) {
+		    tours.remove(member.hash);
+		} else {
+		    tours.put(member.hash, count - 1);
+		}
+		i.remove();
+	    }
+	}
+
+	return new TSPDiversity(population.size(), tours.size(),
+		edgeDistance(population), edgeEntropy());
+    }
+
+    /**
+     * Forgets the measured population
+     *
+     * @param n
+     *            number of cities of the tours
+     */
+    protected void reset(int n) {
+	cityCount = n;
+	members.clear();
+	tours.clear();
+	edgeKeys = new long[INITIAL_CAPACITY];
+	edgeCounts = new int[INITIAL_CAPACITY];
+	usedSlots = 0;
+	edgeTotal = 0;
+	edgeLogSum = 0;
+	next = new int[n];
+	previous = new int[n];
+    }
+
+    /**
+     * Adds or removes the edges of the tour from the edge table
+     *
+     * @param chromosome
+     * @param delta
+     *            1 for added chromosome, -1 for removed one
+     * @return hash of the tour
+     */
+    protected long countEdges(TSPChromosome chromosome, int delta) {
+	City cities[] = chromosome.getCities();
+	int n = cities.length;
+	long hash = 0;
+	for (int i = 0; i < n; i++) {
+	    int a = cities[i].getId();
+	    int b = cities[i + 1 < n ? i + 1 : 0].getId();
+	    long key = a < b ? (long) a * n + b : (long) b * n + a;
+	    hash += mix(key);
+	    if (key != 0) {
+		addEdge(key, delta);
+	    }
+	}
+	return hash;
+    }
+
+    /**
+     * @param key
+     * @return well distributed hash of the key, the finalizer of SplitMix64
+     */
+    protected static long mix(long key) {
+	long z = key + 0x9E3779B97F4A7C15L;
+	z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+	z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+	return z ^ (z >>> 31);
+    }
+
+    /**
+     * @param c
+     * @return c*log(c), 0 for 0
+     */
+    protected static double cLogC(int c) {
+	return c > 1 ? c * Math.log(c) : 0;
+    }
+
+    /**
+     * Changes the count of the edge
+     *
+     * @param key
+     * @param delta
+     */
+    protected void addEdge(long key, int delta) {
+	if ((usedSlots + 1) * 2 > edgeKeys.length) {
+	    rehash();
+	}
+	int mask = edgeKeys.length - 1;
+	int slot = (int) mix(key) & mask;
+	while (edgeKeys[slot] != key) {
+	    if (edgeKeys[slot] == 0) {
+		if (delta < 0) {
+		    // not counted edge
+		    return;
+		}
+		edgeKeys[slot] = key;
+		usedSlots++;
+		break;
+	    }
+	    slot = (slot + 1) & mask;
+	}
+	int count = edgeCounts[slot];
+	edgeLogSum += cLogC(count + delta) - cLogC(count);
+	edgeCounts[slot] = count + delta;
+	edgeTotal += delta;
+    }
+
+    /**
+     * Rebuilds the edge table without the edges with zero count, the table
+     * is doubled if it is still half full. The sum of c*log(c) is computed
+     * again, without rounding errors of the changes.
+     */
+    protected void rehash() {
+	long keys[] = edgeKeys;
+	int counts[] = edgeCounts;
+	int live = 0;
+	for (int count : counts) {
+	    if (count > 0) {
+		live++;
+	    }
+	}
+	int capacity = keys.length;
+	while ((live + 1) * 4 > capacity) {
+	    capacity *= 2;
+	}
+	edgeKeys = new long[capacity];
+	edgeCounts = new int[capacity];
+	usedSlots = live;
+	edgeLogSum = 0;
+	int mask = capacity - 1;
+	for (int i = 0; i < keys.length; i++) {
+	    if (counts[i] > 0) {
+		int slot = (int) mix(keys[i]) & mask;
+		while (edgeKeys[slot] != 0) {
+		    slot = (slot + 1) & mask;
+		}
+		edgeKeys[slot] = keys[i];
+		edgeCounts[slot] = counts[i];
+		edgeLogSum += cLogC(counts[i]);
+	    }
+	}
+    }
+
+    /**
+     * @return normalized entropy of the frequencies of the edges
+     */
+    protected double edgeEntropy() {
+	int size = members.size();
+	if (size < 2 || edgeTotal == 0 || cityCount < 3) {
+	    return 0;
+	}
+	double entropy = Math.log(edgeTotal) - edgeLogSum / edgeTotal;
+	// between log(n) for the same tours and log(n*size) for tours
+	// without shared edges
+	double normalized = (entropy - Math.log(cityCount)) / Math.log(size);
+	return Math.max(0, Math.min(1, normalized));
+    }
+
+    /**
+     * @param population
+     * @return average ratio of the edges of one tour missing in the other
+     *         tour for random pairs of tours
+     */
+    protected double edgeDistance(List<TSPChromosome> population) {
+	int size = population.size();
+	if (size < 2 || cityCount < 3) {
+	    return 0;
+	}
+	double sum = 0;
+	for (int pair = 0; pair < SAMPLE_PAIRS; pair++) {
+	    int i = rnd.nextInt(size);
+	    int j = rnd.nextInt(size - 1);
+	    if (j >= i) {
+		j++;
+	    }
+	    sum += edgeDistance(population.get(i).getCities(), population
+		    .get(j).getCities());
+	}
+	return sum / SAMPLE_PAIRS;
+    }
+
+    /**
+     * @param tour1
+     * @param tour2
+     * @return ratio of the edges of tour1 missing in tour2
+     */
+    protected double edgeDistance(City tour1[], City tour2[]) {
+	int n = tour2.length;
+	for (int i = 0; i < n; i++) {
+	    int city = tour2[i].getId();
+	    next[city] = tour2[i + 1 < n ? i + 1 : 0].getId();
+	    previous[city] = tour2[i > 0 ? i - 1 : n - 1].getId();
+	}
+	int missing = 0;
+	for (int i = 0; i < n; i++) {
+	    int a = tour1[i].getId();
+	    int b = tour1[i + 1 < n ? i + 1 : 0].getId();
+	    if (next[a] != b && previous[a] != b) {
+		missing++;
+	    }
+	}
+	return (double) missing / n;
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ *         Time spent by the engine in the phases of the generations. Each
+ *         thread adds its times to its own stripe of the counters, so the
+ *         threads producing the children do not share any memory for the
+ *         timing - one System.nanoTime() call and few array operations per
+ *         measured part. The times of parallel phases are the sums of the
+ *         times of the threads.
+ *
+ *         The measured parts may be nested - a part is measured from mark()
+ *         to add(), without the time which the same thread added to any phase
+ *         meanwhile. E.g. the time of the children production does not
+ *         contain the local search and the cost evaluation of the children,
+ *         even if the pool thread runs another task while it waits for
+ *         parallel 2opt.
+ *
+ * @see TSPTimedEngine
+ * @see StripedCounters
+ */
+public class GenerationTimer extends StripedCounters {
+
+    /**
+     * Phases of the generation
+     */
+    public enum Phase {
+	/** removing the worse part of the population */
+	TRIM("trim"),
+	/** selection of the parents, crossover and mutation */
+	CHILDREN("children"),
+	/** 2opt heuristics of the children */
+	LOCAL_SEARCH("local search"),
+	/** computation of the costs of the children */
+	COST("cost"),
+	/** ordering of the population and the selection of the survivors */
+	SORT("sort");
+
+	/** name of the phase for the reports */
+	private final String label;
+
+	/**
+	 * @param label
+	 */
+	private Phase(String label) {
+	    this.label = label;
+	}
+
+	/**
+	 * @return name of the phase for the reports
+	 */
+	public String getLabel() {
+	    return label;
+	}
+    }
+
+    /**
+     * index of the sum of all the phases in the counters of thread
+     */
+    protected static final int TOTAL = Phase.values().length;
+
+    /**
+     * Creates the timer - the counters are nanoseconds by phase ordinal and
+     * their sum
+     */
+    public GenerationTimer() {
+	super(TOTAL + 1);
+    }
+
+    /**
+     * Starts the measured part
+     *
+     * @return mark for add(Phase, long)
+     */
+    public long mark() {
+	return System.nanoTime() - getStripe()[TOTAL];
+    }
+
+    /**
+     * Adds the time since the mark, without the time which the current
+     * thread added meanwhile, to the phase
+     *
+     * @param phase
+     * @param mark
+     *            value of mark() called in the current thread
+     */
+    public void add(Phase phase, long mark) {
+	long threadTimes[] = getStripe();
+	long time = System.nanoTime() - threadTimes[TOTAL] - mark;
+	threadTimes[phase.ordinal()] += time;
+	threadTimes[TOTAL] += time;
+    }
+
+    /**
+     * @param phase
+     * @return nanoseconds of the phase summed over all the threads
+     */
+    public long getNanos(Phase phase) {
+	return get(phase.ordinal());
+    }
+
+    /**
+     * @return nanoseconds of all the phases summed over all the threads
+     */
+    public long getTotalNanos() {
+	return get(TOTAL);
+    }
+
+    /**
+     * @return shares of the phases in the form
+     *         "phases: trim 1%, children 40%, ...;", empty string if nothing
+     *         was measured
+     */
+    @Override
+    public String toString() {
+	long total = getTotalNanos();
+	if (total <= 0) {
+	    return "";
+	}
+	StringBuilder text = new StringBuilder("phases:");
+	for (Phase phase : Phase.values()) {
+	    text.append(phase.ordinal() == 0 ? " " : ", ")
+		    .append(phase.getLabel()).append(' ')
+		    .append(Math.round(getNanos(phase) * 100.0 / total))
+		    .append('%');
+	}
+	return text.append(';').toString();
+    }
+}
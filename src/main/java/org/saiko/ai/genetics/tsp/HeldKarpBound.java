@@ -0,0 +1,315 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp;
+
+import java.util.Arrays;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ *         Held-Karp lower bound of the cost of the optimal tour. The 1-tree
+ *         is the minimum spanning tree of the cities 1..n-1 plus the two
+ *         cheapest edges of the city 0 - each tour is a 1-tree, so the
+ *         cheapest 1-tree is not longer than the optimal tour.
+ *
+ *         The cost of each edge is raised by the penalties of both of its
+ *         cities. Every tour is then longer by twice the sum of the
+ *         penalties, so the cost of the 1-tree minus twice the sum of the
+ *         penalties is still a lower bound. Subgradient optimization raises
+ *         the penalty of the city with more than two edges in the 1-tree and
+ *         lowers the penalty of the city with one edge, which pushes the
+ *         1-tree towards a tour and the bound towards the optimal cost -
+ *         usually within one or two percent on the maps of cities.
+ *
+ *         Each iteration takes O(n^2) time, the bound is improved iteration
+ *         by iteration by iterate(). The bound of a map reads the distances
+ *         through the distance cache of its cities, no other matrix is made.
+ *
+ * @see org.saiko.ai.genetics.tsp.engines.exact.BranchAndBoundEngine
+ */
+public class HeldKarpBound {
+
+    /**
+     * the biggest map the bound is computed for, the map with the distance
+     * cache
+     */
+    public static final int MAX_CITIES = City.MAX_CACHED_CITIES;
+
+    /**
+     * iterations without better bound before the step is halved, for bigger
+     * maps half of the number of cities
+     */
+    protected static final int MAX_AGE = 10;
+
+    /**
+     * the optimization is finished when the step gets lower
+     */
+    protected static final double MIN_STEP = 1e-4;
+
+    /**
+     * costs between cities, null if the distances are read from the cities
+     */
+    protected final double cost[][];
+
+    /**
+     * cities of the map, null if the costs are given by the matrix
+     */
+    protected final City cities[];
+
+    /**
+     * current penalties of the cities
+     */
+    protected final double penalty[];
+
+    /**
+     * penalties of the best bound
+     */
+    protected final double bestPenalty[];
+
+    /**
+     * number of edges of each city in the last 1-tree
+     */
+    protected final int degree[];
+
+    /**
+     * distance of the cities to the spanning tree, for Prim's algorithm
+     */
+    protected final double key[];
+
+    /**
+     * the city of the spanning tree nearest to each city
+     */
+    protected final int parent[];
+
+    /**
+     * cities connected to the spanning tree
+     */
+    protected final boolean inTree[];
+
+    /**
+     * cost of the nearest neighbour tour, the upper bound used when no better
+     * tour is known
+     */
+    protected final double tourCost;
+
+    /**
+     * the best lower bound found
+     */
+    protected double bound = Double.NEGATIVE_INFINITY;
+
+    /**
+     * size of the step relative to the gap between the bounds
+     */
+    protected double step = 2;
+
+    /**
+     * iterations without better bound
+     */
+    protected int age;
+
+    /**
+     * true when the bound can not be improved more
+     */
+    protected boolean finished;
+
+    /**
+     * @param cost
+     *            costs between all the cities, at least three cities
+     */
+    public HeldKarpBound(double cost[][]) {
+	this(cost, null, cost.length);
+    }
+
+    /**
+     * @param cost
+     *            costs between the cities or null
+     * @param cities
+     *            cities with the distance cache if there are no costs
+     * @param n
+     *            number of the cities
+     */
+    private HeldKarpBound(double cost[][], City cities[], int n) {
+	this.cost = cost;
+	this.cities = cities;
+	penalty = new double[n];
+	bestPenalty = new double[n];
+	degree = new int[n];
+	key = new double[n];
+	parent = new int[n];
+	inTree = new boolean[n];
+	tourCost = nearestNeighbourCost();
+    }
+
+    /**
+     * @param cities
+     *            cities of the map, at least three cities
+     * @return the bound of the tour distance through the cities
+     * @throws IllegalArgumentException
+     *             if the map has less than three or more than MAX_CITIES
+     *             cities
+     */
+    public static HeldKarpBound forDistances(City cities[])
+	    throws IllegalArgumentException {
+	int n = cities.length;
+	if (n < 3 || n > MAX_CITIES) {
+	    throw new IllegalArgumentException(
+		    "Held-Karp bound is computed for maps of 3 to "
+			    + MAX_CITIES + " cities, the map has " + n
+			    + " cities.");
+	}
+	return new HeldKarpBound(null, cities, n);
+    }
+
+    /**
+     * @param i
+     * @param j
+     * @return cost between the cities, from the matrix or the distance cache
+     */
+    protected double cost(int i, int j) {
+	return cost != null ? cost[i][j] : cities[i].distance(cities[j]);
+    }
+
+    /**
+     * One step of the subgradient optimization
+     *
+     * @param upperBound
+     *            cost of some tour, the better tour the faster convergence;
+     *            the nearest neighbour tour is used if it is better
+     * @return false if the bound can not be improved more
+     */
+    public boolean iterate(double upperBound) {
+	if (finished) {
+	    return false;
+	}
+	upperBound = Math.min(upperBound, tourCost);
+	int n = penalty.length;
+	double sum = 0;
+	for (int i = 0; i < n; i++) {
+	    sum += penalty[i];
+	}
+	double value = oneTree() - 2 * sum;
+	if (value > bound) {
+	    bound = value;
+	    System.arraycopy(penalty, 0, bestPenalty, 0, n);
+	    age = 0;
+	} else if (++age >= Math.max(MAX_AGE, n / 2)) {
+	    step /= 2;
+	    age = 0;
+	}
+
+	int norm = 0;
+	for (int i = 0; i < n; i++) {
+	    norm += (degree[i] - 2) * (degree[i] - 2);
+	}
+	if (norm == 0 || step < MIN_STEP) {
+	    // the 1-tree is the optimal tour or the steps are too small
+	    finished = true;
+	    return false;
+	}
+	double gap = Math.max(upperBound - value, 0);
+	for (int i = 0; i < n; i++) {
+	    penalty[i] += step * gap / norm * (degree[i] - 2);
+	}
+	return true;
+    }
+
+    /**
+     * @return the best lower bound found, negative infinity before the first
+     *         iteration
+     */
+    public double getBound() {
+	return bound;
+    }
+
+    /**
+     * @return penalties of the cities of the best bound
+     */
+    public double[] getPenalties() {
+	return bestPenalty;
+    }
+
+    /**
+     * @return cost of the tour made by the nearest neighbour heuristics
+     */
+    protected double nearestNeighbourCost() {
+	int n = penalty.length;
+	boolean visited[] = new boolean[n];
+	visited[0] = true;
+	int last = 0;
+	double sum = 0;
+	for (int step = 1; step < n; step++) {
+	    int nearest = -1;
+	    for (int j = 0; j < n; j++) {
+		if (!visited[j]
+			&& (nearest < 0 || cost(last, j) < cost(last, nearest))) {
+		    nearest = j;
+		}
+	    }
+	    visited[nearest] = true;
+	    sum += cost(last, nearest);
+	    last = nearest;
+	}
+	return sum + cost(last, 0);
+    }
+
+    /**
+     * @return cost of the 1-tree with current penalties, sets the degrees of
+     *         the cities
+     */
+    protected double oneTree() {
+	int n = penalty.length;
+	Arrays.fill(degree, 0);
+	Arrays.fill(inTree, false);
+	Arrays.fill(key, Double.MAX_VALUE);
+	double tree = 0;
+
+	// Prim's minimum spanning tree of the cities 1..n-1
+	key[1] = 0;
+	parent[1] = -1;
+	for (int size = 1; size < n; size++) {
+	    int closest = -1;
+	    for (int i = 1; i < n; i++) {
+		if (!inTree[i] && (closest < 0 || key[i] < key[closest])) {
+		    closest = i;
+		}
+	    }
+	    inTree[closest] = true;
+	    if (parent[closest] >= 0) {
+		tree += key[closest];
+		degree[closest]++;
+		degree[parent[closest]]++;
+	    }
+	    for (int i = 1; i < n; i++) {
+		if (!inTree[i]) {
+		    double c = cost(closest, i) + penalty[closest] + penalty[i];
+		    if (c < key[i]) {
+			key[i] = c;
+			parent[i] = closest;
+		    }
+		}
+	    }
+	}
+
+	// two cheapest edges of the city 0
+	int first = -1, second = -1;
+	double firstCost = 0, secondCost = 0;
+	for (int i = 1; i < n; i++) {
+	    double c = cost(0, i) + penalty[0] + penalty[i];
+	    if (first < 0 || c < firstCost) {
+		second = first;
+		secondCost = firstCost;
+		first = i;
+		firstCost = c;
+	    } else if (second < 0 || c < secondCost) {
+		second = i;
+		secondCost = c;
+	    }
+	}
+	tree += firstCost + secondCost;
+	degree[0] = 2;
+	degree[first]++;
+	degree[second]++;
+	return tree;
+    }
+}
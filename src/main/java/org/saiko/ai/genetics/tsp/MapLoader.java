@@ -0,0 +1,215 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ *         Loads the maps from the file system, the standard input or the
+ *         build in resources. The format is detected from the first bytes of
+ *         the map, not from its name:
+ *         <ul>
+ *         <li>BINARY - starts with int magic "TSPM", see BinaryMap</li>
+ *         <li>TSPLIB - the first line is a TSPLIB keyword, see TSPLIBReader</li>
+ *         <li>CSV - the header line and the lines "name",x,y, see CSVMap</li>
+ *         </ul>
+ *
+ * @see TSPLIBReader
+ * @see CSVMap
+ * @see BinaryMap
+ */
+public class MapLoader {
+
+    /**
+     * Formats of the maps
+     */
+    public enum Format {
+	/** "name",x,y lines */
+	CSV,
+	/** TSPLIB .tsp map */
+	TSPLIB,
+	/** binary map starting with BinaryMap.MAGIC */
+	BINARY
+    }
+
+    /**
+     * the map name for the standard input
+     */
+    public static final String STDIN = "-";
+
+    /**
+     * number of the first bytes used for the detection of the format
+     */
+    protected static final int DETECT_LENGTH = 256;
+
+    /**
+     * keywords which can begin TSPLIB map
+     */
+    protected static final String TSPLIB_KEYWORDS[] = { "NAME", "TYPE",
+	    "COMMENT", "DIMENSION", "CAPACITY", "EDGE_WEIGHT_TYPE",
+	    "EDGE_WEIGHT_FORMAT", "NODE_COORD_TYPE", "DISPLAY_DATA_TYPE",
+	    "NODE_COORD_SECTION", "EDGE_WEIGHT_SECTION" };
+
+    /**
+     * no instances
+     */
+    private MapLoader() {
+    }
+
+    /**
+     * @param head
+     *            - the first bytes of the map
+     * @param length
+     *            - number of the bytes
+     * @return format of the map
+     */
+    public static Format detect(byte head[], int length) {
+	if (length >= 4
+		&& ((head[0] & 0xff) << 24 | (head[1] & 0xff) << 16
+			| (head[2] & 0xff) << 8 | head[3] & 0xff) == BinaryMap.MAGIC) {
+	    return Format.BINARY;
+	}
+	// skip UTF-8 byte order mark and white space
+	int start = length >= 3 && (head[0] & 0xff) == 0xEF
+		&& (head[1] & 0xff) == 0xBB && (head[2] & 0xff) == 0xBF ? 3 : 0;
+	while (start < length && head[start] <= ' ' && head[start] >= 0) {
+	    start++;
+	}
+	int end = start;
+	while (end < length
+		&& (head[end] >= 'A' && head[end] <= 'Z' || head[end] == '_')) {
+	    end++;
+	}
+	String word = new String(head, start, end - start);
+	for (String keyword : TSPLIB_KEYWORDS) {
+	    if (keyword.equals(word)) {
+		return Format.TSPLIB;
+	    }
+	}
+	return Format.CSV;
+    }
+
+    /**
+     * Loads the map
+     *
+     * @param map
+     *            - STDIN, path of the file or name of the build in resource
+     *            (without .csv)
+     * @param configuration
+     *            - configuration of the cities
+     * @return cities of the map indexed by their ids
+     * @throws IOException
+     *             if the map can not be read
+     * @throws IllegalArgumentException
+     *             if the map is not valid
+     */
+    public static City[] load(String map, TSPConfiguration configuration)
+	    throws IOException, IllegalArgumentException {
+	if (STDIN.equals(map)) {
+	    return load(System.in, configuration);
+	}
+	File file = new File(map);
+	if (file.isFile()) {
+	    return load(file, configuration);
+	}
+	InputStream in = TSP.class.getClassLoader().getResourceAsStream(map);
+	if (in == null) {
+	    in = TSP.class.getClassLoader().getResourceAsStream(map + ".csv");
+	}
+	if (in == null) {
+	    throw new IllegalArgumentException("Map " + map + " not found.");
+	}
+	try {
+	    return load(in, configuration);
+	} finally {
+	    in.close();
+	}
+    }
+
+    /**
+     * Loads the map from the file, the .csv and binary maps are mapped into
+     * the memory
+     *
+     * @param file
+     * @param configuration
+     *            - configuration of the cities
+     * @return cities of the map indexed by their ids
+     * @throws IOException
+     *             if the file can not be read
+     * @throws IllegalArgumentException
+     *             if the map is not valid
+     */
+    public static City[] load(File file, TSPConfiguration configuration)
+	    throws IOException, IllegalArgumentException {
+	byte head[] = new byte[DETECT_LENGTH];
+	int length;
+	try (InputStream in = new FileInputStream(file)) {
+	    length = readHead(in, head);
+	}
+	switch (detect(head, length)) {
+	case TSPLIB:
+	    return new TSPLIBReader(configuration).read(file);
+	case BINARY:
+	    return BinaryMap.read(file).createCities(configuration);
+	default:
+	    return CSVMap.read(file).createCities(configuration);
+	}
+    }
+
+    /**
+     * Loads the map from the stream
+     *
+     * @param stream
+     *            - the map, not closed
+     * @param configuration
+     *            - configuration of the cities
+     * @return cities of the map indexed by their ids
+     * @throws IOException
+     *             if the stream can not be read
+     * @throws IllegalArgumentException
+     *             if the map is not valid
+     */
+    public static City[] load(InputStream stream,
+	    TSPConfiguration configuration) throws IOException,
+	    IllegalArgumentException {
+	InputStream in = new BufferedInputStream(stream, 1 << 16);
+	byte head[] = new byte[DETECT_LENGTH];
+	in.mark(DETECT_LENGTH);
+	int length = readHead(in, head);
+	in.reset();
+	switch (detect(head, length)) {
+	case TSPLIB:
+	    return new TSPLIBReader(configuration).read(new InputStreamReader(
+		    in, "UTF-8"));
+	case BINARY:
+	    return BinaryMap.read(in).createCities(configuration);
+	default:
+	    return CSVMap.read(in).createCities(configuration);
+	}
+    }
+
+    /**
+     * @param in
+     * @param head
+     * @return number of the first bytes read into head
+     * @throws IOException
+     */
+    protected static int readHead(InputStream in, byte head[])
+	    throws IOException {
+	int length = 0;
+	int read;
+	while (length < head.length
+		&& (read = in.read(head, length, head.length - length)) != -1) {
+	    length += read;
+	}
+	return length;
+    }
+}
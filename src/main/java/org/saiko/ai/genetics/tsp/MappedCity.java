@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ *         City of the map with the name kept in the map file - the names are
+ *         decoded only when needed, not for each city at the load of the map.
+ *
+ * @see CSVMap
+ * @see BinaryMap
+ */
+public class MappedCity extends City {
+
+    /**
+     * Names of the cities of the map
+     */
+    public interface Names {
+
+	/**
+	 * @param id
+	 *            - id of the city
+	 * @return name of the city
+	 */
+	String getName(int id);
+    }
+
+    /**
+     * names of the cities of the map
+     */
+    protected final Names names;
+
+    /**
+     * @param names
+     *            - names of the cities of the map
+     * @param id
+     *            - index of the city in the map
+     * @param configuration
+     * @param x
+     *            - X coordinate of the city
+     * @param y
+     *            - Y coordinate of the city
+     */
+    public MappedCity(Names names, int id, TSPConfiguration configuration,
+	    int x, int y) {
+	super(id, configuration, null, x, y);
+	this.names = names;
+    }
+
+    /**
+     * @see org.saiko.ai.genetics.tsp.City#getName()
+     */
+    @Override
+    public String getName() {
+	return names.getName(id);
+    }
+}
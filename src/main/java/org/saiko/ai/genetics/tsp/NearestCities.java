@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ *         Lists of the nearest cities of each city of the map, ordered by the
+ *         distance. Computing them takes O(n^2) time, so they can be
+ *         precomputed in the binary map and shared by all the cities of the
+ *         map. The local searches (TourPolisher) and the candidate lists
+ *         (AntColonyEngine) use the precomputed lists when the map has them.
+ *
+ * @see BinaryMap
+ * @see TourPolisher
+ */
+public class NearestCities {
+
+    /**
+     * number of the nearest cities stored in the binary maps
+     */
+    public static final int DEFAULT_COUNT = 16;
+
+    /**
+     * number of the nearest cities of each city
+     */
+    protected final int count;
+
+    /**
+     * ids of the nearest cities, count values per city indexed by city id
+     */
+    protected final int ids[];
+
+    /**
+     * @param ids
+     *            - ids of the nearest cities, count values per city
+     * @param count
+     *            - number of the nearest cities of each city
+     */
+    public NearestCities(int ids[], int count) {
+	this.ids = ids;
+	this.count = count;
+    }
+
+    /**
+     * Computes the lists in the compute pool
+     *
+     * @param cities
+     *            - cities of the map indexed by their ids
+     * @param count
+     *            - number of the nearest cities, less for maps smaller than
+     *            count + 1
+     * @return the lists
+     */
+    public static NearestCities compute(final City cities[], int count) {
+	final int n = cities.length;
+	final int k = Math.max(1, Math.min(count, n - 1));
+	final int ids[] = new int[n * k];
+	int parallelism = TSPExecutors.getComputePool().getParallelism();
+	int chunks = Math.max(1, Math.min(n / 256, 4 * parallelism));
+	List<Callable<Object>> tasks = new ArrayList<>(chunks);
+	for (int c = 0; c < chunks; c++) {
+	    final int from = (int) ((long) n * c / chunks);
+	    final int to = (int) ((long) n * (c + 1) / chunks);
+	    tasks.add(new Callable<Object>() {
+		@Override
+		public Object call() {
+		    double distances[] = new double[k];
+		    for (int i = from; i < to; i++) {
+			// insertion into ordered list of the nearest cities
+			int size = 0;
+			int offset = i * k;
+			for (int j = 0; j < n; j++) {
+			    if (j == i) {
+				continue;
+			    }
+			    double d = cities[i].distance(cities[j]);
+			    if (size == k && d >= distances[size - 1]) {
+				continue;
+			    }
+			    int p = size < k ? size++ : size - 1;
+			    while (p > 0 && distances[p - 1] > d) {
+				distances[p] = distances[p - 1];
+				ids[offset + p] = ids[offset + p - 1];
+				p--;
+			    }
+			    distances[p] = d;
+			    ids[offset + p] = j;
+			}
+		    }
+		    return null;
+		}
+	    });
+	}
+	for (Future<Object> future : TSPExecutors.getComputePool().invokeAll(
+		tasks)) {
+	    try {
+		future.get();
+	    } catch (InterruptedException e) {
+		Thread.currentThread().interrupt();
+		throw new IllegalStateException(e);
+	    } catch (ExecutionException e) {
+		throw new IllegalStateException(e.getCause());
+	    }
+	}
+	return new NearestCities(ids, k);
+    }
+
+    /**
+     * Shares the lists by the cities of the map
+     *
+     * @param cities
+     *            - cities of the map
+     * @param nearest
+     *            - the lists of the map
+     */
+    public static void attach(City cities[], NearestCities nearest) {
+	for (City city : cities) {
+	    city.nearest = nearest;
+	}
+    }
+
+    /**
+     * @param cities
+     *            - all the cities of the map, in any order
+     * @param count
+     *            - number of the nearest cities needed
+     * @return precomputed lists of the map with at least count cities, null
+     *         if the map has none
+     */
+    public static NearestCities of(City cities[], int count) {
+	if (cities.length == 0) {
+	    return null;
+	}
+	NearestCities nearest = cities[0].nearest;
+	if (nearest == null || nearest.size() != cities.length
+		|| nearest.count < Math.min(count, cities.length - 1)) {
+	    return null;
+	}
+	return nearest;
+    }
+
+    /**
+     * @return number of the nearest cities of each city
+     */
+    public int getCount() {
+	return count;
+    }
+
+    /**
+     * @return number of the cities of the map
+     */
+    public int size() {
+	return ids.length / count;
+    }
+
+    /**
+     * @param id
+     *            - id of the city
+     * @param k
+     *            - order of the nearest city, 0 for the nearest
+     * @return id of the k-th nearest city
+     */
+    public int get(int id, int k) {
+	return ids[id * count + k];
+    }
+
+    /**
+     * @return ids of the nearest cities, getCount() values per city
+     */
+    public int[] getIds() {
+	return ids;
+    }
+}
@@ -392,12 +392,34 @@ class Report extends PdfPageEventHelper
       if(tsp.engine!=null)
          p.put("Final population size",Report.numberFormatter.format(tsp.engine.getPopulationSize()));
       p.put("Mutation ratio",Report.numberFormatter.format(tsp.configuration.mutationRatio));
+      p.put("Adaptive parameters",tsp.configuration.adaptive ? "true" : "false");
       p.put("RMS cost",tsp.configuration.rmsCost ? "true" : "false");
+      p.put("Polish final tour",tsp.configuration.polish ? "true" : "false");
       p.put("Generation",Report.numberFormatter.format(tsp.generation));
       p.put("Time",Report.numberFormatter.format((int)(tsp.runTime/1000))+" s.");
       p.put("Best cost age",Report.numberFormatter.format(tsp.bestCostAge));
       if(tsp.bestChromosome!=null)
          p.put("Best distance",Report.numberFormatter.format((int)tsp.bestChromosome.totalDistance));
+      if(tsp.lowerBound>0) {
+         p.put("Lower bound",Report.numberFormatter.format((int)tsp.lowerBound));
+      }
+      if(tsp.lowerBound>0 && tsp.bestCost>0) {
+         p.put("Gap",String.format("%.2f %%",tsp.getGap()*100));
+      }
+      if(tsp.throughput!=null) {
+         for(TSPThroughput.Counter counter:TSPThroughput.Counter.values()) {
+            p.put("Rate of "+counter.getLabel(),Report.numberFormatter.format(Math.round(tsp.throughput.getRate(counter)))
+                  +" /s (total "+Report.numberFormatter.format(tsp.throughput.getCount(counter))+")");
+         }
+      }
+      if(tsp.engine instanceof TSPTimedEngine) {
+         GenerationTimer timer=((TSPTimedEngine)tsp.engine).getGenerationTimer();
+         long total=timer.getTotalNanos();
+         for(GenerationTimer.Phase phase:GenerationTimer.Phase.values()) {
+            long nanos=timer.getNanos(phase);
+            p.put("Time of "+phase.getLabel(),String.format("%.3f s. (%d %%)",nanos/1e9,total>0 ? Math.round(nanos*100.0/total) : 0));
+         }
+      }
       
       return p;
    }   
@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp;
+
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ *         Array of counters striped per thread. Each thread adds to its own
+ *         copy of the counters - no locks, no atomic operations and no shared
+ *         cache lines between the threads counting in parallel. The copies of
+ *         all the threads are summed when the counter is read.
+ *
+ *         The copies of the other threads are read without synchronization,
+ *         so the sums may be a bit behind during the computation. The copies
+ *         of the finished threads are summed once and dropped when the
+ *         counters are read.
+ *
+ * @see GenerationTimer
+ */
+public class StripedCounters {
+
+    /**
+     * number of the counters
+     */
+    protected final int size;
+
+    /**
+     * copy of the counters of one thread
+     */
+    protected static class Stripe extends WeakReference<Thread> {
+	/** the counters */
+	final long counters[];
+
+	/**
+	 * @param thread
+	 *            - owner of the copy
+	 * @param size
+	 *            number of the counters
+	 */
+	Stripe(Thread thread, int size) {
+	    super(thread);
+	    counters = new long[size];
+	}
+
+	/**
+	 * @return true if the owner thread finished, so the counters do not
+	 *         change any more
+	 */
+	boolean isFinished() {
+	    Thread thread = get();
+	    return thread == null || !thread.isAlive();
+	}
+    }
+
+    /**
+     * copies of the counters of the running threads which counted anything
+     */
+    protected final List<Stripe> stripes = new CopyOnWriteArrayList<>();
+
+    /**
+     * sums of the copies of the finished threads
+     */
+    protected final long retired[];
+
+    /**
+     * copy of the counters of the current thread
+     */
+    protected final ThreadLocal<long[]> stripe = new ThreadLocal<long[]>() {
+	@Override
+	protected long[] initialValue() {
+	    Stripe counters = new Stripe(Thread.currentThread(), size);
+	    stripes.add(counters);
+	    return counters.counters;
+	}
+    };
+
+    /**
+     * @param size
+     *            number of the counters
+     */
+    public StripedCounters(int size) {
+	this.size = size;
+	this.retired = new long[size];
+    }
+
+    /**
+     * @return copy of the counters of the current thread, the thread may
+     *         add to it directly
+     */
+    public long[] getStripe() {
+	return stripe.get();
+    }
+
+    /**
+     * Adds to the counter of the current thread
+     *
+     * @param index
+     *            of the counter
+     * @param value
+     */
+    public void add(int index, long value) {
+	stripe.get()[index] += value;
+    }
+
+    /**
+     * @param index
+     *            of the counter
+     * @return the counter summed over all the threads
+     */
+    public long get(int index) {
+	return getAll()[index];
+    }
+
+    /**
+     * Moves the copies of the finished threads to the retired sums, so the
+     * threads of the pools which were replaced are not kept
+     *
+     * @return all the counters summed over all the threads
+     */
+    public synchronized long[] getAll() {
+	long sums[] = retired.clone();
+	for (Stripe counters : stripes) {
+	    // the finished thread does not add any more, its counters are
+	    // visible after isAlive() returned false
+	    boolean finished = counters.isFinished();
+	    for (int i = 0; i < size; i++) {
+		sums[i] += counters.counters[i];
+	    }
+	    if (finished) {
+		stripes.remove(counters);
+		for (int i = 0; i < size; i++) {
+		    retired[i] += counters.counters[i];
+		}
+	    }
+	}
+	return sums;
+    }
+}
@@ -4,21 +4,41 @@
 package org.saiko.ai.genetics.tsp;
 
 import java.awt.Desktop;
-import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
 import java.text.SimpleDateFormat;
-import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import org.saiko.ai.genetics.tsp.engines.antColony.AntColonyEngine;
 import org.saiko.ai.genetics.tsp.engines.crossover.GreedyCrossoverEngine;
 import org.saiko.ai.genetics.tsp.engines.crossoverHibrid2opt.GreedyCrossoverHibrid2OptEngine;
+import org.saiko.ai.genetics.tsp.engines.exact.BranchAndBoundEngine;
+import org.saiko.ai.genetics.tsp.engines.exact.HeldKarpEngine;
+import org.saiko.ai.genetics.tsp.engines.island.IslandModelEngine;
 import org.saiko.ai.genetics.tsp.engines.simpleUnisexMutator.SimpleUnisexMutatorEngine;
 import org.saiko.ai.genetics.tsp.engines.simpleUnisexMutatorHibrid2Opt.SimpleUnisexMutatorHibrid2OptEngine;
+import org.saiko.ai.genetics.tsp.engines.simulatedAnnealing.SimulatedAnnealingEngine;
+import org.saiko.ai.genetics.tsp.engines.steadyState.SteadyStateEngine;
+import org.saiko.ai.genetics.tsp.jfr.FlightEvents;
+import org.saiko.ai.genetics.tsp.sinks.BinaryTourSink;
+import org.saiko.ai.genetics.tsp.sinks.ConsoleTourSink;
+import org.saiko.ai.genetics.tsp.sinks.JsonLinesTourSink;
+import org.saiko.ai.genetics.tsp.termination.AnyTermination;
+import org.saiko.ai.genetics.tsp.termination.BestAgeTermination;
+import org.saiko.ai.genetics.tsp.termination.EvaluationsTermination;
+import org.saiko.ai.genetics.tsp.termination.GapTermination;
+import org.saiko.ai.genetics.tsp.termination.ImprovementTermination;
+import org.saiko.ai.genetics.tsp.termination.SolvedTermination;
+import org.saiko.ai.genetics.tsp.termination.TargetCostTermination;
+import org.saiko.ai.genetics.tsp.termination.TimeTermination;
 
 /**
  * @author dusan.saiko@gmail.com
@@ -43,7 +63,10 @@ public class TSP {
     protected static final Class<TSPEngine> engines[] = new Class[] {
 	    SimpleUnisexMutatorEngine.class, GreedyCrossoverEngine.class,
 	    GreedyCrossoverHibrid2OptEngine.class,
-	    SimpleUnisexMutatorHibrid2OptEngine.class, };
+	    SimpleUnisexMutatorHibrid2OptEngine.class, IslandModelEngine.class,
+	    SteadyStateEngine.class, SimulatedAnnealingEngine.class,
+	    AntColonyEngine.class, HeldKarpEngine.class,
+	    BranchAndBoundEngine.class, };
 
     /**
      * available map files
@@ -107,7 +130,7 @@ public class TSP {
     /**
      * Selected engine class
      */
-    protected Class<TSPEngine> engineClass = engines[3];
+    protected Class<? extends TSPEngine> engineClass = engines[3];
 
     /**
      * Engine instance from engineClass
@@ -124,6 +147,11 @@ public class TSP {
      */
     int bestCostAge;
 
+    /**
+     * time when the best cost changed last time (ms)
+     */
+    volatile long bestCostTime;
+
     /**
      * generation counter
      */
@@ -134,6 +162,146 @@ public class TSP {
      */
     double bestCost = 0;
 
+    /**
+     * Held-Karp lower bound of the tour distance, 0 if not known, computed in
+     * the background during the computation
+     */
+    volatile double lowerBound = 0;
+
+    /**
+     * diversity of the population in the last generation, null if not
+     * measured
+     */
+    volatile TSPDiversity diversity;
+
+    /**
+     * throughput of the current computation, null before the start
+     */
+    volatile TSPThroughput throughput;
+
+    /**
+     * number of the tour evaluations of the computation, counted by the
+     * throughput
+     */
+    long evaluations = 0;
+
+    /**
+     * termination policy set by setTermination(), null if the policy is
+     * created from the configuration
+     */
+    protected TSPTermination customTermination;
+
+    /**
+     * termination policy of the running computation
+     */
+    protected TSPTermination termination;
+
+    /**
+     * end of the time budget of the running computation (ms), 0 if the
+     * computation has no time budget
+     */
+    protected volatile long deadline = 0;
+
+    /**
+     * stop signal of the engines - raised when the stop is requested or the
+     * time budget is used up
+     */
+    protected final TSPStopSignal stopSignal = new TSPStopSignal() {
+	@Override
+	public boolean isStopRequested() {
+	    long time = deadline;
+	    return stopRequestFlag || time > 0
+		    && System.currentTimeMillis() >= time;
+	}
+    };
+
+    /**
+     * listeners of the new best tours
+     */
+    protected final List<TSPTourListener> tourListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * output of the messages and the status lines of console mode, standard
+     * error when the tours are streamed to the standard output
+     */
+    PrintStream console = System.out;
+
+    /**
+     * sinks of the tour stream from the command line (console mode)
+     */
+    String streamSinks;
+
+    /**
+     * connection to coordinator, if this application runs as a worker of the
+     * multi process island model
+     * 
+     * @see TSPCoordinator
+     */
+    TSPWorker worker;
+
+    /**
+     * name of the XML report file (console mode)
+     */
+    String xmlFileName;
+
+    /**
+     * port the coordinator listens on (console mode), -1 if this application
+     * is not the coordinator
+     */
+    int coordinatorPort = -1;
+
+    /**
+     * host and port of the coordinator to connect to as a worker (console
+     * mode), null host if this application is not a worker
+     */
+    String workerHost;
+
+    /**
+     * @see #workerHost
+     */
+    int workerPort = -1;
+
+    /**
+     * batch file with the computations to run (console mode)
+     * 
+     * @see TSPBatch
+     */
+    String batchFile;
+
+    /**
+     * number of computations running at the same time in batch mode, 0 for
+     * one per processor
+     */
+    int batchJobs = 0;
+
+    /**
+     * result file of the benchmark of the engines (console mode)
+     * 
+     * @see TSPBenchmark
+     */
+    String benchmarkFile;
+
+    /**
+     * port of the metrics endpoint (console mode), 0 if the metrics are not
+     * served
+     * 
+     * @see TSPMetricsServer
+     */
+    int metricsPort = 0;
+
+    /**
+     * binary map file the map is converted to (console mode), null if the
+     * map is not converted
+     * 
+     * @see BinaryMap
+     */
+    String convertFile;
+
+    /**
+     * true if the distance matrix is stored in the converted binary map
+     */
+    boolean convertMatrix = false;
+
     /**
      * loads cities from selected map
      * 
@@ -141,50 +309,34 @@ public class TSP {
      *            - not null if we just want to set some exact cities
      * @param initDiscanceCache
      *            - true if we want to initialize the distance cache of cities
-     * @see City#initDistanceCache(int)
+     * @throws IllegalArgumentException
+     *             if the map can not be read or is not valid
+     * @see City#initDistanceCache(City[])
+     * @see MapLoader
      */
-    protected void loadCities(City[] citiesToLoad, boolean initDiscanceCache) {
-	try {
-	    cities = citiesToLoad;
-	    if (cities == null) {
-		List<City> c = new ArrayList<>();
-
-		// get the stream
-		// first try with only file name in mapFile
-		try (BufferedReader reader = new BufferedReader(
-			new InputStreamReader(TSP.class.getClassLoader()
-				.getResourceAsStream(mapFile + ".csv"), "UTF-8"))) {
-
-		    // read the data
-		    String line;
-		    Pattern patternLine = Pattern
-			    .compile("\"(.*?)\",(.*?),(.*)"); //$NON-NLS-1$
-		    int count = 0;
-		    int id = 0;
-		    while ((line = reader.readLine()) != null) {
-			count++;
-			if (count == 1)
-			    continue;
-			Matcher regex = patternLine.matcher(line);
-			if (regex.find()) {
-			    String name = regex.group(1).trim();
-			    Integer x = new Integer(regex.group(2));
-			    Integer y = new Integer(regex.group(3));
-			    // city.id is the unique index of city starting from
-			    // 0
-			    City city = new City(id, configuration, name, x, y);
-			    id++;
-			    c.add(city);
-			}
-		    }
-
-		}
-		cities = c.toArray(new City[] {});
+    protected void loadCities(City[] citiesToLoad, boolean initDiscanceCache)
+	    throws IllegalArgumentException {
+	cities = citiesToLoad;
+	if (cities == null) {
+	    // the map of the file system, the standard input or the build in
+	    // resource
+	    try {
+		cities = MapLoader.load(mapFile, configuration);
+	    } catch (IOException e) {
+		throw new IllegalArgumentException("Map " + mapFile
+			+ " can not be read: " + e.getMessage(), e);
+	    }
+	    if (cities.length == 0) {
+		throw new IllegalArgumentException("Map " + mapFile
+			+ " has no cities.");
 	    }
+	}
 
-	    // set the first city from file as start city
-	    cities[0].startCity = true;
+	// set the first city from file as start city
+	cities[0].startCity = true;
 
+	// TSPLIB maps are not in S-JTSK
+	if (!(cities[0] instanceof TSPLIBCity)) {
 	    // find the biggest X
 	    int x1 = 0;
 	    for (City city : cities) {
@@ -195,16 +347,11 @@ public class TSP {
 	    // initialize
 	    for (City city : cities) {
 		city.x = Math.abs(x1 - city.x);
-		// init the distance cache of the city for known number of
-		// cities
 	    }
-	    if (initDiscanceCache) {
-		City.initDistanceCache(cities.length);
-	    }
-
-	} catch (Throwable e) {
-	    e.printStackTrace();
-	    System.exit(-1);
+	}
+	// init the distance cache of the city for known number of cities
+	if (initDiscanceCache) {
+	    City.initDistanceCache(cities);
 	}
     }
 
@@ -248,41 +395,79 @@ public class TSP {
     /**
      * runs the genetic computation of selected engine starts in new thread
      * 
+     * @throws IllegalStateException
+     *             if the engine can not be created; this and any other
+     *             failure of the computation is thrown to the caller after
+     *             the background tasks are stopped
      * @see TSPMenu#actionStart(ActionEvent)
      */
-    protected void run() {
+    protected void run() throws IllegalStateException {
+	Future<?> statusTask = null;
+	Future<?> boundTask = null;
+	TSPTourStream tourStream = null;
 	try {
 	    // initialize variables
+	    startedFlag = true;
 	    generation = 0;
 
 	    startTime = System.currentTimeMillis();
+	    deadline = 0;
+	    // counts also the initial population of the engine
+	    throughput = new TSPThroughput();
+	    configuration.setThroughput(throughput);
 	    engine = engineClass.newInstance();
+	    if (engine instanceof TSPStoppableEngine) {
+		((TSPStoppableEngine) engine).setStopSignal(stopSignal);
+	    }
 	    engine.initialize(configuration, cities);
 	    engineName = engine.getClass().getSimpleName();
 
 	    bestCostAge = 0;
+	    bestCostTime = startTime;
+	    lowerBound = 0;
+	    evaluations = 0;
+	    diversity = null;
+	    // the meter counts only the chromosomes changed since the last
+	    // generation
+	    DiversityMeter diversityMeter = configuration.diversity
+		    && engine instanceof TSPPopulationEngine ? new DiversityMeter()
+		    : null;
+	    termination = customTermination != null ? customTermination
+		    : createTermination();
+	    termination.start(this);
+
+	    // new best tours go to the listeners through the queue
+	    final long startNanos = System.nanoTime();
+	    tourStream = tourListeners.isEmpty() ? null
+		    : new TSPTourStream(tourListeners);
 
 	    double previewCost = 0;
 	    double previewDrawCost = 0;
 	    long previewDrawTime = 0;
 	    bestCost = 0;
 
-	    // status refreshing thread
-	    Thread statusThread = new Thread() {
-		@Override
-		public void run() {
-		    while (!stopRequestFlag) {
-			runTime = System.currentTimeMillis() - startTime;
-			setStatus(engine);
-			try {
-			    Thread.sleep(configuration.console ? 15000 : 1000);
-			} catch (Exception e) {
-			    /** nop **/
+	    // status refreshing task, it does not need its own platform thread
+	    statusTask = TSPExecutors.getIOExecutor().submit(
+		    new Runnable() {
+			@Override
+			public void run() {
+			    while (!stopRequestFlag) {
+				runTime = System.currentTimeMillis() - startTime;
+				setStatus(engine);
+				try {
+				    Thread.sleep(configuration.console ? 15000
+					    : 1000);
+				} catch (InterruptedException e) {
+				    return;
+				}
+			    }
 			}
-		    }
-		}
-	    };
-	    statusThread.start();
+		    });
+
+	    // the lower bound does not depend on the engine, it is computed on
+	    // another core
+	    boundTask = startLowerBound(engine.getBestChromosome()
+		    .getTotalDistance());
 
 	    // repeat the evolotion until stop is required
 	    while (!stopRequestFlag) {
@@ -303,12 +488,27 @@ public class TSP {
 		// get best chromosome
 		bestChromosome = engine.getBestChromosome();
 		bestCost = bestChromosome.getTotalDistance();
+		if (diversityMeter != null) {
+		    diversity = diversityMeter
+			    .measure(((TSPPopulationEngine) engine)
+				    .getPopulation());
+		}
 		if (previewCost == bestCost) {
 		    bestCostAge++;
 		} else {
 		    bestCostAge = 0;
+		    bestCostTime = System.currentTimeMillis();
+		    FlightEvents.newBestTour(generation, bestCost,
+			    bestChromosome.getTotalCost());
+		    if (tourStream != null) {
+			tourStream.publish(new TSPTourEvent(generation, System
+				.nanoTime() - startNanos, bestChromosome,
+				diversity));
+		    }
 		}
-		if (bestCostAge >= configuration.maxBestCostAge) {
+		runTime = System.currentTimeMillis() - startTime;
+		// worker is stopped by the coordinator
+		if (worker == null && termination.isFinished(this)) {
 		    stopRequestFlag = true;
 		}
 		previewCost = bestCost;
@@ -323,14 +523,63 @@ public class TSP {
 		    }
 		}
 
+		Object generationEvent = FlightEvents.beginGeneration();
 		engine.nextGeneration();
 
 		generation++;
+		evaluations = throughput
+			.getCount(TSPThroughput.Counter.EVALUATIONS);
+		FlightEvents.endGeneration(generationEvent, generation,
+			engineName, engine.getPopulationSize());
+
+		// exchange the best chromosomes with other workers
+		if (worker != null
+			&& generation
+				% Math.max(1, configuration.migrationInterval) == 0) {
+		    try {
+			if (!worker.exchange((TSPMigratingEngine) engine,
+				generation, evaluations,
+				configuration.migrationSize)) {
+			    stopRequestFlag = true;
+			}
+		    } catch (IOException e) {
+			System.err.println("Connection to coordinator lost: "
+				+ e);
+			stopRequestFlag = true;
+		    }
+		}
 	    } // while ! stop
 
 	    // stop actions
 	    runTime = System.currentTimeMillis() - startTime;
-	    statusThread.interrupt();
+	    if (worker != null) {
+		worker.close();
+	    }
+	    statusTask.cancel(true);
+
+	    // local search of the final tour, the workers send their tours to
+	    // the coordinator during the computation
+	    if (configuration.polish && worker == null) {
+		City tour[] = engine.getBestChromosome().getCities().clone();
+		TourPolisher.polish(tour);
+		bestChromosome = new TSPChromosome(tour);
+		if (tourStream != null
+			&& bestChromosome.getTotalDistance() != bestCost) {
+		    tourStream.publish(new TSPTourEvent(generation, System
+			    .nanoTime() - startNanos, bestChromosome, diversity));
+		}
+		bestCost = bestChromosome.getTotalDistance();
+		if (!configuration.console) {
+		    gui.cityMap.repaint();
+		}
+	    }
+	    if (tourStream != null) {
+		tourStream.close();
+		tourStream = null;
+	    }
+	    if (boundTask != null) {
+		boundTask.cancel(true);
+	    }
 	    // wait a second
 	    try {
 		Thread.sleep(500);
@@ -346,6 +595,7 @@ public class TSP {
 	    stopRequestFlag = false;
 	    startedFlag = false;
 	    pauseRequestFlag = false;
+	    deadline = 0;
 
 	    // reenable menu items
 	    if (!configuration.console) {
@@ -356,10 +606,74 @@ public class TSP {
 
 		gui.repaint();
 	    }
-	} catch (Throwable e) {
-	    e.printStackTrace();
-	    System.exit(-1);
+	} catch (ReflectiveOperationException e) {
+	    abort(statusTask, boundTask);
+	    throw new IllegalStateException("Engine "
+		    + engineClass.getSimpleName() + " can not be created.", e);
+	} catch (RuntimeException | Error e) {
+	    abort(statusTask, boundTask);
+	    throw e;
+	} finally {
+	    // the listeners of the failed computation are finished too, the
+	    // delivery task would wait for the end of the stream forever
+	    if (tourStream != null) {
+		tourStream.close();
+	    }
+	}
+    }
+
+    /**
+     * Starts the computation of the Held-Karp lower bound in the compute pool,
+     * the bound is improved until the computation stops
+     * 
+     * @param firstDistance
+     *            - distance of some tour, used until the best cost is known
+     * @return the task, null if the map has less than 3 or more than
+     *         HeldKarpBound.MAX_CITIES cities
+     * @see #getLowerBound()
+     */
+    protected Future<?> startLowerBound(final double firstDistance) {
+	if (cities.length < 3 || cities.length > HeldKarpBound.MAX_CITIES) {
+	    return null;
 	}
+	final HeldKarpBound heldKarpBound = HeldKarpBound.forDistances(cities);
+	return TSPExecutors.getComputePool().submit(new Runnable() {
+	    @Override
+	    public void run() {
+		while (!stopRequestFlag
+			&& !Thread.currentThread().isInterrupted()
+			&& heldKarpBound.iterate(bestCost > 0 ? bestCost
+				: firstDistance)) {
+		    lowerBound = Math.max(0, heldKarpBound.getBound());
+		}
+		lowerBound = Math.max(0, heldKarpBound.getBound());
+	    }
+	});
+    }
+
+    /**
+     * Stops the background tasks of the failed computation and resets the
+     * flags, so the next computation can be started
+     * 
+     * @param statusTask
+     *            - status refreshing task, null if not started yet
+     * @param boundTask
+     *            - lower bound task, null if not started
+     */
+    protected void abort(Future<?> statusTask, Future<?> boundTask) {
+	if (statusTask != null) {
+	    statusTask.cancel(true);
+	}
+	if (boundTask != null) {
+	    boundTask.cancel(true);
+	}
+	if (worker != null) {
+	    worker.close();
+	}
+	stopRequestFlag = false;
+	startedFlag = false;
+	pauseRequestFlag = false;
+	deadline = 0;
     }
 
     /**
@@ -372,13 +686,196 @@ public class TSP {
 		.format("%s: cities: %s; time: %s; generation: %s; population: %s; best distance: %s; best age: %s;",
 			engineName, cities.length, runTime / 1000, generation,
 			engine.getPopulationSize(), (int) bestCost, bestCostAge);
+	if (lowerBound > 0) {
+	    statusText += String.format(" lower bound: %s;", (int) lowerBound);
+	}
+	// there is no best distance before the first generation
+	if (lowerBound > 0 && bestCost > 0) {
+	    statusText += String.format(" gap: %.2f%%;", getGap() * 100);
+	}
+	TSPDiversity currentDiversity = diversity;
+	if (currentDiversity != null) {
+	    statusText += " " + currentDiversity;
+	}
+	TSPThroughput currentThroughput = throughput;
+	if (currentThroughput != null) {
+	    statusText += " " + currentThroughput;
+	}
+	if (engine instanceof TSPTimedEngine) {
+	    String phases = ((TSPTimedEngine) engine).getGenerationTimer()
+		    .toString();
+	    if (phases.length() > 0) {
+		statusText += " " + phases;
+	    }
+	}
 	if (configuration.console) {
-	    System.out.println(statusText);
+	    console.println(statusText);
 	} else {
 	    gui.statusBar.setText(statusText);
 	}
     }
 
+    /**
+     * @return termination policy combining all the stop criteria of the
+     *         configuration - the best cost age, the optimal tour of the
+     *         exact engines and the optional time budget, number of
+     *         evaluations, target cost, gap and improvement window
+     */
+    public TSPTermination createTermination() {
+	AnyTermination any = new AnyTermination(new BestAgeTermination(
+		configuration.maxBestCostAge), new SolvedTermination());
+	if (configuration.maxTime > 0) {
+	    any.add(new TimeTermination(configuration.maxTime));
+	}
+	if (configuration.maxEvaluations > 0) {
+	    any.add(new EvaluationsTermination(configuration.maxEvaluations));
+	}
+	if (configuration.targetCost > 0) {
+	    any.add(new TargetCostTermination(configuration.targetCost));
+	}
+	if (configuration.maxGap > 0) {
+	    any.add(new GapTermination(configuration.maxGap));
+	}
+	if (configuration.improvementWindow > 0) {
+	    any.add(new ImprovementTermination(
+		    configuration.improvementWindow,
+		    configuration.minImprovement));
+	}
+	return any;
+    }
+
+    /**
+     * @param termination
+     *            termination policy used instead of the stop criteria of the
+     *            configuration, null for the configuration
+     */
+    public void setTermination(TSPTermination termination) {
+	customTermination = termination;
+    }
+
+    /**
+     * @param listener
+     *            listener of the new best tours of the next computations
+     */
+    public void addTourListener(TSPTourListener listener) {
+	tourListeners.add(listener);
+    }
+
+    /**
+     * @param listener
+     *            the listener to be removed
+     */
+    public void removeTourListener(TSPTourListener listener) {
+	tourListeners.remove(listener);
+    }
+
+    /**
+     * @param sink
+     *            stdout, or the file name - .bin for binary file, JSON lines
+     *            otherwise
+     * @return the sink of the tour stream
+     */
+    static TSPTourListener createTourSink(String sink) {
+	if ("stdout".equalsIgnoreCase(sink)) {
+	    return new ConsoleTourSink();
+	} else if (sink.toLowerCase().endsWith(".bin")) {
+	    return new BinaryTourSink(new File(sink));
+	}
+	return new JsonLinesTourSink(new File(sink));
+    }
+
+    /**
+     * @return the generation counter
+     */
+    public int getGeneration() {
+	return generation;
+    }
+
+    /**
+     * @return distance of the best chromosome
+     */
+    public double getBestCost() {
+	return bestCost;
+    }
+
+    /**
+     * @return the count of generations with the same best cost
+     */
+    public int getBestCostAge() {
+	return bestCostAge;
+    }
+
+    /**
+     * @return running time of the computation (ms)
+     */
+    public long getRunTime() {
+	return runTime;
+    }
+
+    /**
+     * Sets the time budget of the running computation. The stoppable engines
+     * end their generation when the budget is used up, so the computation
+     * does not overrun it by a whole generation. Workers are stopped by the
+     * coordinator only, so they have no budget.
+     * 
+     * @param maxTime
+     *            - budget from the start of the computation (ms)
+     * @see TSPStoppableEngine
+     * @see org.saiko.ai.genetics.tsp.termination.TimeTermination
+     */
+    public void setTimeBudget(long maxTime) {
+	deadline = worker == null ? startTime + maxTime : 0;
+    }
+
+    /**
+     * @return number of the tour evaluations of the computation, summed
+     *         over the workers in the coordinator mode
+     */
+    public long getEvaluations() {
+	return evaluations;
+    }
+
+    /**
+     * @return Held-Karp lower bound of the tour distance, 0 if not known
+     */
+    public double getLowerBound() {
+	return lowerBound;
+    }
+
+    /**
+     * @return diversity of the population in the last generation, null if
+     *         the engine has no population or the diversity is not measured
+     */
+    public TSPDiversity getDiversity() {
+	return diversity;
+    }
+
+    /**
+     * @return throughput of the current computation, null before the start
+     */
+    public TSPThroughput getThroughput() {
+	return throughput;
+    }
+
+    /**
+     * @return engine of the current computation, null before the start
+     */
+    public TSPEngine getEngine() {
+	return engine;
+    }
+
+    /**
+     * @return ratio of the best distance above the lower bound, infinity if
+     *         the lower bound or the best distance is not known
+     */
+    public double getGap() {
+	double bound = lowerBound;
+	if (bound <= 0 || bestCost <= 0) {
+	    return Double.POSITIVE_INFINITY;
+	}
+	return Math.max(0, bestCost - bound) / bound;
+    }
+
     /**
      * Main - starts the application ig text or graphics mode for all the
      * parameters, run this application with /? Possible command line parameters
@@ -393,7 +890,8 @@ public class TSP {
      * DEFAULT 100 --growth=N where N is population growth. DEFAULT 0.0075
      * --mutation=N where N is mutation ratio. DEFAULT 0.5 --xml=FILE.xml where
      * FILE is output name for XML report file. DEFAULT
-     * tsp_report_yyyy_MM_dd_HH_mm.xml See the gui interface help, documentation
+     * tsp_report_yyyy_MM_dd_HH_mm.xml --batch=FILE runs the computations
+     * listed in FILE, see TSPBatch. See the gui interface help, documentation
      * or http://www.saiko.cz/ai/tsp/ for detailed information. Example:
      * --console --map=192 --priority=1 --engine=3 --rms=false --population=200
      * --growth=0.01 --max=200 --mutation=0.5 --console --help
@@ -406,159 +904,73 @@ public class TSP {
 
 	// process command line
 	if (args != null && args.length > 0) {
-	    // display ussage ?
-	    boolean error = false;
-	    String errorMessage = "";
-
-	    int paramPriority = Thread.NORM_PRIORITY;
-	    String paramMap = "/cities_050.csv";
-	    Class<TSPEngine> paramEngine = engines[3];
-	    boolean paramRms = false;
-	    int paramPopulation = 1000;
-	    int paramMax = 100;
-	    double paramMutation = 0.5;
-	    double paramGrowth = 0.0075;
-	    String paramXMLFileName = "tsp_report_"
-		    + new SimpleDateFormat("yyyy_MM_dd_HH_mm").format(Calendar
-			    .getInstance().getTime()) + ".xml";
-
+	    TSP tsp = null;
 	    try {
-		for (int i = 0; i < args.length; i++) {
-		    String param = args[i].toLowerCase();
-		    while (param.startsWith("-")) {
-			param = param.substring(1);
-		    }
-		    if (param.startsWith("priority=")) {
-			param = param.substring(param.lastIndexOf('=') + 1);
-			paramPriority = Integer.parseInt(param);
-		    } else if (param.equals("console")) {
-			// nothing
-		    } else if (param.startsWith("map=")) {
-			param = param.substring(param.lastIndexOf('=') + 1);
-
-			String[] possiblePaths = new String[] { param,
-				"/" + param, "/" + param + ".csv",
-				"/cities_" + param + ".csv",
-				"/cities_" + param,
-				"/cities_0" + param + ".csv",
-				"/cities_0" + param, };
-			for (String resName : possiblePaths) {
-			    if (TSP.class.getResourceAsStream(resName) != null) {
-				paramMap = resName;
-				break;
-			    }
-			}
+		tsp = parseArguments(args);
+	    } catch (IllegalArgumentException e) {
+		System.err.println("Error in command line parameters.\n"
+			+ e.getMessage() + getUsage());
+		System.exit(-1);
+	    }
 
-			if (paramMap == null) {
-			    error = true;
-			}
+	    if (tsp.batchFile != null) {
+		TSPBatch batch = new TSPBatch(args, tsp.batchJobs);
+		boolean success;
+		try {
+		    success = batch.run(tsp.batchFile);
+		} catch (IllegalArgumentException e) {
+		    System.err.println("Error in batch file "
+			    + tsp.batchFile + "\n" + e.getMessage()
+			    + getUsage());
+		    success = false;
+		}
+		System.exit(success ? 0 : -1);
+	    }
 
-		    } else if (param.startsWith("engine=")) {
-			int engineIndex = Integer.parseInt(param
-				.substring(param.lastIndexOf('=') + 1));
-			paramEngine = engines[engineIndex];
-			@SuppressWarnings("unused")
-			TSPEngine engineInterface = paramEngine.newInstance();
-		    } else if (param.startsWith("population=")) {
-			paramPopulation = Integer.parseInt(param
-				.substring(param.lastIndexOf('=') + 1));
-		    } else if (param.startsWith("max=")) {
-			paramMax = Integer.parseInt(param.substring(param
-				.lastIndexOf('=') + 1));
-		    } else if (param.startsWith("growth=")) {
-			paramGrowth = Double.parseDouble(param.substring(param
-				.lastIndexOf('=') + 1));
-		    } else if (param.startsWith("mutation=")) {
-			paramMutation = Double.parseDouble(param
-				.substring(param.lastIndexOf('=') + 1));
-		    } else if (param.startsWith("rms=")) {
-			paramRms = Boolean.parseBoolean(param.substring(param
-				.lastIndexOf('=') + 1));
-		    } else if (param.startsWith("xml=")) {
-			paramXMLFileName = param.substring(param
-				.lastIndexOf('=') + 1);
-		    } else {
-			error = true;
-			break;
-		    }
+	    if (tsp.benchmarkFile != null) {
+		boolean success;
+		try {
+		    success = new TSPBenchmark(args).run();
+		} catch (IllegalArgumentException e) {
+		    System.err.println("Error in benchmark parameters.\n"
+			    + e.getMessage() + getUsage());
+		    success = false;
 		}
-	    } catch (Throwable e) {
-		error = true;
+		System.exit(success ? 0 : -1);
 	    }
 
-	    if (error) {
-		String ussage = "Error in command line parameters.\n"
-			+ errorMessage
-			+ "\nOptions: \n"
-			+ "--console     mandatory, sets the output to console, no graphics displayed.\n"
-			+ "--map=NAME    where name is name of resource with .csv format.\n"
-			+ "                build in maps:\n"
-			+ "                  /cities_020.csv\n"
-			+ "                  /cities_050.csv <- DEFAULT\n"
-			+ "                  /cities_100.csv\n"
-			+ "                  /cities_150.csv\n"
-			+ "                  /cities_192.csv\n"
-			+ "                you can use only number part (020, 050...) as map name for build in maps.\n"
-			+ "--priority=N  where N in <1..10>; DEFAULT 5\n"
-			+ "--engine=N    where N is the index of engine to use; DEFAULT engine is GreedyCrossoverHibrid2OptEngine\n"
-			+ "                build in engines:\n";
-		int i = 0;
-		for (Class<TSPEngine> engineClass : engines) {
-		    ussage += "                  " + i + ": "
-			    + engineClass.getSimpleName() + "\n";
-		    i++;
+	    if (tsp.convertFile != null) {
+		try {
+		    tsp.convert();
+		} catch (IllegalArgumentException | IOException e) {
+		    System.err.println("Map " + tsp.mapFile
+			    + " can not be converted.\n" + e.getMessage());
+		    System.exit(-1);
 		}
-		ussage += "--rms=T       where T in <true,false> - computes RMS cost from distance; DEFAULT false\n"
-			+ "--population=N where N is the initial population size. DEFAULT 1000.\n"
-			+ "--max=N       where N is the max number of the same best result; DEFAULT 100\n"
-			+ "--growth=N    where N is population growth. DEFAULT 0.0075\n"
-			+ "--mutation=N  where N is mutation ratio. DEFAULT 0.5\n"
-			+ "--xml=FILE.xml where FILE is output name for XML report file. \n"
-			+ "              DEFAULT tsp_report_yyyy_MM_dd_HH_mm.xml\n"
-			+ "\n"
-			+ "See the gui interface help, documentation or http://www.saiko.cz/ai/tsp/ for detailed information.\n"
-			+ "Example:       --console --map=192 --priority=1 --engine=3 --rms=false --population=200 --growth=0.01 --max=200 --mutation=0.5 \n"
-			+ "               --console\n"
-			+ "               --help\n";
-		System.err.println(ussage);
-		System.exit(-1);
+		System.exit(0);
+	    }
+
+	    if (tsp.xmlFileName == null) {
+		tsp.xmlFileName = "tsp_report_"
+			+ new SimpleDateFormat("yyyy_MM_dd_HH_mm")
+				.format(Calendar.getInstance().getTime())
+			+ ".xml";
 	    }
 
 	    // display used parameters
-	    System.out.println("Priority: " + paramPriority);
-	    System.out.println("Map: " + paramMap);
-	    System.out.println("Engine: " + paramEngine);
-	    System.out.println("RMS: " + paramRms);
-	    System.out.println("Population: " + paramPopulation);
-	    System.out.println("Mutation: " + paramMutation);
-	    System.out.println("Growth: " + paramGrowth);
-	    System.out.println("Max best age: " + paramMax);
-	    System.out.println("XML report file: " + paramXMLFileName);
-	    System.out.println("Initializing ...");
-
-	    // set the parameters
-	    TSP tsp = new TSP(false);
-	    tsp.configuration.console = true;
-	    tsp.configuration.initialPopulationSize = paramPopulation;
-	    tsp.configuration.maxBestCostAge = paramMax;
-	    tsp.configuration.rmsCost = paramRms;
-	    tsp.configuration.mutationRatio = paramMutation;
-	    tsp.configuration.populationGrow = paramGrowth;
-	    tsp.configuration.threadPriority = paramPriority;
-	    tsp.engineClass = paramEngine;
-	    tsp.engine = paramEngine.newInstance();
-	    tsp.mapFile = paramMap;
-
-	    // load the map
-	    tsp.loadCities(null, true);
-
-	    System.out.println("Running ...");
-	    tsp.start();
-
-	    System.out.println("Writing the report ...");
-	    new TSPMenu(tsp).actionXMLReport(paramXMLFileName);
-
-	    System.out.println("Finished.");
+	    tsp.printParameters();
+	    try {
+		tsp.runConsole();
+	    } catch (IllegalArgumentException e) {
+		System.err.println(e.getMessage());
+		System.exit(-1);
+	    } catch (RuntimeException e) {
+		// the computation failed
+		e.printStackTrace();
+		System.exit(-1);
+	    }
+
+	    tsp.console.println("Finished.");
 	    System.exit(0);
 	} // end command line processing
 	else {
@@ -567,6 +979,437 @@ public class TSP {
 	}
     }
 
+    /**
+     * Creates the console application from command line parameters.
+     * 
+     * @param args
+     *            - command line arguments, see main(String[])
+     * @return application with configuration set from the parameters, the
+     *         cities are not loaded yet
+     * @throws IllegalArgumentException
+     *             if some parameter is not valid
+     * @see #main(String[])
+     */
+    static TSP parseArguments(String args[]) throws IllegalArgumentException {
+	TSP tsp = new TSP(false);
+	TSPConfiguration configuration = tsp.configuration;
+
+	// defaults of the console mode
+	configuration.console = true;
+	configuration.mutationRatio = 0.5;
+	configuration.populationGrow = 0.0075;
+	tsp.mapFile = "cities_050";
+
+	for (int i = 0; i < args.length; i++) {
+	    String param = args[i].toLowerCase();
+	    while (param.startsWith("-")) {
+		param = param.substring(1);
+	    }
+	    String value = param.substring(param.lastIndexOf('=') + 1);
+	    try {
+		if (param.startsWith("priority=")) {
+		    configuration.threadPriority = Integer.parseInt(value);
+		} else if (param.equals("console")) {
+		    // nothing
+		} else if (param.startsWith("map=")) {
+		    // map of the file system or the standard input, the path is
+		    // case sensitive
+		    String path = args[i].substring(args[i].indexOf('=') + 1);
+		    if (new File(path).isFile() || MapLoader.STDIN.equals(path)) {
+			tsp.mapFile = path;
+		    } else {
+			String[] possiblePaths = new String[] { value,
+				"/" + value, "/" + value + ".csv",
+				"/cities_" + value + ".csv", "/cities_" + value,
+				"/cities_0" + value + ".csv",
+				"/cities_0" + value, };
+			tsp.mapFile = null;
+			for (String resName : possiblePaths) {
+			    if (TSP.class.getResourceAsStream(resName) != null) {
+				// loadCities() expects the resource name without
+				// leading slash and .csv extension
+				tsp.mapFile = resName.replaceFirst("^/", "")
+					.replaceFirst("\\.csv$", "");
+				break;
+			    }
+			}
+			if (tsp.mapFile == null) {
+			    throw new IllegalArgumentException("Map " + value
+				    + " not found.");
+			}
+		    }
+		} else if (param.startsWith("engine=")) {
+		    tsp.engineClass = engines[Integer.parseInt(value)];
+		} else if (param.startsWith("population=")) {
+		    configuration.initialPopulationSize = Integer
+			    .parseInt(value);
+		} else if (param.startsWith("max=")) {
+		    configuration.maxBestCostAge = Integer.parseInt(value);
+		} else if (param.startsWith("time=")) {
+		    configuration.maxTime = parseTime(value);
+		} else if (param.startsWith("evaluations=")) {
+		    configuration.maxEvaluations = Long.parseLong(value);
+		} else if (param.startsWith("target=")) {
+		    configuration.targetCost = Double.parseDouble(value);
+		} else if (param.startsWith("window=")) {
+		    configuration.improvementWindow = Integer.parseInt(value);
+		} else if (param.startsWith("improvement=")) {
+		    configuration.minImprovement = Double.parseDouble(value);
+		} else if (param.startsWith("gap=")) {
+		    configuration.maxGap = Double.parseDouble(value);
+		} else if (param.startsWith("growth=")) {
+		    configuration.populationGrow = Double.parseDouble(value);
+		} else if (param.startsWith("mutation=")) {
+		    configuration.mutationRatio = Double.parseDouble(value);
+		} else if (param.startsWith("adaptive=")) {
+		    configuration.adaptive = Boolean.parseBoolean(value);
+		} else if (param.startsWith("rms=")) {
+		    configuration.rmsCost = Boolean.parseBoolean(value);
+		} else if (param.startsWith("islands=")) {
+		    configuration.islandCount = Integer.parseInt(value);
+		} else if (param.startsWith("island-engine=")) {
+		    Class<TSPEngine> islandEngine = engines[Integer
+			    .parseInt(value)];
+		    if (!IslandModelEngine.isIslandEngine(islandEngine)) {
+			throw new IllegalArgumentException("Engine " + value
+				+ " can not be used as island engine.");
+		    }
+		    configuration.islandEngineClass = islandEngine
+			    .asSubclass(TSPMigratingEngine.class);
+		} else if (param.startsWith("migration=")) {
+		    configuration.migrationInterval = Integer.parseInt(value);
+		} else if (param.startsWith("migrants=")) {
+		    configuration.migrationSize = Integer.parseInt(value);
+		} else if (param.startsWith("topology=")) {
+		    try {
+			configuration.migrationTopology = TSPConfiguration.MigrationTopology
+				.valueOf(value.toUpperCase());
+		    } catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException("Unknown topology "
+				+ value + ".");
+		    }
+		} else if (param.startsWith("chains=")) {
+		    configuration.annealingChains = Integer.parseInt(value);
+		} else if (param.startsWith("temperature=")) {
+		    configuration.initialTemperature = Double.parseDouble(value);
+		} else if (param.startsWith("cooling=")) {
+		    configuration.coolingRate = Double.parseDouble(value);
+		} else if (param.startsWith("reheat=")) {
+		    configuration.reheatAge = Integer.parseInt(value);
+		} else if (param.startsWith("ants=")) {
+		    configuration.antCount = Integer.parseInt(value);
+		} else if (param.startsWith("ant2opt=")) {
+		    configuration.antLocalSearch = Boolean.parseBoolean(value);
+		} else if (param.startsWith("diversity=")) {
+		    configuration.diversity = Boolean.parseBoolean(value);
+		} else if (param.startsWith("polish=")) {
+		    configuration.polish = Boolean.parseBoolean(value);
+		} else if (param.startsWith("parallel2opt=")) {
+		    configuration.parallel2optThreshold = Integer
+			    .parseInt(value);
+		} else if (param.startsWith("coordinator=")) {
+		    tsp.coordinatorPort = Integer.parseInt(value);
+		} else if (param.startsWith("worker=")) {
+		    tsp.workerHost = value.substring(0, value.lastIndexOf(':'));
+		    tsp.workerPort = Integer.parseInt(value.substring(value
+			    .lastIndexOf(':') + 1));
+		} else if (param.startsWith("stream=")) {
+		    // file names are case sensitive
+		    tsp.streamSinks = args[i].substring(args[i].indexOf('=') + 1);
+		    for (String sink : tsp.streamSinks.split(",")) {
+			tsp.addTourListener(createTourSink(sink));
+			if ("stdout".equalsIgnoreCase(sink)) {
+			    // the standard output is only for the tours
+			    tsp.console = System.err;
+			}
+		    }
+		} else if (param.startsWith("metrics=")) {
+		    tsp.metricsPort = Integer.parseInt(value);
+		} else if (param.startsWith("convert=")) {
+		    // file name is case sensitive
+		    tsp.convertFile = args[i]
+			    .substring(args[i].indexOf('=') + 1);
+		} else if (param.startsWith("matrix=")) {
+		    tsp.convertMatrix = Boolean.parseBoolean(value);
+		} else if (param.startsWith("xml=")) {
+		    tsp.xmlFileName = value;
+		} else if (param.startsWith("batch=")) {
+		    // file name is case sensitive
+		    tsp.batchFile = args[i].substring(args[i].indexOf('=') + 1);
+		} else if (param.startsWith("jobs=")) {
+		    tsp.batchJobs = Integer.parseInt(value);
+		} else if (TSPBenchmark.isParameter(param)) {
+		    // the other benchmark parameters are read by TSPBenchmark
+		    if (param.startsWith("benchmark=")) {
+			tsp.benchmarkFile = args[i]
+				.substring(args[i].indexOf('=') + 1);
+		    }
+		} else {
+		    throw new IllegalArgumentException("Unknown parameter "
+			    + args[i]);
+		}
+	    } catch (NumberFormatException | IndexOutOfBoundsException e) {
+		throw new IllegalArgumentException("Invalid parameter "
+			+ args[i]);
+	    }
+	}
+
+	// workers exchange the chromosomes of their population
+	if (tsp.workerHost != null
+		&& !TSPMigratingEngine.class.isAssignableFrom(tsp.engineClass)) {
+	    throw new IllegalArgumentException("Engine "
+		    + tsp.engineClass.getSimpleName()
+		    + " can not be used as worker engine.");
+	}
+
+	try {
+	    tsp.engine = tsp.engineClass.newInstance();
+	} catch (ReflectiveOperationException e) {
+	    throw new IllegalArgumentException("Engine "
+		    + tsp.engineClass.getSimpleName()
+		    + " can not be created.");
+	}
+	return tsp;
+    }
+
+    /**
+     * @param value
+     *            time in seconds, optionally with unit ms, s, m or h
+     * @return time in milliseconds
+     * @throws NumberFormatException
+     *             if the value is not a time
+     */
+    static long parseTime(String value) {
+	Matcher matcher = Pattern.compile("(\\d+)(ms|s|m|h)?").matcher(value);
+	if (!matcher.matches()) {
+	    throw new NumberFormatException(value);
+	}
+	long time = Long.parseLong(matcher.group(1));
+	String unit = matcher.group(2);
+	if ("ms".equals(unit)) {
+	    return time;
+	} else if ("m".equals(unit)) {
+	    return time * 60000;
+	} else if ("h".equals(unit)) {
+	    return time * 3600000;
+	}
+	return time * 1000;
+    }
+
+    /**
+     * @return description of the command line parameters
+     */
+    static String getUsage() {
+	String ussage = "\nOptions: \n"
+		+ "--console     mandatory, sets the output to console, no graphics displayed.\n"
+		+ "--map=NAME    where name is name of resource with .csv format, path of map file\n"
+		+ "                or - for the standard input. The format (.csv, TSPLIB or binary)\n"
+		+ "                is detected from the content of the map.\n"
+		+ "                build in maps:\n"
+		+ "                  /cities_020.csv\n"
+		+ "                  /cities_050.csv <- DEFAULT\n"
+		+ "                  /cities_100.csv\n"
+		+ "                  /cities_150.csv\n"
+		+ "                  /cities_192.csv\n"
+		+ "                you can use only number part (020, 050...) as map name for build in maps.\n"
+		+ "--priority=N  where N in <1..10>; DEFAULT 5\n"
+		+ "--engine=N    where N is the index of engine to use; DEFAULT engine is GreedyCrossoverHibrid2OptEngine\n"
+		+ "                build in engines:\n";
+	int i = 0;
+	for (Class<TSPEngine> engineClass : engines) {
+	    ussage += "                  " + i + ": "
+		    + engineClass.getSimpleName() + "\n";
+	    i++;
+	}
+	ussage += "--rms=T       where T in <true,false> - computes RMS cost from distance; DEFAULT false\n"
+		+ "--population=N where N is the initial population size. DEFAULT 1000.\n"
+		+ "--max=N       where N is the max number of the same best result; DEFAULT 100\n"
+		+ "--time=T      where T is the time budget like 90, 90s, 15m or 2h, 0 = off; DEFAULT 0\n"
+		+ "--evaluations=N where N is the max number of evaluated tours, 0 = off; DEFAULT 0\n"
+		+ "--target=C    where C is the distance at which the computation stops, 0 = off; DEFAULT 0\n"
+		+ "--window=N    where N is the number of generations for --improvement, 0 = off; DEFAULT 0\n"
+		+ "--improvement=R where R is the min ratio of improvement during the window; DEFAULT 0.001\n"
+		+ "              the computation stops when any of the criteria is met\n"
+		+ "--gap=R       where R is the ratio above the lower bound at which the computation stops, 0 = off; DEFAULT 0\n"
+		+ "--growth=N    where N is population growth. DEFAULT 0.0075\n"
+		+ "--mutation=N  where N is mutation ratio. DEFAULT 0.5\n"
+		+ "--adaptive=T  where T in <true,false> - mutation ratio and population size adapt to the progress; DEFAULT false\n"
+		+ "--islands=N   where N is number of islands for IslandModelEngine; DEFAULT one per processor\n"
+		+ "--island-engine=N where N is the index of engine used on islands; DEFAULT 3\n"
+		+ "--migration=N where N is the count of generations between migrations; DEFAULT 10\n"
+		+ "--migrants=N  where N is the number of best chromosomes migrating from island; DEFAULT 2\n"
+		+ "--topology=T  where T in <ring,random> is the migration topology; DEFAULT ring\n"
+		+ "--chains=N    where N is number of chains for SimulatedAnnealingEngine; DEFAULT one per processor\n"
+		+ "--temperature=T where T is initial temperature of annealing, 0 = computed from map; DEFAULT 0\n"
+		+ "--cooling=R   where R is cooling rate of annealing per generation; DEFAULT 0.98\n"
+		+ "--reheat=N    where N is the count of generations without improvement before reheat, 0 = off; DEFAULT 50\n"
+		+ "--ants=N      where N is number of ants for AntColonyEngine; DEFAULT one per city, at most 25\n"
+		+ "--ant2opt=T   where T in <true,false> - ant tours are improved by 2opt; DEFAULT true\n"
+		+ "--diversity=T where T in <true,false> - diversity of the population is measured each generation; DEFAULT true\n"
+		+ "--polish=T    where T in <true,false> - the best tour is improved by 2opt and Or-opt at the end; DEFAULT false\n"
+		+ "--parallel2opt=N maps with at least N cities use parallel 2opt, 0 = off; DEFAULT 5000\n"
+		+ "--coordinator=PORT runs coordinator of island model processes listening on PORT\n"
+		+ "--worker=HOST:PORT runs the engine as island connected to coordinator at HOST:PORT\n"
+		+ "              only the genetic engines which exchange chromosomes (0-5) can run as workers\n"
+		+ "--stream=S    where S is comma separated list of stdout, FILE.bin or FILE.jsonl - each new best tour\n"
+		+ "              is written immediately to the output, binary or as JSON line\n"
+		+ "              with stdout the messages and status lines go to the standard error\n"
+		+ "--metrics=PORT serves the metrics of the computation at http://localhost:PORT/metrics\n"
+		+ "--convert=FILE converts the map to binary map FILE with the nearest cities of each city.\n"
+		+ "--matrix=T    where T in <true,false> - the distance matrix is stored in the converted map,\n"
+		+ "              at most " + City.MAX_CACHED_CITIES + " cities; DEFAULT false\n"
+		+ "--xml=FILE.xml where FILE is output name for XML report file. \n"
+		+ "              DEFAULT tsp_report_yyyy_MM_dd_HH_mm.xml\n"
+		+ "--batch=FILE  runs the computations listed in FILE, one line of parameters per computation.\n"
+		+ "              the other command line parameters are defaults for all the lines.\n"
+		+ "--jobs=N      where N is the number of computations running at the same time in batch; DEFAULT one per processor\n"
+		+ "--benchmark=FILE.csv runs each engine on each map and writes the best distance at the checkpoints\n"
+		+ "              and the time to target of each run into FILE. the other parameters are defaults of the runs.\n"
+		+ "--runs=N      where N is the number of runs of each engine on each map in benchmark; DEFAULT 3\n"
+		+ "--checkpoints=T,T... where T are the times of the checkpoints of benchmark; DEFAULT 1s,5s,30s\n"
+		+ "--target-gap=R where R is the ratio of target distance above the lower bound of map; DEFAULT 0.05\n"
+		+ "--engines=N,N... and --maps=NAME,NAME... select the engines and maps of benchmark; DEFAULT all\n"
+		+ "--baseline=FILE.csv compares the benchmark with the results in FILE\n"
+		+ "--threshold=R where R is the ratio of the median worse than baseline reported as regression; DEFAULT 0.05\n"
+		+ "\n"
+		+ "See the gui interface help, documentation or http://www.saiko.cz/ai/tsp/ for detailed information.\n"
+		+ "Example:       --console --map=192 --priority=1 --engine=3 --rms=false --population=200 --growth=0.01 --max=200 --mutation=0.5 \n"
+		+ "               --console\n"
+		+ "               --help\n";
+	return ussage;
+    }
+
+    /**
+     * Prints the parameters of console computation
+     */
+    void printParameters() {
+	console.println("Priority: " + configuration.threadPriority);
+	console.println("Map: " + mapFile);
+	console.println("Engine: " + engineClass);
+	console.println("RMS: " + configuration.rmsCost);
+	console.println("Population: "
+		+ configuration.initialPopulationSize);
+	console.println("Mutation: " + configuration.mutationRatio);
+	console.println("Growth: " + configuration.populationGrow);
+	console.println("Adaptive: " + configuration.adaptive);
+	console.println("Max best age: " + configuration.maxBestCostAge);
+	console.println("Max gap: " + configuration.maxGap);
+	console.println("Time budget: " + configuration.maxTime / 1000
+		+ " s");
+	console.println("Max evaluations: " + configuration.maxEvaluations);
+	console.println("Target distance: " + configuration.targetCost);
+	console.println("Improvement window: "
+		+ configuration.improvementWindow + "; min improvement: "
+		+ configuration.minImprovement);
+	console.println("Diversity: " + configuration.diversity);
+	console.println("Polish: " + configuration.polish);
+	console.println("Parallel 2opt from: "
+		+ configuration.parallel2optThreshold);
+	if (metricsPort > 0) {
+	    console.println("Metrics port: " + metricsPort);
+	}
+	if (IslandModelEngine.class.equals(engineClass)) {
+	    console.println("Islands: " + configuration.islandCount);
+	    console.println("Island engine: "
+		    + configuration.islandEngineClass);
+	    console.println("Migration interval: "
+		    + configuration.migrationInterval);
+	    console.println("Migrants: " + configuration.migrationSize);
+	    console.println("Migration topology: "
+		    + configuration.migrationTopology);
+	}
+	if (SimulatedAnnealingEngine.class.equals(engineClass)) {
+	    console.println("Chains: " + configuration.annealingChains);
+	    console.println("Initial temperature: "
+		    + configuration.initialTemperature);
+	    console.println("Cooling rate: " + configuration.coolingRate);
+	    console.println("Reheat age: " + configuration.reheatAge);
+	}
+	if (AntColonyEngine.class.equals(engineClass)) {
+	    console.println("Ants: " + configuration.antCount);
+	    console.println("Ant 2opt: " + configuration.antLocalSearch);
+	}
+	if (coordinatorPort >= 0) {
+	    console.println("Coordinator port: " + coordinatorPort);
+	}
+	if (workerHost != null) {
+	    console.println("Coordinator: " + workerHost + ":"
+		    + workerPort);
+	}
+	if (streamSinks != null) {
+	    console.println("Tour stream: " + streamSinks);
+	}
+	console.println("XML report file: " + xmlFileName);
+    }
+
+    /**
+     * Loads the map and writes it as binary map with the nearest cities and
+     * optionally with the distance matrix
+     * 
+     * @throws IOException
+     *             if the binary map can not be written
+     * @throws IllegalArgumentException
+     *             if the map can not be loaded
+     * @see BinaryMap
+     */
+    void convert() throws IOException, IllegalArgumentException {
+	System.out.println("Converting map " + mapFile + " ...");
+	loadCities(null, true);
+	try (OutputStream out = new FileOutputStream(convertFile)) {
+	    BinaryMap.write(cities, out, NearestCities.DEFAULT_COUNT,
+		    convertMatrix);
+	}
+	System.out.println("Map of " + cities.length
+		+ " cities written to " + convertFile);
+    }
+
+    /**
+     * Loads the map, runs the console computation (or the coordinator) and
+     * writes the XML report.
+     * 
+     * @throws IOException
+     *             if the connection to coordinator fails
+     * @throws IllegalArgumentException
+     *             if the map can not be loaded
+     */
+    void runConsole() throws IOException, IllegalArgumentException {
+	console.println("Initializing ...");
+
+	// load the map
+	loadCities(null, true);
+
+	if (coordinatorPort >= 0) {
+	    TSPCoordinator coordinator = new TSPCoordinator(this,
+		    coordinatorPort);
+	    console.println("Waiting for workers on port "
+		    + coordinator.getPort() + " ...");
+	    coordinator.run();
+	} else {
+	    if (workerHost != null) {
+		worker = new TSPWorker(workerHost, workerPort, cities);
+		console.println("Connected as worker "
+			+ worker.getWorkerId());
+	    }
+	    TSPMetricsServer metricsServer = null;
+	    if (metricsPort > 0) {
+		metricsServer = new TSPMetricsServer(this, metricsPort);
+		console.println("Metrics at http://localhost:"
+			+ metricsServer.getPort() + "/metrics");
+	    }
+	    console.println("Running ...");
+	    start();
+	    if (metricsServer != null) {
+		metricsServer.stop();
+	    }
+	}
+
+	// the report of workers is written by coordinator
+	if (worker == null) {
+	    console.println("Writing the report ...");
+	    new TSPMenu(this).actionXMLReport(xmlFileName);
+	}
+    }
+
     public static void openFile(File file) {
 
 	try {
@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ *         Batch of console computations for parameter sweeps. Each line of the
+ *         batch file is one computation - command line parameters separated
+ *         by white spaces. Empty lines and lines starting with # are ignored.
+ *         The parameters given on the command line are defaults for all the
+ *         lines.
+ *
+ *         <pre>
+ * # map, engine and settings to compare
+ * --map=100 --engine=1
+ * --map=100 --engine=3 --mutation=0.25
+ * --map=192 --engine=4 --islands=8 --xml=islands_192.xml
+ * </pre>
+ *
+ *         The computations run at the same time, at most jobs of them. They
+ *         are driven by the tasks of TSPExecutors I/O executor and all their
+ *         CPU bound work is shared by one compute pool, so the batch does not
+ *         create more computing threads than the machine has processors. Each
+ *         computation without --xml parameter writes the report
+ *         tsp_report_yyyy_MM_dd_HH_mm_N.xml where N is the number of the job.
+ *
+ * @see TSPExecutors
+ * @see TSP#main(String[])
+ */
+public class TSPBatch {
+
+    /**
+     * command line parameters used as defaults for all the jobs
+     */
+    protected final List<String> defaults = new ArrayList<>();
+
+    /**
+     * number of computations running at the same time
+     */
+    protected final int jobs;
+
+    /**
+     * number of failed computations
+     */
+    protected final AtomicInteger failures = new AtomicInteger();
+
+    /**
+     * @param args
+     *            - command line parameters, the batch parameters are skipped
+     *            and the rest are the defaults for all the jobs
+     * @param jobs
+     *            - number of computations running at the same time, 0 for one
+     *            per processor
+     */
+    public TSPBatch(String args[], int jobs) {
+	for (String arg : args) {
+	    String param = arg.toLowerCase().replaceFirst("^-+", "");
+	    if (!param.startsWith("batch=") && !param.startsWith("jobs=")) {
+		defaults.add(arg);
+	    }
+	}
+	this.jobs = jobs > 0 ? jobs : Runtime.getRuntime()
+		.availableProcessors();
+    }
+
+    /**
+     * Reads the batch file and creates the applications for all the lines.
+     * All the lines are checked before any computation starts.
+     *
+     * @param fileName
+     * @return applications with parameters of the jobs
+     * @throws IOException
+     * @throws IllegalArgumentException
+     *             if some line has invalid parameters
+     */
+    protected List<TSP> readJobs(String fileName) throws IOException,
+	    IllegalArgumentException {
+	String timestamp = new SimpleDateFormat("yyyy_MM_dd_HH_mm")
+		.format(Calendar.getInstance().getTime());
+	List<TSP> result = new ArrayList<>();
+	try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+		new FileInputStream(fileName), "UTF-8"))) {
+	    String line;
+	    int lineNumber = 0;
+	    while ((line = reader.readLine()) != null) {
+		lineNumber++;
+		line = line.trim();
+		if (line.length() == 0 || line.startsWith("#")) {
+		    continue;
+		}
+		List<String> args = new ArrayList<>(defaults);
+		args.addAll(Arrays.asList(line.split("\\s+")));
+		TSP tsp;
+		try {
+		    tsp = TSP.parseArguments(args.toArray(new String[args
+			    .size()]));
+		} catch (IllegalArgumentException e) {
+		    throw new IllegalArgumentException("line " + lineNumber
+			    + ": " + e.getMessage());
+		}
+		// the tours of parallel jobs would be mixed with the lines of
+		// the batch in the standard output
+		if (tsp.batchFile != null || tsp.benchmarkFile != null
+			|| tsp.coordinatorPort >= 0 || tsp.workerHost != null
+			|| tsp.metricsPort > 0 || tsp.convertFile != null
+			|| tsp.console != System.out) {
+		    throw new IllegalArgumentException("line " + lineNumber
+			    + ": batch, benchmark, metrics, convert, coordinator, worker and stdout stream can not be used in batch.");
+		}
+		if (tsp.xmlFileName == null) {
+		    tsp.xmlFileName = "tsp_report_" + timestamp + "_"
+			    + (result.size() + 1) + ".xml";
+		}
+		result.add(tsp);
+	    }
+	}
+	return result;
+    }
+
+    /**
+     * Runs all the computations of the batch file and waits until they are
+     * finished.
+     *
+     * @param fileName
+     *            - batch file
+     * @return true if all the computations finished
+     * @throws IOException
+     *             if the batch file can not be read
+     * @throws IllegalArgumentException
+     *             if some line has invalid parameters
+     */
+    public boolean run(String fileName) throws IOException,
+	    IllegalArgumentException {
+	List<TSP> tasks = readJobs(fileName);
+	System.out.println("Batch: " + fileName + "; jobs: " + tasks.size()
+		+ "; parallel: " + jobs);
+
+	final Semaphore running = new Semaphore(jobs);
+	List<Future<?>> futures = new ArrayList<>();
+	for (int i = 0; i < tasks.size(); i++) {
+	    final TSP tsp = tasks.get(i);
+	    final int number = i + 1;
+	    running.acquireUninterruptibly();
+	    futures.add(TSPExecutors.getIOExecutor().submit(new Runnable() {
+		@Override
+		public void run() {
+		    try {
+			runJob(tsp, number);
+		    } finally {
+			running.release();
+		    }
+		}
+	    }));
+	}
+	for (Future<?> future : futures) {
+	    try {
+		future.get();
+	    } catch (InterruptedException e) {
+		Thread.currentThread().interrupt();
+		return false;
+	    } catch (ExecutionException e) {
+		// already counted by runJob
+	    }
+	}
+	System.out.println("Batch finished; jobs: " + tasks.size()
+		+ "; failed: " + failures.get());
+	return failures.get() == 0;
+    }
+
+    /**
+     * Runs one computation and writes its report
+     *
+     * @param tsp
+     *            - application with parameters of the job
+     * @param number
+     *            - number of the job, starting from 1
+     */
+    protected void runJob(TSP tsp, int number) {
+	System.out.println("Job " + number + " started; map: " + tsp.mapFile
+		+ "; engine: " + tsp.engineClass.getSimpleName()
+		+ "; report: " + tsp.xmlFileName);
+	try {
+	    tsp.runConsole();
+	    System.out.println("Job " + number + " finished; time: "
+		    + tsp.runTime / 1000 + "; generation: " + tsp.generation
+		    + "; best distance: " + (int) tsp.bestCost);
+	} catch (Throwable e) {
+	    failures.incrementAndGet();
+	    System.err.println("Job " + number + " failed: " + e);
+	}
+    }
+}
\ No newline at end of file
@@ -0,0 +1,649 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.saiko.ai.genetics.tsp.engines.exact.BranchAndBoundEngine;
+import org.saiko.ai.genetics.tsp.engines.exact.HeldKarpEngine;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ *         Benchmark of the engines for catching the regressions of solution
+ *         quality and speed. Each engine runs on each map several times, one
+ *         computation after another, so the computations do not share the
+ *         processors. Each run records the best distance at the checkpoints
+ *         (1 s, 5 s and 30 s by default) and the time to target - the time
+ *         when the best distance got within the target gap above the
+ *         Held-Karp lower bound of the map. The run stops at the last
+ *         checkpoint or by the stop criteria of the other parameters, e.g.
+ *         --max, the best distance is then the same in the later checkpoints.
+ *
+ *         The runs are written to the CSV file, one line per run:
+ *
+ *         <pre>
+ * engine,map,cities,run,target,cost_1s,cost_5s,cost_30s,time_to_target_ms,generations
+ * GreedyCrossoverEngine,cities_100,100,1,3304529.1,3588124.0,3479595.0,3479595.0,-1,812
+ * </pre>
+ *
+ *         The time to target is -1 when the target was not reached. Any
+ *         result file can be the baseline of the next benchmark - the medians
+ *         of the runs of each engine and map are compared and the medians
+ *         worse than the baseline by more than the threshold are reported as
+ *         regressions. The times to target under MIN_TIME are not compared,
+ *         they depend on the length of the first generations.
+ *
+ *         The exact engines run only on the maps they can solve, the search
+ *         can not be stopped by the time.
+ *
+ * @see TSPBatch
+ * @see TSP#main(String[])
+ */
+public class TSPBenchmark {
+
+    /**
+     * parameters of the benchmark, the other parameters are defaults of the
+     * runs
+     */
+    protected static final String PARAMETERS[] = { "benchmark=", "runs=",
+	    "checkpoints=", "baseline=", "threshold=", "target-gap=",
+	    "engines=", "maps=" };
+
+    /**
+     * the biggest map of branch and bound engine
+     */
+    protected static final int BRANCH_AND_BOUND_CITIES = 50;
+
+    /**
+     * times to target in milliseconds which are not compared with the
+     * baseline
+     */
+    protected static final long MIN_TIME = 100;
+
+    /**
+     * name of the column of the time to target
+     */
+    protected static final String TIME_TO_TARGET = "time_to_target_ms";
+
+    /**
+     * command line parameters used as defaults for all the runs
+     */
+    protected final List<String> defaults = new ArrayList<>();
+
+    /**
+     * the result file
+     */
+    protected String resultFile;
+
+    /**
+     * the baseline file, null if not compared
+     */
+    protected String baselineFile;
+
+    /**
+     * number of runs of each engine on each map
+     */
+    protected int runs = 3;
+
+    /**
+     * the checkpoints in milliseconds
+     */
+    protected long checkpoints[] = { 1000, 5000, 30000 };
+
+    /**
+     * names of the cost columns of the checkpoints
+     */
+    protected String checkpointColumns[] = { "cost_1s", "cost_5s", "cost_30s" };
+
+    /**
+     * ratio above the baseline reported as regression
+     */
+    protected double threshold = 0.05;
+
+    /**
+     * ratio of the target distance above the lower bound of the map
+     */
+    protected double targetGap = 0.05;
+
+    /**
+     * indexes of the benchmarked engines
+     */
+    protected final List<Integer> engines = new ArrayList<>();
+
+    /**
+     * the benchmarked maps
+     */
+    protected final List<String> maps = new ArrayList<>();
+
+    /**
+     * Result of one run
+     */
+    protected static class Result {
+	/** engine class name */
+	String engine;
+
+	/** name of the map */
+	String map;
+
+	/** number of cities */
+	int cities;
+
+	/** number of the run, starting from 1 */
+	int run;
+
+	/** target distance */
+	double target;
+
+	/** values of the columns of checkpoints and time to target */
+	final Map<String, Double> values = new LinkedHashMap<>();
+
+	/** number of generations */
+	int generations;
+    }
+
+    /**
+     * Records the best distance at the checkpoints and the time to target.
+     * It is asked after each generation, the other stop criteria are asked
+     * by the recorder.
+     */
+    protected static class Recorder implements TSPTermination {
+	/** stop criteria of the run */
+	final TSPTermination termination;
+
+	/** checkpoints in milliseconds */
+	final long checkpoints[];
+
+	/** target distance */
+	final double target;
+
+	/** the best distance at the checkpoints, NaN before the first one */
+	final double costs[];
+
+	/** time when the target was reached, -1 if not reached */
+	long timeToTarget;
+
+	/**
+	 * @param termination
+	 *            - stop criteria of the run
+	 * @param checkpoints
+	 *            - checkpoints in milliseconds
+	 * @param target
+	 *            - target distance
+	 */
+	Recorder(TSPTermination termination, long checkpoints[], double target) {
+	    this.termination = termination;
+	    this.checkpoints = checkpoints;
+	    this.target = target;
+	    costs = new double[checkpoints.length];
+	}
+
+	@Override
+	public void start(TSP tsp) {
+	    Arrays.fill(costs, Double.NaN);
+	    timeToTarget = -1;
+	    termination.start(tsp);
+	}
+
+	@Override
+	public boolean isFinished(TSP tsp) {
+	    long time = tsp.getRunTime();
+	    double cost = tsp.getBestCost();
+	    for (int i = 0; i < checkpoints.length; i++) {
+		if (time <= checkpoints[i]) {
+		    costs[i] = cost;
+		}
+	    }
+	    if (timeToTarget < 0 && cost <= target) {
+		timeToTarget = time;
+	    }
+	    return termination.isFinished(tsp);
+	}
+    }
+
+    /**
+     * @param param
+     *            - lower case parameter without leading dashes
+     * @return true if the parameter is the parameter of the benchmark
+     */
+    static boolean isParameter(String param) {
+	for (String name : PARAMETERS) {
+	    if (param.startsWith(name)) {
+		return true;
+	    }
+	}
+	return false;
+    }
+
+    /**
+     * @param args
+     *            - command line parameters, the benchmark parameters are read
+     *            and the rest are the defaults for all the runs
+     * @throws IllegalArgumentException
+     *             if some benchmark parameter is not valid
+     */
+    public TSPBenchmark(String args[]) throws IllegalArgumentException {
+	for (int i = 0; i < TSP.engines.length; i++) {
+	    engines.add(i);
+	}
+	for (String map : TSP.mapFiles) {
+	    if (map != null) {
+		maps.add(map);
+	    }
+	}
+	for (String arg : args) {
+	    String param = arg.toLowerCase().replaceFirst("^-+", "");
+	    if (!isParameter(param)) {
+		defaults.add(arg);
+		continue;
+	    }
+	    // file names are case sensitive
+	    String value = arg.substring(arg.indexOf('=') + 1);
+	    try {
+		if (param.startsWith("benchmark=")) {
+		    resultFile = value;
+		} else if (param.startsWith("baseline=")) {
+		    baselineFile = value;
+		} else if (param.startsWith("runs=")) {
+		    runs = Integer.parseInt(value);
+		} else if (param.startsWith("threshold=")) {
+		    threshold = Double.parseDouble(value);
+		} else if (param.startsWith("target-gap=")) {
+		    targetGap = Double.parseDouble(value);
+		} else if (param.startsWith("checkpoints=")) {
+		    String names[] = value.toLowerCase().split(",");
+		    checkpoints = new long[names.length];
+		    checkpointColumns = new String[names.length];
+		    for (int i = 0; i < names.length; i++) {
+			checkpoints[i] = TSP.parseTime(names[i].trim());
+			checkpointColumns[i] = "cost_" + names[i].trim();
+		    }
+		} else if (param.startsWith("engines=")) {
+		    engines.clear();
+		    for (String engine : value.split(",")) {
+			int index = Integer.parseInt(engine.trim());
+			if (index < 0 || index >= TSP.engines.length) {
+			    throw new NumberFormatException(engine);
+			}
+			engines.add(index);
+		    }
+		} else if (param.startsWith("maps=")) {
+		    maps.clear();
+		    for (String map : value.split(",")) {
+			maps.add(map.trim());
+		    }
+		}
+	    } catch (NumberFormatException e) {
+		throw new IllegalArgumentException("Invalid parameter " + arg);
+	    }
+	}
+	if (resultFile == null || runs <= 0 || checkpoints.length == 0) {
+	    throw new IllegalArgumentException(
+		    "Benchmark needs the result file, runs and checkpoints.");
+	}
+    }
+
+    /**
+     * Runs the benchmark, writes the results and compares them with the
+     * baseline
+     *
+     * @return true if there is no regression and no run failed
+     * @throws IOException
+     *             if the result or baseline file can not be written or read
+     * @throws IllegalArgumentException
+     *             if some map or default parameter is not valid
+     */
+    public boolean run() throws IOException, IllegalArgumentException {
+	List<Result> baseline = baselineFile == null ? null
+		: readResults(baselineFile);
+	System.out.println("Benchmark: engines: " + engines.size()
+		+ "; maps: " + maps.size() + "; runs: " + runs
+		+ "; checkpoints: " + Arrays.toString(checkpointColumns));
+
+	List<Result> results = new ArrayList<>();
+	int failures = 0;
+	Map<String, Double> targets = new HashMap<>();
+	for (String map : maps) {
+	    for (int engine : engines) {
+		for (int run = 1; run <= runs; run++) {
+		    TSP tsp = createRun(engine, map);
+		    if (!canSolve(tsp.engineClass, tsp.cities.length)) {
+			break;
+		    }
+		    Double target = targets.get(map);
+		    if (target == null) {
+			target = lowerBound(tsp.cities) * (1 + targetGap);
+			targets.put(map, target);
+		    }
+		    Result result;
+		    try {
+			result = runOne(tsp, map, run, target);
+		    } catch (RuntimeException e) {
+			// the other runs go on
+			failures++;
+			System.err.println("Run failed; engine: "
+				+ tsp.engineClass.getSimpleName() + "; map: "
+				+ map + "; run: " + run + "; " + e);
+			continue;
+		    }
+		    results.add(result);
+		    StringBuilder line = new StringBuilder("Run finished; engine: "
+			    + result.engine + "; map: " + map + "; run: " + run
+			    + ";");
+		    for (Map.Entry<String, Double> value : result.values
+			    .entrySet()) {
+			line.append(' ').append(value.getKey()).append(": ")
+				.append(format(value.getValue())).append(';');
+		    }
+		    System.out.println(line);
+		}
+	    }
+	}
+	writeResults(results, resultFile);
+	System.out.println("Benchmark finished; runs: " + results.size()
+		+ "; failed: " + failures + "; results: " + resultFile);
+
+	if (baseline == null) {
+	    return failures == 0;
+	}
+	List<String> regressions = compare(baseline, results);
+	for (String regression : regressions) {
+	    System.out.println("Regression: " + regression);
+	}
+	System.out.println("Compared with baseline " + baselineFile
+		+ "; threshold: " + threshold + "; regressions: "
+		+ regressions.size());
+	return regressions.isEmpty() && failures == 0;
+    }
+
+    /**
+     * @param engine
+     *            - index of the engine
+     * @param map
+     *            - name of the map
+     * @return application with the parameters of the run and loaded map
+     * @throws IllegalArgumentException
+     *             if the map or some default parameter is not valid
+     */
+    protected TSP createRun(int engine, String map)
+	    throws IllegalArgumentException {
+	List<String> args = new ArrayList<>(defaults);
+	args.add("--map=" + map);
+	args.add("--engine=" + engine);
+	TSP tsp = TSP.parseArguments(args.toArray(new String[args.size()]));
+	tsp.configuration.maxTime = checkpoints[checkpoints.length - 1];
+	tsp.loadCities(null, true);
+	return tsp;
+    }
+
+    /**
+     * @param engineClass
+     * @param cities
+     *            - number of cities
+     * @return false for the exact engines and the maps they can not solve
+     */
+    protected static boolean canSolve(Class<?> engineClass, int cities) {
+	if (HeldKarpEngine.class.isAssignableFrom(engineClass)) {
+	    return cities <= HeldKarpEngine.MAX_CITIES;
+	}
+	if (BranchAndBoundEngine.class.isAssignableFrom(engineClass)) {
+	    return cities <= BRANCH_AND_BOUND_CITIES;
+	}
+	return true;
+    }
+
+    /**
+     * @param cities
+     * @return Held-Karp lower bound of the distance of the tour, 0 for the
+     *         maps too big for the bound
+     */
+    protected static double lowerBound(City cities[]) {
+	if (cities.length < 3 || cities.length > HeldKarpBound.MAX_CITIES) {
+	    return 0;
+	}
+	HeldKarpBound bound = HeldKarpBound.forDistances(cities);
+	while (bound.iterate(Double.MAX_VALUE)) {
+	    // next step
+	}
+	return Math.max(0, bound.getBound());
+    }
+
+    /**
+     * Runs one computation
+     *
+     * @param tsp
+     *            - application with the parameters of the run
+     * @param map
+     *            - name of the map
+     * @param run
+     *            - number of the run
+     * @param target
+     *            - target distance
+     * @return result of the run
+     */
+    protected Result runOne(TSP tsp, String map, int run, double target) {
+	Recorder recorder = new Recorder(tsp.createTermination(), checkpoints,
+		target);
+	tsp.setTermination(recorder);
+	tsp.start();
+
+	Result result = new Result();
+	result.engine = tsp.engineClass.getSimpleName();
+	result.map = map;
+	result.cities = tsp.cities.length;
+	result.run = run;
+	result.target = target;
+	for (int i = 0; i < checkpoints.length; i++) {
+	    result.values.put(checkpointColumns[i], recorder.costs[i]);
+	}
+	result.values.put(TIME_TO_TARGET, (double) recorder.timeToTarget);
+	result.generations = tsp.getGeneration();
+	return result;
+    }
+
+    /**
+     * Writes the results as CSV
+     *
+     * @param results
+     * @param fileName
+     * @throws IOException
+     */
+    protected static void writeResults(List<Result> results, String fileName)
+	    throws IOException {
+	try (PrintWriter out = new PrintWriter(new OutputStreamWriter(
+		new FileOutputStream(fileName), "UTF-8"))) {
+	    List<String> columns = results.isEmpty() ? new ArrayList<String>()
+		    : new ArrayList<>(results.get(0).values.keySet());
+	    StringBuilder header = new StringBuilder(
+		    "engine,map,cities,run,target");
+	    for (String column : columns) {
+		header.append(',').append(column);
+	    }
+	    out.println(header.append(",generations"));
+	    for (Result result : results) {
+		StringBuilder line = new StringBuilder();
+		line.append(result.engine).append(',').append(result.map)
+			.append(',').append(result.cities).append(',')
+			.append(result.run).append(',')
+			.append(format(result.target));
+		for (String column : columns) {
+		    line.append(',').append(format(result.values.get(column)));
+		}
+		out.println(line.append(',').append(result.generations));
+	    }
+	}
+    }
+
+    /**
+     * @param value
+     * @return the value with one decimal, whole number for whole values,
+     *         empty for NaN
+     */
+    protected static String format(double value) {
+	if (Double.isNaN(value)) {
+	    return "";
+	}
+	if (value == Math.rint(value)) {
+	    return String.valueOf((long) value);
+	}
+	return String.format(Locale.ROOT, "%.1f", value);
+    }
+
+    /**
+     * Reads the results written by writeResults()
+     *
+     * @param fileName
+     * @return the results
+     * @throws IOException
+     *             if the file can not be read or it is not the result file
+     */
+    protected static List<Result> readResults(String fileName)
+	    throws IOException {
+	List<Result> results = new ArrayList<>();
+	try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+		new FileInputStream(fileName), "UTF-8"))) {
+	    String header = reader.readLine();
+	    if (header == null || !header.startsWith("engine,map,cities,run,target")) {
+		throw new IOException(fileName + " is not benchmark result file.");
+	    }
+	    String columns[] = header.split(",");
+	    String line;
+	    while ((line = reader.readLine()) != null) {
+		if (line.trim().length() == 0) {
+		    continue;
+		}
+		String values[] = line.split(",", -1);
+		try {
+		    Result result = new Result();
+		    result.engine = values[0];
+		    result.map = values[1];
+		    result.cities = Integer.parseInt(values[2]);
+		    result.run = Integer.parseInt(values[3]);
+		    result.target = Double.parseDouble(values[4]);
+		    for (int i = 5; i < columns.length - 1; i++) {
+			result.values.put(columns[i], values[i].length() == 0 ? Double.NaN
+				: Double.parseDouble(values[i]));
+		    }
+		    result.generations = Integer
+			    .parseInt(values[columns.length - 1]);
+		    results.add(result);
+		} catch (NumberFormatException | IndexOutOfBoundsException e) {
+		    throw new IOException(fileName + ": invalid line " + line);
+		}
+	    }
+	}
+	return results;
+    }
+
+    /**
+     * Compares the medians of the runs of each engine and map with the
+     * baseline. The engines and maps missing in the baseline and the columns
+     * missing in any of the results are not compared.
+     *
+     * @param baseline
+     * @param results
+     * @return descriptions of the regressions
+     */
+    protected List<String> compare(List<Result> baseline, List<Result> results) {
+	Map<String, List<Result>> base = group(baseline);
+	Map<String, List<Result>> current = group(results);
+	List<String> regressions = new ArrayList<>();
+	for (Map.Entry<String, List<Result>> entry : current.entrySet()) {
+	    List<Result> baseRuns = base.get(entry.getKey());
+	    if (baseRuns == null) {
+		continue;
+	    }
+	    for (String column : entry.getValue().get(0).values.keySet()) {
+		if (!baseRuns.get(0).values.containsKey(column)) {
+		    continue;
+		}
+		double before = median(baseRuns, column);
+		double now = median(entry.getValue(), column);
+		if (Double.isNaN(before) || Double.isNaN(now)) {
+		    continue;
+		}
+		boolean regression;
+		if (TIME_TO_TARGET.equals(column)) {
+		    regression = now > Math.max(before, MIN_TIME)
+			    * (1 + threshold);
+		} else {
+		    regression = now > before * (1 + threshold);
+		}
+		if (regression) {
+		    regressions.add(String.format(Locale.ROOT,
+			    "%s; %s: %s -> %s", entry.getKey(), column,
+			    formatMedian(before), formatMedian(now)));
+		}
+	    }
+	}
+	return regressions;
+    }
+
+    /**
+     * @param results
+     * @return the runs grouped by engine and map
+     */
+    protected static Map<String, List<Result>> group(List<Result> results) {
+	Map<String, List<Result>> groups = new LinkedHashMap<>();
+	for (Result result : results) {
+	    String key = result.engine + "; " + result.map;
+	    List<Result> runs = groups.get(key);
+	    if (runs == null) {
+		runs = new ArrayList<>();
+		groups.put(key, runs);
+	    }
+	    runs.add(result);
+	}
+	return groups;
+    }
+
+    /**
+     * @param runs
+     * @param column
+     * @return median of the column, the time to target of the runs which did
+     *         not reach the target is infinity; NaN if the column has no
+     *         value
+     */
+    protected static double median(List<Result> runs, String column) {
+	List<Double> values = new ArrayList<>();
+	for (Result run : runs) {
+	    Double value = run.values.get(column);
+	    if (TIME_TO_TARGET.equals(column) && value != null && value < 0) {
+		value = Double.POSITIVE_INFINITY;
+	    }
+	    if (value != null && !Double.isNaN(value)) {
+		values.add(value);
+	    }
+	}
+	if (values.isEmpty()) {
+	    return Double.NaN;
+	}
+	Collections.sort(values);
+	int middle = values.size() / 2;
+	return values.size() % 2 == 1 ? values.get(middle)
+		: (values.get(middle - 1) + values.get(middle)) / 2;
+    }
+
+    /**
+     * @param value
+     * @return the median for the report, "not reached" for infinity
+     */
+    protected static String formatMedian(double value) {
+	return Double.isInfinite(value) ? "not reached" : format(value);
+    }
+}
@@ -86,6 +86,12 @@ public class TSPChromosome {
       currentCost=cities[cities.length-1].cost(cities[0]);
       totalDistance+=currentDistance;
       totalCost+=currentCost;
+
+      //distance and cost of each edge
+      TSPThroughput throughput=TSPThroughput.of(cities);
+      if(throughput!=null) {
+         throughput.countEvaluation(2*cities.length);
+      }
    }
    
    /**
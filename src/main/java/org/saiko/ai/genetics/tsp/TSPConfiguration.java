@@ -3,13 +3,15 @@
  */
 package org.saiko.ai.genetics.tsp;
 
+import org.saiko.ai.genetics.tsp.engines.island.IslandModelEngine;
+import org.saiko.ai.genetics.tsp.engines.simpleUnisexMutatorHibrid2Opt.SimpleUnisexMutatorHibrid2OptEngine;
 
 /**
  * @author dusan.saiko@gmail.com
  * 
  * TSPConfiguration specifies the configuration parameters of the application
  */
-public class TSPConfiguration {
+public class TSPConfiguration implements Cloneable {
 
    /**
     * Antialiasing flag for graphics rendering.
@@ -45,6 +47,38 @@ public class TSPConfiguration {
     */
    protected int maxBestCostAge=100;
    
+   /**
+    * The computation stops when the best distance is at most this ratio above the Held-Karp
+    * lower bound, 0 means no such stop
+    */
+   protected double maxGap=0;
+   
+   /**
+    * Wall clock time budget of the computation in milliseconds, 0 means no budget
+    */
+   protected long maxTime=0;
+   
+   /**
+    * Maximal number of the tour evaluations, 0 means no limit
+    */
+   protected long maxEvaluations=0;
+   
+   /**
+    * The computation stops when the best distance is not greater, 0 means no target
+    */
+   protected double targetCost=0;
+   
+   /**
+    * Number of generations of the window for minImprovement, 0 means no such stop
+    */
+   protected int improvementWindow=0;
+   
+   /**
+    * The computation stops when the best distance improved less than this ratio
+    * during the last improvementWindow generations
+    */
+   protected double minImprovement=0.001;
+   
    /**
     * flag that this computation should be done without GUI
     * @see TSP#main(String[]) 
@@ -61,6 +95,108 @@ public class TSPConfiguration {
     */
    protected boolean rmsCost=false;
    
+   /**
+    * Maps with at least this number of cities use parallel 2opt heuristics,
+    * 0 switches the parallel 2opt off
+    */
+   protected int parallel2optThreshold=5000;
+   
+   /**
+    * Topology of migration between islands of the island model
+    * @see org.saiko.ai.genetics.tsp.engines.island.IslandModelEngine
+    */
+   public enum MigrationTopology {
+      /** island i sends its best chromosomes to island i+1 */
+      RING,
+      /** island sends its best chromosomes to randomly chosen other island */
+      RANDOM
+   }
+   
+   /**
+    * Number of islands of the island model, 0 means one island per processor
+    */
+   protected int islandCount=0;
+   
+   /**
+    * Engine which evolves population of each island
+    */
+   protected Class<? extends TSPMigratingEngine> islandEngineClass=SimpleUnisexMutatorHibrid2OptEngine.class;
+   
+   /**
+    * The count of generations between two migrations of island model
+    */
+   protected int migrationInterval=10;
+   
+   /**
+    * Number of best chromosomes which migrate from the island
+    */
+   protected int migrationSize=2;
+   
+   /**
+    * Topology of migration between islands
+    */
+   protected MigrationTopology migrationTopology=MigrationTopology.RING;
+   
+   /**
+    * Number of parallel chains of simulated annealing, 0 means one chain per processor
+    * @see org.saiko.ai.genetics.tsp.engines.simulatedAnnealing.SimulatedAnnealingEngine
+    */
+   protected int annealingChains=0;
+   
+   /**
+    * Initial temperature of simulated annealing, 0 means the temperature
+    * is computed from the map
+    */
+   protected double initialTemperature=0;
+   
+   /**
+    * Temperature of simulated annealing is multiplied by cooling rate after each generation
+    */
+   protected double coolingRate=0.98;
+   
+   /**
+    * The count of generations without improvement after which the annealing chain
+    * is reheated, 0 means no reheats
+    */
+   protected int reheatAge=50;
+   
+   /**
+    * Number of ants of ant colony, 0 means one ant per city, at most 25
+    * @see org.saiko.ai.genetics.tsp.engines.antColony.AntColonyEngine
+    */
+   protected int antCount=0;
+   
+   /**
+    * Should the tours of ants be improved by 2opt heuristics ?
+    */
+   protected boolean antLocalSearch=true;
+   
+   /**
+    * Should the best tour be improved by 2opt and Or-opt local search after the computation ?
+    * @see TourPolisher
+    */
+   protected boolean polish=false;
+   
+   /**
+    * Should the genetic engines adjust the mutation ratio and the population size
+    * after each generation ?
+    * @see org.saiko.ai.genetics.tsp.engines.simpleUnisexMutator.AdaptiveController
+    */
+   protected boolean adaptive=false;
+   
+   /**
+    * Should the diversity of the population be measured after each generation ?
+    * @see DiversityMeter
+    */
+   protected boolean diversity=true;
+   
+   /**
+    * Throughput of the current computation, set by TSP when the computation starts,
+    * null if the operations are not counted. The clones of the configuration share it.
+    * @see TSPThroughput#of(City[])
+    */
+   protected volatile TSPThroughput throughput;
+   
    /**
     * @return antialiasing flag for graphics rendering. Slows the displaying quite a lot.
     */
@@ -96,6 +232,95 @@ public class TSPConfiguration {
       this.maxBestCostAge=maxBestCostAge;
    }
    
+   /**
+    * @return The ratio of the best distance above the lower bound, at which the computation
+    * stops, 0 means no such stop
+    */
+   public double getMaxGap() {
+      return maxGap;
+   }
+   
+   /**
+    * @param maxGap The ratio of the best distance above the lower bound, at which the computation
+    * stops, 0 means no such stop
+    */
+   public void setMaxGap(double maxGap) {
+      this.maxGap=maxGap;
+   }
+   
+   /**
+    * @return Wall clock time budget of the computation in milliseconds, 0 means no budget
+    */
+   public long getMaxTime() {
+      return maxTime;
+   }
+   
+   /**
+    * @param maxTime Wall clock time budget of the computation in milliseconds, 0 means no budget
+    */
+   public void setMaxTime(long maxTime) {
+      this.maxTime=maxTime;
+   }
+   
+   /**
+    * @return Maximal number of the tour evaluations,
+    * 0 means no limit
+    */
+   public long getMaxEvaluations() {
+      return maxEvaluations;
+   }
+   
+   /**
+    * @param maxEvaluations Maximal number of the tour evaluations,
+    * 0 means no limit
+    */
+   public void setMaxEvaluations(long maxEvaluations) {
+      this.maxEvaluations=maxEvaluations;
+   }
+   
+   /**
+    * @return The distance at which the computation stops, 0 means no target
+    */
+   public double getTargetCost() {
+      return targetCost;
+   }
+   
+   /**
+    * @param targetCost The distance at which the computation stops, 0 means no target
+    */
+   public void setTargetCost(double targetCost) {
+      this.targetCost=targetCost;
+   }
+   
+   /**
+    * @return Number of generations of the window for minImprovement, 0 means no such stop
+    */
+   public int getImprovementWindow() {
+      return improvementWindow;
+   }
+   
+   /**
+    * @param improvementWindow Number of generations of the window for minImprovement,
+    * 0 means no such stop
+    */
+   public void setImprovementWindow(int improvementWindow) {
+      this.improvementWindow=improvementWindow;
+   }
+   
+   /**
+    * @return The minimal ratio of improvement of the best distance during the window
+    */
+   public double getMinImprovement() {
+      return minImprovement;
+   }
+   
+   /**
+    * @param minImprovement The minimal ratio of improvement of the best distance during the window
+    */
+   public void setMinImprovement(double minImprovement) {
+      this.minImprovement=minImprovement;
+   }
+   
    /**
     * @return ratio (0..1), how much the population should undergo random mutation 
     */
@@ -167,5 +392,256 @@ public class TSPConfiguration {
       this.threadPriority=threadPriority;
    }
 
+   /**
+    * @return number of islands of the island model, 0 means one island per processor
+    */
+   public int getIslandCount() {
+      return islandCount;
+   }
+
+   /**
+    * @param islandCount Number of islands of the island model, 0 means one island per processor
+    */
+   public void setIslandCount(int islandCount) {
+      this.islandCount=islandCount;
+   }
+
+   /**
+    * @return engine which evolves population of each island
+    */
+   public Class<? extends TSPMigratingEngine> getIslandEngineClass() {
+      return islandEngineClass;
+   }
+
+   /**
+    * @param islandEngineClass Engine which evolves population of each island
+    * @throws IllegalArgumentException if the engine builds islands itself
+    * @see IslandModelEngine#isIslandEngine(Class)
+    */
+   public void setIslandEngineClass(Class<? extends TSPMigratingEngine> islandEngineClass) {
+      if(!IslandModelEngine.isIslandEngine(islandEngineClass)) {
+         throw new IllegalArgumentException(islandEngineClass.getSimpleName()+" can not be used as island engine.");
+      }
+      this.islandEngineClass=islandEngineClass;
+   }
+
+   /**
+    * @return the count of generations between two migrations of island model
+    */
+   public int getMigrationInterval() {
+      return migrationInterval;
+   }
+
+   /**
+    * @param migrationInterval The count of generations between two migrations of island model
+    */
+   public void setMigrationInterval(int migrationInterval) {
+      this.migrationInterval=migrationInterval;
+   }
+
+   /**
+    * @return number of best chromosomes which migrate from the island
+    */
+   public int getMigrationSize() {
+      return migrationSize;
+   }
+
+   /**
+    * @param migrationSize Number of best chromosomes which migrate from the island
+    */
+   public void setMigrationSize(int migrationSize) {
+      this.migrationSize=migrationSize;
+   }
+
+   /**
+    * @return topology of migration between islands
+    */
+   public MigrationTopology getMigrationTopology() {
+      return migrationTopology;
+   }
+
+   /**
+    * @param migrationTopology Topology of migration between islands
+    */
+   public void setMigrationTopology(MigrationTopology migrationTopology) {
+      this.migrationTopology=migrationTopology;
+   }
+
+   /**
+    * @return maps with at least this number of cities use parallel 2opt heuristics,
+    * 0 means parallel 2opt is not used
+    */
+   public int getParallel2optThreshold() {
+      return parallel2optThreshold;
+   }
+
+   /**
+    * @param parallel2optThreshold Maps with at least this number of cities use parallel 2opt heuristics,
+    * 0 switches the parallel 2opt off
+    */
+   public void setParallel2optThreshold(int parallel2optThreshold) {
+      this.parallel2optThreshold=parallel2optThreshold;
+   }
+
+   /**
+    * @return number of parallel chains of simulated annealing, 0 means one chain per processor
+    */
+   public int getAnnealingChains() {
+      return annealingChains;
+   }
+
+   /**
+    * @param annealingChains Number of parallel chains of simulated annealing,
+    * 0 means one chain per processor
+    */
+   public void setAnnealingChains(int annealingChains) {
+      this.annealingChains=annealingChains;
+   }
+
+   /**
+    * @return initial temperature of simulated annealing, 0 means the temperature
+    * is computed from the map
+    */
+   public double getInitialTemperature() {
+      return initialTemperature;
+   }
+
+   /**
+    * @param initialTemperature Initial temperature of simulated annealing,
+    * 0 means the temperature is computed from the map
+    */
+   public void setInitialTemperature(double initialTemperature) {
+      this.initialTemperature=initialTemperature;
+   }
+
+   /**
+    * @return cooling rate - temperature of simulated annealing is multiplied by it after each generation
+    */
+   public double getCoolingRate() {
+      return coolingRate;
+   }
+
+   /**
+    * @param coolingRate Temperature of simulated annealing is multiplied by it after each generation
+    */
+   public void setCoolingRate(double coolingRate) {
+      this.coolingRate=coolingRate;
+   }
+
+   /**
+    * @return the count of generations without improvement after which the annealing
+    * chain is reheated, 0 means no reheats
+    */
+   public int getReheatAge() {
+      return reheatAge;
+   }
+
+   /**
+    * @param reheatAge The count of generations without improvement after which the annealing
+    * chain is reheated, 0 means no reheats
+    */
+   public void setReheatAge(int reheatAge) {
+      this.reheatAge=reheatAge;
+   }
+
+   /**
+    * @return number of ants of ant colony, 0 means one ant per city, at most 25
+    */
+   public int getAntCount() {
+      return antCount;
+   }
+
+   /**
+    * @param antCount Number of ants of ant colony, 0 means one ant per city, at most 25
+    */
+   public void setAntCount(int antCount) {
+      this.antCount=antCount;
+   }
+
+   /**
+    * @return true if the tours of ants are improved by 2opt heuristics
+    */
+   public boolean isAntLocalSearch() {
+      return antLocalSearch;
+   }
+
+   /**
+    * @param antLocalSearch Should the tours of ants be improved by 2opt heuristics ?
+    */
+   public void setAntLocalSearch(boolean antLocalSearch) {
+      this.antLocalSearch=antLocalSearch;
+   }
+
+   /**
+    * @return true if the best tour is improved by local search after the computation
+    */
+   public boolean isPolish() {
+      return polish;
+   }
+
+   /**
+    * @param polish Should the best tour be improved by local search after the computation ?
+    */
+   public void setPolish(boolean polish) {
+      this.polish=polish;
+   }
+
+   /**
+    * @return true if the genetic engines adjust the mutation ratio and the population size
+    * after each generation
+    */
+   public boolean isAdaptive() {
+      return adaptive;
+   }
+
+   /**
+    * @param adaptive Should the genetic engines adjust the mutation ratio and the population size
+    * after each generation ?
+    */
+   public void setAdaptive(boolean adaptive) {
+      this.adaptive=adaptive;
+   }
+
+   /**
+    * @return true if the diversity of the population is measured after each generation
+    */
+   public boolean isDiversity() {
+      return diversity;
+   }
+
+   /**
+    * @param diversity Should the diversity of the population be measured after each generation ?
+    */
+   public void setDiversity(boolean diversity) {
+      this.diversity=diversity;
+   }
+
+   /**
+    * @return throughput of the current computation, null if the operations are not counted
+    */
+   public TSPThroughput getThroughput() {
+      return throughput;
+   }
+
+   /**
+    * @param throughput of the computation which uses this configuration, null to stop counting
+    */
+   public void setThroughput(TSPThroughput throughput) {
+      this.throughput=throughput;
+   }
+
+   /**
+    * @return copy of this configuration, e.g. for engines running
+    * inside of other engines with different parameters
+    */
+   @Override
+   public TSPConfiguration clone() {
+      try {
+         return (TSPConfiguration)super.clone();
+      } catch(CloneNotSupportedException e) {
+         throw new IllegalStateException(e);
+      }
+   }
+
    
 }
\ No newline at end of file
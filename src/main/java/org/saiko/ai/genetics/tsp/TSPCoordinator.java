@@ -0,0 +1,376 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Future;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ *         Coordinator of the multi process island model. Workers (islands)
+ *         connect to the coordinator and periodically send their best
+ *         chromosomes. The coordinator keeps the pool of the best chromosomes
+ *         over all the workers, sends them back to the other workers as
+ *         migrants, tracks the global best chromosome and decides the end of
+ *         computation by the termination policy of the application - e.g.
+ *         when the global best cost did not change for maxBestCostAge
+ *         generations. The evaluations of the workers are summed and the
+ *         lower bound of small maps is computed by the coordinator, so the
+ *         evaluations and gap limits work as in one process.
+ *
+ * @see TSPWorker
+ * @see TSPIslandProtocol
+ */
+public class TSPCoordinator {
+
+    /**
+     * Elite chromosome from some worker
+     */
+    static class Elite {
+	/** city ids */
+	int tour[];
+
+	/** chromosome of the tour */
+	TSPChromosome chromosome;
+
+	/** id of worker which found the tour */
+	int workerId;
+    }
+
+    /**
+     * application - cities and configuration
+     */
+    protected final TSP tsp;
+
+    /**
+     * listening socket
+     */
+    protected final ServerSocket serverSocket;
+
+    /**
+     * pool of the best chromosomes ordered by the cost
+     */
+    protected final List<Elite> elites = new ArrayList<>();
+
+    /**
+     * the highest generation reported by workers
+     */
+    protected int generation = 0;
+
+    /**
+     * generation in which the global best was improved
+     */
+    protected int bestGeneration = 0;
+
+    /**
+     * number of workers ever connected
+     */
+    protected int workerCount = 0;
+
+    /**
+     * number of connected workers
+     */
+    protected int activeWorkers = 0;
+
+    /**
+     * stop flag - computation should stop
+     */
+    protected volatile boolean stopFlag = false;
+
+    /**
+     * termination policy, asked with the global state after each exchange
+     */
+    protected TSPTermination termination;
+
+    /**
+     * the last evaluations reported by each worker, indexed by worker id
+     */
+    protected final List<Long> workerEvaluations = new ArrayList<>();
+
+    /**
+     * evaluations summed over the workers
+     */
+    protected long evaluations = 0;
+
+    /**
+     * lower bound task, started with the first tour, null before
+     */
+    protected Future<?> boundTask;
+
+    /**
+     * @param tsp
+     *            - application with loaded map and configuration
+     * @param port
+     *            - port to listen on, 0 for any free port
+     * @throws IOException
+     */
+    public TSPCoordinator(TSP tsp, int port) throws IOException {
+	this.tsp = tsp;
+	serverSocket = new ServerSocket(port);
+    }
+
+    /**
+     * @return the port the coordinator listens on
+     */
+    public int getPort() {
+	return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Accepts the workers and waits until the computation is finished and all
+     * the workers are disconnected. Then the best chromosome, generation and
+     * time are set into the application.
+     */
+    public void run() {
+	tsp.startTime = System.currentTimeMillis();
+	tsp.engineName = getClass().getSimpleName();
+	tsp.evaluations = 0;
+	tsp.lowerBound = 0;
+	synchronized (this) {
+	    termination = tsp.customTermination != null ? tsp.customTermination
+		    : tsp.createTermination();
+	    termination.start(tsp);
+	}
+
+	// accepting and the connections of workers are blocking tasks
+	TSPExecutors.getIOExecutor().execute(new Runnable() {
+	    @Override
+	    public void run() {
+		while (!serverSocket.isClosed()) {
+		    try {
+			final Socket socket = serverSocket.accept();
+			TSPExecutors.getIOExecutor().execute(new Runnable() {
+			    @Override
+			    public void run() {
+				handle(socket);
+			    }
+			});
+		    } catch (IOException e) {
+			// socket closed
+		    }
+		}
+	    }
+	});
+
+	long previewStatusTime = System.currentTimeMillis();
+	synchronized (this) {
+	    while (!(workerCount > 0 && activeWorkers == 0)) {
+		try {
+		    wait(1000);
+		} catch (InterruptedException e) {
+		    stopFlag = true;
+		}
+		if (previewStatusTime < System.currentTimeMillis() - 15000) {
+		    previewStatusTime = System.currentTimeMillis();
+		    printStatus();
+		}
+	    }
+	}
+	stopFlag = true;
+	try {
+	    serverSocket.close();
+	} catch (IOException e) {
+	    // nop
+	}
+
+	synchronized (this) {
+	    if (boundTask != null) {
+		boundTask.cancel(true);
+	    }
+	    tsp.runTime = System.currentTimeMillis() - tsp.startTime;
+	    tsp.evaluations = evaluations;
+	    tsp.generation = generation;
+	    tsp.bestCostAge = generation - bestGeneration;
+	    if (!elites.isEmpty()) {
+		tsp.bestChromosome = elites.get(0).chromosome;
+		tsp.bestCost = tsp.bestChromosome.getTotalDistance();
+	    }
+	}
+	printStatus();
+    }
+
+    /**
+     * Prints the status line into console
+     */
+    protected synchronized void printStatus() {
+	tsp.console.println(String.format(
+		"%s: cities: %s; time: %s; generation: %s; workers: %s; best distance: %s; best age: %s;",
+		getClass().getSimpleName(), tsp.cities.length,
+		(System.currentTimeMillis() - tsp.startTime) / 1000,
+		generation, activeWorkers, elites.isEmpty() ? 0
+			: (int) elites.get(0).chromosome.getTotalDistance(),
+		generation - bestGeneration));
+    }
+
+    /**
+     * Communication with one worker
+     *
+     * @param socket
+     */
+    protected void handle(Socket socket) {
+	int workerId;
+	synchronized (this) {
+	    workerId = ++workerCount;
+	    activeWorkers++;
+	}
+	try (Socket s = socket) {
+	    s.setTcpNoDelay(true);
+	    DataInputStream in = new DataInputStream(new BufferedInputStream(
+		    s.getInputStream()));
+	    DataOutputStream out = new DataOutputStream(
+		    new BufferedOutputStream(s.getOutputStream()));
+
+	    int cityCount = tsp.cities.length;
+	    if (in.readByte() != TSPIslandProtocol.HELLO
+		    || in.readInt() != TSPIslandProtocol.MAGIC
+		    || in.readInt() != cityCount
+		    || in.readLong() != TSPIslandProtocol.checksum(tsp.cities)
+		    || stopFlag) {
+		out.writeByte(TSPIslandProtocol.STOP);
+		out.flush();
+		return;
+	    }
+	    // the pool keeps the migration size of tours, the worker sends no
+	    // more
+	    int maxTours = Math.max(1, tsp.configuration.getMigrationSize());
+	    out.writeByte(TSPIslandProtocol.ACCEPT);
+	    out.writeInt(workerId);
+	    out.writeInt(maxTours);
+	    out.flush();
+
+	    while (true) {
+		byte message = in.readByte();
+		if (message != TSPIslandProtocol.ELITES) {
+		    throw new IOException("Unexpected message: " + message);
+		}
+		int workerGeneration = in.readInt();
+		long evaluations = in.readLong();
+		List<int[]> tours = TSPIslandProtocol.readTours(in, cityCount,
+			maxTours);
+
+		List<int[]> migrants = exchange(workerId, workerGeneration,
+			evaluations, tours);
+		if (migrants == null) {
+		    out.writeByte(TSPIslandProtocol.STOP);
+		    out.flush();
+		    return;
+		}
+		out.writeByte(TSPIslandProtocol.MIGRANTS);
+		TSPIslandProtocol.writeTours(out, migrants, cityCount);
+		out.flush();
+	    }
+	} catch (IOException e) {
+	    // worker disconnected
+	} finally {
+	    synchronized (this) {
+		activeWorkers--;
+		notifyAll();
+	    }
+	}
+    }
+
+    /**
+     * Adds the tours of worker to the pool of the best chromosomes and checks
+     * the end of computation.
+     *
+     * @param workerId
+     * @param workerGeneration
+     * @param evaluations
+     *            - number of evaluations of the worker from its start
+     * @param tours
+     * @return tours of other workers to migrate, null if the computation
+     *         should stop
+     */
+    protected synchronized List<int[]> exchange(int workerId,
+	    int workerGeneration, long evaluations, List<int[]> tours) {
+	if (workerGeneration > generation) {
+	    generation = workerGeneration;
+	}
+	while (workerEvaluations.size() <= workerId) {
+	    workerEvaluations.add(0L);
+	}
+	this.evaluations += evaluations - workerEvaluations.get(workerId);
+	workerEvaluations.set(workerId, evaluations);
+
+	int poolSize = Math.max(1, tsp.configuration.getMigrationSize());
+	double bestCost = elites.isEmpty() ? Double.MAX_VALUE : elites.get(0).chromosome
+		.getTotalCost();
+	for (int[] tour : tours) {
+	    addElite(tour, workerId, poolSize);
+	}
+	// tours which come after the stop decision do not restart the best
+	// cost age, the computation is finished already
+	if (!stopFlag && !elites.isEmpty()
+		&& elites.get(0).chromosome.getTotalCost() < bestCost) {
+	    bestGeneration = generation;
+	}
+
+	// the global state for the termination policy
+	tsp.generation = generation;
+	tsp.bestCostAge = generation - bestGeneration;
+	tsp.bestCost = elites.isEmpty() ? 0 : elites.get(0).chromosome
+		.getTotalDistance();
+	tsp.evaluations = this.evaluations;
+	tsp.runTime = System.currentTimeMillis() - tsp.startTime;
+	if (boundTask == null && !elites.isEmpty()) {
+	    boundTask = tsp.startLowerBound(tsp.bestCost);
+	}
+	if (termination.isFinished(tsp)) {
+	    stopFlag = true;
+	}
+	if (stopFlag) {
+	    return null;
+	}
+
+	List<int[]> migrants = new ArrayList<>();
+	for (Elite elite : elites) {
+	    if (elite.workerId != workerId) {
+		migrants.add(elite.tour);
+	    }
+	}
+	return migrants;
+    }
+
+    /**
+     * Adds the tour into ordered pool of the best chromosomes
+     *
+     * @param tour
+     * @param workerId
+     * @param poolSize
+     */
+    protected void addElite(int tour[], int workerId, int poolSize) {
+	for (Elite elite : elites) {
+	    if (Arrays.equals(elite.tour, tour)) {
+		return;
+	    }
+	}
+	Elite elite = new Elite();
+	elite.tour = tour;
+	elite.workerId = workerId;
+	elite.chromosome = TSPIslandProtocol.toChromosome(tour, tsp.cities);
+
+	int index = 0;
+	while (index < elites.size()
+		&& elites.get(index).chromosome.getTotalCost() <= elite.chromosome
+			.getTotalCost()) {
+	    index++;
+	}
+	if (index < poolSize) {
+	    elites.add(index, elite);
+	    while (elites.size() > poolSize) {
+		elites.remove(elites.size() - 1);
+	    }
+	}
+    }
+}
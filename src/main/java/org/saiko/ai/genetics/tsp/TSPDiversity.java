@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ * Diversity of the population in one generation. The values are immutable,
+ * they are measured by DiversityMeter.
+ *
+ * @see DiversityMeter
+ */
+public class TSPDiversity {
+
+   /**
+    * number of chromosomes of the population
+    */
+   protected final int populationSize;
+
+   /**
+    * number of different tours in the population
+    */
+   protected final int uniqueTours;
+
+   /**
+    * average ratio of the edges of one tour missing in the other tour
+    */
+   protected final double edgeDistance;
+
+   /**
+    * entropy of the frequencies of the edges, 0 for the population of the
+    * same tours, 1 when no two tours share an edge
+    */
+   protected final double edgeEntropy;
+
+   /**
+    * @param populationSize - number of chromosomes of the population
+    * @param uniqueTours - number of different tours in the population
+    * @param edgeDistance - average ratio of edges not shared by two tours
+    * @param edgeEntropy - normalized entropy of the frequencies of the edges
+    */
+   public TSPDiversity(int populationSize, int uniqueTours, double edgeDistance, double edgeEntropy) {
+      this.populationSize=populationSize;
+      this.uniqueTours=uniqueTours;
+      this.edgeDistance=edgeDistance;
+      this.edgeEntropy=edgeEntropy;
+   }
+
+   /**
+    * @return number of chromosomes of the population
+    */
+   public int getPopulationSize() {
+      return populationSize;
+   }
+
+   /**
+    * @return number of different tours in the population, the same round trip
+    * from other city or in the opposite direction is not different
+    */
+   public int getUniqueTours() {
+      return uniqueTours;
+   }
+
+   /**
+    * @return average ratio of the edges of one tour missing in the other tour,
+    * estimated from random pairs of tours; 0 for the same tours
+    */
+   public double getEdgeDistance() {
+      return edgeDistance;
+   }
+
+   /**
+    * @return entropy of the frequencies of the edges in the population,
+    * 0 for the population of the same tours, 1 when no two tours share an edge
+    */
+   public double getEdgeEntropy() {
+      return edgeEntropy;
+   }
+
+   /**
+    * @see java.lang.Object#toString()
+    */
+   @Override
+   public String toString() {
+      return String.format("unique tours: %s/%s; edge distance: %.3f; edge entropy: %.3f;",
+               uniqueTours, populationSize, edgeDistance, edgeEntropy);
+   }
+}
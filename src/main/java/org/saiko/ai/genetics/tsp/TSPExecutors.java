@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ *         Thread pools shared by all the computations running in this process.
+ *         The CPU bound work of the engines runs in one compute pool with one
+ *         thread per processor, so many computations running at the same time
+ *         (batch mode) do not create more threads than the machine can run.
+ *         Status refreshing, reports and other blocking tasks use the I/O
+ *         executor - virtual threads if the runtime has them (Java 21+),
+ *         cached daemon threads otherwise.
+ *
+ * @see TSPBatch
+ */
+public final class TSPExecutors {
+
+    /**
+     * pool for CPU bound tasks
+     */
+    private static ForkJoinPool computePool;
+
+    /**
+     * executor for blocking tasks
+     */
+    private static ExecutorService ioExecutor;
+
+    /**
+     * no instances
+     */
+    private TSPExecutors() {
+    }
+
+    /**
+     * @return pool for CPU bound tasks of the engines, one thread per
+     *         processor
+     */
+    public static synchronized ForkJoinPool getComputePool() {
+	if (computePool == null) {
+	    computePool = new ForkJoinPool(Runtime.getRuntime()
+		    .availableProcessors());
+	}
+	return computePool;
+    }
+
+    /**
+     * @return executor for blocking tasks (status, reports, I/O); creates new
+     *         virtual thread for each task on Java 21+
+     */
+    public static synchronized ExecutorService getIOExecutor() {
+	if (ioExecutor == null) {
+	    try {
+		ioExecutor = (ExecutorService) Executors.class.getMethod(
+			"newVirtualThreadPerTaskExecutor").invoke(null);
+	    } catch (ReflectiveOperationException e) {
+		// no virtual threads in this runtime
+		ioExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+		    @Override
+		    public Thread newThread(Runnable r) {
+			Thread thread = new Thread(r, "tsp-io");
+			thread.setDaemon(true);
+			return thread;
+		    }
+		});
+	    }
+	}
+	return ioExecutor;
+    }
+}
\ No newline at end of file
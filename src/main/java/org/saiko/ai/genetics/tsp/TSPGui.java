@@ -16,6 +16,7 @@ import java.awt.geom.Rectangle2D;
 import javax.swing.ImageIcon;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
+import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JTextField;
 
@@ -247,8 +248,17 @@ public class TSPGui extends JFrame {
          parent.bestChromosome=null;
          statusBar.setText("Loading ...");
          if(reloadCities) {
+        	 City previousCities[]=parent.cities;
         	 parent.cities=null;
-        	 parent.loadCities(null,true);
+        	 try {
+        	    parent.loadCities(null,true);
+        	 } catch(IllegalArgumentException e) {
+        	    //keep the current map
+        	    parent.cities=previousCities;
+        	    statusBar.setText("Ready");
+        	    JOptionPane.showMessageDialog(this,e.getMessage(),"Error",JOptionPane.WARNING_MESSAGE);
+        	    return;
+        	 }
          }
          
          //remove cityMap panel, if already exists (selection of new map)
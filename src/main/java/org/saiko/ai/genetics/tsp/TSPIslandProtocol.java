@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ *         Binary protocol between the coordinator and worker processes of the
+ *         multi process island model. All the values are big endian
+ *         (DataOutputStream).
+ *
+ *         <pre>
+ * worker:      HELLO   'H' magic:int cities:int checksum:long
+ * coordinator: ACCEPT  'A' workerId:int maxTours:int | STOP 'S'
+ * worker:      ELITES  'E' generation:int evaluations:long count:int tour*count
+ * coordinator: MIGRANTS 'M' count:int tour*count | STOP 'S'
+ * </pre>
+ *
+ *         The tour is the list of city ids, each id is unsigned short for
+ *         maps with less than 65536 cities, int otherwise. The costs are not
+ *         sent, they are computed again by the receiver. The evaluations are
+ *         counted by the worker from its start, the coordinator sums them over
+ *         the workers.
+ *
+ *         The checksum of the coordinates makes sure that the worker and the
+ *         coordinator have the same map. The coordinator accepts at most
+ *         maxTours tours in one message - its migration size - and sends no
+ *         more back, longer lists are refused before they are allocated.
+ *
+ * @see TSPCoordinator
+ * @see TSPWorker
+ */
+class TSPIslandProtocol {
+
+    /**
+     * protocol magic number and version "TSP3"
+     */
+    static final int MAGIC = 0x54535033;
+
+    /**
+     * message types
+     */
+    static final byte HELLO = 'H', ACCEPT = 'A', ELITES = 'E', MIGRANTS = 'M',
+	    STOP = 'S';
+
+    /**
+     * Writes list of tours
+     *
+     * @param out
+     * @param tours
+     * @param cityCount
+     * @throws IOException
+     */
+    static void writeTours(DataOutputStream out, List<int[]> tours,
+	    int cityCount) throws IOException {
+	out.writeInt(tours.size());
+	for (int[] tour : tours) {
+	    for (int id : tour) {
+		if (cityCount <= 0xFFFF) {
+		    out.writeShort(id);
+		} else {
+		    out.writeInt(id);
+		}
+	    }
+	}
+    }
+
+    /**
+     * Reads list of tours and checks that each tour is a permutation of city
+     * ids
+     *
+     * @param in
+     * @param cityCount
+     * @param maxCount
+     *            the most tours accepted
+     * @return tours
+     * @throws IOException
+     *             if the list is longer than maxCount or a tour is invalid
+     */
+    static List<int[]> readTours(DataInputStream in, int cityCount,
+	    int maxCount) throws IOException {
+	int count = in.readInt();
+	if (count < 0 || count > maxCount) {
+	    throw new IOException("Invalid number of tours: " + count);
+	}
+	List<int[]> tours = new ArrayList<>(count);
+	for (int t = 0; t < count; t++) {
+	    int tour[] = new int[cityCount];
+	    boolean visited[] = new boolean[cityCount];
+	    for (int i = 0; i < cityCount; i++) {
+		int id = cityCount <= 0xFFFF ? in.readUnsignedShort() : in
+			.readInt();
+		if (id < 0 || id >= cityCount || visited[id]) {
+		    throw new IOException("Invalid tour, city id: " + id);
+		}
+		visited[id] = true;
+		tour[i] = id;
+	    }
+	    tours.add(tour);
+	}
+	return tours;
+    }
+
+    /**
+     * @param cities
+     *            cities of the map, indexed by city id
+     * @return hash of the coordinates of the cities
+     */
+    static long checksum(City cities[]) {
+	long checksum = cities.length;
+	for (City city : cities) {
+	    checksum = 31 * checksum + city.getX();
+	    checksum = 31 * checksum + city.getY();
+	}
+	return checksum;
+    }
+
+    /**
+     * @param chromosome
+     * @return city ids of the chromosome
+     */
+    static int[] toTour(TSPChromosome chromosome) {
+	City cities[] = chromosome.getCities();
+	int tour[] = new int[cities.length];
+	for (int i = 0; i < cities.length; i++) {
+	    tour[i] = cities[i].id;
+	}
+	return tour;
+    }
+
+    /**
+     * @param tour
+     *            city ids
+     * @param cities
+     *            cities of the map, indexed by city id
+     * @return chromosome with computed costs
+     */
+    static TSPChromosome toChromosome(int tour[], City cities[]) {
+	City path[] = new City[tour.length];
+	for (int i = 0; i < tour.length; i++) {
+	    path[i] = cities[tour[i]];
+	}
+	return new TSPChromosome(path);
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ *         City of the TSPLIB map. The distances follow the TSPLIB definition
+ *         of the edge weight type of the map, so the results can be compared
+ *         with the published optimal tours. The coordinates of the map are
+ *         kept as doubles, the integer x and y of the city are only for the
+ *         display.
+ *
+ * @see TSPLIBReader
+ */
+public class TSPLIBCity extends City {
+
+    /**
+     * Edge weight types of TSPLIB
+     */
+    public enum WeightType {
+	/** rounded euclidean distance */
+	EUC_2D,
+	/** euclidean distance rounded up */
+	CEIL_2D,
+	/** pseudo euclidean distance of the att maps */
+	ATT,
+	/** geographical distance, the coordinates are DDD.MM latitude and longitude */
+	GEO,
+	/** distances given by the matrix */
+	EXPLICIT
+    }
+
+    /**
+     * radius of the Earth used by TSPLIB [km]
+     */
+    protected static final double EARTH_RADIUS = 6378.388;
+
+    /**
+     * PI as used by TSPLIB for GEO maps
+     */
+    protected static final double PI = 3.141592;
+
+    /**
+     * edge weight type of the map
+     */
+    protected final WeightType weightType;
+
+    /**
+     * coordinates of the map
+     */
+    protected final double coordX, coordY;
+
+    /**
+     * latitude and longitude in radians for GEO maps
+     */
+    protected final double latitude, longitude;
+
+    /**
+     * distances of EXPLICIT map indexed by city ids, shared by all the cities
+     * of the map
+     */
+    protected final double weights[][];
+
+    /**
+     * @param id
+     *            - index of the city in the map
+     * @param configuration
+     * @param name
+     *            - name of the city, the node number of TSPLIB
+     * @param x
+     *            - X coordinate for the display
+     * @param y
+     *            - Y coordinate for the display
+     * @param weightType
+     *            - edge weight type of the map
+     * @param coordX
+     *            - X coordinate of the map
+     * @param coordY
+     *            - Y coordinate of the map
+     * @param weights
+     *            - distances of EXPLICIT map, null for the other types
+     */
+    public TSPLIBCity(int id, TSPConfiguration configuration, String name,
+	    int x, int y, WeightType weightType, double coordX, double coordY,
+	    double weights[][]) {
+	super(id, configuration, name, x, y);
+	this.weightType = weightType;
+	this.coordX = coordX;
+	this.coordY = coordY;
+	this.weights = weights;
+	latitude = geoRadians(coordX);
+	longitude = geoRadians(coordY);
+    }
+
+    /**
+     * @param coordinate
+     *            - DDD.MM degrees and minutes
+     * @return the coordinate in radians
+     */
+    protected static double geoRadians(double coordinate) {
+	int degrees = (int) coordinate;
+	double minutes = coordinate - degrees;
+	return PI * (degrees + 5.0 * minutes / 3.0) / 180.0;
+    }
+
+    /**
+     * @return edge weight type of the map
+     */
+    public WeightType getWeightType() {
+	return weightType;
+    }
+
+    /**
+     * Distance by the TSPLIB definition of the edge weight type
+     *
+     * @see org.saiko.ai.genetics.tsp.City#computeDistance(City)
+     */
+    @Override
+    protected double computeDistance(City otherCity) {
+	TSPLIBCity other = (TSPLIBCity) otherCity;
+	if (other.id == id) {
+	    return 0;
+	}
+	switch (weightType) {
+	case EXPLICIT:
+	    return weights[id][other.id];
+	case GEO: {
+	    double q1 = Math.cos(longitude - other.longitude);
+	    double q2 = Math.cos(latitude - other.latitude);
+	    double q3 = Math.cos(latitude + other.latitude);
+	    return (int) (EARTH_RADIUS
+		    * Math.acos(0.5 * ((1.0 + q1) * q2 - (1.0 - q1) * q3)) + 1.0);
+	}
+	default:
+	    double dx = coordX - other.coordX;
+	    double dy = coordY - other.coordY;
+	    if (weightType == WeightType.ATT) {
+		double r = Math.sqrt((dx * dx + dy * dy) / 10.0);
+		double t = Math.floor(r + 0.5);
+		return t < r ? t + 1 : t;
+	    }
+	    double distance = Math.sqrt(dx * dx + dy * dy);
+	    return weightType == WeightType.CEIL_2D ? Math.ceil(distance)
+		    : Math.floor(distance + 0.5);
+	}
+    }
+}
@@ -0,0 +1,409 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+
+import org.saiko.ai.genetics.tsp.TSPLIBCity.WeightType;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ *         Reader of the symmetric TSP maps in TSPLIB format (.tsp files),
+ *         e.g. the standard instances pla85900 or usa13509:
+ *
+ *         <pre>
+ * NAME : berlin52
+ * TYPE : TSP
+ * DIMENSION : 52
+ * EDGE_WEIGHT_TYPE : EUC_2D
+ * NODE_COORD_SECTION
+ * 1 565.0 575.0
+ * 2 25.0 185.0
+ * ...
+ * EOF
+ * </pre>
+ *
+ *         Edge weight types EUC_2D, CEIL_2D, ATT and GEO read the cities from
+ *         NODE_COORD_SECTION. EXPLICIT maps read the EDGE_WEIGHT_SECTION in
+ *         FULL_MATRIX, UPPER_ROW, LOWER_ROW, UPPER_DIAG_ROW or LOWER_DIAG_ROW
+ *         format (and the same column formats) and the optional
+ *         DISPLAY_DATA_SECTION, otherwise the cities are displayed on a
+ *         circle.
+ *
+ *         The file is parsed as a stream of tokens without regular
+ *         expressions, only the coordinates and the weights are kept in the
+ *         memory.
+ *
+ * @see TSPLIBCity
+ */
+public class TSPLIBReader {
+
+    /**
+     * configuration of the cities
+     */
+    protected final TSPConfiguration configuration;
+
+    /**
+     * the input
+     */
+    protected BufferedReader reader;
+
+    /**
+     * current line and the position of the next token in it
+     */
+    protected String line;
+
+    /**
+     * @see #line
+     */
+    protected int position;
+
+    /**
+     * number of the current line
+     */
+    protected int lineNumber;
+
+    /**
+     * values of the specification part
+     */
+    protected String name, type, weightType, weightFormat;
+
+    /**
+     * number of the cities
+     */
+    protected int dimension = -1;
+
+    /**
+     * coordinates of the cities indexed by node number - 1, display
+     * coordinates of EXPLICIT map
+     */
+    protected double x[], y[];
+
+    /**
+     * distances of EXPLICIT map
+     */
+    protected double weights[][];
+
+    /**
+     * @param configuration
+     *            - configuration of the cities
+     */
+    public TSPLIBReader(TSPConfiguration configuration) {
+	this.configuration = configuration;
+    }
+
+    /**
+     * Reads the map from the file
+     *
+     * @param file
+     * @return cities of the map indexed by their ids
+     * @throws IOException
+     *             if the file can not be read
+     * @throws IllegalArgumentException
+     *             if the file is not supported TSPLIB map
+     */
+    public City[] read(File file) throws IOException,
+	    IllegalArgumentException {
+	try (Reader in = new InputStreamReader(new FileInputStream(file),
+		"UTF-8")) {
+	    return read(in);
+	}
+    }
+
+    /**
+     * Reads the map
+     *
+     * @param in
+     *            - the input, not closed
+     * @return cities of the map indexed by their ids
+     * @throws IOException
+     *             if the input can not be read
+     * @throws IllegalArgumentException
+     *             if the input is not supported TSPLIB map
+     */
+    public City[] read(Reader in) throws IOException,
+	    IllegalArgumentException {
+	reader = new BufferedReader(in, 1 << 16);
+	line = null;
+	lineNumber = 0;
+	while (nextLine()) {
+	    String keyword = line.trim();
+	    int colon = keyword.indexOf(':');
+	    String value = null;
+	    if (colon >= 0) {
+		value = keyword.substring(colon + 1).trim();
+		keyword = keyword.substring(0, colon).trim();
+	    }
+	    keyword = keyword.toUpperCase();
+	    if (keyword.isEmpty()) {
+		continue;
+	    } else if (keyword.equals("EOF")) {
+		break;
+	    } else if (keyword.equals("NAME")) {
+		name = value;
+	    } else if (keyword.equals("TYPE")) {
+		type = value.toUpperCase();
+	    } else if (keyword.equals("DIMENSION")) {
+		dimension = parseInt(value);
+	    } else if (keyword.equals("EDGE_WEIGHT_TYPE")) {
+		weightType = value.toUpperCase();
+	    } else if (keyword.equals("EDGE_WEIGHT_FORMAT")) {
+		weightFormat = value.toUpperCase();
+	    } else if (keyword.equals("NODE_COORD_SECTION")
+		    || keyword.equals("DISPLAY_DATA_SECTION")) {
+		readCoordinates();
+	    } else if (keyword.equals("EDGE_WEIGHT_SECTION")) {
+		readWeights();
+	    } else if (keyword.endsWith("_SECTION")) {
+		throw error("Unsupported section " + keyword + ".");
+	    }
+	    // the other keywords (COMMENT, NODE_COORD_TYPE, ...) are ignored
+	}
+	return createCities();
+    }
+
+    /**
+     * Reads the next line
+     *
+     * @return false at the end of the input
+     * @throws IOException
+     */
+    protected boolean nextLine() throws IOException {
+	line = reader.readLine();
+	position = 0;
+	lineNumber++;
+	return line != null;
+    }
+
+    /**
+     * @return next token of the section, the tokens may continue on the
+     *         next lines
+     * @throws IOException
+     */
+    protected String nextToken() throws IOException {
+	while (true) {
+	    if (line != null) {
+		int length = line.length();
+		while (position < length
+			&& Character.isWhitespace(line.charAt(position))) {
+		    position++;
+		}
+		if (position < length) {
+		    int start = position;
+		    while (position < length
+			    && !Character.isWhitespace(line.charAt(position))) {
+			position++;
+		    }
+		    return line.substring(start, position);
+		}
+	    }
+	    if (!nextLine()) {
+		throw error("Unexpected end of file.");
+	    }
+	}
+    }
+
+    /**
+     * @return number of the cities
+     * @throws IllegalArgumentException
+     *             if DIMENSION was not read yet
+     */
+    protected int getDimension() throws IllegalArgumentException {
+	if (dimension < 0) {
+	    throw error("DIMENSION must precede the data sections.");
+	}
+	return dimension;
+    }
+
+    /**
+     * Reads NODE_COORD_SECTION or DISPLAY_DATA_SECTION - one city per line
+     *
+     * @throws IOException
+     */
+    protected void readCoordinates() throws IOException {
+	int n = getDimension();
+	x = new double[n];
+	y = new double[n];
+	boolean read[] = new boolean[n];
+	for (int i = 0; i < n; i++) {
+	    // one line per city, the next token begins the next line
+	    line = null;
+	    int node = parseInt(nextToken()) - 1;
+	    if (node < 0 || node >= n || read[node]) {
+		throw error("Invalid node number " + (node + 1) + ".");
+	    }
+	    read[node] = true;
+	    x[node] = parseDouble(nextToken());
+	    y[node] = parseDouble(nextToken());
+	}
+	line = null;
+    }
+
+    /**
+     * Reads EDGE_WEIGHT_SECTION - the weights are in the order of the
+     * format, not aligned to lines
+     *
+     * @throws IOException
+     */
+    protected void readWeights() throws IOException {
+	int n = getDimension();
+	if (weightFormat == null) {
+	    throw error("EDGE_WEIGHT_FORMAT must precede EDGE_WEIGHT_SECTION.");
+	}
+	// the column formats of symmetric matrix are the row formats of the
+	// other triangle
+	String format = weightFormat;
+	if (format.equals("UPPER_COL")) {
+	    format = "LOWER_ROW";
+	} else if (format.equals("LOWER_COL")) {
+	    format = "UPPER_ROW";
+	} else if (format.equals("UPPER_DIAG_COL")) {
+	    format = "LOWER_DIAG_ROW";
+	} else if (format.equals("LOWER_DIAG_COL")) {
+	    format = "UPPER_DIAG_ROW";
+	}
+	weights = new double[n][n];
+	// the weights begin on the next line
+	line = null;
+	for (int i = 0; i < n; i++) {
+	    int from, to;
+	    if (format.equals("FULL_MATRIX")) {
+		from = 0;
+		to = n;
+	    } else if (format.equals("UPPER_ROW")) {
+		from = i + 1;
+		to = n;
+	    } else if (format.equals("UPPER_DIAG_ROW")) {
+		from = i;
+		to = n;
+	    } else if (format.equals("LOWER_ROW")) {
+		from = 0;
+		to = i;
+	    } else if (format.equals("LOWER_DIAG_ROW")) {
+		from = 0;
+		to = i + 1;
+	    } else {
+		throw error("Unsupported EDGE_WEIGHT_FORMAT " + weightFormat
+			+ ".");
+	    }
+	    for (int j = from; j < to; j++) {
+		double weight = parseDouble(nextToken());
+		weights[i][j] = weight;
+		if (!format.equals("FULL_MATRIX")) {
+		    weights[j][i] = weight;
+		}
+	    }
+	    weights[i][i] = 0;
+	}
+	line = null;
+    }
+
+    /**
+     * @return cities of the map read
+     * @throws IllegalArgumentException
+     *             if the map is not complete
+     */
+    protected City[] createCities() throws IllegalArgumentException {
+	if (type != null && !type.startsWith("TSP")) {
+	    throw error("Unsupported TYPE " + type
+		    + ", only symmetric TSP maps are supported.");
+	}
+	int n = getDimension();
+	WeightType weight;
+	try {
+	    weight = WeightType.valueOf(weightType == null ? "" : weightType);
+	} catch (IllegalArgumentException e) {
+	    throw error("Unsupported EDGE_WEIGHT_TYPE " + weightType + ".");
+	}
+	if (weight == WeightType.EXPLICIT) {
+	    if (weights == null) {
+		throw error("EDGE_WEIGHT_SECTION is missing.");
+	    }
+	    if (x == null) {
+		// display the cities on the circle
+		x = new double[n];
+		y = new double[n];
+		for (int i = 0; i < n; i++) {
+		    x[i] = 1000 * Math.cos(2 * Math.PI * i / n);
+		    y[i] = 1000 * Math.sin(2 * Math.PI * i / n);
+		}
+	    }
+	} else if (x == null) {
+	    throw error("NODE_COORD_SECTION is missing.");
+	}
+
+	// the display coordinates are integers, the small coordinates are
+	// scaled up
+	double max = 0;
+	for (int i = 0; i < n; i++) {
+	    max = Math.max(max, Math.max(Math.abs(x[i]), Math.abs(y[i])));
+	}
+	double scale = 1;
+	while (max * scale * 10 <= 1e6 && scale < 1e4) {
+	    scale *= 10;
+	}
+
+	City cities[] = new City[n];
+	for (int i = 0; i < n; i++) {
+	    // GEO coordinates are latitude and longitude
+	    double displayX = weight == WeightType.GEO ? y[i] : x[i];
+	    double displayY = weight == WeightType.GEO ? x[i] : y[i];
+	    cities[i] = new TSPLIBCity(i, configuration, Integer.toString(i + 1),
+		    (int) Math.round(displayX * scale),
+		    (int) Math.round(displayY * scale), weight, x[i], y[i],
+		    weights);
+	}
+	return cities;
+    }
+
+    /**
+     * @return name of the map, null if not known
+     */
+    public String getName() {
+	return name;
+    }
+
+    /**
+     * @param value
+     * @return the integer
+     * @throws IllegalArgumentException
+     *             if the value is not integer
+     */
+    protected int parseInt(String value) throws IllegalArgumentException {
+	try {
+	    return Integer.parseInt(value.trim());
+	} catch (NumberFormatException | NullPointerException e) {
+	    throw error("Invalid integer " + value + ".");
+	}
+    }
+
+    /**
+     * @param value
+     * @return the number
+     * @throws IllegalArgumentException
+     *             if the value is not a number
+     */
+    protected double parseDouble(String value) throws IllegalArgumentException {
+	try {
+	    return Double.parseDouble(value);
+	} catch (NumberFormatException e) {
+	    throw error("Invalid number " + value + ".");
+	}
+    }
+
+    /**
+     * @param message
+     * @return exception with the line number
+     */
+    protected IllegalArgumentException error(String message) {
+	return new IllegalArgumentException("line " + lineNumber + ": "
+		+ message);
+    }
+}
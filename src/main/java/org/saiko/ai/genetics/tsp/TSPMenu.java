@@ -15,11 +15,9 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.InputStream;
-import java.io.PrintWriter;
 import java.text.DecimalFormat;
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
-import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.zip.ZipEntry;
@@ -33,6 +31,7 @@ import javax.swing.JMenuBar;
 import javax.swing.JMenuItem;
 import javax.swing.JOptionPane;
 import javax.swing.JRadioButtonMenuItem;
+import javax.swing.SwingUtilities;
 import javax.swing.filechooser.FileFilter;
 import javax.xml.parsers.DocumentBuilderFactory;
 
@@ -101,6 +100,10 @@ public class TSPMenu {
    protected final JMenuItem menuItemMaxBestAge=new JAntialiasedMenuItem();
    /** menu item **/
    protected final JCheckBoxMenuItem menuItemRMS=new JAntialiasedCheckBoxMenuItem();
+   /** menu item **/
+   protected final JCheckBoxMenuItem menuItemPolish=new JAntialiasedCheckBoxMenuItem();
+   /** menu item **/
+   protected final JCheckBoxMenuItem menuItemAdaptive=new JAntialiasedCheckBoxMenuItem();
 
    
    /** menu PRIORITY **/
@@ -171,8 +174,10 @@ public class TSPMenu {
          menuSettings.add(menuItemPopulationGrow);
          menuSettings.add(menuItemMutationRatio);
          menuSettings.add(menuItemMaxBestAge);
+         menuSettings.add(menuItemAdaptive);
          menuSettings.addSeparator();
          menuSettings.add(menuItemRMS);
+         menuSettings.add(menuItemPolish);
          
          setMenuSettingsActionListeners();
       }
@@ -242,6 +247,10 @@ public class TSPMenu {
          menuItemMutationRatio.setText(alignText("Mutation ratio:",parent.configuration.getMutationRatio()));
          menuItemMaxBestAge.setText(alignText("Max best age:",parent.configuration.getMaxBestCostAge()));
          menuItemRMS.setText("RMS cost");       
+         menuItemPolish.setText("Polish final tour");
+         menuItemPolish.setSelected(parent.configuration.isPolish());
+         menuItemAdaptive.setText("Adaptive mutation and population");
+         menuItemAdaptive.setSelected(parent.configuration.isAdaptive());
       }
 
       menuPriority.setText("Priority");
@@ -409,7 +418,20 @@ public class TSPMenu {
                new Runnable() {
                   @Override
 		public void run() {
-                     parent.run();
+                     try {
+                        parent.run();
+                     } catch(final RuntimeException ex) {
+                        //the computation failed, the application keeps running
+                        ex.printStackTrace();
+                        SwingUtilities.invokeLater(new Runnable() {
+                           @Override
+                           public void run() {
+                              parent.gui.statusBar.setText("Failed; "+ex);
+                              resetMenu();
+                              JOptionPane.showMessageDialog(parent.gui,"The computation failed: \n"+ex,"Error",JOptionPane.WARNING_MESSAGE);
+                           }
+                        });
+                     }
                   }
                }
          );
@@ -942,6 +964,20 @@ public class TSPMenu {
             }
          }
       });
+      menuItemPolish.addActionListener(new ActionListener() {
+
+         @Override
+	public void actionPerformed(ActionEvent e) {
+            parent.configuration.setPolish(menuItemPolish.isSelected());
+         }
+      });
+      menuItemAdaptive.addActionListener(new ActionListener() {
+
+         @Override
+	public void actionPerformed(ActionEvent e) {
+            parent.configuration.setAdaptive(menuItemAdaptive.isSelected());
+         }
+      });
    }
 
    /**
@@ -1051,90 +1087,61 @@ public class TSPMenu {
             }
         }
 
-        try (PrintWriter report = new PrintWriter(fileXML.getAbsolutePath(),"UTF-8"))
-        {
-            
-            report.println("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
-            report.println();
-            
-            report.println("<tsp-report>");
-            
-            report.println(" <results>");
-            Map<String,String> params=Report.getResultInfo(parent);
-            Iterator<String> keys=params.keySet().iterator();
-            while(keys.hasNext()) {
-               String key=keys.next();
-               report.println("  <result name=\""+key+"\" value=\""+params.get(key)+"\"/>");
-            }
-            report.println(" </results>");
-            
-            report.println(" <system-info>");
-            Map<String,String> info=Report.getSystemProperties();
-            keys=info.keySet().iterator();
-            while(keys.hasNext()) {
-               String key=keys.next();
-               report.println("  <info name=\""+key+"\" value=\""+info.get(key)+"\"/>");
-            }
-            report.println(" </system-info>");
-            
-            //reorder cities so the list starts and ends with the start city
-            City cities[]=parent.cities;
-            if(parent.bestChromosome!=null) {
-               cities=parent.bestChromosome.cities;
-            }
-            City cities2[]=new City[cities.length+1];
-            
-            int i;
-            int iStart=0;
-            //start cities from starting city
-            for(i=0; i<cities.length; i++) {
-               if(cities[i].startCity) {
-                  iStart=i;
-                  break;
-               }
-            }
-            
-            i=0;
-            while(i<cities.length) {
-               cities2[i]=cities[iStart];
-               iStart++;
-               i++;
-               if(iStart>=cities.length) 
-                  iStart=0;
-            }
-    
-            //add the start city again at the end
-            cities2[cities.length]=cities2[0];
-            
-            report.println(" <path>");
-            for(City city:cities2) {
-               report.println(" <city name=\""+city.name+"\" x=\""+city.SJTSKX+"\" y=\""+city.SJTSKY+"\"/>");
-            }
-            report.println(" </path>");
-            
-            report.print("</tsp-report>");
-        }
-        
-        if(!parent.configuration.console) {
-            JOptionPane.showMessageDialog(parent.gui,"OK, report created to the file: \n"+fileXML,"Info",JOptionPane.INFORMATION_MESSAGE);
-
-            //open the report file
-            //only at windows workstations
-            try {
-               Runtime.getRuntime().exec(new String[]{"cmd.exe","/c",fileXML.getAbsolutePath()});
-            } catch(Throwable ex2) {
-               try {
-                  Runtime.getRuntime().exec(new String[]{"cmd.exe","/c","start",fileXML.getAbsolutePath()});
-               } catch(Throwable ex3) {
-                  // nop
-               }
-            }
+        //the report data are taken here, the file is written in the background
+        //in the GUI mode
+        final XMLReport report=new XMLReport(parent);
+        if(parent.configuration.console) {
+           report.write(fileXML);
+        } else {
+           final File file=fileXML;
+           TSPExecutors.getIOExecutor().execute(new Runnable() {
+              @Override
+              public void run() {
+                 try {
+                    report.write(file);
+                    SwingUtilities.invokeLater(new Runnable() {
+                       @Override
+                       public void run() {
+                          xmlReportCreated(file);
+                       }
+                    });
+                 } catch(Throwable ex) {
+                    ex.printStackTrace();
+                    SwingUtilities.invokeLater(new Runnable() {
+                       @Override
+                       public void run() {
+                          JOptionPane.showMessageDialog(parent.gui,"Can not create XML report.","Error",JOptionPane.WARNING_MESSAGE);
+                       }
+                    });
+                 }
+              }
+           });
         }
      } catch(Throwable ex) {
         ex.printStackTrace();
-        JOptionPane.showMessageDialog(parent.gui,"Can not create pdf report.","Error",JOptionPane.WARNING_MESSAGE);
+        JOptionPane.showMessageDialog(parent.gui,"Can not create XML report.","Error",JOptionPane.WARNING_MESSAGE);
      }    
    }
+
+   /**
+    * Informs about the XML report and opens it
+    * @param fileXML - the report
+    */
+   protected void xmlReportCreated(File fileXML) {
+      JOptionPane.showMessageDialog(parent.gui,"OK, report created to the file: \n"+fileXML,"Info",JOptionPane.INFORMATION_MESSAGE);
+
+      //open the report file
+      //only at windows workstations
+      try {
+         Runtime.getRuntime().exec(new String[]{"cmd.exe","/c",fileXML.getAbsolutePath()});
+      } catch(Throwable ex2) {
+         try {
+            Runtime.getRuntime().exec(new String[]{"cmd.exe","/c","start",fileXML.getAbsolutePath()});
+         } catch(Throwable ex3) {
+            // nop
+         }
+      }
+   }
    
   
 
@@ -1302,7 +1309,7 @@ public class TSPMenu {
 	            	tsp2.cities[i]=path[i];
 	            	tsp2.cities[i].configuration=tsp2.configuration;
 	            }
-	            //initialize the cities - do not initialize the cache (cache is static)
+	            //initialize the cities - do not initialize the cache (cities keep the cache of the map)
 	            tsp2.loadCities(tsp2.cities,false); 
 
 	            //loadcities recomputes x and y, so reset the path
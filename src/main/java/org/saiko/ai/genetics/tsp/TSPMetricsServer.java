@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Locale;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ *         Metrics endpoint of the running computation. The HTTP server of
+ *         the JDK answers GET /metrics by the current state of the
+ *         computation in the Prometheus text format - the generation, the
+ *         evaluations and their rate, the best distance and cost, the time
+ *         since the last improvement, the lower bound, the diversity, the
+ *         used heap, the counts of the operations and the times of the
+ *         phases of the generations. The requests are handled by the shared
+ *         IO executor.
+ *
+ *         The server is started by --metrics=PORT in console mode, so the
+ *         long computations can be watched without reading their output.
+ *
+ *         The values are read without synchronization from the running
+ *         computation, one request may see values of two generations.
+ *
+ * @see TSPTimedEngine
+ * @see TSPExecutors#getIOExecutor()
+ */
+public class TSPMetricsServer {
+
+    /**
+     * computation to report
+     */
+    protected final TSP tsp;
+
+    /**
+     * the HTTP server
+     */
+    protected final HttpServer server;
+
+    /**
+     * Starts the server
+     *
+     * @param tsp
+     *            computation to report
+     * @param port
+     *            port to listen on, 0 for any free port
+     * @throws IOException
+     *             if the port can not be bound
+     */
+    public TSPMetricsServer(TSP tsp, int port) throws IOException {
+	this.tsp = tsp;
+	server = HttpServer.create(new InetSocketAddress(port), 0);
+	server.createContext("/metrics", new HttpHandler() {
+	    @Override
+	    public void handle(HttpExchange exchange) throws IOException {
+		try {
+		    byte body[] = getMetrics().getBytes("UTF-8");
+		    exchange.getResponseHeaders().set("Content-Type",
+			    "text/plain; version=0.0.4; charset=utf-8");
+		    exchange.sendResponseHeaders(200, body.length);
+		    try (OutputStream out = exchange.getResponseBody()) {
+			out.write(body);
+		    }
+		} finally {
+		    exchange.close();
+		}
+	    }
+	});
+	server.setExecutor(TSPExecutors.getIOExecutor());
+	server.start();
+    }
+
+    /**
+     * @return port the server listens on
+     */
+    public int getPort() {
+	return server.getAddress().getPort();
+    }
+
+    /**
+     * Stops the server
+     */
+    public void stop() {
+	server.stop(0);
+    }
+
+    /**
+     * @return current metrics of the computation in the Prometheus text
+     *         format
+     */
+    public String getMetrics() {
+	StringBuilder text = new StringBuilder();
+	TSPEngine engine = tsp.engine;
+	append(text, "tsp_generation", "counter",
+		"generations computed", tsp.generation);
+	append(text, "tsp_evaluations", "counter",
+		"population sizes summed over the generations",
+		tsp.evaluations);
+	append(text, "tsp_run_seconds", "gauge", "time of the computation",
+		tsp.runTime / 1000.0);
+	if (engine != null) {
+	    append(text, "tsp_population", "gauge",
+		    "current population size", engine.getPopulationSize());
+	}
+	TSPThroughput throughput = tsp.throughput;
+	if (throughput != null) {
+	    append(text, "tsp_evaluations_per_second", "gauge",
+		    "evaluated tours per second since the start",
+		    throughput.getRate(TSPThroughput.Counter.EVALUATIONS));
+	}
+	append(text, "tsp_best_distance", "gauge",
+		"distance of the best tour", tsp.bestCost);
+	TSPChromosome best = tsp.bestChromosome;
+	if (best != null) {
+	    append(text, "tsp_best_cost", "gauge", "cost of the best tour",
+		    best.getTotalCost());
+	}
+	append(text, "tsp_best_age", "gauge",
+		"generations since the best distance changed",
+		tsp.bestCostAge);
+	// the run time is updated once per generation, so the running
+	// computation is measured by the clock
+	long time = tsp.startedFlag ? System.currentTimeMillis() : tsp.startTime
+		+ tsp.runTime;
+	append(text, "tsp_seconds_since_improvement", "gauge",
+		"time since the best distance changed",
+		Math.max(0, time - tsp.bestCostTime) / 1000.0);
+	append(text, "tsp_lower_bound", "gauge",
+		"Held-Karp lower bound of the distance, 0 if not known",
+		tsp.lowerBound);
+	TSPDiversity diversity = tsp.diversity;
+	if (diversity != null) {
+	    append(text, "tsp_unique_tours", "gauge",
+		    "number of different tours in the population",
+		    diversity.getUniqueTours());
+	    append(text, "tsp_edge_distance", "gauge",
+		    "average ratio of different edges of two tours",
+		    diversity.getEdgeDistance());
+	    append(text, "tsp_edge_entropy", "gauge",
+		    "normalized entropy of the edges of the population",
+		    diversity.getEdgeEntropy());
+	}
+	Runtime runtime = Runtime.getRuntime();
+	append(text, "tsp_heap_used_bytes", "gauge", "used heap memory",
+		runtime.totalMemory() - runtime.freeMemory());
+	append(text, "tsp_heap_max_bytes", "gauge", "maximal heap memory",
+		runtime.maxMemory());
+	if (throughput != null) {
+	    text.append("# HELP tsp_operations_total operations of the computation, see TSPThroughput\n");
+	    text.append("# TYPE tsp_operations_total counter\n");
+	    for (TSPThroughput.Counter counter : TSPThroughput.Counter
+		    .values()) {
+		text.append(String.format(Locale.US,
+			"tsp_operations_total{operation=\"%s\"} %d\n",
+			counter.getLabel().replace(' ', '_'),
+			throughput.getCount(counter)));
+	    }
+	}
+	if (engine instanceof TSPTimedEngine) {
+	    GenerationTimer timer = ((TSPTimedEngine) engine)
+		    .getGenerationTimer();
+	    text.append("# HELP tsp_phase_seconds_total time of the phases of the generations summed over the threads\n");
+	    text.append("# TYPE tsp_phase_seconds_total counter\n");
+	    for (GenerationTimer.Phase phase : GenerationTimer.Phase.values()) {
+		text.append(String.format(Locale.US,
+			"tsp_phase_seconds_total{phase=\"%s\"} %s\n",
+			phase.getLabel().replace(' ', '_'),
+			timer.getNanos(phase) / 1e9));
+	    }
+	}
+	return text.toString();
+    }
+
+    /**
+     * Appends one metric
+     *
+     * @param text
+     * @param name
+     * @param type
+     *            counter or gauge
+     * @param help
+     * @param value
+     */
+    protected static void append(StringBuilder text, String name,
+	    String type, String help, double value) {
+	text.append("# HELP ").append(name).append(' ').append(help)
+		.append('\n');
+	text.append("# TYPE ").append(name).append(' ').append(type)
+		.append('\n');
+	text.append(name).append(' ')
+		.append(value == Math.rint(value) && !Double.isInfinite(value)
+			? Long.toString((long) value) : Double.toString(value))
+		.append('\n');
+    }
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp;
+
+import java.util.List;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ * Engine which is able to exchange chromosomes with other engines.
+ * Used as the island kernel of the island model, where each island
+ * evolves its own population and only the best chromosomes migrate
+ * between islands from time to time.
+ *
+ * @see org.saiko.ai.genetics.tsp.engines.island.IslandModelEngine
+ */
+public interface TSPMigratingEngine extends TSPEngine {
+
+   /**
+    * @param count - number of chromosomes to emigrate
+    * @return copies of the best chromosomes of the population
+    */
+   public List<TSPChromosome> emigrate(int count);
+
+   /**
+    * Adds chromosomes from other population into this population.
+    * The population size is not changed by immigration, the worst
+    * chromosomes are removed.
+    * @param immigrants
+    */
+   public void immigrate(List<TSPChromosome> immigrants);
+}
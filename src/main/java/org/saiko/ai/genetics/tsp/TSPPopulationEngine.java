@@ -0,0 +1,24 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp;
+
+import java.util.List;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ * Engine which keeps the population of chromosomes between generations.
+ * The population is read by the computation between two generations,
+ * e.g. to measure its diversity.
+ *
+ * @see DiversityMeter
+ */
+public interface TSPPopulationEngine extends TSPEngine {
+
+   /**
+    * @return copy of the list of chromosomes of the current population,
+    * the chromosomes are not modified
+    */
+   public List<TSPChromosome> getPopulation();
+}
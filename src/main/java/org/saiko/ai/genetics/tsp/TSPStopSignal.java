@@ -0,0 +1,35 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ * Cooperative stop of the computation inside of a generation. The signal
+ * is raised when the stop is requested or when the time budget is used up,
+ * the engines check it in their inner loops.
+ *
+ * @see TSPStoppableEngine
+ * @see TSP#setTimeBudget(long)
+ */
+public interface TSPStopSignal {
+
+   /**
+    * signal which is never raised, used by the engines until they get
+    * the signal of the computation
+    */
+   public static final TSPStopSignal NEVER=new TSPStopSignal() {
+      @Override
+      public boolean isStopRequested() {
+         return false;
+      }
+   };
+
+   /**
+    * Called often from any thread, so it has to be cheap.
+    * @return true if the engine should end the generation as soon as
+    * possible, keeping its best chromosome
+    */
+   public boolean isStopRequested();
+}
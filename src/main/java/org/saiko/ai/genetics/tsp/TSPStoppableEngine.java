@@ -0,0 +1,23 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ * Engine which can end a generation early. The engine checks the stop
+ * signal in its inner loops and returns from nextGeneration() with the
+ * work done so far, so the computation does not overrun the time budget
+ * or the stop request by a whole generation.
+ *
+ * @see TSPStopSignal
+ */
+public interface TSPStoppableEngine extends TSPEngine {
+
+   /**
+    * Called before the engine is initialized.
+    * @param signal - the stop signal of the computation
+    */
+   public void setStopSignal(TSPStopSignal signal);
+}
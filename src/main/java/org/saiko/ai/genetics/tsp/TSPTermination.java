@@ -0,0 +1,32 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ * Termination policy - decides when the computation should stop.
+ * The policy is asked after each generation, so the computation stops
+ * between two generations. Only the time budget can end a generation
+ * early, see TSP#setTimeBudget(long).
+ *
+ * @see org.saiko.ai.genetics.tsp.termination.AnyTermination
+ * @see TSP#createTermination()
+ */
+public interface TSPTermination {
+
+   /**
+    * Called when the computation starts, resets the state of the policy.
+    * @param tsp - the application
+    */
+   public void start(TSP tsp);
+
+   /**
+    * @param tsp - the application with the state of computation after the generation
+    * @return true if the computation should stop
+    * @see TSP#getGeneration()
+    * @see TSP#getBestCost()
+    */
+   public boolean isFinished(TSP tsp);
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ *         Throughput of the computation - the work done per second, which
+ *         does not depend on the amount of work in one generation of the
+ *         engine. Each computation has its own instance, see
+ *         TSPConfiguration.getThroughput(), the operations are counted by
+ *         LongAdder counters:
+ *
+ *         evaluations - costs of the tours computed by TSPChromosome and
+ *         the tours built by the ants
+ *
+ *         moves tried, moves applied - moves of the local searches (2opt of
+ *         the genetic engines, 2opt and Or-opt of TourPolisher) and of the
+ *         annealing chains
+ *
+ *         crossovers - greedy crossovers of two parents
+ *
+ *         distance lookups - the distances read by the counted evaluations
+ *         and moves. The hot lookups are not counted one by one, each tour
+ *         and each pass of moves adds the number of its lookups, so the
+ *         lookups of the other algorithms (e.g. the exact engines) are not
+ *         included.
+ *
+ *         The counts and rates are the work done since the creation of the
+ *         instance. The computations running in parallel in one process,
+ *         e.g. in batch, are counted separately.
+ *
+ * @see TSPConfiguration#getThroughput()
+ */
+public class TSPThroughput {
+
+    /**
+     * Counted operations
+     */
+    public enum Counter {
+	/** cost of the tour computed */
+	EVALUATIONS("evaluations"),
+	/** local search or annealing move tried */
+	MOVES_TRIED("moves tried"),
+	/** local search or annealing move applied */
+	MOVES_APPLIED("moves applied"),
+	/** crossover of two parents */
+	CROSSOVERS("crossovers"),
+	/** distance of two cities read */
+	DISTANCE_LOOKUPS("distance lookups");
+
+	/** name of the counter for the reports */
+	private final String label;
+
+	/**
+	 * @param label
+	 */
+	private Counter(String label) {
+	    this.label = label;
+	}
+
+	/**
+	 * @return name of the counter for the reports
+	 */
+	public String getLabel() {
+	    return label;
+	}
+    }
+
+    /**
+     * the counters of the computation, indexed by Counter ordinal
+     */
+    protected final LongAdder counters[];
+
+    /**
+     * System.nanoTime() at the creation
+     */
+    protected final long startNanos;
+
+    /**
+     * Starts counting the throughput of one computation
+     */
+    public TSPThroughput() {
+	counters = new LongAdder[Counter.values().length];
+	for (int i = 0; i < counters.length; i++) {
+	    counters[i] = new LongAdder();
+	}
+	startNanos = System.nanoTime();
+    }
+
+    /**
+     * @param cities
+     *            - cities of the computation
+     * @return throughput of the computation which the cities belong to,
+     *         null if the computation is not counted
+     * @see TSPConfiguration#getThroughput()
+     */
+    public static TSPThroughput of(City cities[]) {
+	if (cities.length == 0 || cities[0].configuration == null) {
+	    return null;
+	}
+	return cities[0].configuration.getThroughput();
+    }
+
+    /**
+     * Counts the operations
+     *
+     * @param counter
+     * @param count
+     *            number of the operations
+     */
+    public void count(Counter counter, long count) {
+	counters[counter.ordinal()].add(count);
+    }
+
+    /**
+     * Counts one evaluation of tour
+     *
+     * @param lookups
+     *            number of the distances read by the evaluation
+     */
+    public void countEvaluation(long lookups) {
+	counters[Counter.EVALUATIONS.ordinal()].increment();
+	counters[Counter.DISTANCE_LOOKUPS.ordinal()].add(lookups);
+    }
+
+    /**
+     * Counts the 2opt moves, or other moves reading about 4 distances each
+     *
+     * @param tried
+     *            number of the moves tried, each reads 4 distances
+     * @param applied
+     *            number of the moves applied
+     */
+    public void countMoves(long tried, long applied) {
+	countMoves(tried, applied, 4 * tried);
+    }
+
+    /**
+     * Counts the local search moves
+     *
+     * @param tried
+     *            number of the moves tried
+     * @param applied
+     *            number of the moves applied
+     * @param lookups
+     *            number of the distances read by the tried moves
+     */
+    public void countMoves(long tried, long applied, long lookups) {
+	counters[Counter.MOVES_TRIED.ordinal()].add(tried);
+	counters[Counter.MOVES_APPLIED.ordinal()].add(applied);
+	counters[Counter.DISTANCE_LOOKUPS.ordinal()].add(lookups);
+    }
+
+    /**
+     * @param counter
+     * @return count of the operations since the creation
+     */
+    public long getCount(Counter counter) {
+	return counters[counter.ordinal()].sum();
+    }
+
+    /**
+     * @param counter
+     * @return operations per second since the creation
+     */
+    public double getRate(Counter counter) {
+	long nanos = System.nanoTime() - startNanos;
+	return nanos > 0 ? getCount(counter) * 1e9 / nanos : 0;
+    }
+
+    /**
+     * @return rates in the form "rates/s: evaluations 1234, 2opt tried
+     *         ...;"
+     */
+    @Override
+    public String toString() {
+	StringBuilder text = new StringBuilder("rates/s:");
+	for (Counter counter : Counter.values()) {
+	    text.append(counter.ordinal() == 0 ? " " : ", ")
+		    .append(counter.getLabel()).append(' ')
+		    .append(Math.round(getRate(counter)));
+	}
+	return text.append(';').toString();
+    }
+}
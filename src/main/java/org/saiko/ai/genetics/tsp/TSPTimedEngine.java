@@ -0,0 +1,22 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ * Engine which measures the time of the phases of its generations.
+ * The times are shown in the status line, in the report and by the
+ * metrics endpoint.
+ *
+ * @see GenerationTimer
+ * @see TSPMetricsServer
+ */
+public interface TSPTimedEngine extends TSPEngine {
+
+   /**
+    * @return times of the phases of the generations computed so far
+    */
+   public GenerationTimer getGenerationTimer();
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ * New best tour found by the computation. The event is immutable,
+ * the tour is the copy of the city ids of the best chromosome - ids are the
+ * indexes of the cities in the map. The diversity of the population is known
+ * for the engines which keep their population.
+ *
+ * @see TSPTourListener
+ */
+public class TSPTourEvent {
+
+   /**
+    * generation in which the tour was found
+    */
+   protected final int generation;
+
+   /**
+    * nanoseconds since the start of the computation
+    */
+   protected final long elapsedNanos;
+
+   /**
+    * distance of the tour
+    */
+   protected final double cost;
+
+   /**
+    * city ids in the order of the tour
+    */
+   protected final int tour[];
+
+   /**
+    * diversity of the population, null if not measured
+    */
+   protected final TSPDiversity diversity;
+
+   /**
+    * @param generation - generation in which the tour was found
+    * @param elapsedNanos - nanoseconds since the start of the computation
+    * @param chromosome - the best chromosome
+    */
+   public TSPTourEvent(int generation, long elapsedNanos, TSPChromosome chromosome) {
+      this(generation, elapsedNanos, chromosome, null);
+   }
+
+   /**
+    * @param generation - generation in which the tour was found
+    * @param elapsedNanos - nanoseconds since the start of the computation
+    * @param chromosome - the best chromosome
+    * @param diversity - diversity of the population, or null
+    */
+   public TSPTourEvent(int generation, long elapsedNanos, TSPChromosome chromosome, TSPDiversity diversity) {
+      this.generation=generation;
+      this.diversity=diversity;
+      this.elapsedNanos=elapsedNanos;
+      this.cost=chromosome.getTotalDistance();
+      City cities[]=chromosome.getCities();
+      tour=new int[cities.length];
+      for(int i=0; i<cities.length; i++) {
+         tour[i]=cities[i].getId();
+      }
+   }
+
+   /**
+    * @return generation in which the tour was found
+    */
+   public int getGeneration() {
+      return generation;
+   }
+
+   /**
+    * @return nanoseconds since the start of the computation
+    */
+   public long getElapsedNanos() {
+      return elapsedNanos;
+   }
+
+   /**
+    * @return distance of the tour
+    */
+   public double getCost() {
+      return cost;
+   }
+
+   /**
+    * @return city ids in the order of the tour, do not modify
+    */
+   public int[] getTour() {
+      return tour;
+   }
+
+   /**
+    * @return diversity of the population in the generation, null if the engine
+    * has no population or the diversity is not measured
+    */
+   public TSPDiversity getDiversity() {
+      return diversity;
+   }
+}
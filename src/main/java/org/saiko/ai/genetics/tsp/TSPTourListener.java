@@ -0,0 +1,28 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ * Listener of the new best tours found during the computation.
+ * The listeners are called asynchronously from the thread of the tour stream,
+ * never from the thread of the engine.
+ *
+ * @see TSP#addTourListener(TSPTourListener)
+ * @see TSPTourStream
+ */
+public interface TSPTourListener {
+
+   /**
+    * Called for each new best tour
+    * @param event - the tour and the state of computation
+    */
+   public void bestTourFound(TSPTourEvent event);
+
+   /**
+    * Called after the last event of the computation
+    */
+   public void computationFinished();
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ *         Asynchronous delivery of the best tours to the listeners. The engine
+ *         thread only puts the event into the bounded queue and continues, the
+ *         listeners are called by one task of the I/O executor in the order of
+ *         the events. If the listeners are too slow and the queue is full, the
+ *         oldest event is dropped - the newest best tour is the one which
+ *         matters.
+ *
+ * @see TSPTourListener
+ * @see TSPExecutors#getIOExecutor()
+ */
+public class TSPTourStream {
+
+    /**
+     * capacity of the queue
+     */
+    protected static final int CAPACITY = 1024;
+
+    /**
+     * events waiting for the listeners
+     */
+    protected final BlockingQueue<Object> queue = new ArrayBlockingQueue<>(
+	    CAPACITY);
+
+    /**
+     * marks the end of the stream in the queue
+     */
+    protected static final Object END_MARK = new Object();
+
+    /**
+     * the listeners
+     */
+    protected final List<TSPTourListener> listeners;
+
+    /**
+     * the task delivering the events
+     */
+    protected final Future<?> task;
+
+    /**
+     * number of events dropped because of full queue
+     */
+    protected volatile int dropped;
+
+    /**
+     * Starts the delivery task
+     *
+     * @param listeners
+     */
+    public TSPTourStream(List<TSPTourListener> listeners) {
+	this.listeners = new CopyOnWriteArrayList<>(listeners);
+	task = TSPExecutors.getIOExecutor().submit(new Runnable() {
+	    @Override
+	    public void run() {
+		deliver();
+	    }
+	});
+    }
+
+    /**
+     * Puts the event into the queue, never blocks
+     *
+     * @param event
+     */
+    public void publish(TSPTourEvent event) {
+	put(event);
+    }
+
+    /**
+     * @param item
+     *            event or the end mark, the oldest event is dropped if the
+     *            queue is full
+     */
+    protected void put(Object item) {
+	while (!queue.offer(item)) {
+	    if (queue.poll() != null) {
+		dropped++;
+	    }
+	}
+    }
+
+    /**
+     * Ends the stream and waits until the listeners get all the events
+     */
+    public void close() {
+	put(END_MARK);
+	try {
+	    task.get();
+	} catch (InterruptedException e) {
+	    Thread.currentThread().interrupt();
+	} catch (ExecutionException e) {
+	    e.getCause().printStackTrace();
+	}
+    }
+
+    /**
+     * @return number of events dropped because of full queue
+     */
+    public int getDropped() {
+	return dropped;
+    }
+
+    /**
+     * Calls the listeners until the end of stream
+     */
+    protected void deliver() {
+	try {
+	    for (;;) {
+		Object item = queue.take();
+		if (item == END_MARK) {
+		    break;
+		}
+		for (TSPTourListener listener : listeners) {
+		    try {
+			listener.bestTourFound((TSPTourEvent) item);
+		    } catch (RuntimeException e) {
+			// one failing listener does not stop the others
+			e.printStackTrace();
+		    }
+		}
+	    }
+	} catch (InterruptedException e) {
+	    Thread.currentThread().interrupt();
+	}
+	for (TSPTourListener listener : listeners) {
+	    try {
+		listener.computationFinished();
+	    } catch (RuntimeException e) {
+		e.printStackTrace();
+	    }
+	}
+    }
+}
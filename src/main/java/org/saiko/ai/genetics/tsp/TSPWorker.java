@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ *         Worker of the multi process island model. The worker is the island -
+ *         it runs the selected engine in its own process and after every
+ *         migrationInterval generations it sends its best chromosomes to the
+ *         coordinator and gets the best chromosomes of other workers back.
+ *         The coordinator decides when the computation stops.
+ *
+ * @see TSPCoordinator
+ * @see TSPIslandProtocol
+ */
+public class TSPWorker {
+
+    /**
+     * connection to coordinator
+     */
+    protected Socket socket;
+
+    /**
+     * input stream from coordinator
+     */
+    protected DataInputStream in;
+
+    /**
+     * output stream to coordinator
+     */
+    protected DataOutputStream out;
+
+    /**
+     * cities of the map, indexed by city id
+     */
+    protected City cities[];
+
+    /**
+     * worker id assigned by the coordinator
+     */
+    protected int workerId;
+
+    /**
+     * the most tours in one message, set by the coordinator
+     */
+    protected int maxTours;
+
+    /**
+     * Connects to the coordinator
+     *
+     * @param host
+     * @param port
+     * @param cities
+     *            cities of the map, indexed by city id
+     * @throws IOException
+     *             if connection fails or the coordinator refused the worker
+     */
+    public TSPWorker(String host, int port, City cities[]) throws IOException {
+	this.cities = cities;
+	socket = new Socket(host, port);
+	socket.setTcpNoDelay(true);
+	in = new DataInputStream(new BufferedInputStream(
+		socket.getInputStream()));
+	out = new DataOutputStream(new BufferedOutputStream(
+		socket.getOutputStream()));
+
+	out.writeByte(TSPIslandProtocol.HELLO);
+	out.writeInt(TSPIslandProtocol.MAGIC);
+	out.writeInt(cities.length);
+	out.writeLong(TSPIslandProtocol.checksum(cities));
+	out.flush();
+
+	if (in.readByte() != TSPIslandProtocol.ACCEPT) {
+	    close();
+	    throw new IOException(
+		    "Coordinator refused the worker, is the same map used ?");
+	}
+	workerId = in.readInt();
+	maxTours = in.readInt();
+    }
+
+    /**
+     * @return worker id assigned by the coordinator
+     */
+    public int getWorkerId() {
+	return workerId;
+    }
+
+    /**
+     * Sends the best chromosomes of engine to coordinator and adds the
+     * received chromosomes of other workers into the engine population.
+     *
+     * @param engine
+     * @param generation
+     *            current generation of the engine
+     * @param evaluations
+     *            number of evaluations of the worker
+     * @param count
+     *            number of chromosomes to send, at most the number accepted by
+     *            the coordinator
+     * @return false if the coordinator requires stop of the computation
+     * @throws IOException
+     */
+    public boolean exchange(TSPMigratingEngine engine, int generation,
+	    long evaluations, int count) throws IOException {
+	List<int[]> tours = new ArrayList<>();
+	for (TSPChromosome chromosome : engine.emigrate(Math.min(count,
+		maxTours))) {
+	    tours.add(TSPIslandProtocol.toTour(chromosome));
+	}
+	out.writeByte(TSPIslandProtocol.ELITES);
+	out.writeInt(generation);
+	out.writeLong(evaluations);
+	TSPIslandProtocol.writeTours(out, tours, cities.length);
+	out.flush();
+
+	byte reply = in.readByte();
+	if (reply == TSPIslandProtocol.STOP) {
+	    return false;
+	}
+	if (reply != TSPIslandProtocol.MIGRANTS) {
+	    throw new IOException("Unexpected message: " + reply);
+	}
+	List<TSPChromosome> immigrants = new ArrayList<>();
+	for (int[] tour : TSPIslandProtocol.readTours(in, cities.length,
+		maxTours)) {
+	    immigrants.add(TSPIslandProtocol.toChromosome(tour, cities));
+	}
+	if (!immigrants.isEmpty()) {
+	    engine.immigrate(immigrants);
+	}
+	return true;
+    }
+
+    /**
+     * closes the connection to coordinator
+     */
+    public void close() {
+	try {
+	    socket.close();
+	} catch (IOException e) {
+	    // nop
+	}
+    }
+}
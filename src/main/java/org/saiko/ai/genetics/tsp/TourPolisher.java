@@ -0,0 +1,515 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp;
+
+import org.saiko.ai.genetics.tsp.jfr.FlightEvents;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ *         Local search applied to the best tour after the computation is
+ *         finished. The tour is improved by 2opt moves and by Or-opt moves,
+ *         which move a segment of one to three cities (Or-2opt and Or-3opt) to
+ *         other place of the tour, in the same or in the reversed order. The
+ *         search stops in the local optimum of both moves.
+ *
+ *         Only the moves creating an edge from the city to one of its
+ *         NEIGHBOURS nearest cities are tried, and only the cities next to the
+ *         changed edges are checked again (don't look bits), so the polishing
+ *         takes a fraction of the computation even for big maps.
+ *
+ *         The 2opt part is also the local search of the engines which keep
+ *         their tours as arrays of city ids with their own candidate lists,
+ *         see twoOpt(City[], int[], int[], int).
+ *
+ * @see org.saiko.ai.genetics.tsp.TSPConfiguration#isPolish()
+ * @see org.saiko.ai.genetics.tsp.engines.antColony.AntColonyEngine
+ */
+public class TourPolisher {
+
+    /**
+     * number of the nearest cities tried for each city
+     */
+    protected static final int NEIGHBOURS = 10;
+
+    /**
+     * maximal number of cities in the segment moved by Or-opt
+     */
+    protected static final int OR_OPT_LENGTH = 3;
+
+    /**
+     * gains smaller than this are rounding errors
+     */
+    protected static final double MIN_GAIN = 1e-7;
+
+    /**
+     * number of the checked cities between the checks of the stop signal,
+     * power of two
+     */
+    protected static final int STOP_CHECK_CITIES = 64;
+
+    /**
+     * cities of the tour being polished, the other arrays contain indexes to
+     * this array
+     */
+    protected final City cities[];
+
+    /**
+     * nearest cities of each city, neighbourCount values per city
+     */
+    protected final int neighbours[];
+
+    /**
+     * number of the neighbours of each city
+     */
+    protected final int neighbourCount;
+
+    /**
+     * the tour - city indexes in the order of visiting
+     */
+    protected final int tour[];
+
+    /**
+     * positions of the cities in the tour
+     */
+    protected final int position[];
+
+    /**
+     * cities which are not checked until a neighbour edge changes
+     */
+    protected final boolean dontLook[];
+
+    /**
+     * cities to be checked, circular queue
+     */
+    protected final int queue[];
+
+    /**
+     * the first city of the queue
+     */
+    protected int queueStart;
+
+    /**
+     * number of cities in the queue
+     */
+    protected int queueSize;
+
+    /**
+     * buffer for the moved segment
+     */
+    protected final int segment[] = new int[OR_OPT_LENGTH];
+
+    /**
+     * stop signal checked every STOP_CHECK_CITIES checked cities, the final
+     * polishing runs after the computation is stopped, so it is never
+     * stopped
+     */
+    protected TSPStopSignal stopSignal = TSPStopSignal.NEVER;
+
+    /**
+     * number of the moves tried and applied by run(), see TSPThroughput
+     */
+    protected long movesTried, movesApplied;
+
+    /**
+     * @param cities
+     *            - cities indexed by the values of the tour
+     * @param tour
+     *            - city indexes in the order of visiting, improved in place
+     * @param neighbours
+     *            - nearest cities of each city, neighbourCount indexes per
+     *            city, the nearest first
+     * @param neighbourCount
+     *            - number of the neighbours of each city
+     */
+    protected TourPolisher(City cities[], int tour[], int neighbours[],
+	    int neighbourCount) {
+	int n = tour.length;
+	this.cities = cities;
+	this.tour = tour;
+	this.neighbours = neighbours;
+	this.neighbourCount = neighbourCount;
+	position = new int[n];
+	dontLook = new boolean[n];
+	queue = new int[n];
+	for (int i = 0; i < n; i++) {
+	    position[tour[i]] = i;
+	    queue[i] = tour[i];
+	}
+	queueSize = n;
+    }
+
+    /**
+     * @param tour
+     *            the tour to be polished
+     */
+    protected TourPolisher(City tour[]) {
+	this(tour.clone(), identity(tour.length), neighbours(tour),
+		neighbourCount(tour.length));
+    }
+
+    /**
+     * @param n
+     * @return the tour 0, 1, ... n-1
+     */
+    protected static int[] identity(int n) {
+	int tour[] = new int[n];
+	for (int i = 0; i < n; i++) {
+	    tour[i] = i;
+	}
+	return tour;
+    }
+
+    /**
+     * @param n
+     *            - number of cities
+     * @return number of the neighbours of each city
+     */
+    protected static int neighbourCount(int n) {
+	return Math.max(1, Math.min(NEIGHBOURS, n - 1));
+    }
+
+    /**
+     * @param tour
+     * @return indexes of the nearest cities of each city of the tour,
+     *         neighbourCount(n) values per city
+     */
+    protected static int[] neighbours(City tour[]) {
+	int n = tour.length;
+	int neighbourCount = neighbourCount(n);
+	NearestCities nearest = NearestCities.of(tour, neighbourCount);
+	if (nearest != null) {
+	    int neighbours[] = new int[n * neighbourCount];
+	    // the lists precomputed with the map, translated from city ids to
+	    // indexes of this tour
+	    int index[] = new int[n];
+	    for (int i = 0; i < n; i++) {
+		index[tour[i].getId()] = i;
+	    }
+	    for (int i = 0; i < n; i++) {
+		for (int k = 0; k < neighbourCount; k++) {
+		    neighbours[i * neighbourCount + k] = index[nearest.get(
+			    tour[i].getId(), k)];
+		}
+	    }
+	    return neighbours;
+	}
+	// computed in the compute pool, the indexes of the cities of this tour
+	return NearestCities.compute(tour, neighbourCount).getIds();
+    }
+
+    /**
+     * Improves the tour by 2opt and Or-opt moves to local optimum
+     *
+     * @param tour
+     *            - the tour, improved in place
+     */
+    public static void polish(City tour[]) {
+	if (tour.length < 5) {
+	    return;
+	}
+	Object event = FlightEvents.beginLocalSearch();
+	TourPolisher polisher = new TourPolisher(tour);
+	polisher.run(true);
+	for (int i = 0; i < tour.length; i++) {
+	    tour[i] = polisher.cities[polisher.tour[i]];
+	}
+	FlightEvents.endLocalSearch(event, "polish", tour.length);
+    }
+
+    /**
+     * Improves the tour by 2opt moves to local optimum, for the engines which
+     * keep the tours as arrays of city ids with their own lists of the
+     * nearest cities
+     *
+     * @param cities
+     *            - cities indexed by the values of the tour
+     * @param tour
+     *            - city indexes in the order of visiting, improved in place
+     * @param neighbours
+     *            - nearest cities of each city, neighbourCount indexes per
+     *            city, the nearest first
+     * @param neighbourCount
+     *            - number of the neighbours of each city
+     * @param signal
+     *            - stop signal of the computation, the stopped search leaves
+     *            the tour improved only partly
+     */
+    public static void twoOpt(City cities[], int tour[], int neighbours[],
+	    int neighbourCount, TSPStopSignal signal) {
+	if (tour.length < 5) {
+	    return;
+	}
+	TourPolisher polisher = new TourPolisher(cities, tour, neighbours,
+		neighbourCount);
+	polisher.stopSignal = signal;
+	polisher.run(false);
+    }
+
+    /**
+     * Checks the cities from the queue until it is empty
+     *
+     * @param orOptMoves
+     *            - true if Or-opt moves are tried when no 2opt move improves
+     *            the city
+     */
+    protected void run(boolean orOptMoves) {
+	int n = tour.length;
+	for (int checked = 0; queueSize > 0; checked++) {
+	    if ((checked & (STOP_CHECK_CITIES - 1)) == 0
+		    && stopSignal.isStopRequested()) {
+		break;
+	    }
+	    int a = queue[queueStart];
+	    queueStart = (queueStart + 1) % n;
+	    queueSize--;
+	    dontLook[a] = true;
+	    if (!twoOpt(a) && orOptMoves) {
+		orOpt(a);
+	    }
+	}
+	TSPThroughput throughput = TSPThroughput.of(cities);
+	if (throughput != null) {
+	    throughput.countMoves(movesTried, movesApplied);
+	}
+    }
+
+    /**
+     * @param a
+     * @param b
+     * @return cost of the edge between two cities
+     */
+    protected double cost(int a, int b) {
+	return cities[a].cost(cities[b]);
+    }
+
+    /**
+     * @param position
+     * @return the city at the position, the position can overflow the tour by
+     *         one length in each direction
+     */
+    protected int at(int position) {
+	int n = tour.length;
+	return tour[(position + n) % n];
+    }
+
+    /**
+     * Puts the city back to the queue
+     *
+     * @param city
+     */
+    protected void push(int city) {
+	if (dontLook[city]) {
+	    dontLook[city] = false;
+	    queue[(queueStart + queueSize) % tour.length] = city;
+	    queueSize++;
+	}
+    }
+
+    /**
+     * Tries the 2opt moves replacing the edge from the city to its successor
+     * or predecessor by the edge to one of its neighbours
+     *
+     * @param a
+     * @return true if the tour was improved
+     */
+    protected boolean twoOpt(int a) {
+	int n = tour.length;
+	for (int direction = 1; direction >= -1; direction -= 2) {
+	    int i = position[a];
+	    int b = at(i + direction);
+	    double costAB = cost(a, b);
+	    int offset = a * neighbourCount;
+	    for (int k = 0; k < neighbourCount; k++) {
+		int c = neighbours[offset + k];
+		double costAC = cost(a, c);
+		if (costAC >= costAB) {
+		    break;
+		}
+		int j = position[c];
+		int d = at(j + direction);
+		if (c == b || d == a) {
+		    continue;
+		}
+		double gain = costAB + cost(c, d) - costAC - cost(b, d);
+		movesTried++;
+		if (gain > MIN_GAIN) {
+		    movesApplied++;
+		    if (direction == 1) {
+			// a b ... c d -> a c ... b d
+			reverse((i + 1) % n, j);
+		    } else {
+			// d c ... b a -> d b ... c a
+			reverse(j, (i + n - 1) % n);
+		    }
+		    push(a);
+		    push(b);
+		    push(c);
+		    push(d);
+		    return true;
+		}
+	    }
+	}
+	return false;
+    }
+
+    /**
+     * Tries to move the segment of one to three cities beginning or ending
+     * with the city next to one of its neighbours
+     *
+     * @param a
+     * @return true if the tour was improved
+     */
+    protected boolean orOpt(int a) {
+	int n = tour.length;
+	for (int length = 1; length <= OR_OPT_LENGTH && length + 3 <= n; length++) {
+	    for (int direction = 1; direction >= -1; direction -= 2) {
+		// segment first..last in the order of the tour, one end is a
+		int first = direction == 1 ? position[a] : position[a] - length
+			+ 1;
+		int last = first + length - 1;
+		int other = direction == 1 ? at(last) : at(first);
+		int p = at(first - 1);
+		int next = at(last + 1);
+		double removeGain = cost(p, at(first)) + cost(at(last), next)
+			- cost(p, next);
+		if (removeGain <= MIN_GAIN) {
+		    continue;
+		}
+		int offset = a * neighbourCount;
+		for (int k = 0; k < neighbourCount; k++) {
+		    int c = neighbours[offset + k];
+		    double costAC = cost(a, c);
+		    if (costAC >= removeGain) {
+			break;
+		    }
+		    if (inSegment(c, first, length)) {
+			continue;
+		    }
+		    // insertion between c and its successor or predecessor
+		    for (int side = 1; side >= -1; side -= 2) {
+			int d = at(position[c] + side);
+			if (inSegment(d, first, length)) {
+			    continue;
+			}
+			double gain = removeGain + cost(c, d) - costAC
+				- cost(other, d);
+			movesTried++;
+			if (gain > MIN_GAIN) {
+			    movesApplied++;
+			    // the segment goes after the left city of the edge,
+			    // starting with its end next to it
+			    int left = side == 1 ? c : d;
+			    int start = side == 1 ? a : other;
+			    moveSegment(first, length, position[left],
+				    start != at(first));
+			    push(a);
+			    push(other);
+			    push(p);
+			    push(next);
+			    push(c);
+			    push(d);
+			    return true;
+			}
+		    }
+		}
+	    }
+	}
+	return false;
+    }
+
+    /**
+     * @param city
+     * @param first
+     *            position of the first city of the segment
+     * @param length
+     *            length of the segment
+     * @return true if the city is in the segment
+     */
+    protected boolean inSegment(int city, int first, int length) {
+	int n = tour.length;
+	return (position[city] - first + 2 * n) % n < length;
+    }
+
+    /**
+     * Moves the segment after the city at the position, the cities between
+     * the segment and the new place are shifted to the place of the segment
+     *
+     * @param first
+     *            position of the first city of the segment
+     * @param length
+     *            length of the segment
+     * @param left
+     *            position of the city, after which the segment is inserted
+     * @param reversed
+     *            true if the order of the segment is reversed
+     */
+    protected void moveSegment(int first, int length, int left,
+	    boolean reversed) {
+	int n = tour.length;
+	first = (first + n) % n;
+	for (int s = 0; s < length; s++) {
+	    segment[reversed ? length - 1 - s : s] = tour[(first + s) % n];
+	}
+	int last = (first + length - 1) % n;
+	// cities between the segment and the new place, forward and backward
+	int forward = (left - last + n) % n;
+	int backward = (first - left - 1 + n) % n;
+	int start;
+	if (forward <= backward) {
+	    // shift the cities after the segment back
+	    for (int s = 0; s < forward; s++) {
+		set((first + s) % n, tour[(last + 1 + s) % n]);
+	    }
+	    start = (first + forward) % n;
+	} else {
+	    // shift the cities before the segment forward
+	    for (int s = backward - 1; s >= 0; s--) {
+		set((left + 1 + s + length) % n, tour[(left + 1 + s) % n]);
+	    }
+	    start = (left + 1) % n;
+	}
+	for (int s = 0; s < length; s++) {
+	    set((start + s) % n, segment[s]);
+	}
+    }
+
+    /**
+     * @param i
+     *            position
+     * @param city
+     *            the city put to the position
+     */
+    protected void set(int i, int city) {
+	tour[i] = city;
+	position[city] = i;
+    }
+
+    /**
+     * Reverses the part of the round trip from position i to position j. The
+     * shorter of the part and the rest of the tour is reversed, which gives
+     * the same round trip.
+     *
+     * @param i
+     * @param j
+     */
+    protected void reverse(int i, int j) {
+	int n = tour.length;
+	int length = (j - i + n) % n + 1;
+	if (length * 2 > n) {
+	    int swap = i;
+	    i = (j + 1) % n;
+	    j = (swap + n - 1) % n;
+	    length = n - length;
+	}
+	for (int s = 0; s < length / 2; s++) {
+	    int ci = tour[i];
+	    int cj = tour[j];
+	    set(i, cj);
+	    set(j, ci);
+	    i = (i + 1) % n;
+	    j = (j + n - 1) % n;
+	}
+    }
+}
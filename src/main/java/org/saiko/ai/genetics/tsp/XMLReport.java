@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ * TSP Application XML report, streamed by StAX writer.
+ *
+ * The results are copied and the tour is taken when the report is created, so
+ * the report can be written from a background thread while the computation goes
+ * on. The tour is written starting and ending with the start city, rotated by
+ * index without copying the cities.
+ *
+ * @see TSPMenu#actionXMLReport(String)
+ * @see TSPMenu#actionXML2PDFReport(java.awt.event.ActionEvent)
+ */
+class XMLReport
+{
+   /**
+    * size of the output buffer
+    */
+   protected static final int BUFFER_SIZE=1<<16;
+
+   /**
+    * report results, see Report.getResultInfo(TSP)
+    */
+   protected final Map<String,String> results;
+
+   /**
+    * system properties, see Report.getSystemProperties()
+    */
+   protected final Map<String,String> info;
+
+   /**
+    * the tour, in any rotation
+    */
+   protected final City tour[];
+
+   /**
+    * Takes the results and the best tour of the application
+    * @param tsp - the application (result)
+    */
+   protected XMLReport(TSP tsp) {
+      this(Report.getResultInfo(tsp),Report.getSystemProperties(),
+            tsp.bestChromosome!=null ? tsp.bestChromosome.cities : tsp.cities);
+   }
+
+   /**
+    * @param results - report results
+    * @param info - system properties
+    * @param tour - the tour, in any rotation, not modified later (the chromosome cities)
+    */
+   protected XMLReport(Map<String,String> results, Map<String,String> info, City tour[]) {
+      this.results=new LinkedHashMap<>(results);
+      this.info=new LinkedHashMap<>(info);
+      this.tour=tour;
+   }
+
+   /**
+    * @param tour
+    * @return index of the start city in the tour, 0 if the tour has no start city
+    */
+   protected static int startIndex(City tour[]) {
+      for(int i=0; i<tour.length; i++) {
+         if(tour[i].startCity) {
+            return i;
+         }
+      }
+      return 0;
+   }
+
+   /**
+    * Writes the report into the file
+    * @param file
+    * @throws IOException
+    * @throws XMLStreamException
+    */
+   protected void write(File file) throws IOException, XMLStreamException {
+      try(OutputStream out=new FileOutputStream(file)) {
+         write(out);
+      }
+   }
+
+   /**
+    * Writes the report into the stream
+    * @param stream - not closed
+    * @throws IOException
+    * @throws XMLStreamException
+    */
+   protected void write(OutputStream stream) throws IOException, XMLStreamException {
+      BufferedOutputStream out=new BufferedOutputStream(stream,BUFFER_SIZE);
+      XMLStreamWriter xml=XMLOutputFactory.newInstance().createXMLStreamWriter(out,"UTF-8");
+      try {
+         xml.writeStartDocument("UTF-8","1.0");
+         xml.writeCharacters("\n\n");
+         xml.writeStartElement("tsp-report");
+
+         writeEntries(xml,"results","result",results);
+         writeEntries(xml,"system-info","info",info);
+
+         xml.writeCharacters("\n ");
+         xml.writeStartElement("path");
+         int n=tour.length;
+         int start=startIndex(tour);
+         //the start city is written again at the end
+         for(int k=0; k<=n && n>0; k++) {
+            City city=tour[(start+k)%n];
+            xml.writeCharacters("\n  ");
+            xml.writeEmptyElement("city");
+            xml.writeAttribute("name",city.getName());
+            xml.writeAttribute("x",Integer.toString(city.SJTSKX));
+            xml.writeAttribute("y",Integer.toString(city.SJTSKY));
+         }
+         xml.writeCharacters("\n ");
+         xml.writeEndElement();
+
+         xml.writeCharacters("\n");
+         xml.writeEndElement();
+         xml.writeEndDocument();
+         xml.flush();
+      } finally {
+         xml.close();
+      }
+      out.flush();
+   }
+
+   /**
+    * @param xml
+    * @param element - name of the list element
+    * @param entry - name of the entry elements
+    * @param entries - name and value attributes of the entries
+    * @throws XMLStreamException
+    */
+   protected static void writeEntries(XMLStreamWriter xml, String element, String entry, Map<String,String> entries) throws XMLStreamException {
+      xml.writeCharacters("\n ");
+      xml.writeStartElement(element);
+      for(Map.Entry<String,String> e:entries.entrySet()) {
+         xml.writeCharacters("\n  ");
+         xml.writeEmptyElement(entry);
+         xml.writeAttribute("name",e.getKey());
+         xml.writeAttribute("value",String.valueOf(e.getValue()));
+      }
+      xml.writeCharacters("\n ");
+      xml.writeEndElement();
+   }
+}
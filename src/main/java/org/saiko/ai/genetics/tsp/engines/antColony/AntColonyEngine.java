@@ -0,0 +1,529 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp.engines.antColony;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.saiko.ai.genetics.tsp.City;
+import org.saiko.ai.genetics.tsp.NearestCities;
+import org.saiko.ai.genetics.tsp.TSPChromosome;
+import org.saiko.ai.genetics.tsp.TSPConfiguration;
+import org.saiko.ai.genetics.tsp.TSPExecutors;
+import org.saiko.ai.genetics.tsp.TSPStopSignal;
+import org.saiko.ai.genetics.tsp.TSPStoppableEngine;
+import org.saiko.ai.genetics.tsp.TSPThroughput;
+import org.saiko.ai.genetics.tsp.TourPolisher;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ *         MAX-MIN Ant System for solving the Traveling Salesman Problem. In
+ *         each generation the ants build their tours in parallel in the shared
+ *         compute pool. The ant goes to the next city with probability given
+ *         by the pheromone and the distance of the city, only the nearest
+ *         cities (candidate list) are considered. When all the candidates are
+ *         visited, the ant goes to the nearest unvisited city.
+ *
+ *         The pheromone is kept only for the edges to candidates, in flat
+ *         arrays indexed by city*CANDIDATES+candidate. While the ants build
+ *         the tours, the arrays are only read. Then the pheromone evaporates
+ *         and only one ant deposits - the best ant of the generation, or the
+ *         best ant ever in every DEPOSIT_BEST_INTERVAL generation. The
+ *         pheromone is kept between tauMin and tauMax.
+ *
+ *         The tours of ants are optionally improved by 2opt heuristics using
+ *         the candidate lists and don't look bits, which is much faster than
+ *         the complete 2opt for big maps.
+ *
+ *         When the stop signal is raised, the ants which did not start yet are
+ *         skipped and the local search of the running ants ends, the
+ *         generation is finished with the tours built so far.
+ *
+ * @see org.saiko.ai.genetics.tsp.TSPConfiguration#getAntCount()
+ * @see org.saiko.ai.genetics.tsp.TSPConfiguration#isAntLocalSearch()
+ * @see org.saiko.ai.genetics.tsp.TSPEngine
+ */
+public class AntColonyEngine implements TSPStoppableEngine {
+
+    /**
+     * length of candidate list - number of the nearest cities
+     */
+    protected static final int CANDIDATES = 15;
+
+    /**
+     * maximal number of ants if the ant count is not configured
+     */
+    protected static final int MAX_DEFAULT_ANTS = 25;
+
+    /**
+     * weight of distance against pheromone
+     */
+    protected static final double BETA = 2;
+
+    /**
+     * pheromone evaporation
+     */
+    protected static final double RHO = 0.02;
+
+    /**
+     * probability that the ant builds the best tour when the pheromone
+     * converged, used for tauMin
+     */
+    protected static final double P_BEST = 0.05;
+
+    /**
+     * interval of generations in which the best ant ever deposits the
+     * pheromone instead of the best ant of the generation
+     */
+    protected static final int DEPOSIT_BEST_INTERVAL = 5;
+
+    /**
+     * Tour of one ant
+     */
+    protected static class Ant {
+	/** city ids */
+	int tour[];
+
+	/** cost of the tour */
+	double cost;
+    }
+
+    /**
+     * cities of the map, indexed by city id
+     */
+    protected City cities[];
+
+    /**
+     * length of candidate lists, less than CANDIDATES for small maps
+     */
+    protected int candidateCount;
+
+    /**
+     * candidate lists - ids of the nearest cities of each city
+     */
+    protected int candidates[];
+
+    /**
+     * pheromone of the edges from each city to its candidates
+     */
+    protected float pheromone[];
+
+    /**
+     * heuristic value (1/cost)^BETA of the edges to candidates
+     */
+    protected float heuristic[];
+
+    /**
+     * pheromone*heuristic of the edges to candidates, computed once per
+     * generation for all the ants
+     */
+    protected float choice[];
+
+    /**
+     * pheromone limits
+     */
+    protected double tauMin, tauMax;
+
+    /**
+     * number of ants
+     */
+    protected int antCount;
+
+    /**
+     * the best ant ever
+     */
+    protected Ant bestAnt;
+
+    /**
+     * the best chromosome, made from the best ant
+     */
+    protected TSPChromosome bestChromosome;
+
+    /**
+     * Generation counter
+     */
+    protected int generation;
+
+    /**
+     * configuration paramteres of application
+     *
+     * @see TSPConfiguration
+     */
+    protected TSPConfiguration configuration;
+
+    /**
+     * stop signal of the computation
+     */
+    protected TSPStopSignal stopSignal = TSPStopSignal.NEVER;
+
+    /**
+     * @see org.saiko.ai.genetics.tsp.TSPStoppableEngine#setStopSignal(org.saiko.ai.genetics.tsp.TSPStopSignal)
+     */
+    @Override
+    public void setStopSignal(TSPStopSignal signal) {
+	this.stopSignal = signal;
+    }
+
+    /**
+     * @see org.saiko.ai.genetics.tsp.TSPEngine#initialize
+     */
+    @Override
+    public void initialize(TSPConfiguration appConfiguration, City mapCities[]) {
+	this.configuration = appConfiguration;
+	// index the cities by id
+	cities = new City[mapCities.length];
+	for (City city : mapCities) {
+	    cities[city.getId()] = city;
+	}
+	int n = cities.length;
+	generation = 0;
+
+	antCount = configuration.getAntCount();
+	if (antCount <= 0) {
+	    antCount = Math.min(n, MAX_DEFAULT_ANTS);
+	}
+
+	initCandidates();
+
+	// the first tour is made by the nearest neighbour heuristics
+	bestAnt = nearestNeighbourTour();
+	if (configuration.isAntLocalSearch()) {
+	    localSearch(bestAnt);
+	}
+	bestChromosome = toChromosome(bestAnt);
+
+	updateLimits();
+	pheromone = new float[n * candidateCount];
+	Arrays.fill(pheromone, (float) tauMax);
+	choice = new float[n * candidateCount];
+	updateChoice();
+    }
+
+    /**
+     * Creates the candidate lists and the heuristic values of the edges, the
+     * nearest cities precomputed in the binary map are used if present
+     */
+    protected void initCandidates() {
+	int n = cities.length;
+	candidateCount = Math.max(1, Math.min(CANDIDATES, n - 1));
+	candidates = new int[n * candidateCount];
+	heuristic = new float[n * candidateCount];
+	double costs[] = new double[candidateCount];
+	NearestCities nearest = NearestCities.of(cities, candidateCount);
+	if (nearest == null) {
+	    // computed in the compute pool, the indexes of the cities
+	    nearest = NearestCities.compute(cities, candidateCount);
+	}
+	for (int i = 0; i < n; i++) {
+	    int offset = i * candidateCount;
+	    for (int k = 0; k < candidateCount; k++) {
+		candidates[offset + k] = nearest.get(i, k);
+		costs[k] = cities[i].cost(cities[candidates[offset + k]]);
+	    }
+	    computeHeuristic(offset, costs);
+	}
+    }
+
+    /**
+     * Computes the heuristic values of the candidates of one city
+     *
+     * @param offset
+     *            - offset of the candidates of the city
+     * @param costs
+     *            - costs of the edges to the candidates
+     */
+    protected void computeHeuristic(int offset, double costs[]) {
+	for (int k = 0; k < candidateCount; k++) {
+	    heuristic[offset + k] = (float) Math.pow(
+		    1 / Math.max(costs[k], Double.MIN_NORMAL), BETA);
+	}
+    }
+
+    /**
+     * Computes the pheromone limits from the best tour
+     */
+    protected void updateLimits() {
+	int n = cities.length;
+	tauMax = 1 / (RHO * Math.max(bestAnt.cost, Double.MIN_NORMAL));
+	double pDec = Math.pow(P_BEST, 1.0 / n);
+	double average = Math.max(2, candidateCount / 2.0);
+	tauMin = Math.min(tauMax, tauMax * (1 - pDec) / ((average - 1) * pDec));
+    }
+
+    /**
+     * Computes pheromone*heuristic for all the candidate edges
+     */
+    protected void updateChoice() {
+	for (int i = 0; i < choice.length; i++) {
+	    choice[i] = pheromone[i] * heuristic[i];
+	}
+    }
+
+    /**
+     * @return number of ants
+     * @see org.saiko.ai.genetics.tsp.TSPEngine#getPopulationSize
+     */
+    @Override
+    public int getPopulationSize() {
+	return antCount;
+    }
+
+    /**
+     * @see org.saiko.ai.genetics.tsp.TSPEngine#getBestChromosome
+     */
+    @Override
+    public TSPChromosome getBestChromosome() {
+	return bestChromosome;
+    }
+
+    /**
+     * @see org.saiko.ai.genetics.tsp.TSPEngine#nextGeneration
+     */
+    @Override
+    public void nextGeneration() {
+	final TSPThroughput throughput = TSPThroughput.of(cities);
+	List<Callable<Ant>> tasks = new ArrayList<>();
+	for (int i = 0; i < antCount; i++) {
+	    tasks.add(new Callable<Ant>() {
+		@Override
+		public Ant call() {
+		    if (stopSignal.isStopRequested()) {
+			return null;
+		    }
+		    Ant ant = buildTour(ThreadLocalRandom.current());
+		    if (throughput != null) {
+			// the cost of the tour built
+			throughput.countEvaluation(cities.length);
+		    }
+		    if (configuration.isAntLocalSearch()) {
+			localSearch(ant);
+		    }
+		    return ant;
+		}
+	    });
+	}
+
+	Ant generationBest = null;
+	try {
+	    for (Future<Ant> future : TSPExecutors.getComputePool().invokeAll(
+		    tasks)) {
+		Ant ant = future.get();
+		if (ant != null
+			&& (generationBest == null || ant.cost < generationBest.cost)) {
+		    generationBest = ant;
+		}
+	    }
+	} catch (InterruptedException e) {
+	    Thread.currentThread().interrupt();
+	    return;
+	} catch (ExecutionException e) {
+	    throw new IllegalStateException(e.getCause());
+	}
+	if (generationBest == null) {
+	    // stopped before any ant started
+	    return;
+	}
+
+	if (generationBest.cost < bestAnt.cost) {
+	    bestAnt = generationBest;
+	    bestChromosome = toChromosome(bestAnt);
+	    updateLimits();
+	}
+
+	generation++;
+	evaporate();
+	deposit(generation % DEPOSIT_BEST_INTERVAL == 0 ? bestAnt
+		: generationBest);
+	updateChoice();
+    }
+
+    /**
+     * Evaporates the pheromone, but not under tauMin
+     */
+    protected void evaporate() {
+	float min = (float) tauMin;
+	float keep = (float) (1 - RHO);
+	for (int i = 0; i < pheromone.length; i++) {
+	    pheromone[i] = Math.max(min, pheromone[i] * keep);
+	}
+    }
+
+    /**
+     * The ant deposits pheromone on the edges of its tour, but not over tauMax
+     *
+     * @param ant
+     */
+    protected void deposit(Ant ant) {
+	float amount = (float) (1 / ant.cost);
+	int n = ant.tour.length;
+	for (int i = 0; i < n; i++) {
+	    int a = ant.tour[i];
+	    int b = ant.tour[(i + 1) % n];
+	    deposit(a, b, amount);
+	    deposit(b, a, amount);
+	}
+    }
+
+    /**
+     * Adds pheromone to edge from city to its candidate
+     *
+     * @param from
+     * @param to
+     * @param amount
+     */
+    protected void deposit(int from, int to, float amount) {
+	int offset = from * candidateCount;
+	for (int k = 0; k < candidateCount; k++) {
+	    if (candidates[offset + k] == to) {
+		pheromone[offset + k] = Math.min((float) tauMax,
+			pheromone[offset + k] + amount);
+		return;
+	    }
+	}
+    }
+
+    /**
+     * The ant builds the tour from random city
+     *
+     * @param rnd
+     * @return the ant with the tour and its cost
+     */
+    protected Ant buildTour(Random rnd) {
+	int n = cities.length;
+	int tour[] = new int[n];
+	boolean visited[] = new boolean[n];
+	float weights[] = new float[candidateCount];
+
+	int current = rnd.nextInt(n);
+	tour[0] = current;
+	visited[current] = true;
+	for (int step = 1; step < n; step++) {
+	    int offset = current * candidateCount;
+	    float sum = 0;
+	    for (int k = 0; k < candidateCount; k++) {
+		float weight = visited[candidates[offset + k]] ? 0
+			: choice[offset + k];
+		weights[k] = weight;
+		sum += weight;
+	    }
+
+	    int next = -1;
+	    if (sum > 0) {
+		float r = rnd.nextFloat() * sum;
+		for (int k = 0; k < candidateCount; k++) {
+		    r -= weights[k];
+		    if (weights[k] > 0) {
+			next = candidates[offset + k];
+			if (r <= 0) {
+			    break;
+			}
+		    }
+		}
+	    } else {
+		next = nearestUnvisited(current, visited);
+	    }
+	    tour[step] = next;
+	    visited[next] = true;
+	    current = next;
+	}
+
+	Ant ant = new Ant();
+	ant.tour = tour;
+	ant.cost = cost(tour);
+	return ant;
+    }
+
+    /**
+     * @param from
+     * @param visited
+     * @return the nearest city which was not visited yet
+     */
+    protected int nearestUnvisited(int from, boolean visited[]) {
+	int nearest = -1;
+	double nearestCost = Double.MAX_VALUE;
+	for (int j = 0; j < cities.length; j++) {
+	    if (!visited[j]) {
+		double cost = cities[from].cost(cities[j]);
+		if (cost < nearestCost) {
+		    nearestCost = cost;
+		    nearest = j;
+		}
+	    }
+	}
+	return nearest;
+    }
+
+    /**
+     * @return tour made by the nearest neighbour heuristics from the first
+     *         city
+     */
+    protected Ant nearestNeighbourTour() {
+	int n = cities.length;
+	int tour[] = new int[n];
+	boolean visited[] = new boolean[n];
+	visited[0] = true;
+	for (int step = 1; step < n; step++) {
+	    tour[step] = nearestUnvisited(tour[step - 1], visited);
+	    visited[tour[step]] = true;
+	}
+	Ant ant = new Ant();
+	ant.tour = tour;
+	ant.cost = cost(tour);
+	return ant;
+    }
+
+    /**
+     * @param tour
+     *            city ids
+     * @return cost of the round trip
+     */
+    protected double cost(int tour[]) {
+	double cost = 0;
+	for (int i = 0; i < tour.length; i++) {
+	    cost += cities[tour[i]].cost(cities[tour[(i + 1) % tour.length]]);
+	}
+	return cost;
+    }
+
+    /**
+     * @param ant
+     * @return chromosome with the tour of ant
+     */
+    protected TSPChromosome toChromosome(Ant ant) {
+	City path[] = new City[ant.tour.length];
+	for (int i = 0; i < path.length; i++) {
+	    path[i] = cities[ant.tour[i]];
+	}
+	return new TSPChromosome(path);
+    }
+
+    /**
+     * @param a
+     * @param b
+     * @return cost of the edge between two cities
+     */
+    protected double cost(int a, int b) {
+	return cities[a].cost(cities[b]);
+    }
+
+    /**
+     * 2opt heuristics using candidate lists and don't look bits, see
+     * TourPolisher
+     *
+     * @param ant
+     *            - the tour is improved in place and the cost is updated
+     */
+    protected void localSearch(Ant ant) {
+	TourPolisher.twoOpt(cities, ant.tour, candidates, candidateCount,
+		stopSignal);
+	ant.cost = cost(ant.tour);
+    }
+}
\ No newline at end of file
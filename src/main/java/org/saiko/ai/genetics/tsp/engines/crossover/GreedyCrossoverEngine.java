@@ -8,6 +8,7 @@ import java.util.LinkedList;
 
 import org.saiko.ai.genetics.tsp.City;
 import org.saiko.ai.genetics.tsp.TSPChromosome;
+import org.saiko.ai.genetics.tsp.TSPThroughput;
 import org.saiko.ai.genetics.tsp.engines.simpleUnisexMutatorHibrid2Opt.SimpleUnisexMutatorHibrid2OptEngine;
 
 /**
@@ -67,12 +68,12 @@ public class GreedyCrossoverEngine extends SimpleUnisexMutatorHibrid2OptEngine {
       mutate(child5);
       mutate(child6);
 
-      population.add(new TSPChromosome(child1));
-      population.add(new TSPChromosome(child2));
-      population.add(new TSPChromosome(child3));
-      population.add(new TSPChromosome(child4));
-      population.add(new TSPChromosome(child5));
-      population.add(new TSPChromosome(child6));
+      addChild(child1);
+      addChild(child2);
+      addChild(child3);
+      addChild(child4);
+      addChild(child5);
+      addChild(child6);
    }
 
    /**
@@ -89,9 +90,13 @@ public class GreedyCrossoverEngine extends SimpleUnisexMutatorHibrid2OptEngine {
     * @param chromosome2 - second chromosome
     * @return newly ordered array of cities (=child =new chromosome)
     */
-   static protected City[] haveSex(TSPChromosome chromosome1, TSPChromosome chromosome2) {
+   static public City[] haveSex(TSPChromosome chromosome1, TSPChromosome chromosome2) {
       
      City[] c1=chromosome1.getCities();
+     TSPThroughput throughput=TSPThroughput.of(c1);
+     if(throughput!=null) {
+        throughput.count(TSPThroughput.Counter.CROSSOVERS, 1);
+     }
      City[] c2=chromosome2.getCities();
       
      int n = c1.length;
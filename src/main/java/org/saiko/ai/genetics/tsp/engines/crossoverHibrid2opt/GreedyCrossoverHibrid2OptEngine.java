@@ -3,8 +3,18 @@
  */
 package org.saiko.ai.genetics.tsp.engines.crossoverHibrid2opt;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
 import org.saiko.ai.genetics.tsp.City;
 import org.saiko.ai.genetics.tsp.TSPChromosome;
+import org.saiko.ai.genetics.tsp.TSPThroughput;
 import org.saiko.ai.genetics.tsp.engines.crossover.GreedyCrossoverEngine;
 
 /**
@@ -53,19 +63,19 @@ public class GreedyCrossoverHibrid2OptEngine extends GreedyCrossoverEngine {
       mutate(child6);
 
       //2opt heuristics
-      heuristics2opt(child1);
-      heuristics2opt(child2);
-      heuristics2opt(child3);
-      heuristics2opt(child4);
-      heuristics2opt(child5);
-      heuristics2opt(child6);
+      optimize2opt(child1);
+      optimize2opt(child2);
+      optimize2opt(child3);
+      optimize2opt(child4);
+      optimize2opt(child5);
+      optimize2opt(child6);
 
-      population.add(new TSPChromosome(child1));
-      population.add(new TSPChromosome(child2));
-      population.add(new TSPChromosome(child3));
-      population.add(new TSPChromosome(child4));
-      population.add(new TSPChromosome(child5));
-      population.add(new TSPChromosome(child6));
+      addChild(child1);
+      addChild(child2);
+      addChild(child3);
+      addChild(child4);
+      addChild(child5);
+      addChild(child6);
    }
    
    /**
@@ -77,11 +87,14 @@ public class GreedyCrossoverHibrid2OptEngine extends GreedyCrossoverEngine {
    public static void heuristics2opt(City[] cities) {
        boolean done = false;
        int count = cities.length;
+       long tried = 0;
+       long applied = 0;
        for(int k = 0; k < count && !done; k++)
        {
            done = true;
            for(int i = 0; i < count; i++)
            {
+               tried += Math.max(0, count - i - 2);
                for(int j = i + 2; j < count; j++)
                    if(
                       cities[i].distance(cities[(i + 1) % count]) + cities[j].distance(cities[(j + 1) % count]) 
@@ -94,11 +107,140 @@ public class GreedyCrossoverHibrid2OptEngine extends GreedyCrossoverEngine {
                        cities[j] = tmp;
                        reverse(cities, i + 2, j - 1);
                        done = false;
+                       applied++;
                    }
            }
        }
+       TSPThroughput throughput = TSPThroughput.of(cities);
+       if(throughput != null) {
+           throughput.countMoves(tried, applied);
+       }
    }
    
+   /**
+    * Minimal gain of 2opt move, protects from endless loops caused by rounding
+    */
+   protected static final double MIN_2OPT_GAIN=1e-9;
+
+   /**
+    * Parallel version of 2opt heuristics for big maps with small population.
+    * In each round the best 2opt move for each city is searched in parallel
+    * (best improvement instead of first improvement), then the set of
+    * non-overlapping moves is applied, the moves with the biggest gain first.
+    * Rounds are repeated until there is no improving move.
+    * @param cities - chromosome to be optimalized
+    * @param pool - threads for the search
+    */
+   public static void parallelHeuristics2opt(City[] cities, ForkJoinPool pool) {
+       int count = cities.length;
+       if(count < 4) {
+           heuristics2opt(cities);
+           return;
+       }
+       int bestJ[] = new int[count];
+       final double bestGain[] = new double[count];
+       int grain = Math.max(16, count / (pool.getParallelism() * 16));
+       TSPThroughput throughput = TSPThroughput.of(cities);
+
+       for(int round = 0; round < count; round++)
+       {
+           pool.invoke(new Scan2optTask(cities, bestJ, bestGain, 0, count - 2, grain));
+
+           List<Integer> moves = new ArrayList<>();
+           for(int i = 0; i < count - 2; i++) {
+               if(bestGain[i] > MIN_2OPT_GAIN) {
+                   moves.add(i);
+               }
+           }
+           if(moves.isEmpty()) {
+               break;
+           }
+           Collections.sort(moves, new Comparator<Integer>() {
+               @Override
+               public int compare(Integer i1, Integer i2) {
+                   return Double.compare(bestGain[i2], bestGain[i1]);
+               }
+           });
+
+           // move i..j changes only cities between i and j+1, so moves with
+           // disjoint [i,j] intervals are independent
+           TreeMap<Integer,Integer> accepted = new TreeMap<>();
+           for(int i : moves) {
+               int j = bestJ[i];
+               Entry<Integer,Integer> previous = accepted.floorEntry(j);
+               if(previous == null || previous.getValue() < i) {
+                   accepted.put(i, j);
+               }
+           }
+           for(Entry<Integer,Integer> move : accepted.entrySet()) {
+               reverse(cities, move.getKey() + 1, move.getValue());
+           }
+           if(throughput != null) {
+               throughput.countMoves(0, accepted.size());
+           }
+       }
+   }
+
+   /**
+    * Search for the best 2opt move for each city from the range
+    * @see GreedyCrossoverHibrid2OptEngine#parallelHeuristics2opt(City[], ForkJoinPool)
+    */
+   static class Scan2optTask extends RecursiveAction {
+       private static final long serialVersionUID = 1L;
+       final City[] cities;
+       final int[] bestJ;
+       final double[] bestGain;
+       final int from;
+       final int to;
+       final int grain;
+
+       Scan2optTask(City[] cities, int[] bestJ, double[] bestGain, int from, int to, int grain) {
+           this.cities = cities;
+           this.bestJ = bestJ;
+           this.bestGain = bestGain;
+           this.from = from;
+           this.to = to;
+           this.grain = grain;
+       }
+
+       @Override
+       protected void compute() {
+           if(to - from > grain) {
+               int middle = (from + to) >>> 1;
+               invokeAll(new Scan2optTask(cities, bestJ, bestGain, from, middle, grain),
+                         new Scan2optTask(cities, bestJ, bestGain, middle, to, grain));
+               return;
+           }
+           int count = cities.length;
+           long tried = 0;
+           for(int i = from; i < to; i++)
+           {
+               tried += count - i - 2;
+               City a = cities[i];
+               City b = cities[i + 1];
+               double ab = a.distance(b);
+               double best = 0;
+               int bestIndex = -1;
+               for(int j = i + 2; j < count; j++)
+               {
+                   City c = cities[j];
+                   City d = cities[(j + 1) % count];
+                   double gain = ab + c.distance(d) - a.distance(c) - b.distance(d);
+                   if(gain > best) {
+                       best = gain;
+                       bestIndex = j;
+                   }
+               }
+               bestGain[i] = best;
+               bestJ[i] = bestIndex;
+           }
+           TSPThroughput throughput = TSPThroughput.of(cities);
+           if(throughput != null) {
+               throughput.countMoves(tried, 0);
+           }
+       }
+   }
+
    /**
     * Part of heuristics optimalizations of chromosome
     * taken from code at http://www.zlote.jabluszko.net/tsp/
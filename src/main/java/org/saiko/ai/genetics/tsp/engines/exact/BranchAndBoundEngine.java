@@ -0,0 +1,368 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp.engines.exact;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.saiko.ai.genetics.tsp.City;
+import org.saiko.ai.genetics.tsp.HeldKarpBound;
+import org.saiko.ai.genetics.tsp.TSPConfiguration;
+import org.saiko.ai.genetics.tsp.TSPExecutors;
+import org.saiko.ai.genetics.tsp.engines.crossoverHibrid2opt.GreedyCrossoverHibrid2OptEngine;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ *         Branch and bound - finds the optimal tour for maps bigger than
+ *         HeldKarpEngine can solve, up to MAX_CITIES cities. Random maps of 40
+ *         cities are solved in less than a second, 50 and more cities take
+ *         from seconds to minutes, depending on the map. The depth first
+ *         search extends the path from the city 0, the nearest cities first.
+ *         The path is cut when its cost plus the lower bound of the rest of
+ *         the tour is not less than the best tour found.
+ *
+ *         The rest of the tour goes from the last city of the path through all
+ *         the unvisited cities back to the city 0. Its lower bound is the
+ *         1-tree bound: the minimum spanning tree of the unvisited cities plus
+ *         the cheapest edges connecting the last city and the city 0 to them.
+ *         The costs used by the bound are raised by the Held-Karp penalties of
+ *         both cities of the edge, found before the search. Every tour is
+ *         longer by twice the sum of the penalties, so the bound stays valid
+ *         and it is much closer to the cost of the optimal tour.
+ *
+ *         The search of each path of three cities is one task of the shared
+ *         compute pool. The tasks share the cost of the best tour as the
+ *         upper bound - the bits of the double in AtomicLong, which keep the
+ *         order of positive numbers. The first upper bound is the nearest
+ *         neighbour tour improved by 2opt heuristics.
+ *
+ *         The search is done in the first generation. The tasks check the
+ *         stop signal in each node - the stopped search keeps the best tour
+ *         found and starts again with it as the upper bound in the next
+ *         generation.
+ *
+ * @see HeldKarpEngine
+ * @see org.saiko.ai.genetics.tsp.HeldKarpBound
+ * @see org.saiko.ai.genetics.tsp.TSPEngine
+ */
+public class BranchAndBoundEngine extends ExactEngine {
+
+    /**
+     * maximal number of cities
+     */
+    public static final int MAX_CITIES = 60;
+
+    /**
+     * cost of the best tour, Double.doubleToLongBits()
+     */
+    protected final AtomicLong upperBound = new AtomicLong();
+
+    /**
+     * the best tour found
+     */
+    protected int bestTour[];
+
+    /**
+     * true when some task of the search was stopped
+     */
+    protected volatile boolean stopped;
+
+    /**
+     * cities ordered by the cost from each city, the nearest first
+     */
+    protected int nearest[][];
+
+    /**
+     * costs with the penalties of both cities of the edge
+     */
+    protected double penalized[][];
+
+    /**
+     * twice the sum of the penalties - the difference between penalized and
+     * real cost of each tour
+     */
+    protected double penaltySum;
+
+    /**
+     * maximal number of the subgradient iterations
+     */
+    protected static final int SUBGRADIENT_ITERATIONS = 1000;
+
+    /**
+     * relative tolerance of comparing the lower bound with the upper bound,
+     * so rounding errors of the bound never cut the optimal tour
+     */
+    protected static final double EPSILON = 1e-9;
+
+    /**
+     * @see org.saiko.ai.genetics.tsp.TSPEngine#initialize
+     * @throws IllegalArgumentException
+     *             if the map has more than MAX_CITIES cities
+     */
+    @Override
+    public void initialize(TSPConfiguration appConfiguration, City mapCities[]) {
+	if (mapCities.length > MAX_CITIES) {
+	    throw new IllegalArgumentException(getClass().getSimpleName()
+		    + " can solve maps with at most " + MAX_CITIES
+		    + " cities, the map has " + mapCities.length + " cities.");
+	}
+	super.initialize(appConfiguration, mapCities);
+	bestTour = null;
+    }
+
+    /**
+     * Searches all the tours
+     *
+     * @see org.saiko.ai.genetics.tsp.engines.exact.ExactEngine#solve()
+     */
+    @Override
+    protected boolean solve() {
+	final int n = cities.length;
+
+	// the first upper bound, or the best tour of the stopped search
+	int first[] = nearestNeighbourTour();
+	City path[] = new City[n];
+	for (int i = 0; i < n; i++) {
+	    path[i] = cities[first[i]];
+	}
+	GreedyCrossoverHibrid2OptEngine.heuristics2opt(path);
+	int improved[] = new int[n];
+	for (int i = 0; i < n; i++) {
+	    improved[i] = path[i].getId();
+	}
+	if (cost(improved) < cost(first)) {
+	    first = improved;
+	}
+	if (bestTour == null || cost(first) < cost(bestTour)) {
+	    bestTour = first;
+	}
+	stopped = false;
+	upperBound.set(Double.doubleToLongBits(cost(bestTour)));
+
+	computePenalties();
+
+	nearest = new int[n][];
+	for (int i = 0; i < n; i++) {
+	    final int from = i;
+	    Integer order[] = new Integer[n];
+	    for (int j = 0; j < n; j++) {
+		order[j] = j;
+	    }
+	    Arrays.sort(order, new Comparator<Integer>() {
+		@Override
+		public int compare(Integer o1, Integer o2) {
+		    return Double.compare(penalized[from][o1],
+				penalized[from][o2]);
+		}
+	    });
+	    nearest[i] = new int[n];
+	    for (int j = 0; j < n; j++) {
+		nearest[i][j] = order[j];
+	    }
+	}
+
+	// one task for each path 0-a-b
+	final List<SearchTask> tasks = new ArrayList<>();
+	for (int a = 1; a < n; a++) {
+	    for (int b = 1; b < n; b++) {
+		if (a != b) {
+		    tasks.add(new SearchTask(a, b));
+		}
+	    }
+	}
+	TSPExecutors.getComputePool().invoke(new RecursiveAction() {
+	    /** generated serialVersionUID */
+	    private static final long serialVersionUID = -3006476131409823437L;
+
+	    @Override
+	    protected void compute() {
+		invokeAll(tasks);
+	    }
+	});
+
+	bestChromosome = toChromosome(bestTour);
+	return !stopped;
+    }
+
+    /**
+     * Finds the penalties of the cities by the subgradient optimization of
+     * the Held-Karp bound and computes the penalized costs
+     */
+    protected void computePenalties() {
+	int n = cities.length;
+	HeldKarpBound bound = new HeldKarpBound(cost);
+	for (int i = 0; i < SUBGRADIENT_ITERATIONS
+		&& !stopSignal.isStopRequested()
+		&& bound.iterate(getUpperBound()); i++) {
+	    // next step
+	}
+	double penalty[] = bound.getPenalties();
+	penaltySum = 0;
+	penalized = new double[n][n];
+	for (int i = 0; i < n; i++) {
+	    penaltySum += 2 * penalty[i];
+	    for (int j = 0; j < n; j++) {
+		penalized[i][j] = i == j ? 0 : cost[i][j] + penalty[i]
+			+ penalty[j];
+	    }
+	}
+    }
+
+    /**
+     * @return cost of the best tour found
+     */
+    protected double getUpperBound() {
+	return Double.longBitsToDouble(upperBound.get());
+    }
+
+    /**
+     * Sets the new best tour if it is better than the current one
+     *
+     * @param tour
+     * @param tourCost
+     */
+    protected synchronized void offer(int tour[], double tourCost) {
+	if (tourCost < getUpperBound()) {
+	    bestTour = tour.clone();
+	    upperBound.set(Double.doubleToLongBits(tourCost));
+	}
+    }
+
+    /**
+     * Depth first search of the tours beginning with the path 0-a-b
+     */
+    protected class SearchTask extends RecursiveAction {
+	/** generated serialVersionUID */
+	private static final long serialVersionUID = -2071598264416402946L;
+
+	/** current path */
+	final int path[];
+
+	/** visited cities */
+	final boolean visited[];
+
+	/** unvisited cities, for the lower bound */
+	final int rest[];
+
+	/** distance of unvisited cities to the spanning tree */
+	final double key[];
+
+	/**
+	 * @param a
+	 *            the second city
+	 * @param b
+	 *            the third city
+	 */
+	SearchTask(int a, int b) {
+	    int n = cities.length;
+	    path = new int[n];
+	    visited = new boolean[n];
+	    rest = new int[n];
+	    key = new double[n];
+	    path[1] = a;
+	    path[2] = b;
+	    visited[0] = visited[a] = visited[b] = true;
+	}
+
+	@Override
+	protected void compute() {
+	    search(3, cost[0][path[1]] + cost[path[1]][path[2]],
+		    penalized[0][path[1]] + penalized[path[1]][path[2]]);
+	}
+
+	/**
+	 * @param depth
+	 *            number of cities of the path
+	 * @param pathCost
+	 *            cost of the path
+	 * @param penalizedCost
+	 *            penalized cost of the path
+	 */
+	void search(int depth, double pathCost, double penalizedCost) {
+	    int n = cities.length;
+	    int last = path[depth - 1];
+	    if (depth == n) {
+		offer(path, pathCost + cost[last][0]);
+		return;
+	    }
+	    if (stopped || stopSignal.isStopRequested()) {
+		stopped = true;
+		return;
+	    }
+	    double bound = penalizedCost + lowerBound(last) - penaltySum;
+	    if (bound >= getUpperBound() * (1 + EPSILON)) {
+		return;
+	    }
+	    for (int next : nearest[last]) {
+		if (!visited[next]) {
+		    visited[next] = true;
+		    path[depth] = next;
+		    search(depth + 1, pathCost + cost[last][next],
+			    penalizedCost + penalized[last][next]);
+		    visited[next] = false;
+		}
+	    }
+	}
+
+	/**
+	 * @param last
+	 *            the last city of the path
+	 * @return penalized 1-tree lower bound of the path from the last city
+	 *         through the unvisited cities to the city 0, infinity if the
+	 *         tour is searched in the opposite direction
+	 */
+	double lowerBound(int last) {
+	    int count = 0;
+	    double toLast = Double.MAX_VALUE;
+	    double toStart = Double.MAX_VALUE;
+	    boolean reversed = true;
+	    for (int i = 0; i < visited.length; i++) {
+		if (!visited[i]) {
+		    rest[count++] = i;
+		    toLast = Math.min(toLast, penalized[last][i]);
+		    toStart = Math.min(toStart, penalized[i][0]);
+		    reversed &= i < path[1];
+		}
+	    }
+	    if (reversed) {
+		// each round trip is searched in one direction only - the last
+		// city has greater id than the second city
+		return Double.POSITIVE_INFINITY;
+	    }
+
+	    // Prim's minimum spanning tree of the unvisited cities
+	    double tree = 0;
+	    key[0] = 0;
+	    for (int i = 1; i < count; i++) {
+		key[i] = penalized[rest[0]][rest[i]];
+	    }
+	    for (int size = 1; size < count; size++) {
+		int closest = size;
+		for (int i = size + 1; i < count; i++) {
+		    if (key[i] < key[closest]) {
+			closest = i;
+		    }
+		}
+		tree += key[closest];
+		// move the added city before the unconnected ones
+		int city = rest[closest];
+		rest[closest] = rest[size];
+		key[closest] = key[size];
+		rest[size] = city;
+		for (int i = size + 1; i < count; i++) {
+		    double c = penalized[city][rest[i]];
+		    if (c < key[i]) {
+			key[i] = c;
+		    }
+		}
+	    }
+	    return tree + toLast + toStart;
+	}
+    }
+}
\ No newline at end of file
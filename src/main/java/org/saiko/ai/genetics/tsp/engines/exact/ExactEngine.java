@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp.engines.exact;
+
+import org.saiko.ai.genetics.tsp.City;
+import org.saiko.ai.genetics.tsp.TSPChromosome;
+import org.saiko.ai.genetics.tsp.TSPConfiguration;
+import org.saiko.ai.genetics.tsp.TSPStopSignal;
+import org.saiko.ai.genetics.tsp.TSPStoppableEngine;
+import org.saiko.ai.genetics.tsp.jfr.FlightEvents;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ *         Base of the engines which find the optimal tour for small maps. The
+ *         costs between all the cities are kept in the matrix and the tours
+ *         are arrays of city ids. Until the optimal tour is found, the best
+ *         chromosome is the tour made by the nearest neighbour heuristics.
+ *
+ *         The solver runs in the first nextGeneration(). When the solver is
+ *         finished, next generations do nothing and the computation stops by
+ *         the SolvedTermination. The solver checks the stop signal, a
+ *         stopped solver keeps the best tour found so far and continues in the
+ *         next generation.
+ *
+ * @see HeldKarpEngine
+ * @see BranchAndBoundEngine
+ */
+public abstract class ExactEngine implements TSPStoppableEngine {
+
+    /**
+     * cities of the map, indexed by city id
+     */
+    protected City cities[];
+
+    /**
+     * costs between cities, indexed by city ids
+     */
+    protected double cost[][];
+
+    /**
+     * the best chromosome found
+     */
+    protected TSPChromosome bestChromosome;
+
+    /**
+     * true when the optimal tour was found
+     */
+    protected boolean solved;
+
+    /**
+     * stop signal of the computation
+     */
+    protected TSPStopSignal stopSignal = TSPStopSignal.NEVER;
+
+    /**
+     * configuration paramteres of application
+     *
+     * @see TSPConfiguration
+     */
+    protected TSPConfiguration configuration;
+
+    /**
+     * @see org.saiko.ai.genetics.tsp.TSPEngine#initialize
+     */
+    @Override
+    public void initialize(TSPConfiguration appConfiguration, City mapCities[]) {
+	this.configuration = appConfiguration;
+	int n = mapCities.length;
+	cities = new City[n];
+	for (City city : mapCities) {
+	    cities[city.getId()] = city;
+	}
+	Object event = FlightEvents.beginDistanceMatrix();
+	cost = new double[n][n];
+	for (int i = 0; i < n; i++) {
+	    for (int j = 0; j < n; j++) {
+		cost[i][j] = i == j ? 0 : cities[i].cost(cities[j]);
+	    }
+	}
+	FlightEvents.endDistanceMatrix(event, n);
+	bestChromosome = toChromosome(nearestNeighbourTour());
+	// there is only one round trip for up to 3 cities
+	solved = n <= 3;
+    }
+
+    /**
+     * @see org.saiko.ai.genetics.tsp.TSPStoppableEngine#setStopSignal(org.saiko.ai.genetics.tsp.TSPStopSignal)
+     */
+    @Override
+    public void setStopSignal(TSPStopSignal signal) {
+	this.stopSignal = signal;
+    }
+
+    /**
+     * @return 1 - there is no population
+     * @see org.saiko.ai.genetics.tsp.TSPEngine#getPopulationSize
+     */
+    @Override
+    public int getPopulationSize() {
+	return 1;
+    }
+
+    /**
+     * @see org.saiko.ai.genetics.tsp.TSPEngine#getBestChromosome
+     */
+    @Override
+    public TSPChromosome getBestChromosome() {
+	return bestChromosome;
+    }
+
+    /**
+     * @return true when the optimal tour was found
+     */
+    public boolean isSolved() {
+	return solved;
+    }
+
+    /**
+     * Runs the solver if the optimal tour was not found yet
+     *
+     * @see org.saiko.ai.genetics.tsp.TSPEngine#nextGeneration
+     */
+    @Override
+    public void nextGeneration() {
+	if (!solved) {
+	    solved = solve();
+	}
+    }
+
+    /**
+     * Runs the solver. The solver sets the best chromosome when the optimal
+     * tour is found.
+     *
+     * @return true if the solver is finished, false if it was stopped
+     */
+    protected abstract boolean solve();
+
+    /**
+     * @return tour made by the nearest neighbour heuristics from the city 0
+     */
+    protected int[] nearestNeighbourTour() {
+	int n = cities.length;
+	int tour[] = new int[n];
+	boolean visited[] = new boolean[n];
+	visited[0] = true;
+	for (int step = 1; step < n; step++) {
+	    int from = tour[step - 1];
+	    int nearest = -1;
+	    for (int j = 0; j < n; j++) {
+		if (!visited[j]
+			&& (nearest < 0 || cost[from][j] < cost[from][nearest])) {
+		    nearest = j;
+		}
+	    }
+	    tour[step] = nearest;
+	    visited[nearest] = true;
+	}
+	return tour;
+    }
+
+    /**
+     * @param tour
+     *            city ids
+     * @return cost of the round trip
+     */
+    protected double cost(int tour[]) {
+	double sum = 0;
+	for (int i = 0; i < tour.length; i++) {
+	    sum += cost[tour[i]][tour[(i + 1) % tour.length]];
+	}
+	return sum;
+    }
+
+    /**
+     * @param tour
+     *            city ids
+     * @return chromosome of the tour
+     */
+    protected TSPChromosome toChromosome(int tour[]) {
+	City path[] = new City[tour.length];
+	for (int i = 0; i < tour.length; i++) {
+	    path[i] = cities[tour[i]];
+	}
+	return new TSPChromosome(path);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp.engines.exact;
+
+import java.util.concurrent.RecursiveAction;
+
+import org.saiko.ai.genetics.tsp.City;
+import org.saiko.ai.genetics.tsp.TSPConfiguration;
+import org.saiko.ai.genetics.tsp.TSPExecutors;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ *         Held-Karp dynamic programming - finds the optimal tour for maps up
+ *         to MAX_CITIES cities. The tour starts in the city 0, the other
+ *         cities are bits of the subset. For each subset S and its city j the
+ *         table keeps the cost of the cheapest path from the city 0 through
+ *         all the cities of S ending in j:
+ *
+ *         <pre>
+ * cost(S, j) = min over i in S-{j} of cost(S-{j}, i) + cost(i, j)
+ * </pre>
+ *
+ *         The table is one flat double array indexed by subset*(n-1)+j. The
+ *         subsets are computed size by size - the subsets of one size depend
+ *         only on the smaller subsets, so they are computed in parallel in the
+ *         shared compute pool. Then the optimal tour is read back from the
+ *         table. The whole table is computed in the first generation, unless
+ *         the computation is stopped - the stop signal is checked between the
+ *         subset sizes and the next generation continues with the next size.
+ *
+ *         The table has 2^(n-1)*(n-1) values, 80MB for 20 cities. Doubles are
+ *         used, as float sums of S-JTSK coordinates in meters lose precision.
+ *
+ * @see BranchAndBoundEngine
+ * @see org.saiko.ai.genetics.tsp.TSPEngine
+ */
+public class HeldKarpEngine extends ExactEngine {
+
+    /**
+     * maximal number of cities
+     */
+    public static final int MAX_CITIES = 20;
+
+    /**
+     * number of subsets computed in one task
+     */
+    protected static final int GRAIN = 1024;
+
+    /**
+     * number of cities without the start city - the number of bits of subset
+     */
+    protected int m;
+
+    /**
+     * cost of the cheapest path through the subset, indexed by
+     * subset*m+last, the city of bit i is the city i+1
+     */
+    protected double table[];
+
+    /**
+     * size of the subsets being computed, the computed sizes are smaller
+     */
+    protected int subsetSize;
+
+    /**
+     * @see org.saiko.ai.genetics.tsp.TSPEngine#initialize
+     * @throws IllegalArgumentException
+     *             if the map has more than MAX_CITIES cities
+     */
+    @Override
+    public void initialize(TSPConfiguration appConfiguration, City mapCities[]) {
+	if (mapCities.length > MAX_CITIES) {
+	    throw new IllegalArgumentException(getClass().getSimpleName()
+		    + " can solve maps with at most " + MAX_CITIES
+		    + " cities, the map has " + mapCities.length + " cities.");
+	}
+	super.initialize(appConfiguration, mapCities);
+	m = cities.length - 1;
+	table = null;
+    }
+
+    /**
+     * Computes the table size by size of subsets and reads the optimal tour
+     *
+     * @see org.saiko.ai.genetics.tsp.engines.exact.ExactEngine#solve()
+     */
+    @Override
+    protected boolean solve() {
+	if (table == null) {
+	    table = new double[(1 << m) * m];
+	    subsetSize = 1;
+	}
+	for (; subsetSize <= m; subsetSize++) {
+	    if (stopSignal.isStopRequested()) {
+		return false;
+	    }
+	    TSPExecutors.getComputePool().invoke(new SubsetsTask(1, 1 << m));
+	}
+	bestChromosome = toChromosome(readTour());
+	// free the memory
+	table = null;
+	return true;
+    }
+
+    /**
+     * Computes the paths through the subset for all its last cities
+     *
+     * @param subset
+     */
+    protected void computeSubset(int subset) {
+	for (int j = 0; j < m; j++) {
+	    if ((subset & (1 << j)) == 0) {
+		continue;
+	    }
+	    int previous = subset ^ (1 << j);
+	    double best;
+	    if (previous == 0) {
+		best = cost[0][j + 1];
+	    } else {
+		best = Double.MAX_VALUE;
+		int offset = previous * m;
+		for (int i = 0; i < m; i++) {
+		    if ((previous & (1 << i)) != 0) {
+			double value = table[offset + i] + cost[i + 1][j + 1];
+			if (value < best) {
+			    best = value;
+			}
+		    }
+		}
+	    }
+	    table[subset * m + j] = best;
+	}
+    }
+
+    /**
+     * @return the optimal tour read back from the complete table
+     */
+    protected int[] readTour() {
+	int tour[] = new int[m + 1];
+	int subset = (1 << m) - 1;
+	int last = -1;
+	double best = Double.MAX_VALUE;
+	for (int j = 0; j < m; j++) {
+	    double value = table[subset * m + j] + cost[j + 1][0];
+	    if (value < best) {
+		best = value;
+		last = j;
+	    }
+	}
+	// from the end of the tour back to the start
+	for (int position = m; position > 0; position--) {
+	    tour[position] = last + 1;
+	    int previous = subset ^ (1 << last);
+	    int next = -1;
+	    best = Double.MAX_VALUE;
+	    for (int i = 0; i < m; i++) {
+		if ((previous & (1 << i)) != 0) {
+		    double value = table[previous * m + i]
+			    + cost[i + 1][last + 1];
+		    if (value < best) {
+			best = value;
+			next = i;
+		    }
+		}
+	    }
+	    subset = previous;
+	    last = next;
+	}
+	return tour;
+    }
+
+    /**
+     * Computes the subsets of current size from the range
+     */
+    protected class SubsetsTask extends RecursiveAction {
+	/** generated serialVersionUID */
+	private static final long serialVersionUID = 6541384731164598227L;
+
+	/** range of subsets */
+	final int from, to;
+
+	/**
+	 * @param from
+	 *            first subset
+	 * @param to
+	 *            subset after the last one
+	 */
+	SubsetsTask(int from, int to) {
+	    this.from = from;
+	    this.to = to;
+	}
+
+	@Override
+	protected void compute() {
+	    if (to - from > GRAIN) {
+		int middle = (from + to) >>> 1;
+		invokeAll(new SubsetsTask(from, middle), new SubsetsTask(
+			middle, to));
+		return;
+	    }
+	    for (int subset = from; subset < to; subset++) {
+		if (Integer.bitCount(subset) == subsetSize) {
+		    computeSubset(subset);
+		}
+	    }
+	}
+    }
+}
\ No newline at end of file
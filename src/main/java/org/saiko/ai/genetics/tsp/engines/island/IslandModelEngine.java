@@ -0,0 +1,312 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp.engines.island;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.saiko.ai.genetics.tsp.City;
+import org.saiko.ai.genetics.tsp.GenerationTimer;
+import org.saiko.ai.genetics.tsp.TSPChromosome;
+import org.saiko.ai.genetics.tsp.TSPConfiguration;
+import org.saiko.ai.genetics.tsp.TSPConfiguration.MigrationTopology;
+import org.saiko.ai.genetics.tsp.TSPEngine;
+import org.saiko.ai.genetics.tsp.TSPExecutors;
+import org.saiko.ai.genetics.tsp.TSPMigratingEngine;
+import org.saiko.ai.genetics.tsp.TSPPopulationEngine;
+import org.saiko.ai.genetics.tsp.TSPStopSignal;
+import org.saiko.ai.genetics.tsp.TSPStoppableEngine;
+import org.saiko.ai.genetics.tsp.TSPTimedEngine;
+import org.saiko.ai.genetics.tsp.engines.simpleUnisexMutator.SimpleUnisexMutatorEngine;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ *         Island model of the genetic algorithm. The population is split into
+ *         independent islands, each island is evolved by its own instance of
+ *         island engine (kernel) in its own task. Islands do not share any
+ *         state, only after every migrationInterval generations the best
+ *         chromosomes of each island migrate to other island over the ring or
+ *         random topology.
+ *
+ *         The islands run single threaded engines, so the number of islands
+ *         should be the number of processors.
+ *
+ *         The islands share one GenerationTimer, so the phase times are
+ *         summed over all the islands. They also share the stop signal of
+ *         the computation.
+ *
+ * @see org.saiko.ai.genetics.tsp.TSPConfiguration#getIslandEngineClass()
+ * @see org.saiko.ai.genetics.tsp.TSPConfiguration#getMigrationTopology()
+ * @see org.saiko.ai.genetics.tsp.TSPMigratingEngine
+ * @see org.saiko.ai.genetics.tsp.TSPEngine
+ */
+public class IslandModelEngine implements TSPMigratingEngine,
+	TSPPopulationEngine, TSPTimedEngine, TSPStoppableEngine {
+
+    /**
+     * Islands - engines with independent populations
+     */
+    protected TSPMigratingEngine islands[];
+
+    /**
+     * Random generator for random migration topology
+     */
+    protected Random rnd;
+
+    /**
+     * Generation counter, used for migration interval
+     */
+    protected int generation;
+
+    /**
+     * configuration paramteres of application
+     *
+     * @see TSPConfiguration
+     */
+    protected TSPConfiguration configuration;
+
+    /**
+     * times of the phases of the generations of all the islands
+     */
+    protected final GenerationTimer generationTimer = new GenerationTimer();
+
+    /**
+     * stop signal of the computation, passed to the islands
+     */
+    protected TSPStopSignal stopSignal = TSPStopSignal.NEVER;
+
+    /**
+     * @see org.saiko.ai.genetics.tsp.TSPStoppableEngine#setStopSignal(org.saiko.ai.genetics.tsp.TSPStopSignal)
+     */
+    @Override
+    public void setStopSignal(TSPStopSignal signal) {
+	this.stopSignal = signal;
+    }
+
+    /**
+     * @param engineClass
+     * @return true if the engine can evolve an island - it exchanges
+     *         chromosomes and it does not build islands itself, an island
+     *         model on the islands would nest the islands without end
+     */
+    public static boolean isIslandEngine(Class<?> engineClass) {
+	return TSPMigratingEngine.class.isAssignableFrom(engineClass)
+		&& !IslandModelEngine.class.isAssignableFrom(engineClass);
+    }
+
+    /**
+     * @see org.saiko.ai.genetics.tsp.TSPEngine#initialize
+     * @throws IllegalArgumentException
+     *             if the island engine of the configuration builds islands
+     */
+    @Override
+    public void initialize(TSPConfiguration appConfiguration, final City cities[]) {
+	if (!isIslandEngine(appConfiguration.getIslandEngineClass())) {
+	    throw new IllegalArgumentException(appConfiguration
+		    .getIslandEngineClass().getSimpleName()
+		    + " can not be used as island engine.");
+	}
+	this.configuration = appConfiguration;
+	rnd = new Random();
+	generation = 0;
+
+	int islandCount = configuration.getIslandCount();
+	if (islandCount <= 0) {
+	    islandCount = Runtime.getRuntime().availableProcessors();
+	}
+
+	// the population is divided between the islands
+	final TSPConfiguration islandConfiguration = configuration.clone();
+	islandConfiguration.setInitialPopulationSize(Math.max(10,
+		configuration.getInitialPopulationSize() / islandCount));
+
+	islands = new TSPMigratingEngine[islandCount];
+	List<Callable<Object>> tasks = new ArrayList<>();
+	for (int i = 0; i < islandCount; i++) {
+	    final int index = i;
+	    tasks.add(new Callable<Object>() {
+		@Override
+		public Object call() throws Exception {
+		    TSPMigratingEngine island = configuration.getIslandEngineClass().newInstance();
+		    if (island instanceof SimpleUnisexMutatorEngine) {
+			// islands are already running in parallel
+			((SimpleUnisexMutatorEngine) island).setThreadCount(1);
+			((SimpleUnisexMutatorEngine) island)
+				.setGenerationTimer(generationTimer);
+		    }
+		    if (island instanceof TSPStoppableEngine) {
+			((TSPStoppableEngine) island).setStopSignal(stopSignal);
+		    }
+		    island.initialize(islandConfiguration, cities);
+		    islands[index] = island;
+		    return null;
+		}
+	    });
+	}
+	invokeAll(tasks);
+    }
+
+    /**
+     * Runs the tasks in the shared compute pool and waits for all of them
+     *
+     * @param tasks
+     * @see TSPExecutors#getComputePool()
+     */
+    protected void invokeAll(List<Callable<Object>> tasks) {
+	try {
+	    for (Future<Object> future : TSPExecutors.getComputePool()
+		    .invokeAll(tasks)) {
+		future.get();
+	    }
+	} catch (InterruptedException e) {
+	    Thread.currentThread().interrupt();
+	} catch (ExecutionException e) {
+	    throw new IllegalStateException(e.getCause());
+	}
+    }
+
+    /**
+     * @return the islands of the model
+     */
+    public TSPMigratingEngine[] getIslands() {
+	return islands;
+    }
+
+    /**
+     * @see org.saiko.ai.genetics.tsp.TSPTimedEngine#getGenerationTimer()
+     */
+    @Override
+    public GenerationTimer getGenerationTimer() {
+	return generationTimer;
+    }
+
+    /**
+     * @see org.saiko.ai.genetics.tsp.TSPEngine#getPopulationSize
+     */
+    @Override
+    public int getPopulationSize() {
+	int size = 0;
+	for (TSPEngine island : islands) {
+	    size += island.getPopulationSize();
+	}
+	return size;
+    }
+
+    /**
+     * @return populations of all the islands which keep their population
+     * @see org.saiko.ai.genetics.tsp.TSPPopulationEngine#getPopulation()
+     */
+    @Override
+    public List<TSPChromosome> getPopulation() {
+	List<TSPChromosome> chromosomes = new ArrayList<>();
+	for (TSPEngine island : islands) {
+	    if (island instanceof TSPPopulationEngine) {
+		chromosomes.addAll(((TSPPopulationEngine) island).getPopulation());
+	    }
+	}
+	return chromosomes;
+    }
+
+    /**
+     * @see org.saiko.ai.genetics.tsp.TSPEngine#getBestChromosome
+     */
+    @Override
+    public TSPChromosome getBestChromosome() {
+	TSPChromosome best = null;
+	for (TSPEngine island : islands) {
+	    TSPChromosome chromosome = island.getBestChromosome();
+	    if (best == null || chromosome.getTotalCost() < best.getTotalCost()) {
+		best = chromosome;
+	    }
+	}
+	return best;
+    }
+
+    /**
+     * @return the best chromosomes over all the islands
+     * @see org.saiko.ai.genetics.tsp.TSPMigratingEngine#emigrate(int)
+     */
+    @Override
+    public List<TSPChromosome> emigrate(int count) {
+	List<TSPChromosome> emigrants = new ArrayList<>();
+	for (TSPMigratingEngine island : islands) {
+	    emigrants.addAll(island.emigrate(count));
+	}
+	Collections.sort(emigrants, new Comparator<TSPChromosome>() {
+	    @Override
+	    public int compare(TSPChromosome o1, TSPChromosome o2) {
+		return Double.compare(o1.getTotalCost(), o2.getTotalCost());
+	    }
+	});
+	return new ArrayList<>(emigrants.subList(0,
+		Math.min(count, emigrants.size())));
+    }
+
+    /**
+     * Immigrants from other process go to randomly chosen island
+     * 
+     * @see org.saiko.ai.genetics.tsp.TSPMigratingEngine#immigrate(List)
+     */
+    @Override
+    public void immigrate(List<TSPChromosome> immigrants) {
+	islands[rnd.nextInt(islands.length)].immigrate(immigrants);
+    }
+
+    /**
+     * Each island makes its own next generation in its own thread. After
+     * every migrationInterval generations the best chromosomes migrate.
+     *
+     * @see org.saiko.ai.genetics.tsp.TSPEngine#nextGeneration
+     */
+    @Override
+    public void nextGeneration() {
+	List<Callable<Object>> tasks = new ArrayList<>();
+	for (final TSPEngine island : islands) {
+	    tasks.add(new Callable<Object>() {
+		@Override
+		public Object call() {
+		    island.nextGeneration();
+		    return null;
+		}
+	    });
+	}
+	invokeAll(tasks);
+
+	generation++;
+	if (islands.length > 1 && configuration.getMigrationInterval() > 0
+		&& generation % configuration.getMigrationInterval() == 0) {
+	    migrate();
+	}
+    }
+
+    /**
+     * Sends the best chromosomes from each island to other island according
+     * to migration topology. The emigrants are taken from all islands before
+     * any immigration, so the chromosomes move only one step at a time.
+     */
+    protected void migrate() {
+	int count = islands.length;
+	List<List<TSPChromosome>> emigrants = new ArrayList<>();
+	for (TSPMigratingEngine island : islands) {
+	    emigrants.add(island.emigrate(configuration.getMigrationSize()));
+	}
+	for (int i = 0; i < count; i++) {
+	    int target;
+	    if (configuration.getMigrationTopology() == MigrationTopology.RANDOM) {
+		// any island but the source one
+		target = (i + 1 + rnd.nextInt(count - 1)) % count;
+	    } else {
+		target = (i + 1) % count;
+	    }
+	    islands[target].immigrate(emigrants.get(i));
+	}
+    }
+}
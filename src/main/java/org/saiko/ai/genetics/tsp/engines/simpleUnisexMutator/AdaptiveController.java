@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp.engines.simpleUnisexMutator;
+
+import java.util.List;
+
+import org.saiko.ai.genetics.tsp.TSPChromosome;
+import org.saiko.ai.genetics.tsp.TSPConfiguration;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ *         Adaptive control of the mutation ratio and the population size. After
+ *         each generation the controller measures the diversity of the
+ *         population - the ratio of different costs in the ordered population
+ *         - and the progress of the best cost:
+ *
+ *         <ul>
+ *         <li>when the diversity collapses, the mutation ratio grows, otherwise
+ *         it returns to the configured one</li>
+ *         <li>when the best cost did not improve for STALL_AGE generations,
+ *         the population shrinks - the generations are cheaper while the
+ *         computation is stalled</li>
+ *         <li>when the population improves but the diversity collapses, the
+ *         population grows faster, so it keeps more different tours</li>
+ *         <li>otherwise the population grows by the configured growth</li>
+ *         </ul>
+ *
+ *         The population size stays between 1/4 and 4 times of the initial
+ *         population size, the mutation ratio between the configured ratio
+ *         and 1.
+ *
+ * @see org.saiko.ai.genetics.tsp.TSPConfiguration#isAdaptive()
+ */
+public class AdaptiveController {
+
+    /**
+     * the population with lower ratio of different costs is not diverse
+     */
+    protected static final double LOW_DIVERSITY = 0.25;
+
+    /**
+     * generations without improvement after which the computation is stalled
+     */
+    protected static final int STALL_AGE = 5;
+
+    /**
+     * step of change of the population size
+     */
+    protected static final double POPULATION_STEP = 0.1;
+
+    /**
+     * step of change of the mutation ratio
+     */
+    protected static final double MUTATION_STEP = 1.25;
+
+    /**
+     * range of the population size relative to the initial population size
+     */
+    protected static final int RANGE = 4;
+
+    /**
+     * minimal population size
+     */
+    protected static final int MIN_POPULATION = 4;
+
+    /**
+     * configuration paramteres of application
+     */
+    protected final TSPConfiguration configuration;
+
+    /**
+     * current population size
+     */
+    protected int populationSize;
+
+    /**
+     * current mutation ratio (0..1)
+     */
+    protected double mutationRatio;
+
+    /**
+     * diversity of the population in the last generation
+     */
+    protected double diversity = 1;
+
+    /**
+     * the best cost in the last generation
+     */
+    protected double bestCost = Double.MAX_VALUE;
+
+    /**
+     * generations without improvement of the best cost
+     */
+    protected int stallAge;
+
+    /**
+     * @param configuration
+     */
+    public AdaptiveController(TSPConfiguration configuration) {
+	this.configuration = configuration;
+	populationSize = configuration.getInitialPopulationSize();
+	mutationRatio = configuration.getMutationRatio();
+    }
+
+    /**
+     * Adjusts the population size and the mutation ratio after the generation
+     *
+     * @param population
+     *            the population ordered by the cost
+     */
+    public void update(List<TSPChromosome> population) {
+	int size = population.size();
+	if (size == 0) {
+	    return;
+	}
+	int different = 1;
+	for (int i = 1; i < size; i++) {
+	    if (population.get(i).getTotalCost() != population.get(i - 1)
+		    .getTotalCost()) {
+		different++;
+	    }
+	}
+	diversity = (double) different / size;
+
+	double cost = population.get(0).getTotalCost();
+	if (cost < bestCost) {
+	    bestCost = cost;
+	    stallAge = 0;
+	} else {
+	    stallAge++;
+	}
+
+	double configured = configuration.getMutationRatio();
+	if (diversity < LOW_DIVERSITY) {
+	    mutationRatio = Math.min(1, mutationRatio * MUTATION_STEP);
+	} else {
+	    mutationRatio = Math.max(configured, mutationRatio / MUTATION_STEP);
+	}
+	if (stallAge >= STALL_AGE) {
+	    populationSize = (int) (populationSize * (1 - POPULATION_STEP));
+	} else if (diversity < LOW_DIVERSITY) {
+	    populationSize = (int) Math.ceil(populationSize
+		    * (1 + POPULATION_STEP));
+	} else {
+	    populationSize = (int) (populationSize * (1 + configuration
+		    .getPopulationGrow()));
+	}
+
+	int initial = configuration.getInitialPopulationSize();
+	populationSize = Math.max(Math.max(MIN_POPULATION, initial / RANGE),
+		Math.min(initial * RANGE, populationSize));
+    }
+
+    /**
+     * @return the population size for the next generation
+     */
+    public int getPopulationSize() {
+	return populationSize;
+    }
+
+    /**
+     * @return the mutation ratio (0..1) for the next generation
+     */
+    public double getMutationRatio() {
+	return mutationRatio;
+    }
+
+    /**
+     * @return ratio of different costs in the population of the last
+     *         generation
+     */
+    public double getDiversity() {
+	return diversity;
+    }
+}
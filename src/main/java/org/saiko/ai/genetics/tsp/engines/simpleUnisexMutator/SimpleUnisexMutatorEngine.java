@@ -8,11 +8,20 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 import org.saiko.ai.genetics.tsp.City;
+import org.saiko.ai.genetics.tsp.GenerationTimer;
+import org.saiko.ai.genetics.tsp.GenerationTimer.Phase;
 import org.saiko.ai.genetics.tsp.TSPChromosome;
 import org.saiko.ai.genetics.tsp.TSPConfiguration;
-import org.saiko.ai.genetics.tsp.TSPEngine;
+import org.saiko.ai.genetics.tsp.TSPExecutors;
+import org.saiko.ai.genetics.tsp.TSPMigratingEngine;
+import org.saiko.ai.genetics.tsp.TSPPopulationEngine;
+import org.saiko.ai.genetics.tsp.TSPStopSignal;
+import org.saiko.ai.genetics.tsp.TSPStoppableEngine;
+import org.saiko.ai.genetics.tsp.TSPTimedEngine;
 
 /**
  * @author dusan.saiko@gmail.com
@@ -25,17 +34,26 @@ import org.saiko.ai.genetics.tsp.TSPEngine;
  *         supper class for overriding.
  * 
  *         Initialization and nextGeneration method implement multi thread
- *         algorithm which uses at maximum
- *         Runtime.getRuntime().availableProcessors()*2 threads.
+ *         algorithm which splits the work into
+ *         Runtime.getRuntime().availableProcessors()*2 tasks of the shared
+ *         compute pool.
  * 
  *         This algorithm creates child in such way, that it just randomly swaps
  *         two items in from parent
  * 
+ *         With adaptive configuration the mutation ratio and the population
+ *         size are adjusted after each generation by AdaptiveController.
+ * 
+ *         The phases of nextGeneration() are measured by GenerationTimer - the
+ *         trim of the population, the children production, the local search
+ *         and the cost evaluation of the children and the sort.
+ * 
  * @see #getChild(TSPChromosome)
  * @see org.saiko.ai.genetics.tsp.engines.crossover.GreedyCrossoverEngine
  * @see org.saiko.ai.genetics.tsp.TSPEngine
  */
-public class SimpleUnisexMutatorEngine implements TSPEngine {
+public class SimpleUnisexMutatorEngine implements TSPMigratingEngine,
+	TSPPopulationEngine, TSPTimedEngine, TSPStoppableEngine {
 
     /**
      * Population of the chromosomes
@@ -66,6 +84,29 @@ public class SimpleUnisexMutatorEngine implements TSPEngine {
      */
     protected TSPConfiguration configuration;
 
+    /**
+     * adaptive control of the mutation ratio and the population size, null
+     * if the parameters are fixed
+     */
+    protected AdaptiveController adaptiveController;
+
+    /**
+     * Number of tasks used for computation of one generation. 0 means
+     * Runtime.getRuntime().availableProcessors()*2 tasks, 1 means the
+     * computation is done directly in the calling thread.
+     */
+    protected int threadCount = 0;
+
+    /**
+     * times of the phases of the generations
+     */
+    protected GenerationTimer generationTimer = new GenerationTimer();
+
+    /**
+     * stop signal of the computation, checked before each child
+     */
+    protected TSPStopSignal stopSignal = TSPStopSignal.NEVER;
+
     /**
      * @see org.saiko.ai.genetics.tsp.TSPEngine#initialize
      */
@@ -80,43 +121,97 @@ public class SimpleUnisexMutatorEngine implements TSPEngine {
 
 	populationSize = configuration.getInitialPopulationSize();
 
-	final List<Integer> runningThreads = Collections
-		.synchronizedList(new ArrayList<Integer>());
-
-	final Thread parentThread = Thread.currentThread();
-
-	// this has to be computed again as availableProcessors() can change in
-	// the time
-	int maxThreadCount = Runtime.getRuntime().availableProcessors() * 2;
-
-	for (int i = 0; i < maxThreadCount; i++) {
-	    runningThreads.add(1);
-	    new Thread(new Runnable() {
-		@Override
-		public void run() {
-		    while (population.size() < populationSize) {
-			TSPChromosome chromosome = new TSPChromosome(cities);
-			randomize(rnd, chromosome.getCities());
-			chromosome.computeCost();
-			population.add(chromosome);
-		    }
-		    runningThreads.remove(0);
-		    parentThread.interrupt();
+	runInThreads(getThreadCount(), new Runnable() {
+	    @Override
+	    public void run() {
+		while (population.size() < populationSize) {
+		    TSPChromosome chromosome = new TSPChromosome(cities);
+		    randomize(rnd, chromosome.getCities());
+		    chromosome.computeCost();
+		    population.add(chromosome);
 		}
-	    }).start();
-	}
-	while (runningThreads.size() > 0) {
-	    try {
-		Thread.sleep(1000);
-	    } catch (Throwable e) {
-		// nop
 	    }
-	}
+	});
 
 	orderPopulation();
 	// recompute utation ratio so we can use
 	// if(rnd.nextInt(mutationRatio)==0)
 	mutationRatio = (int) (1 / configuration.getMutationRatio());
+
+	adaptiveController = configuration.isAdaptive() ? new AdaptiveController(
+		configuration) : null;
+    }
+
+    /**
+     * @param threadCount
+     *            number of threads used for computation of one generation. 0
+     *            means Runtime.getRuntime().availableProcessors()*2 threads,
+     *            1 means the computation is done in the calling thread.
+     */
+    public void setThreadCount(int threadCount) {
+	this.threadCount = threadCount;
+    }
+
+    /**
+     * @see org.saiko.ai.genetics.tsp.TSPTimedEngine#getGenerationTimer()
+     */
+    @Override
+    public GenerationTimer getGenerationTimer() {
+	return generationTimer;
+    }
+
+    /**
+     * @param timer
+     *            times of the phases, e.g. shared by the islands of the
+     *            island model
+     */
+    public void setGenerationTimer(GenerationTimer timer) {
+	this.generationTimer = timer;
+    }
+
+    /**
+     * @see org.saiko.ai.genetics.tsp.TSPStoppableEngine#setStopSignal(org.saiko.ai.genetics.tsp.TSPStopSignal)
+     */
+    @Override
+    public void setStopSignal(TSPStopSignal signal) {
+	this.stopSignal = signal;
+    }
+
+    /**
+     * @return number of threads to use for the computation
+     */
+    protected int getThreadCount() {
+	if (threadCount > 0) {
+	    return threadCount;
+	}
+	// this has to be computed again as availableProcessors() can change in
+	// the time
+	return Runtime.getRuntime().availableProcessors() * 2;
+    }
+
+    /**
+     * Runs the task given number of times in the shared compute pool and
+     * waits until all of them are finished. For one thread the task is run in
+     * the calling thread.
+     * 
+     * @param threads
+     * @param task
+     * @see TSPExecutors#getComputePool()
+     */
+    protected void runInThreads(int threads, final Runnable task) {
+	if (threads <= 1) {
+	    task.run();
+	    return;
+	}
+
+	ForkJoinPool pool = TSPExecutors.getComputePool();
+	List<ForkJoinTask<?>> tasks = new ArrayList<>(threads);
+	for (int i = 0; i < threads; i++) {
+	    tasks.add(pool.submit(task));
+	}
+	for (ForkJoinTask<?> t : tasks) {
+	    t.join();
+	}
     }
 
     /**
@@ -177,6 +272,44 @@ public class SimpleUnisexMutatorEngine implements TSPEngine {
 	return population.get(0);
     }
 
+    /**
+     * @see org.saiko.ai.genetics.tsp.TSPPopulationEngine#getPopulation()
+     */
+    @Override
+    public List<TSPChromosome> getPopulation() {
+	synchronized (population) {
+	    return new ArrayList<>(population);
+	}
+    }
+
+    /**
+     * @see org.saiko.ai.genetics.tsp.TSPMigratingEngine#emigrate(int)
+     */
+    @Override
+    public List<TSPChromosome> emigrate(int count) {
+	List<TSPChromosome> emigrants = new ArrayList<>();
+	for (int i = 0; i < count && i < population.size(); i++) {
+	    emigrants.add(new TSPChromosome(population.get(i).getCities()));
+	}
+	return emigrants;
+    }
+
+    /**
+     * Immigrants replace the worst part of the population
+     * 
+     * @see org.saiko.ai.genetics.tsp.TSPMigratingEngine#immigrate(List)
+     */
+    @Override
+    public void immigrate(List<TSPChromosome> immigrants) {
+	population.addAll(immigrants);
+	orderPopulation();
+	int size = population.size();
+	while (size > populationSize) {
+	    population.remove(size - 1);
+	    size--;
+	}
+    }
+
     /**
      * Orders population of chromosomes according to the costs of chromosomes in
      * ascending order
@@ -201,46 +334,36 @@ public class SimpleUnisexMutatorEngine implements TSPEngine {
 	final int bestCount = (int) (populationSize * 0.5);
 
 	// leave only the best part of population
+	long mark = generationTimer.mark();
 	int size = population.size();
 	while (size > bestCount) {
 	    population.remove(size - 1);
 	    size--;
 	}
+	generationTimer.add(Phase.TRIM, mark);
 
 	// mutate from the first half of population
-	final List<Integer> runningThreads = Collections
-		.synchronizedList(new ArrayList<Integer>());
-	final Thread parentThread = Thread.currentThread();
-
-	// this has to be computed again as availableProcessors() can change in
-	// the time
-	int maxThreadCount = Runtime.getRuntime().availableProcessors() * 2;
+	int maxThreadCount = getThreadCount();
 
 	// it does not matter f countPerThread will not be exact
 	final int countPerThread = bestCount / maxThreadCount;
 
-	for (int i = 0; i < maxThreadCount; i++) {
-	    runningThreads.add(1);
-	    new Thread(new Runnable() {
-		@Override
-		public void run() {
-		    for (int index = 0; index < countPerThread; index++) {
-			growPopulation(bestCount);
-		    }
-		    runningThreads.remove(0);
-		    parentThread.interrupt();
+	runInThreads(maxThreadCount, new Runnable() {
+	    @Override
+	    public void run() {
+		// the local search and the cost are measured by the children
+		long childrenMark = generationTimer.mark();
+		// the stopped generation keeps the children created so far
+		for (int index = 0; index < countPerThread
+			&& !stopSignal.isStopRequested(); index++) {
+		    growPopulation(bestCount);
 		}
-	    }).start();
-	}
-	while (runningThreads.size() > 0) {
-	    try {
-		Thread.sleep(1000);
-	    } catch (Throwable e) {
-		// nop
+		generationTimer.add(Phase.CHILDREN, childrenMark);
 	    }
-	}
+	});
 
 	// now, order the chromosomes according to the costs,
+	mark = generationTimer.mark();
 	orderPopulation();
 
 	// now align the population size
@@ -252,11 +375,27 @@ public class SimpleUnisexMutatorEngine implements TSPEngine {
 	    population.remove(size - 1);
 	    size--;
 	}
+	generationTimer.add(Phase.SORT, mark);
+
+	if (adaptiveController != null) {
+	    adaptiveController.update(population);
+	    populationSize = adaptiveController.getPopulationSize();
+	    mutationRatio = Math.max(1, (int) Math.round(1 / adaptiveController
+		    .getMutationRatio()));
+	} else {
+	    // if specified by TSP_POPULATION_GROW,
+	    // grow the population
+	    populationSize = (int) (populationSize * (1 + configuration
+		    .getPopulationGrow()));
+	}
+    }
 
-	// if specified by TSP_POPULATION_GROW,
-	// grow the population
-	populationSize = (int) (populationSize * (1 + configuration
-		.getPopulationGrow()));
+    /**
+     * @return adaptive control of the parameters, null if the parameters are
+     *         fixed
+     */
+    public AdaptiveController getAdaptiveController() {
+	return adaptiveController;
     }
 
     /**
@@ -278,13 +417,26 @@ public class SimpleUnisexMutatorEngine implements TSPEngine {
     protected void getChild(TSPChromosome parent) {
 
 	// clone the cities to new array
-	City newCities[] = parent.getCities();
+	City newCities[] = parent.getCities().clone();
 
 	// aply random swaping to cities
 	mutate(newCities);
 
 	// add new chromosome to population
-	population.add(new TSPChromosome(newCities));
+	addChild(newCities);
+    }
+
+    /**
+     * Computes the cost of the child and adds it to the population
+     * 
+     * @param cities
+     *            tour of the child
+     */
+    protected void addChild(City cities[]) {
+	long mark = generationTimer.mark();
+	TSPChromosome child = new TSPChromosome(cities);
+	generationTimer.add(Phase.COST, mark);
+	population.add(child);
     }
 
     /**
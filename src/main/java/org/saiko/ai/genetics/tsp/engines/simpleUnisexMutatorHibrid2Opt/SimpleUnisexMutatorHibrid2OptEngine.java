@@ -3,10 +3,15 @@
  */
 package org.saiko.ai.genetics.tsp.engines.simpleUnisexMutatorHibrid2Opt;
 
+import java.util.concurrent.ForkJoinPool;
+
 import org.saiko.ai.genetics.tsp.City;
+import org.saiko.ai.genetics.tsp.GenerationTimer.Phase;
 import org.saiko.ai.genetics.tsp.TSPChromosome;
+import org.saiko.ai.genetics.tsp.TSPExecutors;
 import org.saiko.ai.genetics.tsp.engines.crossoverHibrid2opt.GreedyCrossoverHibrid2OptEngine;
 import org.saiko.ai.genetics.tsp.engines.simpleUnisexMutator.SimpleUnisexMutatorEngine;
+import org.saiko.ai.genetics.tsp.jfr.FlightEvents;
 
 /**
  * @author dusan.saiko@gmail.com
@@ -39,9 +44,30 @@ public class SimpleUnisexMutatorHibrid2OptEngine extends SimpleUnisexMutatorEngi
       mutate(child1);
 
       //addon
-      GreedyCrossoverHibrid2OptEngine.heuristics2opt(child1);
+      optimize2opt(child1);
       
       //add new chromosome to population
-      population.add(new TSPChromosome(child1));
+      addChild(child1);
+   }
+
+   /**
+    * Applies 2opt heuristics to the chromosome. Maps with at least
+    * parallel2optThreshold cities are optimized by the parallel version.
+    * @param cities - chromosome to be optimalized
+    * @see GreedyCrossoverHibrid2OptEngine#heuristics2opt(City[])
+    * @see GreedyCrossoverHibrid2OptEngine#parallelHeuristics2opt(City[], ForkJoinPool)
+    */
+   protected void optimize2opt(City[] cities) {
+      long mark=generationTimer.mark();
+      Object event=FlightEvents.beginLocalSearch();
+      int threshold=configuration.getParallel2optThreshold();
+      if(threshold>0 && cities.length>=threshold) {
+         GreedyCrossoverHibrid2OptEngine.parallelHeuristics2opt(cities,TSPExecutors.getComputePool());
+         FlightEvents.endLocalSearch(event,"parallel 2opt",cities.length);
+      } else {
+         GreedyCrossoverHibrid2OptEngine.heuristics2opt(cities);
+         FlightEvents.endLocalSearch(event,"2opt",cities.length);
+      }
+      generationTimer.add(Phase.LOCAL_SEARCH,mark);
    }
 }
\ No newline at end of file
@@ -0,0 +1,429 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp.engines.simulatedAnnealing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.saiko.ai.genetics.tsp.City;
+import org.saiko.ai.genetics.tsp.TSPChromosome;
+import org.saiko.ai.genetics.tsp.TSPConfiguration;
+import org.saiko.ai.genetics.tsp.TSPExecutors;
+import org.saiko.ai.genetics.tsp.TSPStopSignal;
+import org.saiko.ai.genetics.tsp.TSPStoppableEngine;
+import org.saiko.ai.genetics.tsp.TSPThroughput;
+import org.saiko.ai.genetics.tsp.engines.simpleUnisexMutator.SimpleUnisexMutatorEngine;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ *         Simulated annealing for solving the Traveling Salesman Problem. It
+ *         is not a genetic algorithm - each chain improves one tour by random
+ *         2opt and Or-opt moves. The change of the cost of a move is computed
+ *         from the four or six touched edges only, so the move is evaluated
+ *         in constant time and applied in place, without creating any new
+ *         chromosome. Worse moves are accepted with probability
+ *         exp(-delta/temperature).
+ *
+ *         After each generation the temperature is multiplied by the cooling
+ *         rate. A chain which did not improve its best tour for reheatAge
+ *         generations continues from its best tour with half of the initial
+ *         temperature.
+ *
+ *         The chains are independent and run in parallel in the shared compute
+ *         pool, the population size is the number of chains. The chains check
+ *         the stop signal every STOP_CHECK_MOVES moves.
+ *
+ * @see org.saiko.ai.genetics.tsp.TSPConfiguration#getCoolingRate()
+ * @see org.saiko.ai.genetics.tsp.TSPConfiguration#getReheatAge()
+ * @see org.saiko.ai.genetics.tsp.TSPEngine
+ */
+public class SimulatedAnnealingEngine implements TSPStoppableEngine {
+
+    /**
+     * number of moves of one chain in one generation, per city of the map
+     */
+    protected static final int MOVES_PER_CITY = 100;
+
+    /**
+     * maximal length of the segment moved by Or-opt move
+     */
+    protected static final int OR_OPT_LENGTH = 3;
+
+    /**
+     * temperature of reheated chain relative to the initial temperature
+     */
+    protected static final double REHEAT_RATIO = 0.5;
+
+    /**
+     * number of moves between the checks of the stop signal, power of two
+     */
+    protected static final int STOP_CHECK_MOVES = 256;
+
+    /**
+     * One annealing chain - the current tour and the best tour found by the
+     * chain
+     */
+    protected static class Chain {
+	/** current tour */
+	City tour[];
+
+	/** cost of the current tour */
+	double cost;
+
+	/** the best tour of the chain */
+	City best[];
+
+	/** cost of the best tour */
+	double bestCost;
+
+	/** current temperature */
+	double temperature;
+
+	/** generations without improvement of the best tour */
+	int bestAge;
+
+	/** buffer for the segment moved by Or-opt */
+	City segment[] = new City[OR_OPT_LENGTH];
+
+	/** random generator of the chain */
+	Random rnd;
+    }
+
+    /**
+     * parallel chains
+     */
+    protected Chain chains[];
+
+    /**
+     * temperature at the start of the computation
+     */
+    protected double initialTemperature;
+
+    /**
+     * the best chromosome found by any chain
+     */
+    protected TSPChromosome bestChromosome;
+
+    /**
+     * configuration paramteres of application
+     *
+     * @see TSPConfiguration
+     */
+    protected TSPConfiguration configuration;
+
+    /**
+     * stop signal of the computation
+     */
+    protected TSPStopSignal stopSignal = TSPStopSignal.NEVER;
+
+    /**
+     * @see org.saiko.ai.genetics.tsp.TSPStoppableEngine#setStopSignal(org.saiko.ai.genetics.tsp.TSPStopSignal)
+     */
+    @Override
+    public void setStopSignal(TSPStopSignal signal) {
+	this.stopSignal = signal;
+    }
+
+    /**
+     * @see org.saiko.ai.genetics.tsp.TSPEngine#initialize
+     */
+    @Override
+    public void initialize(TSPConfiguration appConfiguration, City cities[]) {
+	this.configuration = appConfiguration;
+
+	int chainCount = configuration.getAnnealingChains();
+	if (chainCount <= 0) {
+	    chainCount = Runtime.getRuntime().availableProcessors();
+	}
+
+	Random rnd = new Random();
+	chains = new Chain[chainCount];
+	for (int i = 0; i < chainCount; i++) {
+	    Chain chain = new Chain();
+	    chain.rnd = new Random(rnd.nextLong());
+	    chain.tour = cities.clone();
+	    SimpleUnisexMutatorEngine.randomize(chain.rnd, chain.tour);
+	    chain.cost = cost(chain.tour);
+	    chain.best = chain.tour.clone();
+	    chain.bestCost = chain.cost;
+	    chains[i] = chain;
+	}
+
+	initialTemperature = configuration.getInitialTemperature();
+	if (initialTemperature <= 0) {
+	    initialTemperature = estimateTemperature(cities, rnd);
+	}
+	for (Chain chain : chains) {
+	    chain.temperature = initialTemperature;
+	}
+
+	bestChromosome = null;
+	updateBestChromosome();
+    }
+
+    /**
+     * Computes the initial temperature from the map. The temperature is the
+     * average length of the edge between neighbouring cities, so the chain
+     * can leave a local optimum but does not walk randomly over the map.
+     *
+     * @param cities
+     * @param rnd
+     * @return initial temperature
+     */
+    protected double estimateTemperature(City cities[], Random rnd) {
+	int n = cities.length;
+	if (n < 2) {
+	    return 1;
+	}
+	// the distance to the nearest of few random cities approximates the
+	// length of edge of good tour
+	int samples = Math.min(n, 100);
+	double sum = 0;
+	for (int s = 0; s < samples; s++) {
+	    City city = cities[rnd.nextInt(n)];
+	    double nearest = Double.MAX_VALUE;
+	    for (City other : cities) {
+		if (other != city) {
+		    nearest = Math.min(nearest, city.cost(other));
+		}
+	    }
+	    sum += nearest;
+	}
+	return Math.max(sum / samples, Double.MIN_NORMAL);
+    }
+
+    /**
+     * @param tour
+     * @return cost of the round trip through the tour
+     */
+    protected static double cost(City tour[]) {
+	double cost = 0;
+	for (int i = 0; i < tour.length - 1; i++) {
+	    cost += tour[i].cost(tour[i + 1]);
+	}
+	return cost + tour[tour.length - 1].cost(tour[0]);
+    }
+
+    /**
+     * @return number of chains
+     * @see org.saiko.ai.genetics.tsp.TSPEngine#getPopulationSize
+     */
+    @Override
+    public int getPopulationSize() {
+	return chains.length;
+    }
+
+    /**
+     * @see org.saiko.ai.genetics.tsp.TSPEngine#getBestChromosome
+     */
+    @Override
+    public TSPChromosome getBestChromosome() {
+	return bestChromosome;
+    }
+
+    /**
+     * @return the chains of the engine
+     */
+    public Chain[] getChains() {
+	return chains;
+    }
+
+    /**
+     * @see org.saiko.ai.genetics.tsp.TSPEngine#nextGeneration
+     */
+    @Override
+    public void nextGeneration() {
+	if (chains.length == 1) {
+	    anneal(chains[0]);
+	} else {
+	    List<Callable<Object>> tasks = new ArrayList<>();
+	    for (final Chain chain : chains) {
+		tasks.add(new Callable<Object>() {
+		    @Override
+		    public Object call() {
+			anneal(chain);
+			return null;
+		    }
+		});
+	    }
+	    try {
+		for (Future<Object> future : TSPExecutors.getComputePool()
+			.invokeAll(tasks)) {
+		    future.get();
+		}
+	    } catch (InterruptedException e) {
+		Thread.currentThread().interrupt();
+	    } catch (ExecutionException e) {
+		throw new IllegalStateException(e.getCause());
+	    }
+	}
+	updateBestChromosome();
+    }
+
+    /**
+     * Creates the best chromosome if some chain found better tour
+     */
+    protected void updateBestChromosome() {
+	Chain bestChain = chains[0];
+	for (Chain chain : chains) {
+	    if (chain.bestCost < bestChain.bestCost) {
+		bestChain = chain;
+	    }
+	}
+	if (bestChromosome == null
+		|| bestChain.bestCost < bestChromosome.getTotalCost()) {
+	    bestChromosome = new TSPChromosome(bestChain.best);
+	}
+    }
+
+    /**
+     * One generation of the chain - tries the moves, cools the chain and
+     * keeps its best tour.
+     *
+     * @param chain
+     */
+    protected void anneal(Chain chain) {
+	int n = chain.tour.length;
+	if (n >= 4) {
+	    int moves = MOVES_PER_CITY * n;
+	    long tried = 0;
+	    long applied = 0;
+	    long lookups = 0;
+	    for (int m = 0; m < moves; m++) {
+		if ((m & (STOP_CHECK_MOVES - 1)) == 0
+			&& stopSignal.isStopRequested()) {
+		    break;
+		}
+		tried++;
+		if (n >= 2 * OR_OPT_LENGTH + 2 && chain.rnd.nextBoolean()) {
+		    lookups += 6;
+		    if (orOptMove(chain)) {
+			applied++;
+		    }
+		} else {
+		    lookups += 4;
+		    if (twoOptMove(chain)) {
+			applied++;
+		    }
+		}
+	    }
+	    // no rounding errors from the sum of deltas
+	    chain.cost = cost(chain.tour);
+	    TSPThroughput throughput = TSPThroughput.of(chain.tour);
+	    if (throughput != null) {
+		throughput.countMoves(tried, applied, lookups);
+		throughput.countEvaluation(n);
+	    }
+	}
+
+	chain.temperature *= configuration.getCoolingRate();
+	if (chain.cost < chain.bestCost) {
+	    System.arraycopy(chain.tour, 0, chain.best, 0, n);
+	    chain.bestCost = chain.cost;
+	    chain.bestAge = 0;
+	} else {
+	    chain.bestAge++;
+	    if (configuration.getReheatAge() > 0
+		    && chain.bestAge >= configuration.getReheatAge()) {
+		// continue from the best tour with higher temperature
+		System.arraycopy(chain.best, 0, chain.tour, 0, n);
+		chain.cost = chain.bestCost;
+		chain.temperature = initialTemperature * REHEAT_RATIO;
+		chain.bestAge = 0;
+	    }
+	}
+    }
+
+    /**
+     * @param chain
+     * @param delta
+     *            - change of the cost by the move
+     * @return true if the move should be done
+     */
+    protected static boolean accept(Chain chain, double delta) {
+	return delta < 0
+		|| chain.rnd.nextDouble() < Math.exp(-delta / chain.temperature);
+    }
+
+    /**
+     * Random 2opt move - the part of tour between i+1 and j is reversed, so
+     * the edges (a,b) and (c,d) are replaced by the edges (a,c) and (b,d).
+     *
+     * @param chain
+     * @return true if the move was done
+     */
+    protected static boolean twoOptMove(Chain chain) {
+	City tour[] = chain.tour;
+	int n = tour.length;
+	int i = chain.rnd.nextInt(n - 2);
+	int j = i + 2 + chain.rnd.nextInt(n - i - 2);
+	if (i == 0 && j == n - 1) {
+	    // the same edges
+	    return false;
+	}
+	City a = tour[i];
+	City b = tour[i + 1];
+	City c = tour[j];
+	City d = tour[(j + 1) % n];
+	double delta = a.cost(c) + b.cost(d) - a.cost(b) - c.cost(d);
+	if (accept(chain, delta)) {
+	    for (int l = i + 1, r = j; l < r; l++, r--) {
+		City swap = tour[l];
+		tour[l] = tour[r];
+		tour[r] = swap;
+	    }
+	    chain.cost += delta;
+	    return true;
+	}
+	return false;
+    }
+
+    /**
+     * Random Or-opt move - the segment of one to three cities is moved
+     * between other two neighbouring cities x and y.
+     *
+     * @param chain
+     * @return true if the move was done
+     */
+    protected static boolean orOptMove(Chain chain) {
+	City tour[] = chain.tour;
+	int n = tour.length;
+	int length = 1 + chain.rnd.nextInt(OR_OPT_LENGTH);
+	// segment s..e does not contain the first city, so p is before it
+	int s = 1 + chain.rnd.nextInt(n - length);
+	int e = s + length - 1;
+	// the segment is inserted between k and k+1
+	int k = chain.rnd.nextInt(n);
+	if (k >= s - 1 && k <= e) {
+	    return false;
+	}
+	City p = tour[s - 1];
+	City next = tour[(e + 1) % n];
+	City x = tour[k];
+	City y = tour[(k + 1) % n];
+	City first = tour[s];
+	City last = tour[e];
+	double delta = p.cost(next) + x.cost(first) + last.cost(y)
+		- p.cost(first) - last.cost(next) - x.cost(y);
+	if (accept(chain, delta)) {
+	    City segment[] = chain.segment;
+	    System.arraycopy(tour, s, segment, 0, length);
+	    if (k > e) {
+		System.arraycopy(tour, e + 1, tour, s, k - e);
+		System.arraycopy(segment, 0, tour, k - length + 1, length);
+	    } else {
+		System.arraycopy(tour, k + 1, tour, k + 1 + length, s - k - 1);
+		System.arraycopy(segment, 0, tour, k + 1, length);
+	    }
+	    chain.cost += delta;
+	    return true;
+	}
+	return false;
+    }
+}
\ No newline at end of file
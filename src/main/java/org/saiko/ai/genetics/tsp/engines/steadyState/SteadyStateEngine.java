@@ -0,0 +1,357 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp.engines.steadyState;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.saiko.ai.genetics.tsp.City;
+import org.saiko.ai.genetics.tsp.TSPChromosome;
+import org.saiko.ai.genetics.tsp.TSPConfiguration;
+import org.saiko.ai.genetics.tsp.TSPExecutors;
+import org.saiko.ai.genetics.tsp.TSPMigratingEngine;
+import org.saiko.ai.genetics.tsp.TSPPopulationEngine;
+import org.saiko.ai.genetics.tsp.TSPStopSignal;
+import org.saiko.ai.genetics.tsp.TSPStoppableEngine;
+import org.saiko.ai.genetics.tsp.engines.crossover.GreedyCrossoverEngine;
+import org.saiko.ai.genetics.tsp.engines.crossoverHibrid2opt.GreedyCrossoverHibrid2OptEngine;
+import org.saiko.ai.genetics.tsp.engines.simpleUnisexMutator.SimpleUnisexMutatorEngine;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ *         Asynchronous steady state genetic algorithm. There is no barrier
+ *         between the children - worker tasks continuously select two
+ *         parents by tournament, create the child by greedy crossover, random
+ *         mutation and 2opt heuristics and the child replaces worse chromosome
+ *         of the population. The population is array of atomic references, so
+ *         the replacement is lock free and a slow child does not stop other
+ *         workers.
+ *
+ *         nextGeneration() runs the workers as tasks of the shared compute
+ *         pool until they create next populationSize/2 children or the stop
+ *         signal is raised, so the engine has no threads of its own.
+ *
+ * @see org.saiko.ai.genetics.tsp.engines.crossover.GreedyCrossoverEngine#haveSex(TSPChromosome,
+ *      TSPChromosome)
+ * @see org.saiko.ai.genetics.tsp.TSPEngine
+ */
+public class SteadyStateEngine implements TSPMigratingEngine,
+	TSPPopulationEngine, TSPStoppableEngine {
+
+    /**
+     * Population of chromosomes, not ordered
+     */
+    protected AtomicReferenceArray<TSPChromosome> population;
+
+    /**
+     * The best chromosome of the population
+     */
+    protected final AtomicReference<TSPChromosome> best = new AtomicReference<>();
+
+    /**
+     * Number of children created
+     */
+    protected final AtomicLong births = new AtomicLong();
+
+    /**
+     * Number of children which workers are allowed to create
+     */
+    protected volatile long quota;
+
+    /**
+     * Population size
+     */
+    protected int populationSize;
+
+    /**
+     * Number of worker tasks, 0 means one per processor
+     */
+    protected int threadCount = 0;
+
+    /**
+     * Cities of the map
+     */
+    protected City cities[];
+
+    /**
+     * configuration paramteres of application
+     *
+     * @see TSPConfiguration
+     */
+    protected TSPConfiguration configuration;
+
+    /**
+     * stop signal of the computation, checked before each child
+     */
+    protected TSPStopSignal stopSignal = TSPStopSignal.NEVER;
+
+    /**
+     * @see org.saiko.ai.genetics.tsp.TSPStoppableEngine#setStopSignal(org.saiko.ai.genetics.tsp.TSPStopSignal)
+     */
+    @Override
+    public void setStopSignal(TSPStopSignal signal) {
+	this.stopSignal = signal;
+    }
+
+    /**
+     * @see org.saiko.ai.genetics.tsp.TSPEngine#initialize
+     */
+    @Override
+    public void initialize(TSPConfiguration appConfiguration, City cities[]) {
+	this.configuration = appConfiguration;
+	this.cities = cities;
+	populationSize = Math.max(2, configuration.getInitialPopulationSize());
+	population = new AtomicReferenceArray<>(populationSize);
+	best.set(null);
+	births.set(0);
+	quota = 0;
+
+	// workers fill the population first
+	runWorkers(true);
+    }
+
+    /**
+     * @param threadCount
+     *            number of worker tasks, 0 means one per processor
+     */
+    public void setThreadCount(int threadCount) {
+	this.threadCount = threadCount;
+    }
+
+    /**
+     * @return number of worker tasks
+     */
+    protected int getThreadCount() {
+	if (threadCount > 0) {
+	    return threadCount;
+	}
+	return Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Runs the worker tasks in the compute pool and waits until they finish
+     *
+     * @param fill
+     *            true if the workers fill the population, false if they
+     *            create the children up to quota
+     */
+    protected void runWorkers(final boolean fill) {
+	final int workers = getThreadCount();
+	List<Callable<Object>> tasks = new ArrayList<>(workers);
+	for (int i = 0; i < workers; i++) {
+	    final int index = i;
+	    tasks.add(new Callable<Object>() {
+		@Override
+		public Object call() {
+		    if (fill) {
+			fillPopulation(index, workers);
+		    } else {
+			work();
+		    }
+		    return null;
+		}
+	    });
+	}
+	for (Future<Object> future : TSPExecutors.getComputePool().invokeAll(
+		tasks)) {
+	    try {
+		future.get();
+	    } catch (InterruptedException e) {
+		Thread.currentThread().interrupt();
+		return;
+	    } catch (ExecutionException e) {
+		throw new IllegalStateException(e.getCause());
+	    }
+	}
+    }
+
+    /**
+     * Creates random chromosomes at every workers-th place of population
+     *
+     * @param index
+     *            index of worker
+     * @param workers
+     *            number of workers
+     */
+    protected void fillPopulation(int index, int workers) {
+	Random rnd = ThreadLocalRandom.current();
+	for (int i = index; i < populationSize; i += workers) {
+	    TSPChromosome chromosome = new TSPChromosome(cities, false);
+	    SimpleUnisexMutatorEngine.randomize(rnd, chromosome.getCities());
+	    chromosome.computeCost();
+	    population.set(i, chromosome);
+	    updateBest(chromosome);
+	}
+    }
+
+    /**
+     * Worker loop - creates children while there is quota
+     */
+    protected void work() {
+	Random rnd = ThreadLocalRandom.current();
+	while (births.get() < quota && !stopSignal.isStopRequested()) {
+	    TSPChromosome child = new TSPChromosome(createChild(
+		    select(rnd), select(rnd), rnd));
+	    replace(child, rnd);
+	    births.incrementAndGet();
+	}
+    }
+
+    /**
+     * Binary tournament selection
+     *
+     * @param rnd
+     * @return the better of two random chromosomes
+     */
+    protected TSPChromosome select(Random rnd) {
+	TSPChromosome c1 = population.get(rnd.nextInt(populationSize));
+	TSPChromosome c2 = population.get(rnd.nextInt(populationSize));
+	return c1.getTotalCost() <= c2.getTotalCost() ? c1 : c2;
+    }
+
+    /**
+     * Creates child by greedy crossover, random mutation and 2opt heuristics
+     *
+     * @param parent1
+     * @param parent2
+     * @param rnd
+     * @return cities of the child
+     */
+    protected City[] createChild(TSPChromosome parent1, TSPChromosome parent2,
+	    Random rnd) {
+	City child[] = parent1 == parent2 ? parent1.getCities().clone()
+		: GreedyCrossoverEngine.haveSex(parent1, parent2);
+	if (rnd.nextDouble() < configuration.getMutationRatio()) {
+	    int i1 = rnd.nextInt(child.length);
+	    int i2 = rnd.nextInt(child.length);
+	    City swap = child[i1];
+	    child[i1] = child[i2];
+	    child[i2] = swap;
+	}
+	GreedyCrossoverHibrid2OptEngine.heuristics2opt(child);
+	return child;
+    }
+
+    /**
+     * The chromosome replaces the worse of two random chromosomes, if it is
+     * better than that one. The best chromosome is never replaced by worse
+     * one.
+     *
+     * @param chromosome
+     * @param rnd
+     */
+    protected void replace(TSPChromosome chromosome, Random rnd) {
+	int i1 = rnd.nextInt(populationSize);
+	int i2 = rnd.nextInt(populationSize);
+	TSPChromosome c1 = population.get(i1);
+	TSPChromosome c2 = population.get(i2);
+	int index = c1.getTotalCost() >= c2.getTotalCost() ? i1 : i2;
+	TSPChromosome old = index == i1 ? c1 : c2;
+	if (chromosome.getTotalCost() < old.getTotalCost()
+		&& population.compareAndSet(index, old, chromosome)) {
+	    updateBest(chromosome);
+	}
+    }
+
+    /**
+     * @param chromosome
+     *            new chromosome of population
+     */
+    protected void updateBest(TSPChromosome chromosome) {
+	while (true) {
+	    TSPChromosome current = best.get();
+	    if (current != null
+		    && current.getTotalCost() <= chromosome.getTotalCost()) {
+		return;
+	    }
+	    if (best.compareAndSet(current, chromosome)) {
+		return;
+	    }
+	}
+    }
+
+    /**
+     * @see org.saiko.ai.genetics.tsp.TSPEngine#getPopulationSize
+     */
+    @Override
+    public int getPopulationSize() {
+	return populationSize;
+    }
+
+    /**
+     * @see org.saiko.ai.genetics.tsp.TSPEngine#getBestChromosome
+     */
+    @Override
+    public TSPChromosome getBestChromosome() {
+	return best.get();
+    }
+
+    /**
+     * @see org.saiko.ai.genetics.tsp.TSPPopulationEngine#getPopulation()
+     */
+    @Override
+    public List<TSPChromosome> getPopulation() {
+	List<TSPChromosome> chromosomes = new ArrayList<>(populationSize);
+	for (int i = 0; i < populationSize; i++) {
+	    chromosomes.add(population.get(i));
+	}
+	return chromosomes;
+    }
+
+    /**
+     * Allows the workers to create next populationSize/2 children and waits
+     * until they are created.
+     *
+     * @see org.saiko.ai.genetics.tsp.TSPEngine#nextGeneration
+     */
+    @Override
+    public void nextGeneration() {
+	quota = Math.max(quota, births.get()) + Math.max(1, populationSize / 2);
+	runWorkers(false);
+    }
+
+    /**
+     * @see org.saiko.ai.genetics.tsp.TSPMigratingEngine#emigrate(int)
+     */
+    @Override
+    public List<TSPChromosome> emigrate(int count) {
+	List<TSPChromosome> chromosomes = new ArrayList<>();
+	for (int i = 0; i < populationSize; i++) {
+	    chromosomes.add(population.get(i));
+	}
+	Collections.sort(chromosomes, new Comparator<TSPChromosome>() {
+	    @Override
+	    public int compare(TSPChromosome o1, TSPChromosome o2) {
+		return Double.compare(o1.getTotalCost(), o2.getTotalCost());
+	    }
+	});
+	List<TSPChromosome> emigrants = new ArrayList<>();
+	for (int i = 0; i < count && i < chromosomes.size(); i++) {
+	    emigrants.add(new TSPChromosome(chromosomes.get(i).getCities()));
+	}
+	return emigrants;
+    }
+
+    /**
+     * @see org.saiko.ai.genetics.tsp.TSPMigratingEngine#immigrate(List)
+     */
+    @Override
+    public void immigrate(List<TSPChromosome> immigrants) {
+	Random rnd = ThreadLocalRandom.current();
+	for (TSPChromosome immigrant : immigrants) {
+	    replace(immigrant, rnd);
+	}
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ * JFR event of the new best tour found by the computation.
+ * @see FlightEvents#newBestTour(int, double, double)
+ */
+@Name("org.saiko.tsp.BestTour")
+@Label("New Best Tour")
+@Category("TSP")
+@Description("New best tour found by the computation")
+@StackTrace(false)
+public class BestTourEvent extends jdk.jfr.Event {
+
+   /**
+    * generation which found the tour
+    */
+   @Label("Generation")
+   int generation;
+
+   /**
+    * distance of the tour
+    */
+   @Label("Distance")
+   double distance;
+
+   /**
+    * cost of the tour
+    */
+   @Label("Cost")
+   double cost;
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ * JFR event of the allocation of the distance cache or of the cost matrix
+ * of the map.
+ * @see FlightEvents#beginDistanceMatrix()
+ */
+@Name("org.saiko.tsp.DistanceMatrix")
+@Label("Distance Matrix Build")
+@Category("TSP")
+@Description("Allocation of the distance cache or of the cost matrix of the map")
+public class DistanceMatrixEvent extends jdk.jfr.Event {
+
+   /**
+    * number of cities of the map
+    */
+   @Label("Cities")
+   int cities;
+
+   /**
+    * size of the matrix
+    */
+   @Label("Size")
+   @DataAmount
+   long size;
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp.jfr;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ * JDK Flight Recorder events of the computation:
+ * <ul>
+ * <li>org.saiko.tsp.Generation - each generation with its population size</li>
+ * <li>org.saiko.tsp.BestTour - each new best tour with its cost</li>
+ * <li>org.saiko.tsp.LocalSearch - local search of one tour longer than the threshold</li>
+ * <li>org.saiko.tsp.DistanceMatrix - allocation of the distance cache or cost matrix</li>
+ * </ul>
+ * The events are recorded by the standard JFR tools, e.g.
+ * <pre>
+ * java -XX:StartFlightRecording=filename=tsp.jfr ... org.saiko.ai.genetics.tsp.TSP --console
+ * jfr print --categories TSP tsp.jfr
+ * </pre>
+ * This class does not depend on JFR, the events are created by JfrEvents only
+ * when the runtime has JFR and the event type is enabled by a running recording.
+ * Otherwise the begin methods return null and the other methods do nothing -
+ * one static and one volatile read per call.
+ *
+ * The duration events are begun and ended in the same thread:
+ * <pre>
+ * Object event=FlightEvents.beginLocalSearch();
+ * ...
+ * FlightEvents.endLocalSearch(event,"2opt",cities.length);
+ * </pre>
+ */
+public final class FlightEvents {
+
+   /**
+    * true if the runtime has JFR
+    */
+   protected static final boolean AVAILABLE=isAvailable();
+
+   /**
+    * no instances
+    */
+   private FlightEvents() {
+   }
+
+   /**
+    * @return true if the runtime has JFR
+    */
+   private static boolean isAvailable() {
+      try {
+         Class.forName("jdk.jfr.EventType");
+         // registers the event types
+         Class.forName(JfrEvents.class.getName());
+         return true;
+      } catch (ClassNotFoundException | LinkageError e) {
+         return false;
+      }
+   }
+
+   /**
+    * @return begun generation event, null if it is not recorded
+    */
+   public static Object beginGeneration() {
+      return AVAILABLE ? JfrEvents.beginGeneration() : null;
+   }
+
+   /**
+    * @param event - value of beginGeneration()
+    * @param generation - number of the generation
+    * @param engine - engine class name
+    * @param populationSize - population size after the generation
+    */
+   public static void endGeneration(Object event, int generation, String engine, int populationSize) {
+      if(event!=null) {
+         JfrEvents.endGeneration(event,generation,engine,populationSize);
+      }
+   }
+
+   /**
+    * @param generation - generation which found the tour
+    * @param distance - distance of the tour
+    * @param cost - cost of the tour
+    */
+   public static void newBestTour(int generation, double distance, double cost) {
+      if(AVAILABLE) {
+         JfrEvents.newBestTour(generation,distance,cost);
+      }
+   }
+
+   /**
+    * @return begun local search event, null if it is not recorded
+    */
+   public static Object beginLocalSearch() {
+      return AVAILABLE ? JfrEvents.beginLocalSearch() : null;
+   }
+
+   /**
+    * @param event - value of beginLocalSearch()
+    * @param method - the heuristics
+    * @param cities - number of cities of the tour
+    */
+   public static void endLocalSearch(Object event, String method, int cities) {
+      if(event!=null) {
+         JfrEvents.endLocalSearch(event,method,cities);
+      }
+   }
+
+   /**
+    * @return begun distance matrix event, null if it is not recorded
+    */
+   public static Object beginDistanceMatrix() {
+      return AVAILABLE ? JfrEvents.beginDistanceMatrix() : null;
+   }
+
+   /**
+    * @param event - value of beginDistanceMatrix()
+    * @param cities - number of cities of the map
+    */
+   public static void endDistanceMatrix(Object event, int cities) {
+      if(event!=null) {
+         JfrEvents.endDistanceMatrix(event,cities);
+      }
+   }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ * JFR event of one generation of the engine, from its start to its end.
+ * @see FlightEvents#beginGeneration()
+ */
+@Name("org.saiko.tsp.Generation")
+@Label("Generation")
+@Category("TSP")
+@Description("One generation of the engine")
+public class GenerationEvent extends jdk.jfr.Event {
+
+   /**
+    * number of the generation
+    */
+   @Label("Generation")
+   int generation;
+
+   /**
+    * engine class name
+    */
+   @Label("Engine")
+   String engine;
+
+   /**
+    * population size after the generation
+    */
+   @Label("Population Size")
+   int populationSize;
+}
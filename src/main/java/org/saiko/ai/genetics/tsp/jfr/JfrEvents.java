@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp.jfr;
+
+import jdk.jfr.EventType;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ * Creates and commits the JFR events. This class is loaded only when the
+ * runtime has JFR, so the other classes can run without it.
+ * The event is created only when its type is enabled by a running recording.
+ * @see FlightEvents
+ */
+final class JfrEvents {
+
+   /**
+    * event types, isEnabled() is true while a recording records the events
+    */
+   static final EventType GENERATION=EventType.getEventType(GenerationEvent.class);
+   static final EventType BEST_TOUR=EventType.getEventType(BestTourEvent.class);
+   static final EventType LOCAL_SEARCH=EventType.getEventType(LocalSearchEvent.class);
+   static final EventType DISTANCE_MATRIX=EventType.getEventType(DistanceMatrixEvent.class);
+
+   /**
+    * no instances
+    */
+   private JfrEvents() {
+   }
+
+   /**
+    * @see FlightEvents#beginGeneration()
+    */
+   static Object beginGeneration() {
+      if(!GENERATION.isEnabled()) {
+         return null;
+      }
+      GenerationEvent event=new GenerationEvent();
+      event.begin();
+      return event;
+   }
+
+   /**
+    * @see FlightEvents#endGeneration(Object, int, String, int)
+    */
+   static void endGeneration(Object begun, int generation, String engine, int populationSize) {
+      GenerationEvent event=(GenerationEvent)begun;
+      event.end();
+      if(event.shouldCommit()) {
+         event.generation=generation;
+         event.engine=engine;
+         event.populationSize=populationSize;
+         event.commit();
+      }
+   }
+
+   /**
+    * @see FlightEvents#newBestTour(int, double, double)
+    */
+   static void newBestTour(int generation, double distance, double cost) {
+      if(!BEST_TOUR.isEnabled()) {
+         return;
+      }
+      BestTourEvent event=new BestTourEvent();
+      event.generation=generation;
+      event.distance=distance;
+      event.cost=cost;
+      event.commit();
+   }
+
+   /**
+    * @see FlightEvents#beginLocalSearch()
+    */
+   static Object beginLocalSearch() {
+      if(!LOCAL_SEARCH.isEnabled()) {
+         return null;
+      }
+      LocalSearchEvent event=new LocalSearchEvent();
+      event.begin();
+      return event;
+   }
+
+   /**
+    * @see FlightEvents#endLocalSearch(Object, String, int)
+    */
+   static void endLocalSearch(Object begun, String method, int cities) {
+      LocalSearchEvent event=(LocalSearchEvent)begun;
+      event.end();
+      // false for the searches shorter than the threshold
+      if(event.shouldCommit()) {
+         event.method=method;
+         event.cities=cities;
+         event.commit();
+      }
+   }
+
+   /**
+    * @see FlightEvents#beginDistanceMatrix()
+    */
+   static Object beginDistanceMatrix() {
+      if(!DISTANCE_MATRIX.isEnabled()) {
+         return null;
+      }
+      DistanceMatrixEvent event=new DistanceMatrixEvent();
+      event.begin();
+      return event;
+   }
+
+   /**
+    * @see FlightEvents#endDistanceMatrix(Object, int)
+    */
+   static void endDistanceMatrix(Object begun, int cities) {
+      DistanceMatrixEvent event=(DistanceMatrixEvent)begun;
+      event.end();
+      if(event.shouldCommit()) {
+         event.cities=cities;
+         event.size=8L*cities*cities;
+         event.commit();
+      }
+   }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ * JFR event of the local search of one tour. Only the searches longer than
+ * the threshold are recorded - 1 ms by default, it can be changed by the
+ * recording settings.
+ * @see FlightEvents#beginLocalSearch()
+ */
+@Name("org.saiko.tsp.LocalSearch")
+@Label("Local Search")
+@Category("TSP")
+@Description("Local search of one tour longer than the threshold")
+@Threshold("1 ms")
+public class LocalSearchEvent extends jdk.jfr.Event {
+
+   /**
+    * the heuristics - 2opt, parallel 2opt or polish
+    */
+   @Label("Method")
+   String method;
+
+   /**
+    * number of cities of the tour
+    */
+   @Label("Cities")
+   int cities;
+}
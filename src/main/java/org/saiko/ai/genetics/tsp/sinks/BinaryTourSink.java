@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp.sinks;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+
+import org.saiko.ai.genetics.tsp.TSPDiversity;
+import org.saiko.ai.genetics.tsp.TSPTourEvent;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ * Writes the tours in binary form (DataOutputStream, big endian), one record
+ * per tour: int generation, long elapsed nanoseconds, double cost, int number
+ * of cities and the city ids as ints, followed by the diversity of the
+ * population: int population size, int unique tours, double edge distance and
+ * double edge entropy - the sizes are -1 and the doubles 0 when the diversity
+ * is not measured.
+ */
+public class BinaryTourSink extends FileTourSink {
+
+   /**
+    * @param file - the output file
+    */
+   public BinaryTourSink(File file) {
+      super(file);
+   }
+
+   /**
+    * @see org.saiko.ai.genetics.tsp.sinks.FileTourSink#write(org.saiko.ai.genetics.tsp.TSPTourEvent)
+    */
+   @Override
+   protected void write(TSPTourEvent event) throws IOException {
+      DataOutputStream data=new DataOutputStream(out);
+      data.writeInt(event.getGeneration());
+      data.writeLong(event.getElapsedNanos());
+      data.writeDouble(event.getCost());
+      int tour[]=event.getTour();
+      data.writeInt(tour.length);
+      for(int id: tour) {
+         data.writeInt(id);
+      }
+      TSPDiversity diversity=event.getDiversity();
+      if(diversity!=null) {
+         data.writeInt(diversity.getPopulationSize());
+         data.writeInt(diversity.getUniqueTours());
+         data.writeDouble(diversity.getEdgeDistance());
+         data.writeDouble(diversity.getEdgeEntropy());
+      } else {
+         data.writeInt(-1);
+         data.writeInt(-1);
+         data.writeDouble(0);
+         data.writeDouble(0);
+      }
+   }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp.sinks;
+
+import java.io.PrintStream;
+
+import org.saiko.ai.genetics.tsp.TSPTourEvent;
+import org.saiko.ai.genetics.tsp.TSPTourListener;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ * Prints each tour as one line of JSON into the stream, standard output
+ * by default, so the tours can be piped to other programs.
+ *
+ * @see JsonLinesTourSink#toJson(TSPTourEvent)
+ */
+public class ConsoleTourSink implements TSPTourListener {
+
+   /**
+    * the output
+    */
+   protected final PrintStream out;
+
+   /**
+    * Prints to standard output
+    */
+   public ConsoleTourSink() {
+      this(System.out);
+   }
+
+   /**
+    * @param out - the output
+    */
+   public ConsoleTourSink(PrintStream out) {
+      this.out=out;
+   }
+
+   /**
+    * @see org.saiko.ai.genetics.tsp.TSPTourListener#bestTourFound(org.saiko.ai.genetics.tsp.TSPTourEvent)
+    */
+   @Override
+   public void bestTourFound(TSPTourEvent event) {
+      out.println(JsonLinesTourSink.toJson(event));
+   }
+
+   /**
+    * @see org.saiko.ai.genetics.tsp.TSPTourListener#computationFinished()
+    */
+   @Override
+   public void computationFinished() {
+      out.flush();
+   }
+}
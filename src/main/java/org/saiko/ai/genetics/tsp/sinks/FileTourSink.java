@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp.sinks;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.saiko.ai.genetics.tsp.TSPTourEvent;
+import org.saiko.ai.genetics.tsp.TSPTourListener;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ * Base of the sinks writing the tours into file. The file is created with
+ * the first tour and closed when the computation is finished, the next
+ * computation appends its tours. Each tour is flushed, so the readers of the
+ * file get it immediately.
+ */
+public abstract class FileTourSink implements TSPTourListener {
+
+   /**
+    * the output file
+    */
+   protected final File file;
+
+   /**
+    * the open file, null before the first tour
+    */
+   protected OutputStream out;
+
+   /**
+    * true if the file was created already
+    */
+   protected boolean created;
+
+   /**
+    * @param file - the output file
+    */
+   public FileTourSink(File file) {
+      this.file=file;
+   }
+
+   /**
+    * @see org.saiko.ai.genetics.tsp.TSPTourListener#bestTourFound(org.saiko.ai.genetics.tsp.TSPTourEvent)
+    */
+   @Override
+   public void bestTourFound(TSPTourEvent event) {
+      try {
+         if(out==null) {
+            out=new BufferedOutputStream(new FileOutputStream(file,created));
+            created=true;
+         }
+         write(event);
+         out.flush();
+      } catch(IOException e) {
+         throw new IllegalStateException("Can not write tour into "+file,e);
+      }
+   }
+
+   /**
+    * @see org.saiko.ai.genetics.tsp.TSPTourListener#computationFinished()
+    */
+   @Override
+   public void computationFinished() {
+      if(out!=null) {
+         try {
+            out.close();
+         } catch(IOException e) {
+            e.printStackTrace();
+         }
+         out=null;
+      }
+   }
+
+   /**
+    * Writes the event into the open file
+    * @param event
+    * @throws IOException
+    */
+   protected abstract void write(TSPTourEvent event) throws IOException;
+}
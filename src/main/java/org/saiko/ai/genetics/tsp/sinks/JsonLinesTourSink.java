@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp.sinks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+
+import org.saiko.ai.genetics.tsp.TSPDiversity;
+import org.saiko.ai.genetics.tsp.TSPTourEvent;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ * Writes each tour as one line of JSON:
+ * <pre>
+ * {"generation":12,"elapsedNs":1520333,"cost":3273272.0,
+ *  "diversity":{"population":200,"unique":187,"edgeDistance":0.214,"edgeEntropy":0.385},
+ *  "tour":[0,15,7,...]}
+ * </pre>
+ * The tour contains the city ids - the indexes of the cities in the map.
+ * The diversity is left out when it is not measured.
+ */
+public class JsonLinesTourSink extends FileTourSink {
+
+   /**
+    * @param file - the output file
+    */
+   public JsonLinesTourSink(File file) {
+      super(file);
+   }
+
+   /**
+    * @see org.saiko.ai.genetics.tsp.sinks.FileTourSink#write(org.saiko.ai.genetics.tsp.TSPTourEvent)
+    */
+   @Override
+   protected void write(TSPTourEvent event) throws IOException {
+      out.write(toJson(event).getBytes(Charset.forName("UTF-8")));
+      out.write('\n');
+   }
+
+   /**
+    * @param event
+    * @return the event as JSON object
+    */
+   public static String toJson(TSPTourEvent event) {
+      StringBuilder json=new StringBuilder();
+      json.append("{\"generation\":").append(event.getGeneration());
+      json.append(",\"elapsedNs\":").append(event.getElapsedNanos());
+      json.append(",\"cost\":").append(event.getCost());
+      TSPDiversity diversity=event.getDiversity();
+      if(diversity!=null) {
+         json.append(",\"diversity\":{\"population\":").append(diversity.getPopulationSize());
+         json.append(",\"unique\":").append(diversity.getUniqueTours());
+         json.append(",\"edgeDistance\":").append(diversity.getEdgeDistance());
+         json.append(",\"edgeEntropy\":").append(diversity.getEdgeEntropy());
+         json.append('}');
+      }
+      json.append(",\"tour\":[");
+      int tour[]=event.getTour();
+      for(int i=0; i<tour.length; i++) {
+         if(i>0) {
+            json.append(',');
+         }
+         json.append(tour[i]);
+      }
+      json.append("]}");
+      return json.toString();
+   }
+}
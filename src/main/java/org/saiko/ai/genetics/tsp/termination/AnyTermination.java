@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp.termination;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.saiko.ai.genetics.tsp.TSP;
+import org.saiko.ai.genetics.tsp.TSPTermination;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ * Combination of termination policies - the computation stops when
+ * any of the policies wants to stop. All the policies are asked after each
+ * generation, so each of them sees the whole computation.
+ */
+public class AnyTermination implements TSPTermination {
+
+   /**
+    * the combined policies
+    */
+   protected final List<TSPTermination> policies;
+
+   /**
+    * @param policies
+    */
+   public AnyTermination(TSPTermination... policies) {
+      this.policies=new ArrayList<>(Arrays.asList(policies));
+   }
+
+   /**
+    * @param policy - policy added to the combination
+    */
+   public void add(TSPTermination policy) {
+      policies.add(policy);
+   }
+
+   /**
+    * @return the combined policies
+    */
+   public List<TSPTermination> getPolicies() {
+      return policies;
+   }
+
+   /**
+    * @see org.saiko.ai.genetics.tsp.TSPTermination#start(org.saiko.ai.genetics.tsp.TSP)
+    */
+   @Override
+   public void start(TSP tsp) {
+      for(TSPTermination policy: policies) {
+         policy.start(tsp);
+      }
+   }
+
+   /**
+    * @see org.saiko.ai.genetics.tsp.TSPTermination#isFinished(org.saiko.ai.genetics.tsp.TSP)
+    */
+   @Override
+   public boolean isFinished(TSP tsp) {
+      boolean finished=false;
+      for(TSPTermination policy: policies) {
+         // no short circuit, stateful policies need each generation
+         finished|=policy.isFinished(tsp);
+      }
+      return finished;
+   }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp.termination;
+
+import org.saiko.ai.genetics.tsp.TSP;
+import org.saiko.ai.genetics.tsp.TSPTermination;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ * Stops the computation when the best cost did not change for the
+ * given count of generations.
+ *
+ * @see org.saiko.ai.genetics.tsp.TSPConfiguration#getMaxBestCostAge()
+ */
+public class BestAgeTermination implements TSPTermination {
+
+   /**
+    * maximal count of generations with the same best cost
+    */
+   protected final int maxBestCostAge;
+
+   /**
+    * @param maxBestCostAge - maximal count of generations with the same best cost
+    */
+   public BestAgeTermination(int maxBestCostAge) {
+      this.maxBestCostAge=maxBestCostAge;
+   }
+
+   /**
+    * @see org.saiko.ai.genetics.tsp.TSPTermination#start(org.saiko.ai.genetics.tsp.TSP)
+    */
+   @Override
+   public void start(TSP tsp) {
+      // no state
+   }
+
+   /**
+    * @see org.saiko.ai.genetics.tsp.TSPTermination#isFinished(org.saiko.ai.genetics.tsp.TSP)
+    */
+   @Override
+   public boolean isFinished(TSP tsp) {
+      return tsp.getBestCostAge()>=maxBestCostAge;
+   }
+}
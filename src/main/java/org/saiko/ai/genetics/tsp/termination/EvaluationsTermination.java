@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp.termination;
+
+import org.saiko.ai.genetics.tsp.TSP;
+import org.saiko.ai.genetics.tsp.TSPTermination;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ * Stops the computation after the maximal number of the tour evaluations,
+ * as counted by the throughput of the computation.
+ *
+ * @see org.saiko.ai.genetics.tsp.TSP#getEvaluations()
+ * @see org.saiko.ai.genetics.tsp.TSPConfiguration#getMaxEvaluations()
+ */
+public class EvaluationsTermination implements TSPTermination {
+
+   /**
+    * maximal number of evaluations
+    */
+   protected final long maxEvaluations;
+
+   /**
+    * @param maxEvaluations - maximal number of evaluations
+    */
+   public EvaluationsTermination(long maxEvaluations) {
+      this.maxEvaluations=maxEvaluations;
+   }
+
+   /**
+    * @see org.saiko.ai.genetics.tsp.TSPTermination#start(org.saiko.ai.genetics.tsp.TSP)
+    */
+   @Override
+   public void start(TSP tsp) {
+      // no state
+   }
+
+   /**
+    * @see org.saiko.ai.genetics.tsp.TSPTermination#isFinished(org.saiko.ai.genetics.tsp.TSP)
+    */
+   @Override
+   public boolean isFinished(TSP tsp) {
+      return tsp.getEvaluations()>=maxEvaluations;
+   }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp.termination;
+
+import org.saiko.ai.genetics.tsp.TSP;
+import org.saiko.ai.genetics.tsp.TSPTermination;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ * Stops the computation when the best distance is close enough to the
+ * Held-Karp lower bound.
+ *
+ * @see org.saiko.ai.genetics.tsp.TSP#getGap()
+ * @see org.saiko.ai.genetics.tsp.TSPConfiguration#getMaxGap()
+ */
+public class GapTermination implements TSPTermination {
+
+   /**
+    * maximal ratio of the best distance above the lower bound
+    */
+   protected final double maxGap;
+
+   /**
+    * @param maxGap - maximal ratio of the best distance above the lower bound
+    */
+   public GapTermination(double maxGap) {
+      this.maxGap=maxGap;
+   }
+
+   /**
+    * @see org.saiko.ai.genetics.tsp.TSPTermination#start(org.saiko.ai.genetics.tsp.TSP)
+    */
+   @Override
+   public void start(TSP tsp) {
+      // no state
+   }
+
+   /**
+    * @see org.saiko.ai.genetics.tsp.TSPTermination#isFinished(org.saiko.ai.genetics.tsp.TSP)
+    */
+   @Override
+   public boolean isFinished(TSP tsp) {
+      return tsp.getGap()<=maxGap;
+   }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp.termination;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import org.saiko.ai.genetics.tsp.TSP;
+import org.saiko.ai.genetics.tsp.TSPTermination;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ * Stops the computation when the best distance improved less than the
+ * given ratio during the last window of generations. Unlike the best cost
+ * age it also stops the computations which still improve, but too slowly.
+ *
+ * @see org.saiko.ai.genetics.tsp.TSPConfiguration#getImprovementWindow()
+ * @see org.saiko.ai.genetics.tsp.TSPConfiguration#getMinImprovement()
+ */
+public class ImprovementTermination implements TSPTermination {
+
+   /**
+    * number of generations of the window
+    */
+   protected final int window;
+
+   /**
+    * minimal relative improvement during the window
+    */
+   protected final double minImprovement;
+
+   /**
+    * generations and best distances, the oldest first
+    */
+   protected final Deque<double[]> history=new ArrayDeque<>();
+
+   /**
+    * @param window - number of generations of the window
+    * @param minImprovement - minimal relative improvement during the window
+    */
+   public ImprovementTermination(int window, double minImprovement) {
+      this.window=window;
+      this.minImprovement=minImprovement;
+   }
+
+   /**
+    * @see org.saiko.ai.genetics.tsp.TSPTermination#start(org.saiko.ai.genetics.tsp.TSP)
+    */
+   @Override
+   public void start(TSP tsp) {
+      history.clear();
+   }
+
+   /**
+    * @see org.saiko.ai.genetics.tsp.TSPTermination#isFinished(org.saiko.ai.genetics.tsp.TSP)
+    */
+   @Override
+   public boolean isFinished(TSP tsp) {
+      int generation=tsp.getGeneration();
+      double cost=tsp.getBestCost();
+      if(!history.isEmpty() && history.peekLast()[0]==generation) {
+         history.peekLast()[1]=cost;
+      } else {
+         history.addLast(new double[] {generation,cost});
+      }
+      // the oldest entry is the last one not newer than the window start
+      double start=generation-window;
+      while(history.size()>1) {
+         double first[]=history.pollFirst();
+         if(history.peekFirst()[0]>start) {
+            history.addFirst(first);
+            break;
+         }
+      }
+      double reference[]=history.peekFirst();
+      if(reference[0]>start || reference[1]<=0) {
+         // the window is not full yet
+         return false;
+      }
+      return (reference[1]-cost)/reference[1]<minImprovement;
+   }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp.termination;
+
+import org.saiko.ai.genetics.tsp.TSP;
+import org.saiko.ai.genetics.tsp.TSPEngine;
+import org.saiko.ai.genetics.tsp.TSPTermination;
+import org.saiko.ai.genetics.tsp.engines.exact.ExactEngine;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ * Stops the computation when an exact engine has found the optimal tour,
+ * the next generations would not change it.
+ *
+ * @see org.saiko.ai.genetics.tsp.engines.exact.ExactEngine#isSolved()
+ */
+public class SolvedTermination implements TSPTermination {
+
+   /**
+    * @see org.saiko.ai.genetics.tsp.TSPTermination#start(org.saiko.ai.genetics.tsp.TSP)
+    */
+   @Override
+   public void start(TSP tsp) {
+      // no state
+   }
+
+   /**
+    * @see org.saiko.ai.genetics.tsp.TSPTermination#isFinished(org.saiko.ai.genetics.tsp.TSP)
+    */
+   @Override
+   public boolean isFinished(TSP tsp) {
+      TSPEngine engine=tsp.getEngine();
+      return engine instanceof ExactEngine && ((ExactEngine)engine).isSolved();
+   }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp.termination;
+
+import org.saiko.ai.genetics.tsp.TSP;
+import org.saiko.ai.genetics.tsp.TSPTermination;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ * Stops the computation when the best distance reaches the target.
+ *
+ * @see org.saiko.ai.genetics.tsp.TSPConfiguration#getTargetCost()
+ */
+public class TargetCostTermination implements TSPTermination {
+
+   /**
+    * the target distance
+    */
+   protected final double targetCost;
+
+   /**
+    * @param targetCost - the target distance
+    */
+   public TargetCostTermination(double targetCost) {
+      this.targetCost=targetCost;
+   }
+
+   /**
+    * @see org.saiko.ai.genetics.tsp.TSPTermination#start(org.saiko.ai.genetics.tsp.TSP)
+    */
+   @Override
+   public void start(TSP tsp) {
+      // no state
+   }
+
+   /**
+    * @see org.saiko.ai.genetics.tsp.TSPTermination#isFinished(org.saiko.ai.genetics.tsp.TSP)
+    */
+   @Override
+   public boolean isFinished(TSP tsp) {
+      return tsp.getBestCost()>0 && tsp.getBestCost()<=targetCost;
+   }
+}
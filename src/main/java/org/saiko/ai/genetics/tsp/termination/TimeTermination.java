@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp.termination;
+
+import org.saiko.ai.genetics.tsp.TSP;
+import org.saiko.ai.genetics.tsp.TSPTermination;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ * Stops the computation within the wall clock time budget. The policy
+ * stops it already when the next generation is not expected to finish in
+ * the budget - when the running time plus the time of the last generation
+ * exceeds the budget. The budget is also set into the application, so the
+ * stoppable engines end the generation which is running when the budget is
+ * used up.
+ *
+ * @see org.saiko.ai.genetics.tsp.TSPConfiguration#getMaxTime()
+ * @see org.saiko.ai.genetics.tsp.TSP#setTimeBudget(long)
+ */
+public class TimeTermination implements TSPTermination {
+
+   /**
+    * time budget in milliseconds
+    */
+   protected final long maxTime;
+
+   /**
+    * running time after the last generation
+    */
+   protected long previousTime;
+
+   /**
+    * @param maxTime - time budget in milliseconds
+    */
+   public TimeTermination(long maxTime) {
+      this.maxTime=maxTime;
+   }
+
+   /**
+    * @see org.saiko.ai.genetics.tsp.TSPTermination#start(org.saiko.ai.genetics.tsp.TSP)
+    */
+   @Override
+   public void start(TSP tsp) {
+      previousTime=0;
+      tsp.setTimeBudget(maxTime);
+   }
+
+   /**
+    * @see org.saiko.ai.genetics.tsp.TSPTermination#isFinished(org.saiko.ai.genetics.tsp.TSP)
+    */
+   @Override
+   public boolean isFinished(TSP tsp) {
+      long time=tsp.getRunTime();
+      long generationTime=time-previousTime;
+      previousTime=time;
+      return time+generationTime>=maxTime;
+   }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.saiko.ai.genetics.tsp.TSPLIBCity.WeightType;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ * BinaryMap TestCase
+ * @see org.saiko.ai.genetics.tsp.BinaryMap
+ */
+public class BinaryMapTests extends TestCase {
+
+   /**
+    * configuration of the cities
+    */
+   TSPConfiguration configuration=new TSP(false).configuration;
+
+   /**
+    * @param count - number of the cities
+    * @return random map
+    */
+   City[] randomMap(int count) {
+      Random rnd=new Random(count);
+      City cities[]=new City[count];
+      for(int i=0; i<count; i++) {
+         cities[i]=new City(i,configuration,"město "+i,rnd.nextInt(100000),rnd.nextInt(100000));
+      }
+      City.initDistanceCache(cities);
+      return cities;
+   }
+
+   /**
+    * @param cities - the map
+    * @param nearestCount - number of the nearest cities
+    * @param matrix - true to store the distance matrix
+    * @return the map written and read back
+    * @throws IOException
+    */
+   City[] writeAndRead(City cities[], int nearestCount, boolean matrix) throws IOException {
+      ByteArrayOutputStream out=new ByteArrayOutputStream();
+      BinaryMap.write(cities,out,nearestCount,matrix);
+      return new BinaryMap(ByteBuffer.wrap(out.toByteArray())).createCities(configuration);
+   }
+
+   /**
+    * The cities, the nearest cities and the distances are read back
+    * @throws IOException
+    */
+   public void testRoundTrip() throws IOException {
+      City cities[]=randomMap(300);
+      City read[]=writeAndRead(cities,NearestCities.DEFAULT_COUNT,true);
+      assertEquals(cities.length,read.length);
+      for(int i=0; i<cities.length; i++) {
+         assertEquals(i,read[i].getId());
+         assertEquals(cities[i].getName(),read[i].getName());
+         assertEquals(cities[i].getX(),read[i].getX());
+         assertEquals(cities[i].getY(),read[i].getY());
+      }
+
+      // the nearest cities are the same as computed
+      NearestCities computed=NearestCities.compute(cities,NearestCities.DEFAULT_COUNT);
+      NearestCities nearest=NearestCities.of(read,10);
+      assertNotNull(nearest);
+      assertEquals(NearestCities.DEFAULT_COUNT,nearest.getCount());
+      for(int i=0; i<cities.length; i++) {
+         assertTrue(cities[i].distance(cities[computed.get(i,0)])<=cities[i].distance(cities[computed.get(i,1)]));
+         for(int k=0; k<nearest.getCount(); k++) {
+            assertEquals(computed.get(i,k),nearest.get(i,k));
+         }
+      }
+      assertNull(NearestCities.of(read,NearestCities.DEFAULT_COUNT+1));
+
+      // the stored distances are kept as the distance cache
+      double cache[][]=read[0].distances;
+      assertEquals(cities[3].distance(cities[7]),cache[7][3],0);
+      assertEquals(cities[3].distance(cities[7]),cache[3][7],0);
+      City.initDistanceCache(read);
+      assertSame(cache,read[0].distances);
+      assertEquals(cities[5].distance(cities[1]),read[5].distance(read[1]),0);
+   }
+
+   /**
+    * Map without the nearest cities and the matrix
+    * @throws IOException
+    */
+   public void testPlain() throws IOException {
+      City read[]=writeAndRead(randomMap(20),0,false);
+      assertEquals(20,read.length);
+      assertNull(NearestCities.of(read,1));
+      assertNull(read[0].distances);
+   }
+
+   /**
+    * TSPLIB maps keep their coordinates and distances
+    * @throws IOException
+    */
+   public void testTSPLIB() throws IOException {
+      City cities[]=new TSPLIBReader(configuration).read(new StringReader(
+            "DIMENSION : 3\nEDGE_WEIGHT_TYPE : GEO\nNODE_COORD_SECTION\n1 38.24 20.42\n2 39.57 26.15\n3 40.56 25.32\n"));
+      City read[]=writeAndRead(cities,2,false);
+      City.initDistanceCache(read);
+      assertEquals(WeightType.GEO,((TSPLIBCity)read[0]).getWeightType());
+      assertEquals(509.0,read[0].distance(read[1]),0);
+      assertEquals("2",read[1].getName());
+
+      cities=new TSPLIBReader(configuration).read(new StringReader(
+            "DIMENSION : 3\nEDGE_WEIGHT_TYPE : EXPLICIT\nEDGE_WEIGHT_FORMAT : UPPER_ROW\nEDGE_WEIGHT_SECTION\n7 8 9\n"));
+      // EXPLICIT map has always the matrix
+      read=writeAndRead(cities,0,false);
+      assertEquals(WeightType.EXPLICIT,((TSPLIBCity)read[0]).getWeightType());
+      assertEquals(9.0,read[2].distance(read[1]),0);
+      assertEquals(8.0,read[0].distance(read[2],false),0);
+   }
+
+   /**
+    * The file is mapped, the incomplete map is reported
+    * @throws IOException
+    */
+   public void testFile() throws IOException {
+      File file=File.createTempFile("tsp",".tspm");
+      try {
+         ByteArrayOutputStream bytes=new ByteArrayOutputStream();
+         BinaryMap.write(randomMap(50),bytes,5,true);
+         try(OutputStream out=new FileOutputStream(file)) {
+            out.write(bytes.toByteArray());
+         }
+         City read[]=MapLoader.load(file.getPath(),configuration);
+         assertEquals(50,read.length);
+         assertEquals(5,NearestCities.of(read,5).getCount());
+
+         try {
+            new BinaryMap(ByteBuffer.wrap(bytes.toByteArray(),0,bytes.size()-1));
+            fail("incomplete map");
+         } catch(IllegalArgumentException e) {
+            // expected
+         }
+      } finally {
+         file.delete();
+      }
+   }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import junit.framework.TestCase;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ * CSVMap TestCase
+ * @see org.saiko.ai.genetics.tsp.CSVMap
+ */
+public class CSVMapTests extends TestCase {
+
+   /**
+    * @param map - the map in .csv format
+    * @return parsed map
+    */
+   CSVMap parse(String map) {
+      return new CSVMap(ByteBuffer.wrap(map.getBytes(StandardCharsets.UTF_8)));
+   }
+
+   /**
+    * Names, coordinates, line ends and the header
+    */
+   public void testLines() {
+      CSVMap map=parse(
+            "\"City\",\"X\",\"Y\"\r\n"+
+            "\"Praha\",744379,1043261\r\n"+
+            "\r\n"+
+            "\" Aš, Cheb \", -12 , +34\n"+
+            "\"Brno\",1,2");
+      assertEquals(3,map.size());
+      assertEquals("Praha",map.getName(0));
+      assertEquals(744379,map.getX(0));
+      assertEquals(1043261,map.getY(0));
+      assertEquals("Aš, Cheb",map.getName(1));
+      assertEquals(-12,map.getX(1));
+      assertEquals(34,map.getY(1));
+      assertEquals("Brno",map.getName(2));
+      assertEquals(2,map.getY(2));
+
+      City cities[]=map.createCities(new TSP(false).configuration);
+      assertEquals(3,cities.length);
+      assertEquals(1,cities[1].getId());
+      assertEquals("Aš, Cheb",cities[1].getName());
+      assertEquals(-12,cities[1].getX());
+   }
+
+   /**
+    * Invalid coordinates are reported
+    */
+   public void testInvalidNumber() {
+      try {
+         parse("header\n\"a\",1,2x\n");
+         fail("invalid number");
+      } catch(IllegalArgumentException e) {
+         assertTrue(e.getMessage(),e.getMessage().contains("2x"));
+      }
+      try {
+         parse("header\n\"a\",1,99999999999\n");
+         fail("too big number");
+      } catch(IllegalArgumentException e) {
+         // expected
+      }
+   }
+
+   /**
+    * Big file is mapped and parsed in chunks, the cities keep the order of
+    * the lines
+    * @throws IOException
+    */
+   public void testChunks() throws IOException {
+      File file=File.createTempFile("tsp",".csv");
+      try {
+         int count=200000;
+         try(OutputStream out=new FileOutputStream(file)) {
+            StringBuilder lines=new StringBuilder("\"City\",\"X\",\"Y\"\n");
+            for(int i=0; i<count; i++) {
+               lines.append("\"city ").append(i).append("\",").append(i).append(',').append(-i).append('\n');
+            }
+            out.write(lines.toString().getBytes(StandardCharsets.UTF_8));
+         }
+         assertTrue(file.length()>2*CSVMap.MIN_CHUNK_SIZE);
+         CSVMap map=CSVMap.read(file);
+         assertEquals(count,map.size());
+         for(int i=0; i<count; i++) {
+            assertEquals(i,map.getX(i));
+            assertEquals(-i,map.getY(i));
+         }
+         assertEquals("city 123456",map.getName(123456));
+      } finally {
+         file.delete();
+      }
+   }
+
+   /**
+    * The build in map is read from the resources
+    * @throws IOException
+    */
+   public void testResource() throws IOException {
+      try(InputStream in=TSP.class.getResourceAsStream("/cities_020.csv")) {
+         CSVMap map=CSVMap.read(in);
+         assertEquals(20,map.size());
+         assertEquals("Praha",map.getName(0));
+         assertEquals(744379,map.getX(0));
+      }
+   }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ * DiversityMeter TestCase
+ * @see org.saiko.ai.genetics.tsp.DiversityMeter
+ */
+public class DiversityMeterTests extends TestCase {
+
+   /**
+    * cities of the map
+    */
+   City cities[];
+
+   /**
+    * random generator of the tours
+    */
+   Random rnd=new Random(1);
+
+   /**
+    * @see junit.framework.TestCase#setUp()
+    */
+   @Override
+   protected void setUp() {
+      TSP tsp=new TSP();
+      cities=TestMaps.random(tsp.configuration,50,rnd);
+   }
+
+   /**
+    * @return random tour
+    */
+   TSPChromosome randomTour() {
+      City tour[]=cities.clone();
+      for(int i=tour.length-1; i>0; i--) {
+         int j=rnd.nextInt(i+1);
+         City swap=tour[i];
+         tour[i]=tour[j];
+         tour[j]=swap;
+      }
+      return new TSPChromosome(tour);
+   }
+
+   /**
+    * The same round trip from other city and in the opposite direction
+    */
+   public void testSameTours() {
+      List<TSPChromosome> population=new ArrayList<>();
+      City tour[]=randomTour().getCities();
+      for(int shift=0; shift<10; shift++) {
+         City rotated[]=new City[tour.length];
+         City reversed[]=new City[tour.length];
+         for(int i=0; i<tour.length; i++) {
+            rotated[i]=tour[(i+shift)%tour.length];
+            reversed[tour.length-1-i]=rotated[i];
+         }
+         population.add(new TSPChromosome(rotated));
+         population.add(new TSPChromosome(reversed));
+      }
+      TSPDiversity diversity=new DiversityMeter().measure(population);
+      assertEquals(20,diversity.getPopulationSize());
+      assertEquals(1,diversity.getUniqueTours());
+      assertEquals(0,diversity.getEdgeDistance(),1e-9);
+      assertEquals(0,diversity.getEdgeEntropy(),1e-9);
+   }
+
+   /**
+    * Random tours share almost no edges
+    */
+   public void testRandomTours() {
+      List<TSPChromosome> population=new ArrayList<>();
+      for(int i=0; i<20; i++) {
+         population.add(randomTour());
+      }
+      TSPDiversity diversity=new DiversityMeter().measure(population);
+      assertEquals(20,diversity.getUniqueTours());
+      assertTrue(diversity.getEdgeDistance()>0.9);
+      // the tours of 50 cities have only 1225 different edges
+      assertTrue(diversity.getEdgeEntropy()>0.8);
+   }
+
+   /**
+    * The meter counting the changes of the population measures the same
+    * as the new meter
+    */
+   public void testIncremental() {
+      List<TSPChromosome> population=new ArrayList<>();
+      TSPChromosome parent=randomTour();
+      for(int i=0; i<100; i++) {
+         population.add(i%3==0 ? randomTour() : parent);
+      }
+      DiversityMeter meter=new DiversityMeter();
+      for(int generation=0; generation<20; generation++) {
+         TSPDiversity diversity=meter.measure(population);
+         TSPDiversity expected=new DiversityMeter().measure(population);
+         assertEquals(expected.getUniqueTours(),diversity.getUniqueTours());
+         assertEquals(expected.getEdgeEntropy(),diversity.getEdgeEntropy(),1e-9);
+
+         // half of the population is replaced
+         for(int i=0; i<population.size()/2; i++) {
+            population.set(rnd.nextInt(population.size()),randomTour());
+         }
+      }
+   }
+}
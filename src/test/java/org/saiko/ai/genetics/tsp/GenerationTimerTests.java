@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.saiko.ai.genetics.tsp.GenerationTimer.Phase;
+import org.saiko.ai.genetics.tsp.engines.crossoverHibrid2opt.GreedyCrossoverHibrid2OptEngine;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ * GenerationTimer TestCase
+ * @see org.saiko.ai.genetics.tsp.GenerationTimer
+ */
+public class GenerationTimerTests extends TestCase {
+
+   /**
+    * The nested part is not counted in the outer part
+    */
+   public void testNested() throws Exception {
+      GenerationTimer timer=new GenerationTimer();
+      long outer=timer.mark();
+      long inner=timer.mark();
+      Thread.sleep(50);
+      timer.add(Phase.COST,inner);
+      timer.add(Phase.CHILDREN,outer);
+
+      assertTrue(timer.getNanos(Phase.COST)>=45000000L);
+      assertTrue(timer.getNanos(Phase.CHILDREN)<timer.getNanos(Phase.COST));
+      assertEquals(0,timer.getNanos(Phase.SORT));
+      assertEquals(timer.getNanos(Phase.COST)+timer.getNanos(Phase.CHILDREN),timer.getTotalNanos());
+   }
+
+   /**
+    * The times of the threads are summed
+    */
+   public void testThreads() throws Exception {
+      final GenerationTimer timer=new GenerationTimer();
+      Thread threads[]=new Thread[4];
+      for(int i=0; i<threads.length; i++) {
+         threads[i]=new Thread() {
+            @Override
+            public void run() {
+               long mark=timer.mark();
+               try {
+                  Thread.sleep(20);
+               } catch (InterruptedException e) {
+                  return;
+               }
+               timer.add(Phase.LOCAL_SEARCH,mark);
+            }
+         };
+         threads[i].start();
+      }
+      for(Thread thread: threads) {
+         thread.join();
+      }
+      assertTrue(timer.getNanos(Phase.LOCAL_SEARCH)>=4*18000000L);
+      assertEquals(timer.getNanos(Phase.LOCAL_SEARCH),timer.getTotalNanos());
+      //the finished threads are summed once and dropped
+      assertTrue(timer.stripes.isEmpty());
+      assertEquals(timer.getNanos(Phase.LOCAL_SEARCH),timer.getTotalNanos());
+   }
+
+   /**
+    * The engine measures all the phases of its generations
+    */
+   public void testEngine() {
+      TSP tsp=new TSP(false);
+      Random rnd=new Random(1);
+      City cities[]=TestMaps.random(tsp.configuration,50,rnd);
+      tsp.configuration.initialPopulationSize=100;
+
+      GreedyCrossoverHibrid2OptEngine engine=new GreedyCrossoverHibrid2OptEngine();
+      engine.initialize(tsp.configuration,cities);
+      GenerationTimer timer=engine.getGenerationTimer();
+      assertEquals(0,timer.getTotalNanos());
+      for(int generation=0; generation<5; generation++) {
+         engine.nextGeneration();
+      }
+      assertTrue(timer.getNanos(Phase.CHILDREN)>0);
+      assertTrue(timer.getNanos(Phase.LOCAL_SEARCH)>0);
+      assertTrue(timer.getNanos(Phase.COST)>0);
+      assertTrue(timer.getNanos(Phase.SORT)>0);
+      assertTrue(timer.toString().startsWith("phases: trim "));
+   }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.saiko.ai.genetics.tsp.engines.exact.HeldKarpEngine;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ * HeldKarpBound TestCase
+ * @see org.saiko.ai.genetics.tsp.HeldKarpBound
+ */
+public class HeldKarpBoundTests extends TestCase {
+
+   /**
+    * Test routine - the bound is not above the optimal tour and it is close to it
+    */
+   public void testBound() {
+      TSP tsp=new TSP();
+      Random rnd=new Random(1);
+      for(int map=0; map<5; map++) {
+         City[] gene=TestMaps.random(tsp.configuration,12,rnd);
+
+         HeldKarpEngine e=new HeldKarpEngine();
+         e.initialize(tsp.configuration,gene);
+         e.nextGeneration();
+         double optimum=e.getBestChromosome().getTotalDistance();
+
+         HeldKarpBound bound=HeldKarpBound.forDistances(gene);
+         int iterations=0;
+         while(bound.iterate(Double.MAX_VALUE)) {
+            iterations++;
+         }
+         assertTrue(iterations>0);
+         assertTrue(bound.getBound()<=optimum+1e-6);
+         assertTrue(bound.getBound()>=0.9*optimum);
+      }
+   }
+
+   /**
+    * Test of the map, where the 1-tree is the optimal tour
+    */
+   public void testTour() {
+      TSP tsp=new TSP();
+      //cities on the border of 3x3 square, the best tour is 12
+      City[] gene=TestMaps.square(tsp.configuration);
+
+      HeldKarpBound bound=HeldKarpBound.forDistances(gene);
+      while(bound.iterate(12)) {
+         //next step
+      }
+      assertEquals(12.0,bound.getBound(),1e-6);
+   }
+
+   /**
+    * The bound of the map reads the distance cache, it is the same as the bound of the matrix
+    */
+   public void testDistanceCache() {
+      TSP tsp=new TSP();
+      City[] gene=TestMaps.random(tsp.configuration,30,new Random(2));
+      double cost[][]=new double[gene.length][gene.length];
+      for(int i=0; i<gene.length; i++) {
+         for(int j=0; j<gene.length; j++) {
+            cost[i][j]=gene[i].distance(gene[j]);
+         }
+      }
+
+      HeldKarpBound cached=HeldKarpBound.forDistances(gene);
+      assertNull(cached.cost);
+      HeldKarpBound matrix=new HeldKarpBound(cost);
+      while(cached.iterate(Double.MAX_VALUE)) {
+         assertTrue(matrix.iterate(Double.MAX_VALUE));
+      }
+      assertFalse(matrix.iterate(Double.MAX_VALUE));
+      assertEquals(matrix.getBound(),cached.getBound(),1e-9);
+   }
+
+   /**
+    * The bound is not computed for too big maps
+    */
+   public void testTooManyCities() {
+      TSP tsp=new TSP();
+      City[] gene=new City[HeldKarpBound.MAX_CITIES+1];
+      for(int i=0; i<gene.length; i++) {
+         gene[i]=new City(i,tsp.configuration,"c"+i,i,i*i);
+      }
+      try {
+         HeldKarpBound.forDistances(gene);
+         fail();
+      } catch(IllegalArgumentException e) {
+         //expected
+      }
+   }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import junit.framework.TestCase;
+
+import org.saiko.ai.genetics.tsp.MapLoader.Format;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ * MapLoader TestCase
+ * @see org.saiko.ai.genetics.tsp.MapLoader
+ */
+public class MapLoaderTests extends TestCase {
+
+   /**
+    * configuration of the cities
+    */
+   TSPConfiguration configuration=new TSP(false).configuration;
+
+   /**
+    * @param text
+    * @return detected format of the text
+    */
+   Format detect(String text) {
+      byte bytes[]=text.getBytes(StandardCharsets.UTF_8);
+      return MapLoader.detect(bytes,bytes.length);
+   }
+
+   /**
+    * The format is detected from the first bytes
+    */
+   public void testDetect() {
+      assertEquals(Format.CSV,detect("\"City\",\"X\",\"Y\"\n\"a\",1,2\n"));
+      assertEquals(Format.CSV,detect("City,X,Y\n"));
+      assertEquals(Format.TSPLIB,detect("NAME : usa13509\nTYPE : TSP\n"));
+      assertEquals(Format.TSPLIB,detect("\uFEFF\r\nDIMENSION: 3\n"));
+      assertEquals(Format.BINARY,MapLoader.detect(new byte[] {'T','S','P','M',0},5));
+      assertEquals(Format.CSV,MapLoader.detect(new byte[0],0));
+   }
+
+   /**
+    * Binary map is read back with the same cities
+    * @throws IOException
+    */
+   public void testBinary() throws IOException {
+      City cities[]=new City[] {
+            new City(0,configuration,"Praha",744379,1043261),
+            new City(1,configuration,"Aš",898722,1004635),
+      };
+      ByteArrayOutputStream out=new ByteArrayOutputStream();
+      BinaryMap.write(cities,out,0,false);
+
+      City read[]=MapLoader.load(new ByteArrayInputStream(out.toByteArray()),configuration);
+      assertEquals(2,read.length);
+      assertEquals("Aš",read[1].getName());
+      assertEquals(1,read[1].getId());
+      assertEquals(898722,read[1].getX());
+      assertEquals(1004635,read[1].getY());
+
+      byte incomplete[]=new byte[out.size()-3];
+      System.arraycopy(out.toByteArray(),0,incomplete,0,incomplete.length);
+      try {
+         MapLoader.load(new ByteArrayInputStream(incomplete),configuration);
+         fail("incomplete map");
+      } catch(IllegalArgumentException e) {
+         // expected
+      }
+   }
+
+   /**
+    * The maps of the file system are loaded by their content, not by the
+    * extension
+    * @throws IOException
+    */
+   public void testFiles() throws IOException {
+      File file=File.createTempFile("tsp",".map");
+      try {
+         write(file,"NAME : t\nDIMENSION : 3\nEDGE_WEIGHT_TYPE : EUC_2D\nNODE_COORD_SECTION\n1 0 0\n2 3 4\n3 6 0\nEOF\n");
+         City cities[]=MapLoader.load(file.getPath(),configuration);
+         assertEquals(3,cities.length);
+         assertTrue(cities[0] instanceof TSPLIBCity);
+
+         write(file,"\"City\",\"X\",\"Y\"\n\"a\",1,2\n\"b\",3,4\n");
+         cities=MapLoader.load(file.getPath(),configuration);
+         assertEquals(2,cities.length);
+         assertEquals("b",cities[1].getName());
+      } finally {
+         file.delete();
+      }
+   }
+
+   /**
+    * The build in maps and the errors of the map
+    * @throws IOException
+    */
+   public void testTSP() throws IOException {
+      TSP tsp=TSP.parseArguments(new String[] {"--map=020"});
+      tsp.loadCities(null,false);
+      assertEquals(20,tsp.cities.length);
+      assertTrue(tsp.cities[0].startCity);
+
+      tsp=TSP.parseArguments(new String[] {"--map=-"});
+      assertEquals(MapLoader.STDIN,tsp.mapFile);
+
+      try {
+         MapLoader.load("no/such/map",configuration);
+         fail("no map");
+      } catch(IllegalArgumentException e) {
+         // expected
+      }
+
+      tsp=new TSP(false);
+      tsp.mapFile="no/such/map";
+      try {
+         tsp.loadCities(null,false);
+         fail("no map");
+      } catch(IllegalArgumentException e) {
+         assertTrue(e.getMessage(),e.getMessage().contains("no/such/map"));
+      }
+   }
+
+   /**
+    * @param file
+    * @param text
+    * @throws IOException
+    */
+   void write(File file, String text) throws IOException {
+      try(OutputStream out=new FileOutputStream(file)) {
+         out.write(text.getBytes(StandardCharsets.UTF_8));
+      }
+   }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.saiko.ai.genetics.tsp.engines.crossover.GreedyCrossoverEngine;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ * TSPBatch TestCase
+ * @see org.saiko.ai.genetics.tsp.TSPBatch
+ */
+public class TSPBatchTests extends TestCase {
+
+   /**
+    * Engine failing in the first generation
+    */
+   public static class FailingEngine extends GreedyCrossoverEngine {
+      @Override
+      public void nextGeneration() {
+         throw new IllegalStateException("engine failure");
+      }
+   }
+
+   /**
+    * @param text
+    * @return temporary batch file with the text
+    * @throws IOException
+    */
+   File batch(String text) throws IOException {
+      File file=File.createTempFile("tsp",".batch");
+      try(OutputStream out=new FileOutputStream(file)) {
+         out.write(text.getBytes(StandardCharsets.UTF_8));
+      }
+      return file;
+   }
+
+   /**
+    * Lines of the batch file with the defaults of the command line
+    * @throws IOException
+    */
+   public void testReadJobs() throws IOException {
+      File file=batch("# comment\n\n--map=020 --engine=1\n  --map=050 --mutation=0.25 --xml=a.xml  \n");
+      try {
+         TSPBatch batch=new TSPBatch(new String[] {"--console","--batch="+file.getPath(),"--jobs=2","--max=7"},2);
+         assertEquals(2,batch.jobs);
+         List<TSP> jobs=batch.readJobs(file.getPath());
+         assertEquals(2,jobs.size());
+         assertEquals("cities_020",jobs.get(0).mapFile);
+         assertEquals(TSP.engines[1],jobs.get(0).engineClass);
+         assertEquals(7,jobs.get(0).configuration.maxBestCostAge);
+         assertTrue(jobs.get(0).xmlFileName.endsWith("_1.xml"));
+         assertEquals(0.25,jobs.get(1).configuration.mutationRatio);
+         assertEquals("a.xml",jobs.get(1).xmlFileName);
+      } finally {
+         file.delete();
+      }
+
+      file=batch("--map=020\n--map=020 --metrics=9090\n");
+      try {
+         new TSPBatch(new String[0],1).readJobs(file.getPath());
+         fail("metrics in batch");
+      } catch(IllegalArgumentException e) {
+         assertTrue(e.getMessage(),e.getMessage().startsWith("line 2:"));
+      } finally {
+         file.delete();
+      }
+
+      //the standard output of the batch is not for the tours
+      file=batch("--map=020 --stream=stdout\n");
+      try {
+         new TSPBatch(new String[0],1).readJobs(file.getPath());
+         fail("stdout stream in batch");
+      } catch(IllegalArgumentException e) {
+         assertTrue(e.getMessage(),e.getMessage().startsWith("line 1:"));
+      } finally {
+         file.delete();
+      }
+   }
+
+   /**
+    * Failed job is counted, the other jobs and the process go on
+    * @throws IOException
+    */
+   public void testFailedJob() throws IOException {
+      File report=File.createTempFile("tsp",".xml");
+      File file=batch("--map=020 --engine=1 --max=3 --population=50 --xml="+report.getPath()+"\n");
+      try {
+         TSPBatch batch=new TSPBatch(new String[0],2);
+         List<TSP> jobs=batch.readJobs(file.getPath());
+         TSP failing=jobs.get(0);
+         failing.engineClass=FailingEngine.class;
+         batch.runJob(failing,1);
+         assertEquals(1,batch.failures.get());
+         assertFalse(failing.startedFlag);
+         assertFalse(failing.stopRequestFlag);
+
+         //the same job with working engine
+         report.delete();
+         batch=new TSPBatch(new String[0],2);
+         assertTrue(batch.run(file.getPath()));
+         assertEquals(0,batch.failures.get());
+         assertTrue(report.length()>0);
+      } finally {
+         file.delete();
+         report.delete();
+      }
+   }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ * TSPBenchmark TestCase
+ * @see org.saiko.ai.genetics.tsp.TSPBenchmark
+ */
+public class TSPBenchmarkTests extends TestCase {
+
+   /**
+    * @param engine
+    * @param cost - the best distance at the checkpoint
+    * @param timeToTarget
+    * @return result of one run
+    */
+   TSPBenchmark.Result result(String engine, double cost, double timeToTarget) {
+      TSPBenchmark.Result result=new TSPBenchmark.Result();
+      result.engine=engine;
+      result.map="cities_100";
+      result.cities=100;
+      result.run=1;
+      result.target=1000;
+      result.values.put("cost_1s",cost);
+      result.values.put(TSPBenchmark.TIME_TO_TARGET,timeToTarget);
+      return result;
+   }
+
+   /**
+    * Medians of the runs are compared with the threshold
+    */
+   public void testCompare() {
+      TSPBenchmark benchmark=new TSPBenchmark(new String[]{"--benchmark=result.csv","--threshold=0.1"});
+      List<TSPBenchmark.Result> baseline=new ArrayList<>();
+      List<TSPBenchmark.Result> results=new ArrayList<>();
+
+      // the median is not worse, one bad run does not matter
+      baseline.add(result("A",1000,500));
+      baseline.add(result("A",1000,500));
+      baseline.add(result("A",1000,500));
+      results.add(result("A",1050,520));
+      results.add(result("A",1000,500));
+      results.add(result("A",5000,-1));
+      assertTrue(benchmark.compare(baseline,results).isEmpty());
+
+      // worse distance and the target not reached any more
+      baseline.add(result("B",1000,500));
+      results.add(result("B",1200,-1));
+      assertEquals(2,benchmark.compare(baseline,results).size());
+
+      // short times to target are not compared
+      baseline.add(result("C",1000,10));
+      results.add(result("C",1000,90));
+      assertEquals(2,benchmark.compare(baseline,results).size());
+   }
+
+   /**
+    * Benchmark of the exact engine on small map, the results are read back
+    * @throws Exception
+    */
+   public void testRun() throws Exception {
+      File file=File.createTempFile("benchmark",".csv");
+      try {
+         TSPBenchmark benchmark=new TSPBenchmark(new String[]{"--benchmark="+file.getPath(),"--engines=9",
+                  "--maps=cities_020","--runs=2","--checkpoints=200ms,1s","--max=10"});
+         assertTrue(benchmark.run());
+         List<TSPBenchmark.Result> results=TSPBenchmark.readResults(file.getPath());
+         assertEquals(2,results.size());
+         for(TSPBenchmark.Result result: results) {
+            assertEquals("BranchAndBoundEngine",result.engine);
+            // the optimal tour is within the target
+            assertTrue(result.values.get("cost_1s")<=result.target);
+            assertTrue(result.values.get(TSPBenchmark.TIME_TO_TARGET)>=0);
+         }
+
+         // the same results are no regression
+         assertTrue(benchmark.compare(results,results).isEmpty());
+      } finally {
+         file.delete();
+      }
+   }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ * TSPCoordinator and TSPWorker TestCase
+ * @see org.saiko.ai.genetics.tsp.TSPCoordinator
+ * @see org.saiko.ai.genetics.tsp.TSPWorker
+ */
+public class TSPCoordinatorTests extends TestCase {
+
+   /**
+    * Test routine - coordinator and two workers on localhost
+    * @throws Exception 
+    */
+   public void testIslands() throws Exception {
+      TSP coordinatorTsp=new TSP();
+      coordinatorTsp.configuration.setMaxBestCostAge(10);
+      final TSPCoordinator coordinator=new TSPCoordinator(coordinatorTsp,0);
+
+      final TSP workers[]=new TSP[] { new TSP(), new TSP() };
+      Thread threads[]=new Thread[workers.length];
+      for(int i=0; i<workers.length; i++) {
+         final TSP worker=workers[i];
+         worker.configuration.console=true;
+         worker.configuration.setInitialPopulationSize(200);
+         worker.configuration.setMigrationInterval(2);
+         worker.engineClass=TSP.engines[1];
+         threads[i]=new Thread() {
+            @Override
+            public void run() {
+               try {
+                  worker.worker=new TSPWorker("localhost",coordinator.getPort(),worker.cities);
+               } catch(Exception e) {
+                  throw new IllegalStateException(e);
+               }
+               worker.run();
+            }
+         };
+         threads[i].start();
+      }
+      
+      coordinator.run();
+      for(Thread thread: threads) {
+         thread.join();
+      }
+      
+      assertNotNull(coordinatorTsp.bestChromosome);
+      assertTrue(coordinatorTsp.bestCostAge>=10);
+      long evaluations=0;
+      for(TSP worker: workers) {
+         assertTrue(coordinatorTsp.bestChromosome.getTotalDistance()<=worker.bestChromosome.getTotalDistance());
+         evaluations+=worker.getEvaluations();
+      }
+      //the workers report their evaluations with the last exchange
+      assertEquals(evaluations,coordinatorTsp.getEvaluations());
+   }
+
+   /**
+    * The worker with other map of the same size is refused
+    * @throws Exception
+    */
+   public void testOtherMap() throws Exception {
+      TSP coordinatorTsp=new TSP();
+      final TSPCoordinator coordinator=new TSPCoordinator(coordinatorTsp,0);
+      Thread thread=new Thread() {
+         @Override
+         public void run() {
+            coordinator.run();
+         }
+      };
+      thread.start();
+
+      //one city moved
+      City cities[]=new City[coordinatorTsp.cities.length];
+      for(int i=0; i<cities.length; i++) {
+         City city=coordinatorTsp.cities[i];
+         cities[i]=new City(i,coordinatorTsp.configuration,city.getName(),city.getX()+(i==5 ? 1 : 0),city.getY());
+      }
+      try {
+         new TSPWorker("localhost",coordinator.getPort(),cities);
+         fail("other map");
+      } catch(IOException e) {
+         //expected
+      }
+      thread.join();
+      assertNull(coordinatorTsp.bestChromosome);
+   }
+
+   /**
+    * The list of tours longer than accepted is refused before the tours are read
+    * @throws IOException
+    */
+   public void testTooManyTours() throws IOException {
+      ByteArrayOutputStream bytes=new ByteArrayOutputStream();
+      DataOutputStream out=new DataOutputStream(bytes);
+      List<int[]> tours=new ArrayList<>();
+      tours.add(new int[] {0,1,2});
+      tours.add(new int[] {2,1,0});
+      TSPIslandProtocol.writeTours(out,tours,3);
+      assertEquals(2,TSPIslandProtocol.readTours(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())),3,2).size());
+      try {
+         TSPIslandProtocol.readTours(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())),3,1);
+         fail("too many tours");
+      } catch(IOException e) {
+         //expected
+      }
+   }
+
+   /**
+    * Only the engines which exchange chromosomes can run as workers
+    */
+   public void testWorkerEngine() {
+      TSP tsp=TSP.parseArguments(new String[] {"--console","--engine=3","--worker=localhost:1234"});
+      assertEquals("localhost",tsp.workerHost);
+      assertEquals(1234,tsp.workerPort);
+      try {
+         TSP.parseArguments(new String[] {"--console","--worker=localhost:1234","--engine=6"});
+         fail("annealing engine as worker");
+      } catch(IllegalArgumentException e) {
+         assertTrue(e.getMessage(),e.getMessage().contains("SimulatedAnnealingEngine"));
+      }
+   }
+}
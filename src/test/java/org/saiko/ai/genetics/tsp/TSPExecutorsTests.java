@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ * TSPExecutors TestCase
+ * @see org.saiko.ai.genetics.tsp.TSPExecutors
+ */
+public class TSPExecutorsTests extends TestCase {
+
+   /**
+    * One compute pool with one thread per processor
+    * @throws Exception
+    */
+   public void testComputePool() throws Exception {
+      assertSame(TSPExecutors.getComputePool(),TSPExecutors.getComputePool());
+      assertEquals(Runtime.getRuntime().availableProcessors(),TSPExecutors.getComputePool().getParallelism());
+
+      List<Callable<Integer>> tasks=new ArrayList<>();
+      for(int i=0; i<100; i++) {
+         final int value=i;
+         tasks.add(new Callable<Integer>() {
+            @Override
+            public Integer call() {
+               return value*value;
+            }
+         });
+      }
+      int sum=0;
+      for(Future<Integer> future: TSPExecutors.getComputePool().invokeAll(tasks)) {
+         sum+=future.get();
+      }
+      assertEquals(328350,sum);
+   }
+
+   /**
+    * The blocking tasks of I/O executor are not limited by the number of
+    * processors and do not keep the process running
+    * @throws Exception
+    */
+   public void testIOExecutor() throws Exception {
+      assertSame(TSPExecutors.getIOExecutor(),TSPExecutors.getIOExecutor());
+
+      int count=2*Runtime.getRuntime().availableProcessors()+2;
+      final CountDownLatch started=new CountDownLatch(count);
+      final CountDownLatch release=new CountDownLatch(1);
+      final List<Boolean> daemons=new ArrayList<>();
+      for(int i=0; i<count; i++) {
+         TSPExecutors.getIOExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+               synchronized(daemons) {
+                  daemons.add(Thread.currentThread().isDaemon());
+               }
+               started.countDown();
+               try {
+                  release.await();
+               } catch(InterruptedException e) {
+                  // end
+               }
+            }
+         });
+      }
+      //all the tasks block at the same time
+      assertTrue(started.await(10,TimeUnit.SECONDS));
+      release.countDown();
+      assertFalse(daemons.contains(Boolean.FALSE));
+   }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringReader;
+import java.io.Writer;
+
+import junit.framework.TestCase;
+
+import org.saiko.ai.genetics.tsp.TSPLIBCity.WeightType;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ * TSPLIBReader TestCase
+ * @see org.saiko.ai.genetics.tsp.TSPLIBReader
+ */
+public class TSPLIBReaderTests extends TestCase {
+
+   /**
+    * configuration of the cities
+    */
+   TSPConfiguration configuration=new TSP(false).configuration;
+
+   /**
+    * @param map - the map in TSPLIB format
+    * @return cities of the map with the distance cache
+    * @throws IOException
+    */
+   City[] read(String map) throws IOException {
+      City cities[]=new TSPLIBReader(configuration).read(new StringReader(map));
+      City.initDistanceCache(cities);
+      return cities;
+   }
+
+   /**
+    * EUC_2D distances are rounded to integers
+    * @throws IOException
+    */
+   public void testEuclidean() throws IOException {
+      City cities[]=read(
+            "NAME: square\n"+
+            "TYPE : TSP\n"+
+            "COMMENT : 4 cities\n"+
+            "DIMENSION:4\n"+
+            "EDGE_WEIGHT_TYPE : EUC_2D\n"+
+            "NODE_COORD_SECTION\n"+
+            " 1 0 0\n"+
+            " 3   3.0e0 4.4\n"+
+            " 2 3 0\n"+
+            " 4 0.0 4.4\n"+
+            "EOF\n");
+      assertEquals(4,cities.length);
+      for(int i=0; i<cities.length; i++) {
+         assertEquals(i,cities[i].id);
+         assertEquals(String.valueOf(i+1),cities[i].getName());
+         assertEquals(WeightType.EUC_2D,((TSPLIBCity)cities[i]).getWeightType());
+      }
+      assertEquals(3.0,cities[0].distance(cities[1]),0);
+      // 5.32 rounded
+      assertEquals(5.0,cities[0].distance(cities[2]),0);
+      // 4.4 rounded
+      assertEquals(4.0,cities[1].distance(cities[2]),0);
+      assertEquals(0.0,cities[3].distance(cities[3]),0);
+      // without the cache
+      assertEquals(5.0,cities[2].distance(cities[0],false),0);
+
+      TSPChromosome chromosome=new TSPChromosome(cities);
+      assertEquals(14.0,chromosome.getTotalDistance(),0);
+   }
+
+   /**
+    * CEIL_2D distances are rounded up
+    * @throws IOException
+    */
+   public void testCeiling() throws IOException {
+      City cities[]=read(
+            "DIMENSION : 2\n"+
+            "EDGE_WEIGHT_TYPE : CEIL_2D\n"+
+            "NODE_COORD_SECTION\n"+
+            "1 0 0\n"+
+            "2 3 4.1\n");
+      assertEquals(6.0,cities[0].distance(cities[1]),0);
+   }
+
+   /**
+    * GEO distances of the first cities of ulysses16
+    * @throws IOException
+    */
+   public void testGeographical() throws IOException {
+      City cities[]=read(
+            "NAME: ulysses16.tsp\n"+
+            "TYPE: TSP\n"+
+            "DIMENSION: 3\n"+
+            "EDGE_WEIGHT_TYPE: GEO\n"+
+            "DISPLAY_DATA_TYPE: COORD_DISPLAY\n"+
+            "NODE_COORD_SECTION\n"+
+            "   1  38.24  20.42\n"+
+            "   2  39.57  26.15\n"+
+            "   3  40.56  25.32\n"+
+            "EOF\n");
+      assertEquals(509.0,cities[0].distance(cities[1]),0);
+      assertEquals(cities[1].distance(cities[0]),cities[0].distance(cities[1]),0);
+   }
+
+   /**
+    * EXPLICIT map in UPPER_ROW format read from the file, the weights
+    * continue over the lines
+    * @throws IOException
+    */
+   public void testExplicitFile() throws IOException {
+      File file=File.createTempFile("tsp",".tsp");
+      try {
+         try(Writer writer=new OutputStreamWriter(new FileOutputStream(file),"UTF-8")) {
+            writer.write(
+                  "NAME : explicit\r\n"+
+                  "TYPE : TSP\r\n"+
+                  "DIMENSION : 4\r\n"+
+                  "EDGE_WEIGHT_TYPE : EXPLICIT\r\n"+
+                  "EDGE_WEIGHT_FORMAT : UPPER_ROW\r\n"+
+                  "EDGE_WEIGHT_SECTION\r\n"+
+                  " 1 2\r\n"+
+                  " 3 4 5\r\n"+
+                  " 6\r\n"+
+                  "EOF\r\n");
+         }
+         TSPLIBReader reader=new TSPLIBReader(configuration);
+         City cities[]=reader.read(file);
+         City.initDistanceCache(cities);
+         assertEquals("explicit",reader.getName());
+         assertEquals(4,cities.length);
+         assertEquals(1.0,cities[0].distance(cities[1]),0);
+         assertEquals(3.0,cities[3].distance(cities[0]),0);
+         assertEquals(5.0,cities[1].distance(cities[3]),0);
+         assertEquals(6.0,cities[3].distance(cities[2]),0);
+      } finally {
+         file.delete();
+      }
+   }
+
+   /**
+    * LOWER_DIAG_ROW format gives the same matrix
+    * @throws IOException
+    */
+   public void testLowerDiagonal() throws IOException {
+      City cities[]=read(
+            "DIMENSION : 3\n"+
+            "EDGE_WEIGHT_TYPE : EXPLICIT\n"+
+            "EDGE_WEIGHT_FORMAT : LOWER_DIAG_ROW\n"+
+            "EDGE_WEIGHT_SECTION\n"+
+            "0 7 0 8 9 0\n"+
+            "EOF\n");
+      assertEquals(7.0,cities[0].distance(cities[1]),0);
+      assertEquals(8.0,cities[2].distance(cities[0]),0);
+      assertEquals(9.0,cities[1].distance(cities[2]),0);
+   }
+
+   /**
+    * Asymmetric maps and missing sections are reported
+    * @throws IOException
+    */
+   public void testUnsupported() throws IOException {
+      try {
+         read("TYPE : ATSP\nDIMENSION : 2\nEDGE_WEIGHT_TYPE : EUC_2D\nNODE_COORD_SECTION\n1 0 0\n2 1 1\n");
+         fail("ATSP is not supported");
+      } catch(IllegalArgumentException e) {
+         // expected
+      }
+      try {
+         read("DIMENSION : 3\nEDGE_WEIGHT_TYPE : EUC_2D\nNODE_COORD_SECTION\n1 0 0\n2 1 1\n");
+         fail("the cities are missing");
+      } catch(IllegalArgumentException e) {
+         assertTrue(e.getMessage(),e.getMessage().startsWith("line "));
+      }
+   }
+}
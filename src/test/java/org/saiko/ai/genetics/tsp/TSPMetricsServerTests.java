@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+import junit.framework.TestCase;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ * TSPMetricsServer TestCase
+ * @see org.saiko.ai.genetics.tsp.TSPMetricsServer
+ */
+public class TSPMetricsServerTests extends TestCase {
+
+   /**
+    * The metrics are served at localhost
+    */
+   public void testMetrics() throws Exception {
+      TSP tsp=TSP.parseArguments(new String[] {"--console","--map=020"});
+      tsp.generation=12;
+      tsp.evaluations=3456;
+      tsp.bestCost=7890.5;
+      tsp.startTime=System.currentTimeMillis()-10000;
+      tsp.runTime=10000;
+      tsp.bestCostTime=tsp.startTime+4000;
+      tsp.throughput=new TSPThroughput();
+
+      TSPMetricsServer server=new TSPMetricsServer(tsp,0);
+      try {
+         HttpURLConnection connection=(HttpURLConnection)new URL("http://localhost:"+server.getPort()+"/metrics").openConnection();
+         assertEquals(200,connection.getResponseCode());
+         assertTrue(connection.getContentType().startsWith("text/plain"));
+         ByteArrayOutputStream body=new ByteArrayOutputStream();
+         try(InputStream in=connection.getInputStream()) {
+            byte buffer[]=new byte[4096];
+            for(int read; (read=in.read(buffer))>0;) {
+               body.write(buffer,0,read);
+            }
+         }
+         String metrics=body.toString("UTF-8");
+         assertTrue(metrics.contains("\ntsp_generation 12\n"));
+         assertTrue(metrics.contains("\ntsp_evaluations 3456\n"));
+         assertTrue(metrics.contains("\ntsp_best_distance 7890.5\n"));
+         assertTrue(metrics.contains("\ntsp_seconds_since_improvement 6\n"));
+         assertTrue(metrics.contains("# TYPE tsp_evaluations_per_second gauge\n"));
+         assertTrue(metrics.contains("\ntsp_heap_used_bytes "));
+         assertTrue(metrics.contains("\ntsp_population "));
+
+         //the running computation is measured by the clock, not by the
+         //run time of the last generation
+         tsp.startedFlag=true;
+         tsp.bestCostTime=System.currentTimeMillis()-8000;
+         assertTrue(server.getMetrics().contains("\ntsp_seconds_since_improvement 8"));
+
+         HttpURLConnection other=(HttpURLConnection)new URL("http://localhost:"+server.getPort()+"/other").openConnection();
+         assertEquals(404,other.getResponseCode());
+      } finally {
+         server.stop();
+      }
+   }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.saiko.ai.genetics.tsp.engines.crossover.GreedyCrossoverEngine;
+import org.saiko.ai.genetics.tsp.engines.exact.HeldKarpEngine;
+import org.saiko.ai.genetics.tsp.termination.AnyTermination;
+import org.saiko.ai.genetics.tsp.termination.GapTermination;
+import org.saiko.ai.genetics.tsp.termination.ImprovementTermination;
+import org.saiko.ai.genetics.tsp.termination.TargetCostTermination;
+import org.saiko.ai.genetics.tsp.termination.TimeTermination;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ * TSPTermination TestCase
+ * @see org.saiko.ai.genetics.tsp.TSPTermination
+ */
+public class TSPTerminationTests extends TestCase {
+
+   /**
+    * Engine with endless generations, they end only by the stop signal
+    */
+   public static class EndlessEngine extends GreedyCrossoverEngine {
+      @Override
+      public void nextGeneration() {
+         while(!stopSignal.isStopRequested()) {
+            try {
+               Thread.sleep(10);
+            } catch(InterruptedException e) {
+               return;
+            }
+         }
+      }
+   }
+
+   /**
+    * Test of the policies created from configuration
+    */
+   public void testConfiguration() {
+      TSP tsp=new TSP();
+      tsp.configuration.setMaxBestCostAge(10);
+      tsp.configuration.setTargetCost(100);
+      TSPTermination termination=tsp.createTermination();
+      termination.start(tsp);
+
+      tsp.bestCost=200;
+      tsp.bestCostAge=5;
+      assertFalse(termination.isFinished(tsp));
+      tsp.bestCostAge=10;
+      assertTrue(termination.isFinished(tsp));
+      tsp.bestCostAge=0;
+      tsp.bestCost=100;
+      assertTrue(termination.isFinished(tsp));
+
+      assertEquals(90000,TSP.parseTime("90"));
+      assertEquals(90000,TSP.parseTime("90s"));
+      assertEquals(15*60000,TSP.parseTime("15m"));
+      assertEquals(2*3600000,TSP.parseTime("2h"));
+      assertEquals(500,TSP.parseTime("500ms"));
+   }
+
+   /**
+    * Test of the time budget and the improvement window
+    */
+   public void testPolicies() {
+      TSP tsp=new TSP();
+      TSPTermination time=new TimeTermination(1000);
+      time.start(tsp);
+      tsp.runTime=300;
+      assertFalse(time.isFinished(tsp));
+      //the next generation would not finish in the budget
+      tsp.runTime=700;
+      assertTrue(time.isFinished(tsp));
+
+      //at least 10% in 3 generations
+      TSPTermination improvement=new ImprovementTermination(3,0.1);
+      AnyTermination any=new AnyTermination(improvement,new TargetCostTermination(1));
+      any.start(tsp);
+      double costs[]=new double[] {1000,900,800,700,690,680,670,660};
+      for(int generation=0; generation<costs.length; generation++) {
+         tsp.generation=generation;
+         tsp.bestCost=costs[generation];
+         //700 -> 670 is less than 10%
+         assertEquals(generation>=6,any.isFinished(tsp));
+      }
+   }
+
+   /**
+    * The gap is not known before the first generation
+    */
+   public void testGap() {
+      TSP tsp=new TSP();
+      tsp.configuration.console=true;
+      ByteArrayOutputStream status=new ByteArrayOutputStream();
+      tsp.console=new PrintStream(status,true);
+      tsp.cities=TestMaps.square(tsp.configuration);
+      TSPTermination gap=new GapTermination(0.05);
+      gap.start(tsp);
+
+      tsp.lowerBound=100;
+      assertTrue(Double.isInfinite(tsp.getGap()));
+      assertFalse(gap.isFinished(tsp));
+      tsp.setStatus(new HeldKarpEngine());
+      assertTrue(status.toString().contains("lower bound: 100;"));
+      assertFalse(status.toString().contains("gap:"));
+
+      tsp.bestCost=104;
+      assertEquals(0.04,tsp.getGap(),1e-9);
+      assertTrue(gap.isFinished(tsp));
+      tsp.setStatus(new HeldKarpEngine());
+      assertTrue(status.toString().contains("gap: 4"));
+   }
+
+   /**
+    * The evaluation budget counts the evaluated tours, not the population sizes
+    */
+   public void testEvaluations() {
+      TSP tsp=new TSP();
+      tsp.configuration.console=true;
+      tsp.configuration.setInitialPopulationSize(10);
+      tsp.configuration.setMaxBestCostAge(1000000);
+      tsp.configuration.setMaxEvaluations(2000);
+      tsp.run();
+      assertTrue(tsp.getEvaluations()>=2000);
+      assertEquals(tsp.getThroughput().getCount(TSPThroughput.Counter.EVALUATIONS),tsp.getEvaluations());
+   }
+
+   /**
+    * The computation of an exact engine ends with the optimal tour
+    */
+   public void testSolved() {
+      TSP tsp=new TSP();
+      tsp.configuration.console=true;
+      tsp.loadCities(TestMaps.random(tsp.configuration,8,new Random(1)),true);
+      tsp.engineClass=HeldKarpEngine.class;
+      tsp.run();
+      assertTrue(((HeldKarpEngine)tsp.getEngine()).isSolved());
+      //solved in the first generation, not after the best cost age
+      assertTrue(tsp.generation<=2);
+   }
+
+   /**
+    * The time budget ends the running generation
+    */
+   public void testTimeBudget() {
+      TSP tsp=new TSP();
+      tsp.configuration.console=true;
+      tsp.configuration.setInitialPopulationSize(10);
+      tsp.configuration.setMaxTime(500);
+      tsp.engineClass=EndlessEngine.class;
+      tsp.run();
+      assertTrue(tsp.getRunTime()>=500);
+      assertTrue(tsp.getRunTime()<5000);
+      //the budget ends with the computation
+      assertFalse(tsp.stopSignal.isStopRequested());
+      tsp.stopRequestFlag=true;
+      assertTrue(tsp.stopSignal.isStopRequested());
+   }
+}
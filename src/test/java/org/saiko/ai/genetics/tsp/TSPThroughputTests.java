@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.saiko.ai.genetics.tsp.TSPThroughput.Counter;
+import org.saiko.ai.genetics.tsp.engines.antColony.AntColonyEngine;
+import org.saiko.ai.genetics.tsp.engines.crossover.GreedyCrossoverEngine;
+import org.saiko.ai.genetics.tsp.engines.crossoverHibrid2opt.GreedyCrossoverHibrid2OptEngine;
+import org.saiko.ai.genetics.tsp.engines.simulatedAnnealing.SimulatedAnnealingEngine;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ * TSPThroughput TestCase
+ * @see org.saiko.ai.genetics.tsp.TSPThroughput
+ */
+public class TSPThroughputTests extends TestCase {
+
+   /**
+    * cities of the map
+    */
+   City cities[];
+
+   /**
+    * throughput of the computation of the cities
+    */
+   TSPThroughput throughput;
+
+   /**
+    * @see junit.framework.TestCase#setUp()
+    */
+   @Override
+   protected void setUp() {
+      TSP tsp=new TSP(false);
+      Random rnd=new Random(1);
+      cities=TestMaps.random(tsp.configuration,50,rnd);
+      throughput=new TSPThroughput();
+      tsp.configuration.setThroughput(throughput);
+   }
+
+   /**
+    * Evaluations and crossovers with their distance lookups
+    */
+   public void testEvaluations() {
+      TSPChromosome parent1=new TSPChromosome(cities);
+      TSPChromosome parent2=new TSPChromosome(cities);
+      GreedyCrossoverEngine.haveSex(parent1,parent2);
+
+      assertEquals(2,throughput.getCount(Counter.EVALUATIONS));
+      assertEquals(1,throughput.getCount(Counter.CROSSOVERS));
+      assertEquals(2*2*cities.length,throughput.getCount(Counter.DISTANCE_LOOKUPS));
+      assertTrue(throughput.getRate(Counter.EVALUATIONS)>0);
+   }
+
+   /**
+    * 2opt of the tour in the map order
+    */
+   public void test2opt() {
+      GreedyCrossoverHibrid2OptEngine.heuristics2opt(cities.clone());
+
+      long tried=throughput.getCount(Counter.MOVES_TRIED);
+      assertTrue(tried>=cities.length*(cities.length-3)/2);
+      assertTrue(throughput.getCount(Counter.MOVES_APPLIED)>0);
+      assertEquals(4*tried,throughput.getCount(Counter.DISTANCE_LOOKUPS));
+   }
+
+   /**
+    * Polishing of the tour in the map order
+    */
+   public void testPolish() {
+      TourPolisher.polish(cities.clone());
+
+      assertTrue(throughput.getCount(Counter.MOVES_TRIED)>0);
+      assertTrue(throughput.getCount(Counter.MOVES_APPLIED)>0);
+   }
+
+   /**
+    * The moves of the annealing chains
+    */
+   public void testAnnealing() {
+      SimulatedAnnealingEngine engine=new SimulatedAnnealingEngine();
+      engine.initialize(cities[0].configuration,cities);
+      long evaluations=throughput.getCount(Counter.EVALUATIONS);
+      engine.nextGeneration();
+
+      assertTrue(throughput.getCount(Counter.MOVES_TRIED)>=cities.length);
+      assertTrue(throughput.getCount(Counter.MOVES_APPLIED)>0);
+      assertTrue(throughput.getCount(Counter.EVALUATIONS)>evaluations);
+   }
+
+   /**
+    * Each tour built by the ants is an evaluation, the local search of the ants counts its moves
+    */
+   public void testAnts() {
+      TSPConfiguration configuration=cities[0].configuration;
+      configuration.setAntCount(10);
+      configuration.setAntLocalSearch(true);
+      AntColonyEngine engine=new AntColonyEngine();
+      engine.initialize(configuration,cities);
+      long evaluations=throughput.getCount(Counter.EVALUATIONS);
+      engine.nextGeneration();
+
+      assertTrue(throughput.getCount(Counter.EVALUATIONS)>=evaluations+10);
+      assertTrue(throughput.getCount(Counter.MOVES_TRIED)>0);
+   }
+
+   /**
+    * The counts of the threads are summed
+    */
+   public void testThreads() throws Exception {
+      Thread threads[]=new Thread[4];
+      for(int i=0; i<threads.length; i++) {
+         threads[i]=new Thread() {
+            @Override
+            public void run() {
+               for(int j=0; j<1000; j++) {
+                  throughput.count(Counter.CROSSOVERS,1);
+               }
+            }
+         };
+         threads[i].start();
+      }
+      for(Thread thread: threads) {
+         thread.join();
+      }
+      assertEquals(4000,throughput.getCount(Counter.CROSSOVERS));
+      assertTrue(throughput.toString().startsWith("rates/s: evaluations "));
+   }
+
+   /**
+    * The computations with other configurations are not counted
+    */
+   public void testOtherComputation() {
+      TSP other=new TSP(false);
+      City otherCities[]=new City[cities.length];
+      for(int i=0; i<cities.length; i++) {
+         otherCities[i]=new City(i,other.configuration,"c"+i,cities[i].SJTSKX,cities[i].SJTSKY);
+      }
+      City.initDistanceCache(otherCities);
+      TSPThroughput otherThroughput=new TSPThroughput();
+      other.configuration.setThroughput(otherThroughput);
+      new TSPChromosome(otherCities);
+
+      assertEquals(0,throughput.getCount(Counter.EVALUATIONS));
+      assertEquals(1,otherThroughput.getCount(Counter.EVALUATIONS));
+
+      other.configuration.setThroughput(null);
+      new TSPChromosome(otherCities);
+      assertEquals(1,otherThroughput.getCount(Counter.EVALUATIONS));
+   }
+}
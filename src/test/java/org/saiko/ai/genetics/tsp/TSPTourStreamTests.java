@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.saiko.ai.genetics.tsp.sinks.JsonLinesTourSink;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ * TSPTourStream TestCase
+ * @see org.saiko.ai.genetics.tsp.TSPTourStream
+ */
+public class TSPTourStreamTests extends TestCase {
+
+   /**
+    * Test routine
+    */
+   public void testStream() {
+      TSP tsp=new TSP();
+      City[] gene=new City[] {
+            new City(0,tsp.configuration,"a",0,0),
+            new City(1,tsp.configuration,"b",3,0),
+            new City(2,tsp.configuration,"c",3,4)
+      };
+      City.initDistanceCache(gene);
+
+      final List<TSPTourEvent> events=new ArrayList<>();
+      final boolean finished[]=new boolean[1];
+      TSPTourListener listener=new TSPTourListener() {
+         @Override
+         public void bestTourFound(TSPTourEvent event) {
+            events.add(event);
+         }
+         @Override
+         public void computationFinished() {
+            finished[0]=true;
+         }
+      };
+
+      TSPTourStream stream=new TSPTourStream(Arrays.asList(listener));
+      for(int generation=0; generation<100; generation++) {
+         stream.publish(new TSPTourEvent(generation,generation*1000L,new TSPChromosome(gene)));
+      }
+      stream.close();
+
+      //all the events delivered in order before close returns
+      assertTrue(finished[0]);
+      assertEquals(100-stream.getDropped(),events.size());
+      assertEquals(99,events.get(events.size()-1).getGeneration());
+      for(int i=1; i<events.size(); i++) {
+         assertTrue(events.get(i-1).getGeneration()<events.get(i).getGeneration());
+      }
+
+      assertEquals("{\"generation\":0,\"elapsedNs\":0,\"cost\":12.0,\"tour\":[0,1,2]}",
+            JsonLinesTourSink.toJson(events.get(0)));
+   }
+
+   /**
+    * The stream of the failed computation is closed, the status lines do
+    * not go to the standard output with the tours
+    */
+   public void testFailedComputation() {
+      TSP tsp=TSP.parseArguments(new String[] {"--console","--stream=stdout"});
+      assertSame(System.err,tsp.console);
+      tsp.loadCities(null,true);
+      tsp.tourListeners.clear();
+      final boolean finished[]=new boolean[1];
+      tsp.addTourListener(new TSPTourListener() {
+         @Override
+         public void bestTourFound(TSPTourEvent event) {
+            //nop
+         }
+         @Override
+         public void computationFinished() {
+            finished[0]=true;
+         }
+      });
+      tsp.engineClass=TSPBatchTests.FailingEngine.class;
+      try {
+         tsp.run();
+         fail();
+      } catch(IllegalStateException e) {
+         //expected
+      }
+      assertTrue(finished[0]);
+   }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp;
+
+import java.util.Random;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ * Small maps shared by the tests, with the distance cache initialized
+ */
+public class TestMaps {
+
+   /**
+    * coordinates of the cities on the border of 3x3 square, in the order of the best tour
+    */
+   protected static final int SQUARE[][]=new int[][] {
+         {0,0},{1,0},{2,0},{3,0},{3,1},{3,2},
+         {3,3},{2,3},{1,3},{0,3},{0,2},{0,1}
+   };
+
+   /**
+    * the length of the best tour of the square map
+    */
+   public static final double SQUARE_TOUR=12;
+
+   /**
+    * no instances
+    */
+   private TestMaps() {
+      //only static methods
+   }
+
+   /**
+    * @param configuration - configuration of the cities
+    * @param count - number of the cities
+    * @param rnd - random generator, the maps of the same sequence differ
+    * @return cities with random coordinates from 0 to 999, named c0, c1, ...
+    */
+   public static City[] random(TSPConfiguration configuration, int count, Random rnd) {
+      City[] cities=new City[count];
+      for(int i=0; i<count; i++) {
+         cities[i]=new City(i,configuration,"c"+i,rnd.nextInt(1000),rnd.nextInt(1000));
+      }
+      City.initDistanceCache(cities);
+      return cities;
+   }
+
+   /**
+    * @param configuration - configuration of the cities
+    * @return 12 cities on the border of 3x3 square, the best tour is 12 (SQUARE_TOUR)
+    * and it is the order of the cities
+    */
+   public static City[] square(TSPConfiguration configuration) {
+      City[] cities=new City[SQUARE.length];
+      for(int i=0; i<cities.length; i++) {
+         cities[i]=new City(i,configuration,"c"+i,SQUARE[i][0],SQUARE[i][1]);
+      }
+      City.initDistanceCache(cities);
+      return cities;
+   }
+}
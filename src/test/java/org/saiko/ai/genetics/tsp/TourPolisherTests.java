@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ * TourPolisher TestCase
+ * @see org.saiko.ai.genetics.tsp.TourPolisher
+ */
+public class TourPolisherTests extends TestCase {
+
+   /**
+    * Test routine
+    */
+   public void testPolish() {
+      TSP tsp=new TSP();
+      Random rnd=new Random(1);
+      City[] gene=TestMaps.random(tsp.configuration,200,rnd);
+
+      //random tour
+      City[] tour=gene.clone();
+      for(int i=tour.length-1; i>0; i--) {
+         int j=rnd.nextInt(i+1);
+         City swap=tour[i];
+         tour[i]=tour[j];
+         tour[j]=swap;
+      }
+      double randomCost=new TSPChromosome(tour).getTotalCost();
+
+      TourPolisher.polish(tour);
+      double polishedCost=new TSPChromosome(tour).getTotalCost();
+      assertTrue(polishedCost<randomCost/3);
+
+      Set<City> visited=new HashSet<>();
+      for(City city: tour) {
+         visited.add(city);
+      }
+      assertEquals(gene.length,visited.size());
+
+      //local optimum
+      TourPolisher.polish(tour);
+      assertEquals(polishedCost,new TSPChromosome(tour).getTotalCost(),1e-6);
+
+      //the square border can be polished to the optimal tour 12
+      City[] square=TestMaps.square(tsp.configuration);
+      City[] squareTour=new City[] {
+            square[0],square[2],square[1],square[3],square[5],square[4],
+            square[6],square[8],square[7],square[9],square[11],square[10]
+      };
+      TourPolisher.polish(squareTour);
+      assertEquals(12.0,new TSPChromosome(squareTour).getTotalDistance(),1e-9);
+   }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import junit.framework.TestCase;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ * XMLReport TestCase
+ * @see org.saiko.ai.genetics.tsp.XMLReport
+ */
+public class XMLReportTests extends TestCase {
+
+   /**
+    * @param report
+    * @return parsed report
+    * @throws Exception
+    */
+   Document write(XMLReport report) throws Exception {
+      ByteArrayOutputStream out=new ByteArrayOutputStream();
+      report.write(out);
+      return DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(new ByteArrayInputStream(out.toByteArray()));
+   }
+
+   /**
+    * The names and values are escaped, the tour starts and ends with the start city
+    * @throws Exception
+    */
+   public void testReport() throws Exception {
+      TSPConfiguration configuration=new TSP(false).configuration;
+      City tour[]=new City[] {
+            new City(0,configuration,"\"Aš\" & <Cheb>",898722,1004635),
+            new City(1,configuration,"Praha",744379,1043261),
+            new City(2,configuration,"Brno 'jih'",598000,1160000),
+      };
+      tour[1].startCity=true;
+      Map<String,String> results=new LinkedHashMap<>();
+      results.put("Map file","a&b<\"c\">.csv");
+      results.put("Cost",null);
+      Map<String,String> info=new LinkedHashMap<>();
+      info.put("os.name","Linux");
+
+      Document document=write(new XMLReport(results,info,tour));
+      NodeList result=document.getElementsByTagName("result");
+      assertEquals(2,result.getLength());
+      assertEquals("Map file",((Element)result.item(0)).getAttribute("name"));
+      assertEquals("a&b<\"c\">.csv",((Element)result.item(0)).getAttribute("value"));
+      assertEquals("null",((Element)result.item(1)).getAttribute("value"));
+      assertEquals(1,document.getElementsByTagName("info").getLength());
+
+      NodeList city=document.getElementsByTagName("city");
+      assertEquals(4,city.getLength());
+      assertEquals("Praha",((Element)city.item(0)).getAttribute("name"));
+      assertEquals("Brno 'jih'",((Element)city.item(1)).getAttribute("name"));
+      assertEquals("\"Aš\" & <Cheb>",((Element)city.item(2)).getAttribute("name"));
+      assertEquals("898722",((Element)city.item(2)).getAttribute("x"));
+      assertEquals("1004635",((Element)city.item(2)).getAttribute("y"));
+      assertEquals("Praha",((Element)city.item(3)).getAttribute("name"));
+
+      //the tour is not rotated in place
+      assertEquals("Praha",tour[1].getName());
+      assertEquals(1,XMLReport.startIndex(tour));
+   }
+
+   /**
+    * Empty tour gives empty path
+    * @throws Exception
+    */
+   public void testEmpty() throws Exception {
+      Document document=write(new XMLReport(new LinkedHashMap<String,String>(),new LinkedHashMap<String,String>(),new City[0]));
+      assertEquals(1,document.getElementsByTagName("path").getLength());
+      assertEquals(0,document.getElementsByTagName("city").getLength());
+   }
+}
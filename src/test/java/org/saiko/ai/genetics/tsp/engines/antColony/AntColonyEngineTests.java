@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp.engines.antColony;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import org.saiko.ai.genetics.tsp.City;
+import org.saiko.ai.genetics.tsp.TSP;
+import org.saiko.ai.genetics.tsp.TestMaps;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ * AntColonyEngine TestCase
+ * @see org.saiko.ai.genetics.tsp.engines.antColony.AntColonyEngine
+ */
+public class AntColonyEngineTests extends TestCase {
+
+   /**
+    * Test routine
+    */
+   public void testEngine() {
+      TSP tsp=new TSP();
+      City[] gene=TestMaps.square(tsp.configuration);
+      
+      for(boolean localSearch: new boolean[] {true, false}) {
+         AntColonyEngine e=new AntColonyEngine();
+         tsp.configuration.setAntCount(10);
+         tsp.configuration.setAntLocalSearch(localSearch);
+         e.initialize(tsp.configuration,gene);
+         assertEquals(10,e.getPopulationSize());
+         assertNotNull(e.getBestChromosome());
+         for(int i=0; i<50; i++) {
+            e.nextGeneration();
+         }
+         assertEquals(12.0,e.getBestChromosome().getTotalDistance(),1e-9);
+      }
+   }
+
+   /**
+    * Test of 2opt with candidate lists - random tours are improved to valid tours
+    * with right costs
+    */
+   public void testLocalSearch() {
+      TSP tsp=new TSP();
+      City[] gene=TestMaps.square(tsp.configuration);
+      AntColonyEngine e=new AntColonyEngine();
+      e.initialize(tsp.configuration,gene);
+      
+      Random rnd=new Random(1);
+      for(int t=0; t<20; t++) {
+         AntColonyEngine.Ant ant=e.buildTour(rnd);
+         double cost=ant.cost;
+         e.localSearch(ant);
+         assertTrue(ant.cost<=cost);
+         assertEquals(e.cost(ant.tour),ant.cost,1e-9);
+         Set<Integer> visited=new HashSet<>();
+         for(int id: ant.tour) {
+            visited.add(id);
+         }
+         assertEquals(gene.length,visited.size());
+      }
+   }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp.engines.crossoverHibrid2opt;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import junit.framework.TestCase;
+
+import org.saiko.ai.genetics.tsp.City;
+import org.saiko.ai.genetics.tsp.TSP;
+import org.saiko.ai.genetics.tsp.TSPChromosome;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ * GreedyCrossoverHibrid2OptEngine TestCase
+ * @see org.saiko.ai.genetics.tsp.engines.crossoverHibrid2opt.GreedyCrossoverHibrid2OptEngine
+ */
+public class GreedyCrossoverHibrid2OptEngineTests extends TestCase {
+
+   /**
+    * Test of parallel 2opt - the result is a tour without improving 2opt move
+    */
+   public void testParallelHeuristics2opt() {
+      TSP tsp=new TSP(false);
+      Random rnd=new Random(1);
+      City cities[]=new City[400];
+      for(int i=0; i<cities.length; i++) {
+         cities[i]=new City(i,tsp.configuration,"c"+i,rnd.nextInt(10000),rnd.nextInt(10000));
+      }
+      City.initDistanceCache(cities.length);
+      
+      double cost=new TSPChromosome(cities).getTotalCost();
+      GreedyCrossoverHibrid2OptEngine.parallelHeuristics2opt(cities,new ForkJoinPool(4));
+      assertTrue(new TSPChromosome(cities).getTotalCost()<cost);
+      
+      //all the cities are still there
+      boolean visited[]=new boolean[cities.length];
+      for(City city: cities) {
+         assertFalse(visited[city.getId()]);
+         visited[city.getId()]=true;
+      }
+      
+      //no improving move is left
+      int count=cities.length;
+      for(int i=0; i<count; i++) {
+         for(int j=i+2; j<count; j++) {
+            double gain=cities[i].distance(cities[i+1])+cities[j].distance(cities[(j+1)%count])
+                  -cities[i].distance(cities[j])-cities[i+1].distance(cities[(j+1)%count]);
+            assertTrue(gain<=GreedyCrossoverHibrid2OptEngine.MIN_2OPT_GAIN);
+         }
+      }
+   }
+}
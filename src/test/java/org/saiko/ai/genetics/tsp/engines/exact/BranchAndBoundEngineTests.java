@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp.engines.exact;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.saiko.ai.genetics.tsp.City;
+import org.saiko.ai.genetics.tsp.TSP;
+import org.saiko.ai.genetics.tsp.TSPChromosome;
+import org.saiko.ai.genetics.tsp.TSPStopSignal;
+import org.saiko.ai.genetics.tsp.TestMaps;
+import org.saiko.ai.genetics.tsp.TourPolisher;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ * BranchAndBoundEngine TestCase
+ * @see org.saiko.ai.genetics.tsp.engines.exact.BranchAndBoundEngine
+ */
+public class BranchAndBoundEngineTests extends TestCase {
+
+   /**
+    * Test routine - the same tours as Held-Karp on random maps
+    */
+   public void testEngine() {
+      TSP tsp=new TSP();
+      Random rnd=new Random(1);
+      for(int map=0; map<5; map++) {
+         City[] gene=TestMaps.random(tsp.configuration,12,rnd);
+
+         HeldKarpEngine heldKarp=new HeldKarpEngine();
+         heldKarp.initialize(tsp.configuration,gene);
+         heldKarp.nextGeneration();
+
+         BranchAndBoundEngine e=new BranchAndBoundEngine();
+         e.initialize(tsp.configuration,gene);
+         e.nextGeneration();
+         assertTrue(e.isSolved());
+         assertEquals(heldKarp.getBestChromosome().getTotalCost(),e.getBestChromosome().getTotalCost(),1e-6);
+      }
+   }
+
+   /**
+    * Random maps of 40 cities are solved in less than a second, the optimal
+    * tour is not longer than the polished tours
+    */
+   public void testBiggerMaps() {
+      TSP tsp=new TSP();
+      Random rnd=new Random(1);
+      for(int map=0; map<3; map++) {
+         City[] gene=TestMaps.random(tsp.configuration,40,rnd);
+
+         BranchAndBoundEngine e=new BranchAndBoundEngine();
+         e.initialize(tsp.configuration,gene);
+         e.nextGeneration();
+         assertTrue(e.isSolved());
+         double optimum=e.getBestChromosome().getTotalCost();
+         for(int start=0; start<10; start++) {
+            City tour[]=gene.clone();
+            Collections.shuffle(Arrays.asList(tour),rnd);
+            TourPolisher.polish(tour);
+            assertTrue(optimum<=new TSPChromosome(tour).getTotalCost()+1e-6);
+         }
+      }
+   }
+
+   /**
+    * The stopped search keeps the best tour found
+    */
+   public void testStopSignal() {
+      TSP tsp=new TSP();
+      Random rnd=new Random(2);
+      City[] gene=TestMaps.random(tsp.configuration,BranchAndBoundEngine.MAX_CITIES,rnd);
+
+      BranchAndBoundEngine e=new BranchAndBoundEngine();
+      final long deadline=System.currentTimeMillis()+200;
+      e.setStopSignal(new TSPStopSignal() {
+         @Override
+         public boolean isStopRequested() {
+            return System.currentTimeMillis()>=deadline;
+         }
+      });
+      e.initialize(tsp.configuration,gene);
+      double first=e.getBestChromosome().getTotalCost();
+      long time=System.currentTimeMillis();
+      e.nextGeneration();
+      assertTrue(System.currentTimeMillis()-time<5000);
+      assertFalse(e.isSolved());
+      assertEquals(gene.length,e.getBestChromosome().getCities().length);
+      assertTrue(e.getBestChromosome().getTotalCost()<=first);
+   }
+
+   /**
+    * Test of the map too big for the search
+    */
+   public void testTooManyCities() {
+      TSP tsp=new TSP();
+      City[] gene=new City[BranchAndBoundEngine.MAX_CITIES+1];
+      for(int i=0; i<gene.length; i++) {
+         gene[i]=new City(i,tsp.configuration,"c"+i,i,i*i);
+      }
+      try {
+         new BranchAndBoundEngine().initialize(tsp.configuration,gene);
+         fail();
+      } catch(IllegalArgumentException e) {
+         //expected
+      }
+   }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp.engines.exact;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.saiko.ai.genetics.tsp.City;
+import org.saiko.ai.genetics.tsp.TSP;
+import org.saiko.ai.genetics.tsp.TSPStopSignal;
+import org.saiko.ai.genetics.tsp.TestMaps;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ * HeldKarpEngine TestCase
+ * @see org.saiko.ai.genetics.tsp.engines.exact.HeldKarpEngine
+ */
+public class HeldKarpEngineTests extends TestCase {
+
+   /**
+    * Test routine
+    */
+   public void testEngine() {
+      TSP tsp=new TSP();
+      Random rnd=new Random(1);
+      City[] gene=TestMaps.random(tsp.configuration,8,rnd);
+
+      HeldKarpEngine e=new HeldKarpEngine();
+      e.initialize(tsp.configuration,gene);
+      assertEquals(1,e.getPopulationSize());
+      assertFalse(e.isSolved());
+      e.nextGeneration();
+      assertTrue(e.isSolved());
+
+      //all the tours from the city 0
+      int tour[]=new int[gene.length];
+      boolean visited[]=new boolean[gene.length];
+      visited[0]=true;
+      assertEquals(bruteForce(e,tour,visited,1),e.getBestChromosome().getTotalCost(),1e-6);
+   }
+
+   /**
+    * The stopped solver continues in the next generation
+    */
+   public void testStopSignal() {
+      TSP tsp=new TSP();
+      Random rnd=new Random(2);
+      City[] gene=TestMaps.random(tsp.configuration,8,rnd);
+
+      HeldKarpEngine e=new HeldKarpEngine();
+      //raised after three subset sizes
+      e.setStopSignal(new TSPStopSignal() {
+         int checks=0;
+         @Override
+         public boolean isStopRequested() {
+            return ++checks>3;
+         }
+      });
+      e.initialize(tsp.configuration,gene);
+      e.nextGeneration();
+      assertFalse(e.isSolved());
+      assertEquals(4,e.subsetSize);
+
+      e.setStopSignal(TSPStopSignal.NEVER);
+      e.nextGeneration();
+      assertTrue(e.isSolved());
+      int tour[]=new int[gene.length];
+      boolean visited[]=new boolean[gene.length];
+      visited[0]=true;
+      assertEquals(bruteForce(e,tour,visited,1),e.getBestChromosome().getTotalCost(),1e-6);
+   }
+
+   /**
+    * Test of the map too big for the table
+    */
+   public void testTooManyCities() {
+      TSP tsp=new TSP();
+      City[] gene=new City[HeldKarpEngine.MAX_CITIES+1];
+      for(int i=0; i<gene.length; i++) {
+         gene[i]=new City(i,tsp.configuration,"c"+i,i,i*i);
+      }
+      try {
+         new HeldKarpEngine().initialize(tsp.configuration,gene);
+         fail();
+      } catch(IllegalArgumentException e) {
+         //expected
+      }
+   }
+
+   /**
+    * @return cost of the best tour beginning with the path
+    */
+   static double bruteForce(ExactEngine e, int tour[], boolean visited[], int depth) {
+      if(depth==tour.length) {
+         return e.cost(tour);
+      }
+      double best=Double.MAX_VALUE;
+      for(int i=1; i<tour.length; i++) {
+         if(!visited[i]) {
+            visited[i]=true;
+            tour[depth]=i;
+            best=Math.min(best,bruteForce(e,tour,visited,depth+1));
+            visited[i]=false;
+         }
+      }
+      return best;
+   }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp.engines.island;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.saiko.ai.genetics.tsp.City;
+import org.saiko.ai.genetics.tsp.TSP;
+import org.saiko.ai.genetics.tsp.TSPChromosome;
+import org.saiko.ai.genetics.tsp.TSPConfiguration;
+import org.saiko.ai.genetics.tsp.TSPMigratingEngine;
+import org.saiko.ai.genetics.tsp.TSPPopulationEngine;
+import org.saiko.ai.genetics.tsp.TestMaps;
+import org.saiko.ai.genetics.tsp.engines.simpleUnisexMutator.SimpleUnisexMutatorEngine;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ * IslandModelEngine TestCase
+ * @see org.saiko.ai.genetics.tsp.engines.island.IslandModelEngine
+ */
+public class IslandModelEngineTests extends TestCase {
+
+   /**
+    * Test routine
+    */
+   public void testEngine() {
+      TSP tsp=new TSP();
+      
+      City c1=new City(0,tsp.configuration,"a",1,1);
+      City c2=new City(1,tsp.configuration,"b",2,1);
+      City c3=new City(2,tsp.configuration,"c",2,2);
+      City c4=new City(3,tsp.configuration,"d",1,2);
+      
+      City[] gene=new City[]{
+            c1, c2, c3, c4
+      };
+
+      City.initDistanceCache(gene.length);
+      
+      IslandModelEngine e=new IslandModelEngine();
+      tsp.configuration.setInitialPopulationSize(1000);
+      tsp.configuration.setIslandCount(4);
+      tsp.configuration.setMigrationInterval(2);
+      tsp.configuration.setMigrationTopology(TSPConfiguration.MigrationTopology.RANDOM);
+      e.initialize(tsp.configuration,gene);
+      assertEquals(4,e.getIslands().length);
+      assertEquals(1000,e.getPopulationSize());
+      for(int i=0; i<20; i++) {
+    	  e.nextGeneration();
+      }
+      assertTrue(e.getBestChromosome().getTotalDistance()==4.0);
+   }
+
+   /**
+    * The best chromosomes of each island move to the next island of the ring
+    */
+   public void testMigration() {
+      TSP tsp=new TSP(false);
+      City[] gene=TestMaps.random(tsp.configuration,100,new Random(1));
+
+      IslandModelEngine e=new IslandModelEngine();
+      tsp.configuration.setInitialPopulationSize(200);
+      tsp.configuration.setIslandCount(2);
+      tsp.configuration.setIslandEngineClass(SimpleUnisexMutatorEngine.class);
+      tsp.configuration.setMigrationSize(2);
+      tsp.configuration.setMigrationInterval(1);
+      tsp.configuration.setMigrationTopology(TSPConfiguration.MigrationTopology.RING);
+      e.initialize(tsp.configuration,gene);
+      TSPMigratingEngine islands[]=e.getIslands();
+      City best0[]=islands[0].getBestChromosome().getCities();
+      City best1[]=islands[1].getBestChromosome().getCities();
+      assertFalse(contains(islands[1],best0));
+      assertFalse(contains(islands[0],best1));
+
+      //migration after the generation
+      e.nextGeneration();
+      assertTrue(contains(islands[1],best0));
+      assertTrue(contains(islands[0],best1));
+   }
+
+   /**
+    * @param island
+    * @param tour
+    * @return true if the population of the island contains the tour
+    */
+   protected boolean contains(TSPMigratingEngine island, City tour[]) {
+      List<TSPChromosome> population=((TSPPopulationEngine)island).getPopulation();
+      for(TSPChromosome chromosome: population) {
+         if(Arrays.equals(chromosome.getCities(),tour)) {
+            return true;
+         }
+      }
+      return false;
+   }
+
+   /**
+    * The island model can not run on the islands
+    */
+   public void testNestedIslands() {
+      TSP tsp=new TSP(false);
+      try {
+         tsp.configuration.setIslandEngineClass(IslandModelEngine.class);
+         fail();
+      } catch(IllegalArgumentException e) {
+         //expected
+      }
+      assertFalse(IslandModelEngine.isIslandEngine(IslandModelEngine.class));
+      assertTrue(IslandModelEngine.isIslandEngine(SimpleUnisexMutatorEngine.class));
+   }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp.engines.simpleUnisexMutator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.saiko.ai.genetics.tsp.City;
+import org.saiko.ai.genetics.tsp.TSP;
+import org.saiko.ai.genetics.tsp.TSPChromosome;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ * AdaptiveController TestCase
+ * @see org.saiko.ai.genetics.tsp.engines.simpleUnisexMutator.AdaptiveController
+ */
+public class AdaptiveControllerTests extends TestCase {
+
+   /**
+    * Test routine
+    */
+   public void testController() {
+      TSP tsp=new TSP();
+      tsp.configuration.setInitialPopulationSize(100);
+      tsp.configuration.setMutationRatio(0.1);
+      tsp.configuration.setPopulationGrow(0);
+
+      City[] gene=new City[8];
+      for(int i=0; i<gene.length; i++) {
+         gene[i]=new City(i,tsp.configuration,"c"+i,i,i*i);
+      }
+      City.initDistanceCache(gene);
+
+      //the same tours - no diversity
+      List<TSPChromosome> population=new ArrayList<>();
+      for(int i=0; i<100; i++) {
+         population.add(new TSPChromosome(gene));
+      }
+      AdaptiveController controller=new AdaptiveController(tsp.configuration);
+      controller.update(population);
+      assertEquals(0.01,controller.getDiversity(),1e-9);
+      assertTrue(controller.getMutationRatio()>0.1);
+      assertTrue(controller.getPopulationSize()>100);
+
+      //no improvement - the population shrinks to its minimum
+      for(int i=0; i<100; i++) {
+         controller.update(population);
+      }
+      assertEquals(25,controller.getPopulationSize());
+      assertEquals(1.0,controller.getMutationRatio(),1e-9);
+
+      //engine with adaptive parameters
+      tsp.configuration.setAdaptive(true);
+      SimpleUnisexMutatorEngine e=new SimpleUnisexMutatorEngine();
+      e.setThreadCount(1);
+      e.initialize(tsp.configuration,gene);
+      assertNotNull(e.getAdaptiveController());
+      for(int i=0; i<20; i++) {
+         e.nextGeneration();
+      }
+      assertEquals(e.getAdaptiveController().getPopulationSize(),e.getPopulationSize());
+   }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp.engines.simulatedAnnealing;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import org.saiko.ai.genetics.tsp.City;
+import org.saiko.ai.genetics.tsp.TSP;
+import org.saiko.ai.genetics.tsp.TestMaps;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ * SimulatedAnnealingEngine TestCase
+ * @see org.saiko.ai.genetics.tsp.engines.simulatedAnnealing.SimulatedAnnealingEngine
+ */
+public class SimulatedAnnealingEngineTests extends TestCase {
+
+   /**
+    * Test routine
+    */
+   public void testEngine() {
+      TSP tsp=new TSP();
+      
+      //cities on the border of 3x3 square, the best tour is 12
+      City[] gene=TestMaps.square(tsp.configuration);
+      
+      SimulatedAnnealingEngine e=new SimulatedAnnealingEngine();
+      tsp.configuration.setAnnealingChains(2);
+      e.initialize(tsp.configuration,gene);
+      assertEquals(2,e.getPopulationSize());
+      assertNotNull(e.getBestChromosome());
+      for(int i=0; i<100; i++) {
+         e.nextGeneration();
+      }
+      assertEquals(12.0,e.getBestChromosome().getTotalDistance(),1e-9);
+
+      //the moves keep the tours valid and the costs computed from deltas right
+      for(SimulatedAnnealingEngine.Chain chain: e.getChains()) {
+         Set<City> visited=new HashSet<>();
+         for(City city: chain.tour) {
+            visited.add(city);
+         }
+         assertEquals(gene.length,visited.size());
+         assertEquals(SimulatedAnnealingEngine.cost(chain.tour),chain.cost,1e-9);
+      }
+   }
+}
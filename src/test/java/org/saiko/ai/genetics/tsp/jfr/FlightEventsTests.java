@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2013 dusan.saiko@gmail.com
+ */
+package org.saiko.ai.genetics.tsp.jfr;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.List;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import junit.framework.TestCase;
+
+import org.saiko.ai.genetics.tsp.City;
+
+/**
+ * @author dusan.saiko@gmail.com
+ *
+ * FlightEvents TestCase
+ * @see org.saiko.ai.genetics.tsp.jfr.FlightEvents
+ */
+public class FlightEventsTests extends TestCase {
+
+   /**
+    * Without recording no event is begun
+    */
+   public void testNotRecording() {
+      assertNull(FlightEvents.beginGeneration());
+      assertNull(FlightEvents.beginLocalSearch());
+      FlightEvents.endLocalSearch(null,"2opt",10);
+   }
+
+   /**
+    * The events are in the recording
+    */
+   public void testRecording() throws Exception {
+      File file=File.createTempFile("tsp",".jfr");
+      try(Recording recording=new Recording()) {
+         recording.enable(GenerationEvent.class);
+         recording.enable(BestTourEvent.class);
+         recording.enable(DistanceMatrixEvent.class);
+         recording.enable(LocalSearchEvent.class).withThreshold(Duration.ofMillis(20));
+         recording.start();
+
+         Object generation=FlightEvents.beginGeneration();
+         assertNotNull(generation);
+         FlightEvents.endGeneration(generation,7,"TestEngine",100);
+         FlightEvents.newBestTour(7,1234,1234);
+         City.initDistanceCache(30);
+         // below the threshold
+         FlightEvents.endLocalSearch(FlightEvents.beginLocalSearch(),"2opt",30);
+         Object search=FlightEvents.beginLocalSearch();
+         Thread.sleep(30);
+         FlightEvents.endLocalSearch(search,"polish",30);
+
+         recording.stop();
+         recording.dump(file.toPath());
+      }
+      try {
+         List<RecordedEvent> events=RecordingFile.readAllEvents(file.toPath());
+         assertEquals(4,events.size());
+         for(RecordedEvent event: events) {
+            String name=event.getEventType().getName();
+            if(name.equals("org.saiko.tsp.Generation")) {
+               assertEquals(7,event.getInt("generation"));
+               assertEquals("TestEngine",event.getString("engine"));
+               assertEquals(100,event.getInt("populationSize"));
+            } else if(name.equals("org.saiko.tsp.BestTour")) {
+               assertEquals(1234.0,event.getDouble("distance"));
+            } else if(name.equals("org.saiko.tsp.DistanceMatrix")) {
+               assertEquals(30,event.getInt("cities"));
+            } else {
+               assertEquals("org.saiko.tsp.LocalSearch",name);
+               assertEquals("polish",event.getString("method"));
+            }
+         }
+      } finally {
+         file.delete();
+      }
+   }
+}